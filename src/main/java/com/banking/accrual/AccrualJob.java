@@ -0,0 +1,453 @@
+package com.banking.accrual;
+
+import com.banking.dao.AccountRepository;
+import com.banking.dao.AccountSnapshot;
+import com.banking.dao.IdRangeTask;
+import com.banking.dao.InMemoryAccountRepository;
+import com.banking.entities.Account;
+import com.banking.entities.AccountState;
+import com.banking.entities.CreditScoreAccount;
+import com.banking.entities.VersionClock;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.zip.CRC32;
+
+/**
+ * End-of-day interest and fee accrual
+ *
+ * A run has three steps. First, the id space is split by {@link IdRangeTask}
+ * on a fork/join pool, as in bulk credit scoring, and each leaf computes the
+ * postings of its accounts from the balances and statuses committed at a
+ * single snapshot, so every account is accrued on its end-of-day state
+ * whatever runs concurrently. With the in-memory repository the leaves walk
+ * an {@link AccountSnapshot}, so accounts opened after the snapshot wait for
+ * the next day and accounts removed since are skipped; other repositories
+ * only version balances, so their leaves walk the live accounts. Second, all postings are written as one
+ * batch journal per business date: written to a temporary file, synced and
+ * moved into place, so it exists whole or not at all. Third, the leaves
+ * post their accounts in parallel, one {@link Account#postAccrualCents(long)}
+ * commit per account for interest and fee together. After each commit the
+ * amount actually posted is appended to the journal, so a fee cut short by
+ * the balance is on record, and each leaf syncs its records before it
+ * finishes. A final marker records that the whole batch was applied.
+ *
+ * A business date whose journal exists is never run again. If the process
+ * stopped between the journal and the applied marker, the run is refused
+ * until the journal has been reconciled: {@link #readJournal(Path)} gives
+ * the computed postings and {@link #readApplied(Path)} the accounts already
+ * posted.
+ */
+public class AccrualJob {
+
+    public static final int DEFAULT_LEAF_SPAN = 4096;
+
+    private static final int MAGIC = 0x4143524C;
+    private static final byte APPLIED = 1;
+    // Header: magic, epoch day, count; each posting: id, interest, fee; then the CRC;
+    // then one record per posted account: id, cents posted; then the applied marker
+    private static final int HEADER_BYTES = 4 + 8 + 4;
+    private static final int POSTING_BYTES = 4 + 8 + 8;
+    private static final int APPLIED_BYTES = 4 + 8;
+
+    private final AccountRepository repository;
+    private final Path journalDirectory;
+    private final AccrualPolicy policy;
+    private final int parallelism;
+    private final int leafSpan;
+
+    /**
+     * Default policy on every core
+     * @param repository Accounts to accrue
+     * @param journalDirectory Directory for the batch journals
+     */
+    public AccrualJob(AccountRepository repository, Path journalDirectory) {
+        this(repository, journalDirectory, AccrualPolicy.DEFAULT, Runtime.getRuntime().availableProcessors(),
+                DEFAULT_LEAF_SPAN);
+    }
+
+    /**
+     * @param repository Accounts to accrue
+     * @param journalDirectory Directory for the batch journals
+     * @param policy Interest and fee rates
+     * @param parallelism Worker threads
+     * @param leafSpan Largest id range handled by one task
+     */
+    public AccrualJob(AccountRepository repository, Path journalDirectory, AccrualPolicy policy,
+                      int parallelism, int leafSpan) {
+        if (parallelism <= 0 || leafSpan <= 0) {
+            throw new IllegalArgumentException("Parallelism and leaf span must be positive");
+        }
+        this.repository = repository;
+        this.journalDirectory = journalDirectory;
+        this.policy = policy;
+        this.parallelism = parallelism;
+        this.leafSpan = leafSpan;
+    }
+
+    /**
+     * Accrue one business day
+     * @param businessDate Day to accrue
+     * @return Totals of the run
+     * @throws IllegalStateException if the day already has a journal
+     */
+    public AccrualReport run(LocalDate businessDate) {
+        long started = System.nanoTime();
+        Path journal = journalFile(businessDate);
+        if (Files.exists(journal)) {
+            throw new IllegalStateException(isApplied(journal)
+                    ? "Accrual for " + businessDate + " was already posted"
+                    : "Accrual for " + businessDate + " was journaled but not confirmed as posted; reconcile first");
+        }
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            List<Leaf> leaves;
+            AccountSnapshot view = repository instanceof InMemoryAccountRepository
+                    ? ((InMemoryAccountRepository) repository).openSnapshot() : null;
+            long snapshot = view != null ? view.getStamp() : VersionClock.openSnapshot();
+            try {
+                leaves = pool.invoke(new ComputeTask(view, snapshot, IdRangeTask.FIRST_ID, IdRangeTask.END_ID));
+            } finally {
+                if (view != null) {
+                    view.close();
+                } else {
+                    VersionClock.closeSnapshot(snapshot);
+                }
+            }
+            writeJournal(journal, businessDate, leaves);
+
+            long uncollected;
+            try (FileChannel channel = FileChannel.open(journal, StandardOpenOption.WRITE,
+                    StandardOpenOption.APPEND)) {
+                List<PostTask> posts = new ArrayList<>(leaves.size());
+                for (Leaf leaf : leaves) {
+                    posts.add(new PostTask(leaf, channel));
+                }
+                uncollected = pool.invoke(new RecursiveTask<Long>() {
+                    private static final long serialVersionUID = 1L;
+
+                    @Override
+                    protected Long compute() {
+                        long total = 0;
+                        for (PostTask task : invokeAll(posts)) {
+                            total += task.join();
+                        }
+                        return total;
+                    }
+                });
+                channel.write(ByteBuffer.wrap(new byte[] {APPLIED}));
+                channel.force(false);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Cannot confirm accrual journal " + journal, e);
+            }
+
+            long scanned = 0;
+            long postings = 0;
+            long interest = 0;
+            long fees = 0;
+            for (Leaf leaf : leaves) {
+                scanned += leaf.scanned;
+                for (AccrualPosting posting : leaf.postings) {
+                    postings++;
+                    interest += posting.getInterestCents();
+                    fees += posting.getFeeCents();
+                }
+            }
+            return new AccrualReport(businessDate, journal, scanned, postings, interest, fees, uncollected,
+                    (System.nanoTime() - started) / 1_000_000L);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * @param businessDate Business day
+     * @return Path of the day's batch journal
+     */
+    public Path journalFile(LocalDate businessDate) {
+        return journalDirectory.resolve("accrual-" + businessDate + ".journal");
+    }
+
+    /**
+     * Read back the postings of a batch journal
+     * @param journal Journal file
+     * @return Postings in account id order
+     * @throws UncheckedIOException if the file is unreadable or fails its checksum
+     */
+    public static List<AccrualPosting> readJournal(Path journal) {
+        try (InputStream file = Files.newInputStream(journal);
+             DataInputStream in = new DataInputStream(file)) {
+            if (in.readInt() != MAGIC) {
+                throw new IOException("Not an accrual journal");
+            }
+            in.readLong();
+            int count = in.readInt();
+            List<AccrualPosting> postings = new ArrayList<>(count);
+            CRC32 crc = new CRC32();
+            ByteBuffer record = ByteBuffer.allocate(POSTING_BYTES);
+            for (int i = 0; i < count; i++) {
+                in.readFully(record.array());
+                crc.update(record.array());
+                record.clear();
+                postings.add(new AccrualPosting(record.getInt(), record.getLong(), record.getLong()));
+            }
+            if (in.readLong() != crc.getValue()) {
+                throw new IOException("Checksum mismatch");
+            }
+            return postings;
+        } catch (EOFException e) {
+            throw new UncheckedIOException("Truncated accrual journal " + journal, e);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot read accrual journal " + journal, e);
+        }
+    }
+
+    /**
+     * Read back the amounts a batch actually posted
+     * Only complete records count; an account missing from the result was
+     * not confirmed as posted.
+     * @param journal Journal file
+     * @return Cents posted by account id, in id order; a fee cut short by the balance shows its posted part
+     * @throws UncheckedIOException if the file is unreadable
+     */
+    public static Map<Integer, Long> readApplied(Path journal) {
+        try (FileChannel channel = FileChannel.open(journal, StandardOpenOption.READ)) {
+            int count = postingCount(channel);
+            long start = appliedStart(count);
+            long available = Math.max(0, (channel.size() - start) / APPLIED_BYTES);
+            int records = (int) Math.min(count, available);
+            ByteBuffer buffer = ByteBuffer.allocate(records * APPLIED_BYTES);
+            while (buffer.hasRemaining() && channel.read(buffer, start + buffer.position()) >= 0) {
+                // keep reading until every complete record is buffered
+            }
+            buffer.flip();
+            Map<Integer, Long> applied = new TreeMap<>();
+            for (int i = 0; i < records; i++) {
+                applied.put(buffer.getInt(), buffer.getLong());
+            }
+            return applied;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot read accrual journal " + journal, e);
+        }
+    }
+
+    /**
+     * @param journal Journal file
+     * @return true if every posting of the journal was confirmed as applied
+     */
+    public static boolean isApplied(Path journal) {
+        try (FileChannel channel = FileChannel.open(journal, StandardOpenOption.READ)) {
+            if (channel.size() < HEADER_BYTES) {
+                return false;
+            }
+            int count = postingCount(channel);
+            long marker = appliedStart(count) + (long) count * APPLIED_BYTES;
+            ByteBuffer applied = ByteBuffer.allocate(1);
+            return channel.size() == marker + 1 && channel.read(applied, marker) == 1 && applied.get(0) == APPLIED;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot read accrual journal " + journal, e);
+        }
+    }
+
+    private static int postingCount(FileChannel channel) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+        while (header.hasRemaining()) {
+            if (channel.read(header, header.position()) < 0) {
+                throw new EOFException("Truncated accrual journal header");
+            }
+        }
+        if (header.getInt(0) != MAGIC) {
+            throw new IOException("Not an accrual journal");
+        }
+        return header.getInt(12);
+    }
+
+    private static long appliedStart(int count) {
+        return HEADER_BYTES + (long) count * POSTING_BYTES + 8;
+    }
+
+    private void writeJournal(Path journal, LocalDate businessDate, List<Leaf> leaves) {
+        int count = 0;
+        for (Leaf leaf : leaves) {
+            count += leaf.postings.size();
+        }
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(HEADER_BYTES + count * POSTING_BYTES + 8);
+        CRC32 crc = new CRC32();
+        try {
+            DataOutputStream out = new DataOutputStream(bytes);
+            out.writeInt(MAGIC);
+            out.writeLong(businessDate.toEpochDay());
+            out.writeInt(count);
+            ByteBuffer record = ByteBuffer.allocate(POSTING_BYTES);
+            for (Leaf leaf : leaves) {
+                for (AccrualPosting posting : leaf.postings) {
+                    record.clear();
+                    record.putInt(posting.getAccountId()).putLong(posting.getInterestCents())
+                            .putLong(posting.getFeeCents());
+                    crc.update(record.array());
+                    out.write(record.array());
+                }
+            }
+            out.writeLong(crc.getValue());
+            Files.createDirectories(journalDirectory);
+            Path temp = journal.resolveSibling(journal.getFileName() + ".tmp");
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE,
+                    StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+                ByteBuffer buffer = ByteBuffer.wrap(bytes.toByteArray());
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+                channel.force(true);
+            }
+            Files.move(temp, journal, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot write accrual journal " + journal, e);
+        }
+    }
+
+    /**
+     * Postings of one id range, with the accounts they go to
+     */
+    private static final class Leaf {
+        final List<Account> accounts = new ArrayList<>();
+        final List<AccrualPosting> postings = new ArrayList<>();
+        long scanned;
+    }
+
+    /**
+     * Computes the postings of one id range at a snapshot
+     */
+    private class ComputeTask extends IdRangeTask<List<Leaf>> {
+        private static final long serialVersionUID = 1L;
+        // Null unless the repository keeps snapshot membership
+        private final transient AccountSnapshot view;
+        private final long snapshot;
+
+        ComputeTask(AccountSnapshot view, long snapshot, long from, long to) {
+            super(AccrualJob.this.repository, from, to, leafSpan);
+            this.view = view;
+            this.snapshot = snapshot;
+        }
+
+        @Override
+        protected IdRangeTask<List<Leaf>> subtask(long lo, long hi) {
+            return new ComputeTask(view, snapshot, lo, hi);
+        }
+
+        @Override
+        protected List<Leaf> empty() {
+            return new ArrayList<>();
+        }
+
+        @Override
+        protected List<Leaf> merge(List<Leaf> low, List<Leaf> high) {
+            low.addAll(high);
+            return low;
+        }
+
+        @Override
+        protected List<Leaf> computeLeaf() {
+            List<Leaf> leaves = new ArrayList<>(1);
+            Leaf leaf = computeRange();
+            if (leaf.scanned > 0) {
+                leaves.add(leaf);
+            }
+            return leaves;
+        }
+
+        private Leaf computeRange() {
+            Leaf leaf = new Leaf();
+            if (view != null) {
+                view.forEach(from, to, (account, state) -> {
+                    // Removed or replaced since the snapshot, so there is nothing left to post to
+                    if (repository.findById(account.getId()) == account) {
+                        accrue(leaf, account, state);
+                    }
+                });
+                return leaf;
+            }
+            for (Account account : accounts()) {
+                AccountState state = account.getStateAt(snapshot);
+                if (state == null) {
+                    // Every account starts with a version stamped 0, so this only
+                    // happens if no version visible to the snapshot was retained
+                    continue;
+                }
+                accrue(leaf, account, state);
+            }
+            return leaf;
+        }
+
+        private void accrue(Leaf leaf, Account account, AccountState state) {
+            leaf.scanned++;
+            // The score comes from the same committed version as the balance and status
+            int score = account instanceof CreditScoreAccount ? state.getCreditScore() : -1;
+            long interest = policy.interestCents(state, score);
+            long fee = policy.feeCents(state);
+            if (interest != 0 || fee != 0) {
+                leaf.accounts.add(account);
+                leaf.postings.add(new AccrualPosting(account.getId(), interest, fee));
+            }
+        }
+    }
+
+    /**
+     * Posts one leaf's accounts and journals what each commit posted; returns the fees the balances could not cover
+     */
+    private class PostTask extends RecursiveTask<Long> {
+        private static final long serialVersionUID = 1L;
+        private final Leaf leaf;
+        private final FileChannel channel;
+
+        PostTask(Leaf leaf, FileChannel channel) {
+            this.leaf = leaf;
+            this.channel = channel;
+        }
+
+        @Override
+        protected Long compute() {
+            long uncollected = 0;
+            ByteBuffer record = ByteBuffer.allocate(APPLIED_BYTES);
+            try {
+                for (int i = 0; i < leaf.postings.size(); i++) {
+                    Account account = leaf.accounts.get(i);
+                    long net = leaf.postings.get(i).getNetCents();
+                    long posted = account.postAccrualCents(net);
+                    if (net < 0) {
+                        uncollected += posted - net;
+                    }
+                    if (posted != 0) {
+                        repository.save(account);
+                    }
+                    // One append per record, so records of concurrent leaves never interleave
+                    record.clear();
+                    record.putInt(account.getId()).putLong(posted).flip();
+                    while (record.hasRemaining()) {
+                        channel.write(record);
+                    }
+                }
+                channel.force(false);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Cannot journal accrual postings", e);
+            }
+            return uncollected;
+        }
+    }
+}
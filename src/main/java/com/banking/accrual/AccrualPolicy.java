@@ -0,0 +1,107 @@
+package com.banking.accrual;
+
+import com.banking.entities.Account.AccountStatus;
+import com.banking.entities.AccountState;
+import com.banking.entities.Money;
+
+/**
+ * Daily interest and fee rates
+ *
+ * Verified accounts earn the annual rate on a positive balance, one 365th a
+ * day, rounded down to the cent. Credit score accounts at or above the bonus
+ * score earn the bonus rate on top. A verified account below the minimum
+ * balance pays the low-balance fee; a suspended account pays the suspended
+ * fee and earns nothing. Unverified accounts neither earn nor pay, and
+ * closed accounts are never posted to.
+ */
+public final class AccrualPolicy {
+
+    public static final int DAYS_PER_YEAR = 365;
+    private static final long BPS_DAYS = 10_000L * DAYS_PER_YEAR;
+
+    public static final AccrualPolicy DEFAULT = new AccrualPolicy(200, 50, 750,
+            100 * Money.SCALE, 10, 50);
+
+    private final int annualRateBps;
+    private final int creditBonusBps;
+    private final int creditBonusScore;
+    private final long minimumBalanceCents;
+    private final long lowBalanceFeeCents;
+    private final long suspendedFeeCents;
+
+    /**
+     * @param annualRateBps Annual interest of verified accounts, in basis points
+     * @param creditBonusBps Extra annual interest for high credit scores, in basis points
+     * @param creditBonusScore Lowest credit score that earns the bonus
+     * @param minimumBalanceCents Balance below which verified accounts pay the low-balance fee
+     * @param lowBalanceFeeCents Daily fee below the minimum balance
+     * @param suspendedFeeCents Daily fee of suspended accounts
+     */
+    public AccrualPolicy(int annualRateBps, int creditBonusBps, int creditBonusScore, long minimumBalanceCents,
+                         long lowBalanceFeeCents, long suspendedFeeCents) {
+        if (annualRateBps < 0 || creditBonusBps < 0 || annualRateBps + creditBonusBps > 10_000
+                || minimumBalanceCents < 0 || lowBalanceFeeCents < 0 || suspendedFeeCents < 0) {
+            throw new IllegalArgumentException("Rates must be between 0 and 10000 bps and fees non-negative");
+        }
+        this.annualRateBps = annualRateBps;
+        this.creditBonusBps = creditBonusBps;
+        this.creditBonusScore = creditBonusScore;
+        this.minimumBalanceCents = minimumBalanceCents;
+        this.lowBalanceFeeCents = lowBalanceFeeCents;
+        this.suspendedFeeCents = suspendedFeeCents;
+    }
+
+    /**
+     * @param state Balance and status to accrue on
+     * @param creditScore Credit score, or -1 for accounts without one
+     * @return Interest for one day in cents
+     */
+    public long interestCents(AccountState state, int creditScore) {
+        long balance = state.getBalanceCents();
+        if (state.getStatus() != AccountStatus.Verified || balance <= 0) {
+            return 0;
+        }
+        long bps = annualRateBps + (creditScore >= creditBonusScore ? creditBonusBps : 0);
+        // Split the balance so the product cannot overflow
+        return balance / BPS_DAYS * bps + balance % BPS_DAYS * bps / BPS_DAYS;
+    }
+
+    /**
+     * @param state Balance and status to charge on
+     * @return Fee for one day in cents
+     */
+    public long feeCents(AccountState state) {
+        switch (state.getStatus()) {
+            case Verified:
+                return state.getBalanceCents() < minimumBalanceCents ? lowBalanceFeeCents : 0;
+            case Suspended:
+                return suspendedFeeCents;
+            default:
+                return 0;
+        }
+    }
+
+    public int getAnnualRateBps() {
+        return annualRateBps;
+    }
+
+    public int getCreditBonusBps() {
+        return creditBonusBps;
+    }
+
+    public int getCreditBonusScore() {
+        return creditBonusScore;
+    }
+
+    public long getMinimumBalanceCents() {
+        return minimumBalanceCents;
+    }
+
+    public long getLowBalanceFeeCents() {
+        return lowBalanceFeeCents;
+    }
+
+    public long getSuspendedFeeCents() {
+        return suspendedFeeCents;
+    }
+}
@@ -0,0 +1,41 @@
+package com.banking.accrual;
+
+/**
+ * Interest and fee of one account for one business day
+ */
+public final class AccrualPosting {
+
+    private final int accountId;
+    private final long interestCents;
+    private final long feeCents;
+
+    public AccrualPosting(int accountId, long interestCents, long feeCents) {
+        this.accountId = accountId;
+        this.interestCents = interestCents;
+        this.feeCents = feeCents;
+    }
+
+    public int getAccountId() {
+        return accountId;
+    }
+
+    public long getInterestCents() {
+        return interestCents;
+    }
+
+    public long getFeeCents() {
+        return feeCents;
+    }
+
+    /**
+     * @return Balance change: interest minus fee
+     */
+    public long getNetCents() {
+        return interestCents - feeCents;
+    }
+
+    @Override
+    public String toString() {
+        return "AccrualPosting[" + accountId + ", interest=" + interestCents + ", fee=" + feeCents + "]";
+    }
+}
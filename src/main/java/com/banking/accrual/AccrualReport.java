@@ -0,0 +1,87 @@
+package com.banking.accrual;
+
+import com.banking.entities.Money;
+import java.nio.file.Path;
+import java.time.LocalDate;
+
+/**
+ * Totals of one end-of-day accrual run
+ */
+public class AccrualReport {
+
+    private final LocalDate businessDate;
+    private final Path journal;
+    private final long accountsScanned;
+    private final long postings;
+    private final long interestCents;
+    private final long feeCents;
+    private final long uncollectedFeeCents;
+    private final long elapsedMillis;
+
+    AccrualReport(LocalDate businessDate, Path journal, long accountsScanned, long postings, long interestCents,
+                  long feeCents, long uncollectedFeeCents, long elapsedMillis) {
+        this.businessDate = businessDate;
+        this.journal = journal;
+        this.accountsScanned = accountsScanned;
+        this.postings = postings;
+        this.interestCents = interestCents;
+        this.feeCents = feeCents;
+        this.uncollectedFeeCents = uncollectedFeeCents;
+        this.elapsedMillis = elapsedMillis;
+    }
+
+    public LocalDate getBusinessDate() {
+        return businessDate;
+    }
+
+    /**
+     * @return Batch journal of the run
+     */
+    public Path getJournal() {
+        return journal;
+    }
+
+    /**
+     * @return Accounts that existed at the start of the run
+     */
+    public long getAccountsScanned() {
+        return accountsScanned;
+    }
+
+    /**
+     * @return Accounts with interest or a fee, each posted once
+     */
+    public long getPostings() {
+        return postings;
+    }
+
+    public long getInterestCents() {
+        return interestCents;
+    }
+
+    /**
+     * @return Fees charged, as journaled
+     */
+    public long getFeeCents() {
+        return feeCents;
+    }
+
+    /**
+     * @return Part of the fees the balances could not cover by posting time
+     */
+    public long getUncollectedFeeCents() {
+        return uncollectedFeeCents;
+    }
+
+    public long getElapsedMillis() {
+        return elapsedMillis;
+    }
+
+    @Override
+    public String toString() {
+        return "AccrualReport[" + businessDate + ": " + postings + " postings over " + accountsScanned
+                + " accounts, interest " + Money.format(interestCents) + ", fees " + Money.format(feeCents)
+                + (uncollectedFeeCents > 0 ? " (" + Money.format(uncollectedFeeCents) + " uncollected)" : "")
+                + ", " + elapsedMillis + " ms]";
+    }
+}
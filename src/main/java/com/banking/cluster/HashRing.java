@@ -0,0 +1,148 @@
+package com.banking.cluster;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+/**
+ * Consistent-hash ring assigning account ids to nodes
+ *
+ * Each node is placed on the ring at virtualNodes points. An account belongs
+ * to the first point at or after the hash of its id, wrapping around, so
+ * adding or removing a node only moves the accounts adjacent to its points.
+ *
+ * Lookups take no lock: the points live in an immutable sorted array that
+ * membership changes rebuild and publish through a volatile field.
+ */
+public class HashRing {
+
+    public static final int DEFAULT_VIRTUAL_NODES = 128;
+
+    private final int virtualNodes;
+    private volatile Ring ring = new Ring(new long[0], new String[0], Collections.emptyList());
+
+    /**
+     * Ring points in ascending order, the node at each point and the nodes in joining order
+     */
+    private static final class Ring {
+        final long[] points;
+        final String[] owners;
+        final List<String> nodes;
+
+        Ring(long[] points, String[] owners, List<String> nodes) {
+            this.points = points;
+            this.owners = owners;
+            this.nodes = nodes;
+        }
+    }
+
+    public HashRing() {
+        this(DEFAULT_VIRTUAL_NODES);
+    }
+
+    /**
+     * @param virtualNodes Ring points per node
+     */
+    public HashRing(int virtualNodes) {
+        if (virtualNodes <= 0) {
+            throw new IllegalArgumentException("Virtual node count must be positive");
+        }
+        this.virtualNodes = virtualNodes;
+    }
+
+    /**
+     * Place a node on the ring
+     * @param nodeId Node name
+     */
+    public synchronized void addNode(String nodeId) {
+        if (ring.nodes.contains(nodeId)) {
+            return;
+        }
+        List<String> nodes = new ArrayList<>(ring.nodes);
+        nodes.add(nodeId);
+        ring = build(nodes);
+    }
+
+    /**
+     * Take a node off the ring
+     * @param nodeId Node name
+     */
+    public synchronized void removeNode(String nodeId) {
+        List<String> nodes = new ArrayList<>(ring.nodes);
+        if (nodes.remove(nodeId)) {
+            ring = build(nodes);
+        }
+    }
+
+    /**
+     * Lay out the points of a node list; on a hash collision the later node keeps the point
+     */
+    private Ring build(List<String> nodes) {
+        NavigableMap<Long, String> points = new TreeMap<>();
+        for (String node : nodes) {
+            for (int i = 0; i < virtualNodes; i++) {
+                points.put(hash(node + "#" + i), node);
+            }
+        }
+        long[] keys = new long[points.size()];
+        String[] owners = new String[points.size()];
+        int i = 0;
+        for (Map.Entry<Long, String> point : points.entrySet()) {
+            keys[i] = point.getKey();
+            owners[i++] = point.getValue();
+        }
+        return new Ring(keys, owners, Collections.unmodifiableList(nodes));
+    }
+
+    /**
+     * Find the node that owns an account
+     * @param accountId Account ID
+     * @return Node name
+     * @throws IllegalStateException if the ring is empty
+     */
+    public String nodeFor(int accountId) {
+        Ring current = ring;
+        if (current.points.length == 0) {
+            throw new IllegalStateException("No nodes on the hash ring");
+        }
+        int index = Arrays.binarySearch(current.points, mix(accountId));
+        if (index < 0) {
+            // Insertion point: the first point above the hash
+            index = -index - 1;
+        }
+        return current.owners[index < current.points.length ? index : 0];
+    }
+
+    public List<String> getNodes() {
+        return ring.nodes;
+    }
+
+    /**
+     * FNV-1a over the UTF-8 bytes, finished with the 64-bit mixer
+     */
+    static long hash(String key) {
+        long h = 0xcbf29ce484222325L;
+        for (byte b : key.getBytes(StandardCharsets.UTF_8)) {
+            h ^= b & 0xFF;
+            h *= 0x100000001b3L;
+        }
+        return mix(h);
+    }
+
+    /**
+     * Murmur3 finalizer; spreads sequential ids over the whole ring
+     */
+    static long mix(long h) {
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
@@ -0,0 +1,241 @@
+package com.banking.cluster;
+
+import com.banking.dao.AccountCodec;
+import com.banking.entities.Account;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetAddress;
+import java.net.Socket;
+
+/**
+ * Connection to one {@link PartitionNode}
+ *
+ * Calls are synchronous request/response on a single socket and are
+ * serialized per client. A broken connection is reported as an
+ * {@link UncheckedIOException} and reopened on the next call.
+ */
+public class NodeClient implements Closeable {
+
+    private final int port;
+    private Socket socket;
+    private DataInputStream in;
+    private DataOutputStream out;
+
+    /**
+     * @param port Port of a node on this machine
+     */
+    public NodeClient(int port) {
+        this.port = port;
+    }
+
+    public int getPort() {
+        return port;
+    }
+
+    /**
+     * Create an account on the node
+     * @return Copy of the created account, or null if the id is taken
+     */
+    public synchronized Account createCents(int id, String clientName, long initialBalanceCents) {
+        try {
+            DataOutputStream request = begin(PartitionNode.CREATE);
+            request.writeInt(id);
+            request.writeUTF(clientName);
+            request.writeLong(initialBalanceCents);
+            return readAccount();
+        } catch (IOException e) {
+            throw failed(e);
+        }
+    }
+
+    /**
+     * @return Current copy of an account, or null if the node does not have it
+     */
+    public synchronized Account get(int id) {
+        try {
+            begin(PartitionNode.GET).writeInt(id);
+            return readAccount();
+        } catch (IOException e) {
+            throw failed(e);
+        }
+    }
+
+    public synchronized boolean depositCents(int id, long cents) {
+        return call(PartitionNode.DEPOSIT, id, cents);
+    }
+
+    public synchronized boolean withdrawCents(int id, long cents) {
+        return call(PartitionNode.WITHDRAW, id, cents);
+    }
+
+    public synchronized boolean verifyAccount(int id) {
+        return statusCall(PartitionNode.VERIFY, id);
+    }
+
+    public synchronized boolean suspendAccount(int id) {
+        return statusCall(PartitionNode.SUSPEND, id);
+    }
+
+    public synchronized boolean closeAccount(int id) {
+        return statusCall(PartitionNode.CLOSE, id);
+    }
+
+    /**
+     * Transfer between two accounts owned by this node
+     */
+    public synchronized boolean transferCents(int senderId, int recipientId, long cents, String description) {
+        try {
+            DataOutputStream request = begin(PartitionNode.TRANSFER);
+            request.writeInt(senderId);
+            request.writeInt(recipientId);
+            request.writeLong(cents);
+            request.writeUTF(description);
+            return readOk();
+        } catch (IOException e) {
+            throw failed(e);
+        }
+    }
+
+    /**
+     * Phase one on the sender's node: reserve the amount
+     * @param recipientPort Port of the recipient's node, which the sender's node asks for the
+     *                      outcome if the coordinator does not finish the transfer; 0 for none
+     */
+    public synchronized boolean prepareDebitCents(long txId, int senderId, long cents, String description,
+                                                  int recipientPort) {
+        try {
+            DataOutputStream request = begin(PartitionNode.PREPARE_DEBIT);
+            request.writeLong(txId);
+            request.writeInt(senderId);
+            request.writeLong(cents);
+            request.writeUTF(description);
+            request.writeInt(recipientPort);
+            return readOk();
+        } catch (IOException e) {
+            throw failed(e);
+        }
+    }
+
+    /**
+     * Phase one on the recipient's node: check the recipient can receive
+     */
+    public synchronized boolean prepareCreditCents(long txId, int recipientId, long cents) {
+        try {
+            DataOutputStream request = begin(PartitionNode.PREPARE_CREDIT);
+            request.writeLong(txId);
+            request.writeInt(recipientId);
+            request.writeLong(cents);
+            return readOk();
+        } catch (IOException e) {
+            throw failed(e);
+        }
+    }
+
+    public synchronized boolean commit(long txId) {
+        return txCall(PartitionNode.COMMIT, txId);
+    }
+
+    public synchronized boolean abort(long txId) {
+        return txCall(PartitionNode.ABORT, txId);
+    }
+
+    /**
+     * Outcome of a credit on the recipient's node, aborting it first if it is still prepared
+     */
+    public synchronized PartitionNode.Outcome resolve(long txId) {
+        try {
+            begin(PartitionNode.RESOLVE).writeLong(txId);
+            readOk();
+            return PartitionNode.Outcome.values()[in.readByte()];
+        } catch (IOException e) {
+            throw failed(e);
+        }
+    }
+
+    /**
+     * Let the recipient's node drop the outcome of a credit whose debit is settled
+     */
+    public synchronized boolean forget(long txId) {
+        return txCall(PartitionNode.FORGET, txId);
+    }
+
+    private boolean call(byte op, int id, long cents) {
+        try {
+            DataOutputStream request = begin(op);
+            request.writeInt(id);
+            request.writeLong(cents);
+            return readOk();
+        } catch (IOException e) {
+            throw failed(e);
+        }
+    }
+
+    private boolean statusCall(byte op, int id) {
+        try {
+            begin(op).writeInt(id);
+            return readOk();
+        } catch (IOException e) {
+            throw failed(e);
+        }
+    }
+
+    private boolean txCall(byte op, long txId) {
+        try {
+            begin(op).writeLong(txId);
+            return readOk();
+        } catch (IOException e) {
+            throw failed(e);
+        }
+    }
+
+    private DataOutputStream begin(byte op) throws IOException {
+        if (socket == null) {
+            socket = new Socket(InetAddress.getLoopbackAddress(), port);
+            socket.setTcpNoDelay(true);
+            in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+            out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+        }
+        out.writeByte(op);
+        return out;
+    }
+
+    private boolean readOk() throws IOException {
+        out.flush();
+        return in.readBoolean();
+    }
+
+    private Account readAccount() throws IOException {
+        if (!readOk()) {
+            return null;
+        }
+        byte[] bytes = new byte[in.readInt()];
+        in.readFully(bytes);
+        return AccountCodec.decode(bytes);
+    }
+
+    private UncheckedIOException failed(IOException e) {
+        disconnect();
+        return new UncheckedIOException("Node on port " + port + " unavailable", e);
+    }
+
+    private void disconnect() {
+        if (socket != null) {
+            try {
+                socket.close();
+            } catch (IOException ignored) {
+                // Already broken
+            }
+            socket = null;
+        }
+    }
+
+    @Override
+    public synchronized void close() {
+        disconnect();
+    }
+}
@@ -0,0 +1,833 @@
+package com.banking.cluster;
+
+import com.banking.dao.AccountCodec;
+import com.banking.dao.AccountRepository;
+import com.banking.dao.InMemoryAccountRepository;
+import com.banking.entities.Account;
+import com.banking.entities.Account.AccountStatus;
+import com.banking.services.AccountService;
+import com.banking.services.TransactionService;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * One partition of a clustered deployment
+ *
+ * Owns the accounts the {@link HashRing} assigns to it and serves them to
+ * {@link NodeClient}s over a loopback socket, one thread per connection.
+ *
+ * Cross-partition transfers run in two phases. Preparing the debit moves the
+ * amount from the sender into this node's escrow account, so the funds are
+ * reserved under the usual transfer rules; preparing the credit only checks the
+ * recipient can receive. Committing the credit pays the recipient out of escrow
+ * and committing the debit releases the reserved funds; aborting the debit
+ * refunds the sender.
+ *
+ * The recipient's node decides a transfer: once a credit is committed,
+ * failed or aborted, its {@link Outcome} is kept until the sender's node
+ * forgets it, and a resolve request returns it, aborting the credit first
+ * if it is still prepared. A resolve of an id never prepared here records
+ * it as aborted, so a delayed prepare of it fails.
+ *
+ * A background sweep handles transactions the coordinator neither commits
+ * nor aborts within the prepare timeout. Unvoted transactions, whose yes
+ * vote was never sent, and voted credits are aborted; a later commit of
+ * them fails. A voted debit never aborts on its own, since the recipient
+ * may already be paid: the sweep resolves its credit on the recipient's
+ * node and commits or aborts the debit to match. Until that node answers,
+ * the debit is counted as overdue. A debit whose refund cannot be paid,
+ * because the sender was removed or closed, keeps its funds in escrow and
+ * the sweep retries the refund.
+ *
+ * With a prepare journal, each prepare is synced to it before it is
+ * acknowledged, each settled debit appends an end record, each settled
+ * credit an outcome record and each unpaid refund an abort record. A node
+ * started on the same journal restores the reserved funds to escrow, the
+ * open transactions, which count as voted since they may have been
+ * acknowledged, the unpaid refunds and the kept outcomes. Debits still
+ * waiting to make the recipient's node forget an outcome are not journaled.
+ *
+ * Wire format: each request is {@code byte op} followed by the op's fields;
+ * each response starts with {@code boolean ok}, and ops that return an account
+ * follow it with {@code int length} and the {@link AccountCodec} bytes.
+ * Amounts and balances travel as {@code long} cents.
+ */
+public class PartitionNode implements Closeable {
+
+    static final byte CREATE = 1;
+    static final byte GET = 2;
+    static final byte DEPOSIT = 3;
+    static final byte WITHDRAW = 4;
+    static final byte VERIFY = 5;
+    static final byte SUSPEND = 6;
+    static final byte CLOSE = 7;
+    static final byte TRANSFER = 8;
+    static final byte PREPARE_DEBIT = 9;
+    static final byte PREPARE_CREDIT = 10;
+    static final byte COMMIT = 11;
+    static final byte ABORT = 12;
+    static final byte RESOLVE = 13;
+    static final byte FORGET = 14;
+
+    /** Id of the internal account holding reserved funds; never stored in the repository */
+    public static final int ESCROW_ID = -1;
+    public static final long DEFAULT_PREPARE_TIMEOUT_MILLIS = 30_000;
+    // Journal records after which the sweep compacts the journal
+    private static final int COMPACT_RECORDS = 4096;
+
+    private final ServerSocket server;
+    private final AccountRepository repository;
+    private final AccountService accountService;
+    private final TransactionService transactionService;
+    private final Account escrow;
+    private final Map<Long, Prepared> prepared = new ConcurrentHashMap<>();
+    // Aborted debits whose refund is not paid yet; changed under journalLock
+    private final Map<Long, Prepared> owed = new ConcurrentHashMap<>();
+    // Outcomes of settled credits until the sender's node forgets them; changed under journalLock
+    private final Map<Long, Outcome> outcomes = new ConcurrentHashMap<>();
+    // Settled debits whose outcome the recipient's node may forget, to that node's port
+    private final Map<Long, Integer> forgets = new ConcurrentHashMap<>();
+    private final Map<Integer, NodeClient> peers = new ConcurrentHashMap<>();
+    private final Map<Socket, Boolean> connections = new ConcurrentHashMap<>();
+    private final long prepareTimeoutMillis;
+    // Null without a prepare journal
+    private final PrepareJournal journal;
+    // Pairs each prepare with its journal record and serializes journal writes
+    private final Object journalLock = new Object();
+    private final ScheduledExecutorService sweeper;
+    private volatile boolean closed;
+    private final AtomicLong expiredCount = new AtomicLong();
+    private volatile int overdueCount;
+    private volatile RuntimeException lastFailure;
+
+    /**
+     * Final state of a credit on the recipient's node
+     */
+    public enum Outcome {
+        /** The recipient was paid */
+        COMMITTED,
+        /** The commit arrived but the recipient could not receive */
+        FAILED,
+        /** The credit was aborted, expired or never prepared */
+        ABORTED
+    }
+
+    static class Prepared {
+        final int accountId;
+        final long cents;
+        final boolean debit;
+        // Port of the recipient's node for a debit, or 0 if it is unknown
+        final int peerPort;
+        final long deadlineNanos;
+        // Set once the yes vote is sent; guarded by this object's monitor
+        boolean voted;
+
+        Prepared(int accountId, long cents, boolean debit, int peerPort, long deadlineNanos) {
+            this.accountId = accountId;
+            this.cents = cents;
+            this.debit = debit;
+            this.peerPort = peerPort;
+            this.deadlineNanos = deadlineNanos;
+        }
+    }
+
+    /**
+     * Serve a new empty partition on a loopback port
+     * @param port Port, or 0 for any free port
+     * @throws IOException if the port cannot be bound
+     */
+    public PartitionNode(int port) throws IOException {
+        this(port, new InMemoryAccountRepository());
+    }
+
+    /**
+     * Serve a partition on a loopback port, keeping prepared transactions in memory only
+     * @param port Port, or 0 for any free port
+     * @param repository Accounts owned by this partition
+     * @throws IOException if the port cannot be bound
+     */
+    public PartitionNode(int port, AccountRepository repository) throws IOException {
+        this(port, repository, null, DEFAULT_PREPARE_TIMEOUT_MILLIS);
+    }
+
+    /**
+     * Serve a partition on a loopback port
+     * @param port Port, or 0 for any free port
+     * @param repository Accounts owned by this partition
+     * @param prepareJournal Journal of prepared transactions, replayed if it exists; null for memory only
+     * @param prepareTimeoutMillis Longest a prepared transaction waits for the coordinator before the sweep settles it
+     * @throws IOException if the port cannot be bound or the journal cannot be opened
+     */
+    public PartitionNode(int port, AccountRepository repository, Path prepareJournal, long prepareTimeoutMillis)
+            throws IOException {
+        if (prepareTimeoutMillis <= 0) {
+            throw new IllegalArgumentException("Prepare timeout must be positive");
+        }
+        this.repository = repository;
+        this.accountService = new AccountService(repository);
+        this.transactionService = new TransactionService(repository);
+        this.escrow = new Account(ESCROW_ID, "Escrow", 0, AccountStatus.Verified);
+        this.prepareTimeoutMillis = prepareTimeoutMillis;
+        this.journal = prepareJournal == null ? null : new PrepareJournal(prepareJournal);
+        if (journal != null) {
+            recover();
+        }
+        this.server = new ServerSocket(port, 50, InetAddress.getLoopbackAddress());
+        long period = Math.max(1, prepareTimeoutMillis / 4);
+        this.sweeper = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "partition-sweeper-" + getPort());
+            thread.setDaemon(true);
+            return thread;
+        });
+        sweeper.scheduleWithFixedDelay(this::runSweep, period, period, TimeUnit.MILLISECONDS);
+        Thread acceptor = new Thread(this::serve, "partition-node-" + getPort());
+        acceptor.setDaemon(true);
+        acceptor.start();
+    }
+
+    private void serve() {
+        while (!closed) {
+            try {
+                Socket socket = server.accept();
+                socket.setTcpNoDelay(true);
+                connections.put(socket, Boolean.TRUE);
+                Thread handler = new Thread(() -> handle(socket), "partition-conn-" + getPort());
+                handler.setDaemon(true);
+                handler.start();
+            } catch (IOException e) {
+                // Server socket closed
+            }
+        }
+    }
+
+    private void handle(Socket socket) {
+        try (socket) {
+            DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+            while (true) {
+                dispatch(in.readByte(), in, out);
+                out.flush();
+            }
+        } catch (EOFException | SocketException e) {
+            // Client disconnected
+        } catch (IOException e) {
+            // Broken connection; the client reconnects
+        } finally {
+            connections.remove(socket);
+        }
+    }
+
+    private void dispatch(byte op, DataInputStream in, DataOutputStream out) throws IOException {
+        switch (op) {
+            case CREATE: {
+                int id = in.readInt();
+                String name = in.readUTF();
+                long balanceCents = in.readLong();
+                Account account = repository.findById(id) == null
+                        ? accountService.createAccountCents(id, name, balanceCents) : null;
+                writeAccount(out, account);
+                return;
+            }
+            case GET:
+                writeAccount(out, repository.findById(in.readInt()));
+                return;
+            case DEPOSIT: {
+                Account account = repository.findById(in.readInt());
+                out.writeBoolean(transactionService.processDepositCents(account, in.readLong()));
+                return;
+            }
+            case WITHDRAW: {
+                Account account = repository.findById(in.readInt());
+                out.writeBoolean(transactionService.processWithdrawalCents(account, in.readLong()));
+                return;
+            }
+            case VERIFY:
+                out.writeBoolean(accountService.verifyAccount(in.readInt()));
+                return;
+            case SUSPEND:
+                out.writeBoolean(accountService.suspendAccount(in.readInt()));
+                return;
+            case CLOSE:
+                out.writeBoolean(accountService.closeAccount(in.readInt()));
+                return;
+            case TRANSFER: {
+                Account sender = repository.findById(in.readInt());
+                String recipientCard = Account.cardNumberFor(in.readInt());
+                long cents = in.readLong();
+                String description = in.readUTF();
+                out.writeBoolean(transactionService.processTransferCents(sender, recipientCard, cents, description));
+                return;
+            }
+            case PREPARE_DEBIT: {
+                long txId = in.readLong();
+                out.writeBoolean(vote(txId, prepareDebit(txId, in.readInt(), in.readLong(), in.readUTF(),
+                        in.readInt())));
+                return;
+            }
+            case PREPARE_CREDIT: {
+                long txId = in.readLong();
+                out.writeBoolean(vote(txId, prepareCredit(txId, in.readInt(), in.readLong())));
+                return;
+            }
+            case COMMIT:
+                out.writeBoolean(commit(in.readLong()));
+                return;
+            case ABORT:
+                out.writeBoolean(abort(in.readLong()));
+                return;
+            case RESOLVE:
+                out.writeBoolean(true);
+                out.writeByte(resolve(in.readLong()).ordinal());
+                return;
+            case FORGET:
+                out.writeBoolean(forget(in.readLong()));
+                return;
+            default:
+                throw new IOException("Unknown op " + op);
+        }
+    }
+
+    private static void writeAccount(DataOutputStream out, Account account) throws IOException {
+        out.writeBoolean(account != null);
+        if (account != null) {
+            byte[] bytes = AccountCodec.encode(account);
+            out.writeInt(bytes.length);
+            out.write(bytes);
+        }
+    }
+
+    /**
+     * Settle a prepare's vote before it is sent
+     * @param txId Transaction ID
+     * @param prepared Whether the transaction was prepared
+     * @return true to vote yes; false if the transaction was not prepared or has expired since
+     */
+    private boolean vote(long txId, boolean prepared) {
+        Prepared tx = prepared ? this.prepared.get(txId) : null;
+        if (tx == null) {
+            return false;
+        }
+        synchronized (tx) {
+            if (this.prepared.get(txId) != tx) {
+                return false;
+            }
+            tx.voted = true;
+            return true;
+        }
+    }
+
+    /**
+     * Restore the open transactions, unpaid refunds and kept outcomes of the journal and the funds the debits reserved
+     */
+    private void recover() throws IOException {
+        long deadline = deadline();
+        long reserved = 0;
+        for (Map.Entry<Long, Prepared> tx : journal.pending().entrySet()) {
+            Prepared open = tx.getValue();
+            Prepared restored = new Prepared(open.accountId, open.cents, open.debit, open.peerPort, deadline);
+            // The vote may have reached the coordinator before the restart
+            restored.voted = true;
+            prepared.put(tx.getKey(), restored);
+            if (open.debit) {
+                reserved += open.cents;
+            }
+        }
+        for (Map.Entry<Long, Prepared> tx : journal.refunding().entrySet()) {
+            owed.put(tx.getKey(), tx.getValue());
+            reserved += tx.getValue().cents;
+        }
+        if (reserved > 0) {
+            escrow.depositCents(reserved);
+        }
+        outcomes.putAll(journal.outcomes());
+        journal.rewrite(prepared, owed, outcomes);
+    }
+
+    private long deadline() {
+        return System.nanoTime() + prepareTimeoutMillis * 1_000_000L;
+    }
+
+    /**
+     * Record a prepared transaction, journaled first when there is a journal
+     * @return false if the transaction id is already prepared here
+     */
+    private boolean record(long txId, Prepared tx) {
+        synchronized (journalLock) {
+            if (prepared.containsKey(txId) || owed.containsKey(txId) || outcomes.containsKey(txId)) {
+                return false;
+            }
+            if (journal != null) {
+                try {
+                    journal.prepare(txId, tx);
+                } catch (IOException e) {
+                    throw new UncheckedIOException("Cannot journal prepared transaction " + txId, e);
+                }
+            }
+            prepared.put(txId, tx);
+            return true;
+        }
+    }
+
+    /**
+     * Journal that a taken debit was committed or refunded
+     */
+    private void ended(long txId) {
+        if (journal == null) {
+            return;
+        }
+        synchronized (journalLock) {
+            try {
+                journal.end(txId);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Cannot journal end of transaction " + txId, e);
+            }
+        }
+    }
+
+    /**
+     * Keep and journal the outcome of a taken credit
+     */
+    private void settled(long txId, Outcome outcome) {
+        synchronized (journalLock) {
+            outcomes.put(txId, outcome);
+            if (journal != null) {
+                try {
+                    journal.outcome(txId, outcome);
+                } catch (IOException e) {
+                    throw new UncheckedIOException("Cannot journal outcome of transaction " + txId, e);
+                }
+            }
+        }
+    }
+
+    /**
+     * Have the sweep tell the recipient's node of a settled debit that it may forget the credit's outcome
+     */
+    private void forgetLater(long txId, Prepared tx) {
+        if (tx.peerPort != 0) {
+            forgets.put(txId, tx.peerPort);
+        }
+    }
+
+    private NodeClient peer(int port) {
+        return peers.computeIfAbsent(port, NodeClient::new);
+    }
+
+    /**
+     * Keep an aborted debit whose refund was not paid until the sweep pays it
+     */
+    private void owe(long txId, Prepared tx) {
+        synchronized (journalLock) {
+            owed.put(txId, tx);
+            if (journal != null) {
+                try {
+                    journal.abort(txId, tx);
+                } catch (IOException e) {
+                    throw new UncheckedIOException("Cannot journal refund of transaction " + txId, e);
+                }
+            }
+        }
+    }
+
+    /**
+     * Move a debit's reserved funds from escrow back to the sender
+     * @return false if the sender is gone or cannot receive
+     */
+    private boolean refund(Prepared tx) {
+        Account sender = repository.findById(tx.accountId);
+        if (sender == null || !escrow.transferCents(sender, tx.cents, "Transfer refund")) {
+            return false;
+        }
+        repository.save(sender);
+        return true;
+    }
+
+    /**
+     * Reserve a transfer amount by moving it from the sender into escrow
+     * @param txId Transaction ID chosen by the coordinator
+     * @param accountId Sender ID
+     * @param cents Amount to transfer in cents
+     * @param description Transfer description
+     * @param peerPort Port of the recipient's node, or 0 if the coordinator alone settles the debit
+     * @return true if the funds were reserved
+     */
+    boolean prepareDebit(long txId, int accountId, long cents, String description, int peerPort) {
+        Account sender = repository.findById(accountId);
+        if (sender == null || prepared.containsKey(txId) || owed.containsKey(txId) || outcomes.containsKey(txId)) {
+            return false;
+        }
+        if (!sender.transferCents(escrow, cents, description)) {
+            return false;
+        }
+        repository.save(sender);
+        boolean recorded;
+        try {
+            recorded = record(txId, new Prepared(accountId, cents, true, peerPort, deadline()));
+        } catch (UncheckedIOException e) {
+            recorded = false;
+        }
+        if (!recorded) {
+            // Not acknowledged, so the coordinator will never finish it; give the funds back
+            Prepared tx = new Prepared(accountId, cents, true, 0, 0);
+            if (!refund(tx)) {
+                owe(txId, tx);
+            }
+        }
+        return recorded;
+    }
+
+    /**
+     * Check that a recipient can receive a transfer
+     * @param txId Transaction ID chosen by the coordinator
+     * @param accountId Recipient ID
+     * @param cents Amount to transfer in cents
+     * @return true if the recipient exists and is not closed
+     */
+    boolean prepareCredit(long txId, int accountId, long cents) {
+        Account recipient = repository.findById(accountId);
+        if (recipient == null || recipient.getStatus() == AccountStatus.Closed || cents <= 0) {
+            return false;
+        }
+        try {
+            return record(txId, new Prepared(accountId, cents, false, 0, deadline()));
+        } catch (UncheckedIOException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Complete a prepared transaction
+     * @param txId Transaction ID
+     * @return true if this node's side was applied
+     */
+    boolean commit(long txId) {
+        Prepared tx = prepared.get(txId);
+        if (tx == null) {
+            return false;
+        }
+        if (!tx.debit) {
+            // Under the journal lock so a resolve sees the credit either prepared or settled
+            synchronized (journalLock) {
+                return commitCredit(txId);
+            }
+        }
+        return prepared.remove(txId, tx) && release(txId, tx);
+    }
+
+    private boolean commitCredit(long txId) {
+        Prepared tx = prepared.remove(txId);
+        if (tx == null) {
+            return false;
+        }
+        Account recipient = repository.findById(tx.accountId);
+        escrow.depositCents(tx.cents);
+        boolean applied = escrow.transferCents(recipient, tx.cents, "Transfer");
+        if (applied) {
+            repository.save(recipient);
+        } else {
+            escrow.withdrawCents(tx.cents);
+        }
+        settled(txId, applied ? Outcome.COMMITTED : Outcome.FAILED);
+        return applied;
+    }
+
+    /**
+     * Commit a taken debit: the sender was charged at prepare, so the reserved funds leave this node
+     */
+    private boolean release(long txId, Prepared tx) {
+        boolean applied = escrow.withdrawCents(tx.cents);
+        forgetLater(txId, tx);
+        ended(txId);
+        return applied;
+    }
+
+    /**
+     * Roll back a prepared transaction
+     * @param txId Transaction ID
+     * @return true if a prepared transaction was found
+     */
+    boolean abort(long txId) {
+        Prepared tx = prepared.remove(txId);
+        if (tx == null) {
+            return false;
+        }
+        rollBack(txId, tx, true);
+        return true;
+    }
+
+    /**
+     * Abort a taken transaction and journal it: a credit keeps its outcome, a debit refunds the
+     * sender or, if the refund cannot be paid, stays owed
+     * @param forgetPeer Whether the recipient's node may forget the credit's outcome
+     */
+    private void rollBack(long txId, Prepared tx, boolean forgetPeer) {
+        if (!tx.debit) {
+            settled(txId, Outcome.ABORTED);
+            return;
+        }
+        if (forgetPeer) {
+            forgetLater(txId, tx);
+        }
+        if (!refund(tx)) {
+            owe(txId, tx);
+            return;
+        }
+        ended(txId);
+    }
+
+    /**
+     * Get the outcome of a credit, aborting it first if it is still prepared
+     * @param txId Transaction ID
+     * @return Outcome; an id never prepared here is recorded as aborted
+     */
+    Outcome resolve(long txId) {
+        synchronized (journalLock) {
+            abort(txId);
+            Outcome outcome = outcomes.get(txId);
+            if (outcome == null) {
+                // A prepare of it may still be on its way; the kept outcome makes it fail
+                outcome = Outcome.ABORTED;
+                settled(txId, outcome);
+            }
+            return outcome;
+        }
+    }
+
+    /**
+     * Drop the kept outcome of a credit whose debit is settled
+     * @param txId Transaction ID
+     * @return true if an outcome was kept
+     */
+    boolean forget(long txId) {
+        synchronized (journalLock) {
+            if (outcomes.remove(txId) == null) {
+                return false;
+            }
+            if (journal != null) {
+                try {
+                    journal.forget(txId);
+                } catch (IOException e) {
+                    throw new UncheckedIOException("Cannot journal forgotten transaction " + txId, e);
+                }
+            }
+            return true;
+        }
+    }
+
+    /**
+     * Settle a voted debit from the outcome of its credit on the recipient's node
+     * @return false if that node is unknown or cannot be reached
+     */
+    private boolean settleFromRecipient(long txId, Prepared tx) {
+        if (tx.peerPort == 0) {
+            return false;
+        }
+        Outcome outcome;
+        try {
+            outcome = peer(tx.peerPort).resolve(txId);
+        } catch (UncheckedIOException e) {
+            return false;
+        }
+        if (!prepared.remove(txId, tx)) {
+            // The coordinator settled it meanwhile
+            return true;
+        }
+        if (outcome == Outcome.COMMITTED) {
+            release(txId, tx);
+        } else {
+            // An aborted credit may be a marker against a delayed prepare, so it is kept
+            rollBack(txId, tx, outcome == Outcome.FAILED);
+        }
+        return true;
+    }
+
+    /**
+     * Abort every unvoted transaction and voted credit past its deadline, settle
+     * voted debits past it from their recipient's node, retry unpaid refunds and
+     * forgets, then compact the journal if it has grown
+     * @return Transactions aborted
+     */
+    int expirePrepared() {
+        long now = System.nanoTime();
+        int expired = 0;
+        int overdue = 0;
+        for (Map.Entry<Long, Prepared> entry : prepared.entrySet()) {
+            Prepared tx = entry.getValue();
+            if (now - tx.deadlineNanos < 0) {
+                continue;
+            }
+            boolean voted;
+            synchronized (tx) {
+                voted = tx.voted;
+            }
+            if (voted && tx.debit) {
+                // The recipient may already be paid; only its node can tell
+                if (!settleFromRecipient(entry.getKey(), tx)) {
+                    overdue++;
+                }
+                continue;
+            }
+            synchronized (tx) {
+                if (!prepared.remove(entry.getKey(), tx)) {
+                    continue;
+                }
+            }
+            rollBack(entry.getKey(), tx, true);
+            expired++;
+        }
+        expiredCount.addAndGet(expired);
+        overdueCount = overdue;
+        synchronized (journalLock) {
+            for (Map.Entry<Long, Prepared> tx : owed.entrySet()) {
+                if (refund(tx.getValue())) {
+                    owed.remove(tx.getKey());
+                    ended(tx.getKey());
+                }
+            }
+        }
+        for (Map.Entry<Long, Integer> tx : forgets.entrySet()) {
+            try {
+                peer(tx.getValue()).forget(tx.getKey());
+                forgets.remove(tx.getKey());
+            } catch (UncheckedIOException e) {
+                // The recipient's node is down; try again next sweep
+            }
+        }
+        if (journal != null) {
+            synchronized (journalLock) {
+                if (journal.records() > COMPACT_RECORDS + 2L * prepared.size() + owed.size() + outcomes.size()) {
+                    try {
+                        journal.rewrite(new LinkedHashMap<>(prepared), new LinkedHashMap<>(owed),
+                                new LinkedHashMap<>(outcomes));
+                    } catch (IOException e) {
+                        throw new UncheckedIOException("Cannot compact prepare journal", e);
+                    }
+                }
+            }
+        }
+        return expired;
+    }
+
+    private void runSweep() {
+        try {
+            expirePrepared();
+        } catch (RuntimeException e) {
+            // An exception would cancel the fixed-delay task; record it and try again next period
+            lastFailure = e;
+        }
+    }
+
+    public int getPort() {
+        return server.getLocalPort();
+    }
+
+    public AccountRepository getRepository() {
+        return repository;
+    }
+
+    /**
+     * @return Transactions prepared here and not yet committed or aborted
+     */
+    public int getPreparedCount() {
+        return prepared.size();
+    }
+
+    /**
+     * @return Prepared transactions aborted for passing the prepare timeout
+     */
+    public long getExpiredCount() {
+        return expiredCount.get();
+    }
+
+    /**
+     * @return Voted debits past their deadline whose recipient's node could not settle them, as of the last sweep
+     */
+    public int getOverdueCount() {
+        return overdueCount;
+    }
+
+    /**
+     * @return Aborted debits whose refund could not be paid yet and whose funds stay in escrow
+     */
+    public int getOwedRefundCount() {
+        return owed.size();
+    }
+
+    /**
+     * @return Credit outcomes kept until the sender's node forgets them
+     */
+    public int getKeptOutcomeCount() {
+        return outcomes.size();
+    }
+
+    /**
+     * @return Last exception of a background sweep, or null
+     */
+    public RuntimeException getLastFailure() {
+        return lastFailure;
+    }
+
+    /**
+     * @return Funds currently reserved by prepared debits and unpaid refunds
+     */
+    public double getEscrowBalance() {
+        return escrow.getBalance();
+    }
+
+    /**
+     * Stop accepting requests and drop open connections
+     */
+    @Override
+    public void close() throws IOException {
+        closed = true;
+        sweeper.shutdownNow();
+        server.close();
+        for (NodeClient peer : peers.values()) {
+            peer.close();
+        }
+        for (Socket socket : connections.keySet()) {
+            socket.close();
+        }
+        if (journal != null) {
+            synchronized (journalLock) {
+                journal.close();
+            }
+        }
+    }
+
+    /**
+     * Run a partition node process
+     * Usage: PartitionNode &lt;port&gt; [prepare journal]
+     * @param args Port and, optionally, the prepare journal file
+     * @throws Exception if the port cannot be bound
+     */
+    public static void main(String[] args) throws Exception {
+        if (args.length != 1 && args.length != 2) {
+            System.err.println("Usage: PartitionNode <port> [prepare journal]");
+            System.exit(2);
+        }
+        PartitionNode node = new PartitionNode(Integer.parseInt(args[0]), new InMemoryAccountRepository(),
+                args.length == 2 ? Paths.get(args[1]) : null, DEFAULT_PREPARE_TIMEOUT_MILLIS);
+        System.out.println("Partition node listening on port " + node.getPort());
+        Thread.currentThread().join();
+    }
+}
@@ -0,0 +1,262 @@
+package com.banking.cluster;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Append-only journal of a partition node's prepared transactions
+ *
+ * Each record is (length int, type byte, transaction id long, fields). A
+ * prepare is written and synced before the node acknowledges it; a commit
+ * or abort of a debit appends an end record, and of a credit an outcome
+ * record that is kept until a forget record drops it. An aborted debit
+ * whose refund could not be paid appends an abort record with its fields
+ * instead, and an end record once the refund lands. A record torn by a
+ * crash is cut off on open.
+ * Callers serialize access.
+ */
+final class PrepareJournal implements Closeable {
+
+    private static final byte PREPARE = 1;
+    private static final byte END = 2;
+    private static final byte ABORT = 3;
+    private static final byte OUTCOME = 4;
+    private static final byte FORGET = 5;
+
+    private final Path file;
+    private FileChannel channel;
+    private final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    private final DataOutputStream out = new DataOutputStream(bytes);
+    private long records;
+
+    // State rebuilt on open
+    private final Map<Long, PartitionNode.Prepared> pending = new LinkedHashMap<>();
+    private final Map<Long, PartitionNode.Prepared> refunding = new LinkedHashMap<>();
+    private final Map<Long, PartitionNode.Outcome> outcomes = new LinkedHashMap<>();
+
+    PrepareJournal(Path file) throws IOException {
+        this.file = file;
+        Path parent = file.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        long valid = replay();
+        channel.truncate(valid);
+        channel.position(valid);
+    }
+
+    private long replay() throws IOException {
+        ByteBuffer data = ByteBuffer.allocate((int) channel.size());
+        while (data.hasRemaining() && channel.read(data, data.position()) >= 0) {
+            // keep reading until the whole file is buffered
+        }
+        data.flip();
+        long valid = 0;
+        while (data.remaining() >= 4) {
+            int length = data.getInt();
+            if (length <= 0 || length > data.remaining()) {
+                break;
+            }
+            byte[] body = new byte[length];
+            data.get(body);
+            apply(new DataInputStream(new ByteArrayInputStream(body)));
+            valid = data.position();
+            records++;
+        }
+        return valid;
+    }
+
+    private void apply(DataInputStream in) throws IOException {
+        byte type = in.readByte();
+        long txId = in.readLong();
+        switch (type) {
+            case PREPARE: {
+                int accountId = in.readInt();
+                long cents = in.readLong();
+                boolean debit = in.readBoolean();
+                int peerPort = in.readInt();
+                pending.put(txId, new PartitionNode.Prepared(accountId, cents, debit, peerPort, 0));
+                break;
+            }
+            case END:
+                pending.remove(txId);
+                refunding.remove(txId);
+                break;
+            case ABORT: {
+                int accountId = in.readInt();
+                long cents = in.readLong();
+                pending.remove(txId);
+                refunding.put(txId, new PartitionNode.Prepared(accountId, cents, true, 0, 0));
+                break;
+            }
+            case OUTCOME:
+                pending.remove(txId);
+                outcomes.put(txId, PartitionNode.Outcome.values()[in.readByte()]);
+                break;
+            case FORGET:
+                outcomes.remove(txId);
+                break;
+            default:
+                throw new IOException("Unknown prepare record type " + type);
+        }
+    }
+
+    /**
+     * @return Transactions prepared and not ended as of the last open, by id; deadlines are not journaled
+     */
+    Map<Long, PartitionNode.Prepared> pending() {
+        return pending;
+    }
+
+    /**
+     * @return Aborted debits whose refund was not paid as of the last open, by id
+     */
+    Map<Long, PartitionNode.Prepared> refunding() {
+        return refunding;
+    }
+
+    /**
+     * @return Outcomes of settled credits not yet forgotten as of the last open, by id
+     */
+    Map<Long, PartitionNode.Outcome> outcomes() {
+        return outcomes;
+    }
+
+    /**
+     * @return Records in the file since it was opened or rewritten
+     */
+    long records() {
+        return records;
+    }
+
+    /**
+     * Journal and sync a prepared transaction
+     */
+    void prepare(long txId, PartitionNode.Prepared tx) throws IOException {
+        write(txId, tx);
+        flush();
+    }
+
+    /**
+     * Journal and sync the commit or abort of a transaction
+     */
+    void end(long txId) throws IOException {
+        bytes.reset();
+        out.writeInt(1 + 8);
+        out.writeByte(END);
+        out.writeLong(txId);
+        flush();
+    }
+
+    /**
+     * Journal and sync the outcome of a settled credit
+     */
+    void outcome(long txId, PartitionNode.Outcome outcome) throws IOException {
+        bytes.reset();
+        writeOutcome(txId, outcome);
+        flush();
+    }
+
+    /**
+     * Journal and sync that the outcome of a credit is no longer needed
+     */
+    void forget(long txId) throws IOException {
+        bytes.reset();
+        out.writeInt(1 + 8);
+        out.writeByte(FORGET);
+        out.writeLong(txId);
+        flush();
+    }
+
+    /**
+     * Journal and sync that an aborted debit still owes its refund
+     */
+    void abort(long txId, PartitionNode.Prepared tx) throws IOException {
+        bytes.reset();
+        writeAbort(txId, tx);
+        flush();
+    }
+
+    /**
+     * Replace the journal with one prepare record per open transaction, one
+     * abort record per refund still owed and one outcome record per kept outcome
+     */
+    void rewrite(Map<Long, PartitionNode.Prepared> open, Map<Long, PartitionNode.Prepared> owed,
+                 Map<Long, PartitionNode.Outcome> kept) throws IOException {
+        bytes.reset();
+        for (Map.Entry<Long, PartitionNode.Prepared> tx : open.entrySet()) {
+            write(tx.getKey(), tx.getValue());
+        }
+        for (Map.Entry<Long, PartitionNode.Prepared> tx : owed.entrySet()) {
+            writeAbort(tx.getKey(), tx.getValue());
+        }
+        for (Map.Entry<Long, PartitionNode.Outcome> tx : kept.entrySet()) {
+            writeOutcome(tx.getKey(), tx.getValue());
+        }
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        Files.write(temp, bytes.toByteArray());
+        bytes.reset();
+        try (FileChannel sync = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+            sync.force(true);
+        }
+        channel.close();
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        channel.position(channel.size());
+        records = open.size() + owed.size() + kept.size();
+    }
+
+    private void write(long txId, PartitionNode.Prepared tx) throws IOException {
+        out.writeInt(1 + 8 + 4 + 8 + 1 + 4);
+        out.writeByte(PREPARE);
+        out.writeLong(txId);
+        out.writeInt(tx.accountId);
+        out.writeLong(tx.cents);
+        out.writeBoolean(tx.debit);
+        out.writeInt(tx.peerPort);
+    }
+
+    private void writeOutcome(long txId, PartitionNode.Outcome outcome) throws IOException {
+        out.writeInt(1 + 8 + 1);
+        out.writeByte(OUTCOME);
+        out.writeLong(txId);
+        out.writeByte(outcome.ordinal());
+    }
+
+    private void writeAbort(long txId, PartitionNode.Prepared tx) throws IOException {
+        out.writeInt(1 + 8 + 4 + 8);
+        out.writeByte(ABORT);
+        out.writeLong(txId);
+        out.writeInt(tx.accountId);
+        out.writeLong(tx.cents);
+    }
+
+    private void flush() throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(bytes.toByteArray());
+        bytes.reset();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        channel.force(false);
+        records++;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
@@ -1,7 +1,10 @@
 package com.banking.controllers;
 
+import com.banking.dao.AccountRepository;
 import com.banking.entities.Account;
+import com.banking.entities.Money;
 import com.banking.services.AccountService;
+import com.banking.services.TokenBucketLimiter;
 import com.banking.services.TransactionService;
 
 /**
@@ -9,14 +12,24 @@ import com.banking.services.TransactionService;
  */
 public class ClientController {
     
+    public static final String RATE_LIMITED = "Too many requests, try again later";
+    
     private final AccountService accountService;
     private final TransactionService transactionService;
+    // Null when the limit is not enforced
+    private volatile TokenBucketLimiter<Integer> accountLimiter;
+    private volatile TokenBucketLimiter<String> clientLimiter;
     
     public ClientController() {
         this.accountService = new AccountService();
         this.transactionService = new TransactionService();
     }
     
+    public ClientController(AccountRepository repository) {
+        this.accountService = new AccountService(repository);
+        this.transactionService = new TransactionService(repository);
+    }
+    
     public ClientController(AccountService accountService, TransactionService transactionService) {
         this.accountService = accountService;
         this.transactionService = transactionService;
@@ -26,22 +39,82 @@ public class ClientController {
      * Create new account
      */
     public Account createAccount(int id, String clientName, double initialBalance) {
-        return accountService.createAccount(id, clientName, initialBalance);
+        return createAccountCents(id, clientName, Money.fromDouble(initialBalance));
+    }
+    
+    /**
+     * Create new account with its initial balance in cents
+     */
+    public Account createAccountCents(int id, String clientName, long initialBalanceCents) {
+        return accountService.createAccountCents(id, clientName, initialBalanceCents);
     }
     
     /**
      * Process deposit
      */
     public String processDeposit(Account account, double amount) {
-        boolean success = transactionService.processDeposit(account, amount);
+        return processDepositCents(account, Money.fromPositiveAmount(amount));
+    }
+    
+    /**
+     * Process deposit of an amount in cents
+     */
+    public String processDepositCents(Account account, long cents) {
+        boolean success = transactionService.processDepositCents(account, cents);
         return success ? "Deposit successful" : "Deposit failed";
     }
     
+    /**
+     * Rate-limit withdrawals and transfers before any service work is done
+     * @param perAccount Buckets keyed by account id, or null for none
+     * @param perClient Buckets keyed by client name, or null for none
+     */
+    public void setRateLimits(TokenBucketLimiter<Integer> perAccount, TokenBucketLimiter<String> perClient) {
+        this.accountLimiter = perAccount;
+        this.clientLimiter = perClient;
+    }
+    
+    /**
+     * Take a token for an outgoing transaction from the account's and the client's buckets
+     * If the client's bucket is empty, the account's token is given back so
+     * a rejected request costs the account nothing.
+     * @param account Account the money leaves
+     * @return true if the request may proceed
+     */
+    protected boolean admit(Account account) {
+        if (account == null) {
+            return true;
+        }
+        TokenBucketLimiter<Integer> perAccount = accountLimiter;
+        if (perAccount != null && !perAccount.tryAcquire(account.getId())) {
+            return false;
+        }
+        TokenBucketLimiter<String> perClient = clientLimiter;
+        String client = account.getClientName();
+        if (perClient == null || client == null || perClient.tryAcquire(client)) {
+            return true;
+        }
+        if (perAccount != null) {
+            perAccount.release(account.getId());
+        }
+        return false;
+    }
+    
     /**
      * Process withdrawal
      */
     public String processWithdrawal(Account account, double amount) {
-        boolean success = transactionService.processWithdrawal(account, amount);
+        return processWithdrawalCents(account, Money.fromPositiveAmount(amount));
+    }
+    
+    /**
+     * Process withdrawal of an amount in cents
+     */
+    public String processWithdrawalCents(Account account, long cents) {
+        if (!admit(account)) {
+            return RATE_LIMITED;
+        }
+        boolean success = transactionService.processWithdrawalCents(account, cents);
         return success ? "Withdrawal successful" : "Withdrawal failed";
     }
     
@@ -50,8 +123,19 @@ public class ClientController {
      */
     public String processTransfer(Account sender, String recipientCardNumber, 
                                   double amount, String description) {
-        boolean success = transactionService.processTransfer(sender, recipientCardNumber, 
-                                                             amount, description);
+        return processTransferCents(sender, recipientCardNumber, Money.fromPositiveAmount(amount), description);
+    }
+    
+    /**
+     * Process transfer of an amount in cents
+     */
+    public String processTransferCents(Account sender, String recipientCardNumber,
+                                       long cents, String description) {
+        if (!admit(sender)) {
+            return RATE_LIMITED;
+        }
+        boolean success = transactionService.processTransferCents(sender, recipientCardNumber,
+                                                                  cents, description);
         return success ? "Transfer successful" : "Transfer failed";
     }
     
@@ -0,0 +1,236 @@
+package com.banking.controllers;
+
+import com.banking.cluster.HashRing;
+import com.banking.cluster.NodeClient;
+import com.banking.cluster.PartitionNode;
+import com.banking.dao.InMemoryAccountRepository;
+import com.banking.entities.Account;
+import java.io.UncheckedIOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Client controller for a partitioned deployment
+ *
+ * Each account lives on the {@link com.banking.cluster.PartitionNode} the hash
+ * ring assigns its id to, and every request is forwarded to that node.
+ * Account arguments are only used for their id, and returned accounts are
+ * copies; call {@link #getAccount(int)} for the current state.
+ *
+ * A transfer between accounts on different nodes runs as a two-phase commit:
+ * the sender's node reserves the amount, the recipient's node checks it can
+ * receive, then the recipient is credited before the sender's reservation is
+ * released. A failure before the credit aborts the reservation and refunds
+ * the sender. If the answer to the credit is lost, the recipient's node is
+ * asked to resolve it, which returns the credit's journaled outcome and
+ * aborts it if it never arrived; the reservation is released only if the
+ * recipient was paid. A transfer the controller cannot finish stays in
+ * doubt until the sender's node settles it at its prepare timeout, by
+ * resolving the credit on the recipient's node the same way.
+ */
+public class PartitionedClientController extends ClientController {
+
+    private final HashRing ring;
+    private final Map<String, NodeClient> nodes;
+    private final AtomicLong inDoubt = new AtomicLong();
+
+    /**
+     * @param ring Ring naming the owner of each account id
+     * @param nodes Client for every node on the ring, by node name
+     */
+    public PartitionedClientController(HashRing ring, Map<String, NodeClient> nodes) {
+        // Local services only render statements and validate fetched copies
+        super(new InMemoryAccountRepository());
+        this.ring = ring;
+        this.nodes = nodes;
+        for (String node : ring.getNodes()) {
+            if (!nodes.containsKey(node)) {
+                throw new IllegalArgumentException("No client for node " + node);
+            }
+        }
+    }
+
+    /**
+     * Connect to nodes running on this machine, named "localhost:&lt;port&gt;"
+     * @param ports Node ports
+     * @return Controller routing over all given nodes
+     */
+    public static PartitionedClientController connect(int... ports) {
+        HashRing ring = new HashRing();
+        Map<String, NodeClient> nodes = new LinkedHashMap<>();
+        for (int port : ports) {
+            String name = "localhost:" + port;
+            ring.addNode(name);
+            nodes.put(name, new NodeClient(port));
+        }
+        return new PartitionedClientController(ring, nodes);
+    }
+
+    /**
+     * @param accountId Account ID
+     * @return Client for the node that owns the account
+     */
+    public NodeClient nodeFor(int accountId) {
+        return nodes.get(ring.nodeFor(accountId));
+    }
+
+    @Override
+    public Account createAccountCents(int id, String clientName, long initialBalanceCents) {
+        return nodeFor(id).createCents(id, clientName, initialBalanceCents);
+    }
+
+    /**
+     * Get account by ID
+     * @param id Account ID
+     * @return Copy of the account from its node, or null
+     */
+    public Account getAccount(int id) {
+        return nodeFor(id).get(id);
+    }
+
+    /**
+     * Verify account (admin action)
+     * @param id Account ID
+     * @return true if successful
+     */
+    public boolean verifyAccount(int id) {
+        return nodeFor(id).verifyAccount(id);
+    }
+
+    /**
+     * Suspend account (admin action)
+     * @param id Account ID
+     * @return true if successful
+     */
+    public boolean suspendAccount(int id) {
+        return nodeFor(id).suspendAccount(id);
+    }
+
+    /**
+     * Close account (admin action)
+     * @param id Account ID
+     * @return true if successful
+     */
+    public boolean closeAccount(int id) {
+        return nodeFor(id).closeAccount(id);
+    }
+
+    @Override
+    public String processDepositCents(Account account, long cents) {
+        boolean success = account != null && nodeFor(account.getId()).depositCents(account.getId(), cents);
+        return success ? "Deposit successful" : "Deposit failed";
+    }
+
+    @Override
+    public String processWithdrawalCents(Account account, long cents) {
+        if (!admit(account)) {
+            return RATE_LIMITED;
+        }
+        boolean success = account != null && nodeFor(account.getId()).withdrawCents(account.getId(), cents);
+        return success ? "Withdrawal successful" : "Withdrawal failed";
+    }
+
+    @Override
+    public String processTransferCents(Account sender, String recipientCardNumber,
+                                       long cents, String description) {
+        Integer recipientId = Account.idForCardNumber(recipientCardNumber);
+        if (sender == null || recipientId == null) {
+            return "Transfer failed";
+        }
+        if (!admit(sender)) {
+            return RATE_LIMITED;
+        }
+        NodeClient from = nodeFor(sender.getId());
+        NodeClient to = nodeFor(recipientId);
+        boolean success = from == to
+                ? from.transferCents(sender.getId(), recipientId, cents, description)
+                : transferAcrossNodes(from, to, sender.getId(), recipientId, cents, description);
+        return success ? "Transfer successful" : "Transfer failed";
+    }
+
+    private boolean transferAcrossNodes(NodeClient from, NodeClient to, int senderId, int recipientId,
+                                        long cents, String description) {
+        long txId = ThreadLocalRandom.current().nextLong();
+        boolean debited;
+        try {
+            debited = from.prepareDebitCents(txId, senderId, cents, description, to.getPort());
+        } catch (UncheckedIOException e) {
+            // A yes vote may have been sent, and a voted reservation is held until it is aborted
+            abortQuietly(from, txId);
+            return false;
+        }
+        if (!debited) {
+            return false;
+        }
+        boolean prepared;
+        try {
+            prepared = to.prepareCreditCents(txId, recipientId, cents);
+        } catch (UncheckedIOException e) {
+            // A credit prepared without an answer is aborted at the recipient's node's timeout
+            prepared = false;
+        }
+        if (!prepared) {
+            abortQuietly(from, txId);
+            return false;
+        }
+        PartitionNode.Outcome outcome;
+        try {
+            outcome = to.commit(txId) ? PartitionNode.Outcome.COMMITTED : PartitionNode.Outcome.FAILED;
+        } catch (UncheckedIOException e) {
+            // The credit may or may not have landed; its node knows
+            try {
+                outcome = to.resolve(txId);
+            } catch (UncheckedIOException again) {
+                // The sender's node settles the debit once the recipient's node answers
+                inDoubt.incrementAndGet();
+                return false;
+            }
+        }
+        if (outcome != PartitionNode.Outcome.COMMITTED) {
+            abortQuietly(from, txId);
+            return false;
+        }
+        boolean released;
+        try {
+            released = from.commit(txId);
+        } catch (UncheckedIOException e) {
+            released = false;
+        }
+        if (!released) {
+            // The recipient was paid; the sender's node releases the reservation when it resolves the credit
+            inDoubt.incrementAndGet();
+        }
+        return true;
+    }
+
+    /**
+     * Abort one side of a cross-node transfer, counting it in doubt if the node cannot be reached
+     * and leaving it to that node's prepare timeout
+     */
+    private void abortQuietly(NodeClient node, long txId) {
+        try {
+            node.abort(txId);
+        } catch (UncheckedIOException e) {
+            inDoubt.incrementAndGet();
+        }
+    }
+
+    @Override
+    public String getAccountStatement(Account account) {
+        return super.getAccountStatement(account == null ? null : getAccount(account.getId()));
+    }
+
+    @Override
+    public boolean validateOperation(Account account, String operation) {
+        return super.validateOperation(account == null ? null : getAccount(account.getId()), operation);
+    }
+
+    /**
+     * @return Cross-node transfers this controller could not finish and left to the sender's node to settle
+     */
+    public long getInDoubtTransfers() {
+        return inDoubt.get();
+    }
+}
@@ -0,0 +1,122 @@
+package com.banking.dao;
+
+import com.banking.entities.Account;
+import com.banking.entities.Account.AccountStatus;
+import com.banking.entities.AccountState;
+import com.banking.entities.CreditScoreAccount;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Binary encoding of accounts for disk-backed stores
+ * 
+ * Layout: kind (1 byte), id (4), balance (8), status ordinal (1),
+ * name length (2, -1 for null) and UTF-8 name bytes, followed for
+ * credit score accounts by score, overdraft attempts and successful
+ * transactions (4 bytes each).
+ */
+public final class AccountCodec {
+    
+    private static final byte KIND_BASIC = 1;
+    private static final byte KIND_CREDIT_SCORE = 2;
+    private static final AccountStatus[] STATUSES = AccountStatus.values();
+    
+    private AccountCodec() {
+    }
+    
+    /**
+     * Number of bytes {@link #encode(Account, ByteBuffer)} writes for an account
+     * @param account Account
+     * @return Encoded size
+     */
+    public static int encodedSize(Account account) {
+        int size = 1 + 4 + 8 + 1 + 2 + nameBytes(account.getClientName()).length;
+        if (account instanceof CreditScoreAccount) {
+            size += 12;
+        }
+        return size;
+    }
+    
+    /**
+     * Write an account at the buffer's position
+     * @param account Account to encode
+     * @param buffer Destination with at least {@link #encodedSize(Account)} bytes remaining
+     */
+    public static void encode(Account account, ByteBuffer buffer) {
+        // Read balance, status and credit fields from one version so they are mutually consistent
+        AccountState state = account.getState();
+        byte[] name = nameBytes(account.getClientName());
+        boolean creditScore = account instanceof CreditScoreAccount;
+        buffer.put(creditScore ? KIND_CREDIT_SCORE : KIND_BASIC);
+        buffer.putInt(account.getId());
+        buffer.putDouble(state.getBalance());
+        buffer.put((byte) state.getStatus().ordinal());
+        buffer.putShort(account.getClientName() == null ? -1 : (short) name.length);
+        buffer.put(name);
+        if (creditScore) {
+            buffer.putInt(state.getCreditScore());
+            buffer.putInt(state.getOverdraftAttempts());
+            buffer.putInt(state.getSuccessfulTransactions());
+        }
+    }
+    
+    /**
+     * Encode an account into a new array
+     * @param account Account to encode
+     * @return Encoded bytes
+     */
+    public static byte[] encode(Account account) {
+        ByteBuffer buffer = ByteBuffer.allocate(encodedSize(account));
+        encode(account, buffer);
+        return buffer.array();
+    }
+    
+    /**
+     * Read an account at the buffer's position
+     * @param buffer Source positioned at an encoded account
+     * @return Restored account
+     */
+    public static Account decode(ByteBuffer buffer) {
+        byte kind = buffer.get();
+        int id = buffer.getInt();
+        double balance = buffer.getDouble();
+        AccountStatus status = STATUSES[buffer.get()];
+        short nameLength = buffer.getShort();
+        String name = null;
+        if (nameLength >= 0) {
+            byte[] bytes = new byte[nameLength];
+            buffer.get(bytes);
+            name = new String(bytes, StandardCharsets.UTF_8);
+        }
+        Account account;
+        if (kind == KIND_CREDIT_SCORE) {
+            account = new CreditScoreAccount(id, name, balance, status,
+                    buffer.getInt(), buffer.getInt(), buffer.getInt());
+        } else if (kind == KIND_BASIC) {
+            account = new Account(id, name, balance, status);
+        } else {
+            throw new IllegalArgumentException("Unknown account record kind: " + kind);
+        }
+        return account;
+    }
+    
+    /**
+     * Decode an account from an array
+     * @param bytes Encoded bytes
+     * @return Restored account
+     */
+    public static Account decode(byte[] bytes) {
+        return decode(ByteBuffer.wrap(bytes));
+    }
+    
+    private static byte[] nameBytes(String name) {
+        if (name == null) {
+            return new byte[0];
+        }
+        byte[] bytes = name.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > Short.MAX_VALUE) {
+            throw new IllegalArgumentException("Client name too long to encode");
+        }
+        return bytes;
+    }
+}
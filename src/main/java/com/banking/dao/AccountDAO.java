@@ -1,24 +1,29 @@
 package com.banking.dao;
 
 import com.banking.entities.Account;
-import java.util.HashMap;
-import java.util.Map;
 
 /**
  * Data Access Object for Account management
+ * Static entry point to the default {@link InMemoryAccountRepository}; code
+ * that should work with other storage engines takes an {@link AccountRepository}.
  */
 public class AccountDAO {
     
-    private static Map<Integer, Account> accounts = new HashMap<>();
-    private static Map<String, Account> cardNumberIndex = new HashMap<>();
+    private static final InMemoryAccountRepository defaultRepository = new InMemoryAccountRepository();
+    
+    /**
+     * @return Repository behind the static methods
+     */
+    public static InMemoryAccountRepository getDefault() {
+        return defaultRepository;
+    }
     
     /**
      * Add account to storage
      * @param account Account to add
      */
     public static void add(Account account) {
-        accounts.put(account.getId(), account);
-        cardNumberIndex.put(account.getCardNumber(), account);
+        defaultRepository.add(account);
     }
     
     /**
@@ -27,7 +32,7 @@ public class AccountDAO {
      * @return Account or null if not found
      */
     public static Account findById(int id) {
-        return accounts.get(id);
+        return defaultRepository.findById(id);
     }
     
     /**
@@ -36,7 +41,7 @@ public class AccountDAO {
      * @return Account or null if not found
      */
     public static Account findByCardNumber(String cardNumber) {
-        return cardNumberIndex.get(cardNumber);
+        return defaultRepository.findByCardNumber(cardNumber);
     }
     
     /**
@@ -44,18 +49,14 @@ public class AccountDAO {
      * @param id Account ID
      */
     public static void remove(int id) {
-        Account account = accounts.remove(id);
-        if (account != null) {
-            cardNumberIndex.remove(account.getCardNumber());
-        }
+        defaultRepository.remove(id);
     }
     
     /**
      * Clear all accounts (for testing)
      */
     public static void clear() {
-        accounts.clear();
-        cardNumberIndex.clear();
+        defaultRepository.clear();
     }
     
     /**
@@ -63,6 +64,62 @@ public class AccountDAO {
      * @return Number of accounts
      */
     public static int count() {
-        return accounts.size();
+        return defaultRepository.count();
+    }
+    
+    /**
+     * Iterate over all accounts in ascending id order
+     * @return Accounts ordered by id
+     */
+    public static Iterable<Account> findAll() {
+        return defaultRepository.findAll();
+    }
+    
+    /**
+     * Iterate over accounts whose id lies in [fromId, toId)
+     * @param fromId First id (inclusive)
+     * @param toId Last id (exclusive)
+     * @return Accounts in ascending id order
+     */
+    public static Iterable<Account> findRange(int fromId, int toId) {
+        return defaultRepository.findRange(fromId, toId);
+    }
+    
+    /**
+     * Iterate over accounts whose id lies in [fromId, toId), highest id first
+     * @param fromId First id (inclusive)
+     * @param toId Last id (exclusive)
+     * @return Accounts in descending id order
+     */
+    public static Iterable<Account> findRangeDescending(int fromId, int toId) {
+        return defaultRepository.findRangeDescending(fromId, toId);
+    }
+    
+    /**
+     * Fetch the next page of accounts in ascending id order
+     * @param cursor Id of the last account already seen, or null to start from the beginning
+     * @param limit Maximum number of accounts in the page
+     * @return Page of accounts with the cursor for the following page
+     */
+    public static AccountPage findPage(Integer cursor, int limit) {
+        return defaultRepository.findPage(cursor, limit);
+    }
+    
+    /**
+     * Fetch the next page of accounts in descending id order
+     * @param cursor Id of the last account already seen, or null to start from the highest id
+     * @param limit Maximum number of accounts in the page
+     * @return Page of accounts with the cursor for the following page
+     */
+    public static AccountPage findPageDescending(Integer cursor, int limit) {
+        return defaultRepository.findPageDescending(cursor, limit);
+    }
+    
+    /**
+     * Open a point-in-time snapshot of all accounts
+     * @return Snapshot reflecting every commit completed before this call
+     */
+    public static AccountSnapshot openSnapshot() {
+        return defaultRepository.openSnapshot();
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,65 @@
+package com.banking.dao;
+
+import com.banking.entities.Account;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * One page of accounts returned by cursor-based pagination
+ */
+public class AccountPage {
+    
+    private final List<Account> accounts;
+    private final Integer nextCursor;
+    
+    public AccountPage(List<Account> accounts, Integer nextCursor) {
+        this.accounts = Collections.unmodifiableList(accounts);
+        this.nextCursor = nextCursor;
+    }
+    
+    /**
+     * Take up to limit accounts from an ordered view
+     * @param view Ordered id to account view, already positioned after the cursor
+     * @param limit Maximum number of accounts
+     * @return Page holding the accounts and the next cursor
+     */
+    static AccountPage of(Map<Integer, Account> view, int limit) {
+        if (limit <= 0) {
+            throw new IllegalArgumentException("Page limit must be positive");
+        }
+        List<Account> page = new ArrayList<>(Math.min(limit, 256));
+        boolean more = false;
+        for (Account account : view.values()) {
+            if (page.size() == limit) {
+                more = true;
+                break;
+            }
+            page.add(account);
+        }
+        Integer next = more ? page.get(page.size() - 1).getId() : null;
+        return new AccountPage(page, next);
+    }
+    
+    /**
+     * @return Accounts in this page, in iteration order
+     */
+    public List<Account> getAccounts() {
+        return accounts;
+    }
+    
+    /**
+     * @return Cursor to pass for the following page, or null when this is the last page
+     */
+    public Integer getNextCursor() {
+        return nextCursor;
+    }
+    
+    /**
+     * @return true if another page follows
+     */
+    public boolean hasNext() {
+        return nextCursor != null;
+    }
+}
@@ -0,0 +1,103 @@
+package com.banking.dao;
+
+import com.banking.entities.Account;
+import java.util.Collection;
+
+/**
+ * Storage abstraction for accounts
+ * 
+ * Services receive a repository instead of calling the static AccountDAO, so
+ * alternative engines (in-memory, tiered, LSM) can be plugged in and several
+ * isolated stores can run side by side in one JVM.
+ */
+public interface AccountRepository {
+    
+    /**
+     * Add or replace an account
+     * @param account Account to add
+     */
+    void add(Account account);
+    
+    /**
+     * Add a batch of accounts
+     * @param batch Accounts to add
+     */
+    default void addAll(Collection<? extends Account> batch) {
+        for (Account account : batch) {
+            add(account);
+        }
+    }
+    
+    /**
+     * Prepare indexes for a bulk load so they do not resize repeatedly
+     * Only for repositories that can grow while other threads read and write;
+     * the in-memory repository is sized at construction instead.
+     * @param expectedAccounts Total number of accounts expected after the load
+     */
+    default void ensureCapacity(int expectedAccounts) {
+    }
+    
+    /**
+     * Find account by ID
+     * @param id Account ID
+     * @return Account or null if not found
+     */
+    Account findById(int id);
+    
+    /**
+     * Find account by card number
+     * @param cardNumber Card number
+     * @return Account or null if not found
+     */
+    Account findByCardNumber(String cardNumber);
+    
+    /**
+     * Remove account from storage
+     * @param id Account ID
+     */
+    void remove(int id);
+    
+    /**
+     * Remove all accounts
+     */
+    void clear();
+    
+    /**
+     * @return Number of stored accounts
+     */
+    int count();
+    
+    /**
+     * Iterate over all accounts in ascending id order
+     * @return Accounts ordered by id
+     */
+    Iterable<Account> findAll();
+    
+    /**
+     * Iterate over accounts whose id lies in [fromId, toId), in ascending order
+     * @param fromId First id (inclusive)
+     * @param toId Last id (exclusive)
+     * @return Accounts ordered by id
+     */
+    Iterable<Account> findRange(int fromId, int toId);
+    
+    /**
+     * Check whether any account has an id in [fromId, toId)
+     * Stores whose scans hold resources until they are run to the end
+     * override this, so a probe never leaves a scan abandoned.
+     * @param fromId First id (inclusive)
+     * @param toId Last id (exclusive)
+     * @return true if the range holds at least one account
+     */
+    default boolean hasAny(int fromId, int toId) {
+        return findRange(fromId, toId).iterator().hasNext();
+    }
+    
+    /**
+     * Persist changes made through an account obtained from this repository
+     * Stores that hand out live objects need not do anything.
+     * @param account Changed account
+     */
+    default void save(Account account) {
+    }
+}
@@ -0,0 +1,238 @@
+package com.banking.dao;
+
+import com.banking.entities.Account;
+import com.banking.entities.Account.AccountStatus;
+import com.banking.entities.AccountState;
+import com.banking.entities.Money;
+import com.banking.entities.VersionClock;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.NavigableSet;
+import java.util.function.BiConsumer;
+
+/**
+ * Consistent point-in-time view of all accounts for reporting
+ * 
+ * Reads see exactly the balances, statuses and accounts committed before the
+ * snapshot was opened, while transfers and admin actions keep committing new
+ * versions. Always close the snapshot (try-with-resources) once the report is done.
+ */
+public class AccountSnapshot implements AutoCloseable {
+    
+    /**
+     * Account removed or replaced while a snapshot could still see it
+     * 
+     * An id can be retired several times while one snapshot is open, so
+     * entries are ordered by id and then by the stamp that retired them.
+     */
+    static final class Retired {
+        static final Comparator<Retired> ORDER = Comparator.<Retired>comparingInt(r -> r.id)
+                .thenComparingLong(r -> r.removeStamp);
+        
+        final int id;
+        final Account account;
+        final long insertStamp;
+        final long removeStamp;
+        
+        Retired(Account account, long insertStamp, long removeStamp) {
+            this.id = account.getId();
+            this.account = account;
+            this.insertStamp = insertStamp;
+            this.removeStamp = removeStamp;
+        }
+        
+        /**
+         * @return Search bound sorting before every entry of the id
+         */
+        static Retired lowest(int id) {
+            return new Retired(id);
+        }
+        
+        private Retired(int id) {
+            this.id = id;
+            this.account = null;
+            this.insertStamp = Long.MIN_VALUE;
+            this.removeStamp = Long.MIN_VALUE;
+        }
+    }
+    
+    private final long stamp;
+    private final InMemoryAccountRepository repository;
+    private final NavigableMap<Integer, Account> accounts;
+    private final NavigableSet<Retired> retired;
+    private boolean closed;
+    
+    AccountSnapshot(long stamp, InMemoryAccountRepository repository) {
+        this.stamp = stamp;
+        this.repository = repository;
+        this.accounts = repository.accounts();
+        this.retired = repository.retired();
+    }
+    
+    /**
+     * @return Commit stamp this snapshot reads at
+     */
+    public long getStamp() {
+        return stamp;
+    }
+    
+    /**
+     * Find the state of an account as of the snapshot
+     * @param id Account ID
+     * @return Balance and status at the snapshot, or null if the account did not exist then
+     */
+    public AccountState findById(int id) {
+        ensureOpen();
+        Account account = accounts.get(id);
+        if (account != null && isVisible(repository.insertStamps().get(id))) {
+            return account.getStateAt(stamp);
+        }
+        Retired old = visibleRetired(id, id + 1L);
+        return old == null ? null : old.account.getStateAt(stamp);
+    }
+    
+    /**
+     * Visit every account that existed at the snapshot, in ascending id order
+     * 
+     * The repository files an account under retired before it leaves the
+     * live map, and stamps a replacement before installing it. So an account
+     * the live scan does not return as visible is in retired by the time the
+     * scan has moved past its id, and looking retired ids up behind the scan
+     * neither skips nor repeats accounts retired while it runs.
+     * @param action Receives the account and its state as of the snapshot
+     */
+    public void forEach(BiConsumer<Account, AccountState> action) {
+        forEach(Integer.MIN_VALUE, Integer.MAX_VALUE + 1L, action);
+    }
+    
+    /**
+     * Visit the accounts with ids in [fromId, toId) that existed at the snapshot, in ascending id order
+     * Bounds are longs so a range can include Integer.MAX_VALUE, as in {@link IdRangeTask}.
+     * @param fromId First id (inclusive)
+     * @param toId Last id (exclusive)
+     * @param action Receives the account and its state as of the snapshot
+     */
+    public void forEach(long fromId, long toId, BiConsumer<Account, AccountState> action) {
+        ensureOpen();
+        long from = Math.max(fromId, Integer.MIN_VALUE);
+        if (from >= toId) {
+            return;
+        }
+        NavigableMap<Integer, Account> range = toId > Integer.MAX_VALUE
+                ? accounts.tailMap((int) from, true)
+                : accounts.subMap((int) from, true, (int) toId, false);
+        for (Map.Entry<Integer, Account> entry : range.entrySet()) {
+            int id = entry.getKey();
+            visitRetired(from, id, action);
+            Account account = entry.getValue();
+            if (isVisible(repository.insertStamps().get(id))) {
+                action.accept(account, account.getStateAt(stamp));
+            } else {
+                visitRetired(id, id + 1L, action);
+            }
+            from = id + 1L;
+        }
+        visitRetired(from, Math.min(toId, Integer.MAX_VALUE + 1L), action);
+    }
+    
+    /**
+     * @return Sum of all balances as of the snapshot
+     */
+    public double totalBalance() {
+        return Money.toDouble(totalBalanceCents());
+    }
+    
+    /**
+     * @return Sum of all balances in cents as of the snapshot
+     */
+    public long totalBalanceCents() {
+        long[] total = new long[1];
+        forEach((account, state) -> total[0] += state.getBalanceCents());
+        return total[0];
+    }
+    
+    /**
+     * @return Number of accounts that existed at the snapshot
+     */
+    public int count() {
+        int[] count = new int[1];
+        forEach((account, state) -> count[0]++);
+        return count[0];
+    }
+    
+    /**
+     * @param status Status to count
+     * @return Number of accounts in the status as of the snapshot
+     */
+    public int countByStatus(AccountStatus status) {
+        int[] count = new int[1];
+        forEach((account, state) -> {
+            if (state.getStatus() == status) {
+                count[0]++;
+            }
+        });
+        return count[0];
+    }
+    
+    /**
+     * Release the snapshot so retained versions can be reclaimed
+     */
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        VersionClock.closeSnapshot(stamp);
+        long oldest = VersionClock.oldestActiveSnapshot();
+        retired.removeIf(r -> r.removeStamp <= oldest);
+    }
+    
+    /**
+     * Visit the retired accounts visible to this snapshot with ids in [fromId, toId)
+     */
+    private void visitRetired(long fromId, long toId, BiConsumer<Account, AccountState> action) {
+        if (fromId >= toId) {
+            return;
+        }
+        for (Retired r : range(fromId, toId)) {
+            if (isVisible(r)) {
+                action.accept(r.account, r.account.getStateAt(stamp));
+            }
+        }
+    }
+    
+    /**
+     * @return The retired account visible to this snapshot with an id in [fromId, toId), or null
+     */
+    private Retired visibleRetired(long fromId, long toId) {
+        for (Retired r : range(fromId, toId)) {
+            if (isVisible(r)) {
+                return r;
+            }
+        }
+        return null;
+    }
+    
+    private NavigableSet<Retired> range(long fromId, long toId) {
+        if (toId > Integer.MAX_VALUE) {
+            return retired.tailSet(Retired.lowest((int) fromId), true);
+        }
+        return retired.subSet(Retired.lowest((int) fromId), true, Retired.lowest((int) toId), false);
+    }
+    
+    private boolean isVisible(Long insertStamp) {
+        return insertStamp != null && insertStamp <= stamp;
+    }
+    
+    private boolean isVisible(Retired r) {
+        return r.insertStamp <= stamp && stamp < r.removeStamp;
+    }
+    
+    private void ensureOpen() {
+        if (closed) {
+            throw new IllegalStateException("Snapshot is closed");
+        }
+    }
+}
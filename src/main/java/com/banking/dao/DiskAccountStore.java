@@ -0,0 +1,249 @@
+package com.banking.dao;
+
+import com.banking.entities.Account;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Disk-backed account store with one fixed-size slot per account id
+ * 
+ * The slot for id n starts at HEADER_SIZE + n * SLOT_SIZE, so lookups need
+ * no on-heap index at all and the file stays sparse for sparse ids. Each slot
+ * holds a used flag, the encoded length and an {@link AccountCodec} record.
+ */
+public class DiskAccountStore implements Closeable {
+    
+    public static final int SLOT_SIZE = 128;
+    private static final int HEADER_SIZE = 8;
+    private static final int SLOT_HEADER = 3;
+    private static final byte SLOT_USED = 1;
+    private static final int SCAN_CHUNK_SLOTS = 512;
+    
+    private final FileChannel channel;
+    private int count;
+    
+    /**
+     * Open or create a store file
+     * @param file Store file
+     */
+    public DiskAccountStore(Path file) {
+        try {
+            this.channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                    StandardOpenOption.READ, StandardOpenOption.WRITE);
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            if (channel.read(header, 0) == HEADER_SIZE) {
+                header.flip();
+                this.count = header.getInt();
+            } else {
+                writeHeader();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot open account store " + file, e);
+        }
+    }
+    
+    /**
+     * Write an account into its slot, replacing any previous version
+     * @param account Account to store
+     */
+    public synchronized void write(Account account) {
+        int size = AccountCodec.encodedSize(account);
+        if (size > SLOT_SIZE - SLOT_HEADER) {
+            throw new IllegalArgumentException("Account " + account.getId() + " does not fit in a store slot");
+        }
+        ByteBuffer slot = ByteBuffer.allocate(SLOT_HEADER + size);
+        slot.put(SLOT_USED);
+        slot.putShort((short) size);
+        AccountCodec.encode(account, slot);
+        slot.flip();
+        try {
+            boolean existed = isUsed(account.getId());
+            writeFully(slot, offset(account.getId()));
+            if (!existed) {
+                count++;
+                writeHeader();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+    
+    /**
+     * Read an account from its slot
+     * @param id Account ID
+     * @return Restored account or null if the slot is empty
+     */
+    public Account read(int id) {
+        if (id < 0) {
+            return null;
+        }
+        ByteBuffer slot = ByteBuffer.allocate(SLOT_SIZE);
+        try {
+            channel.read(slot, offset(id));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        slot.flip();
+        if (slot.remaining() < SLOT_HEADER || slot.get() != SLOT_USED) {
+            return null;
+        }
+        slot.getShort();
+        return AccountCodec.decode(slot);
+    }
+    
+    /**
+     * Iterate over stored accounts whose id lies in [fromId, toId), in ascending order
+     * Slots are read sequentially in large chunks.
+     * @param fromId First id (inclusive)
+     * @param toId Last id (exclusive)
+     * @return Restored accounts
+     */
+    public Iterable<Account> scan(int fromId, int toId) {
+        return () -> new Iterator<>() {
+            private final long end = Math.min(toId, slotLimit());
+            private long nextSlot = Math.max(0, fromId);
+            private ByteBuffer chunk = ByteBuffer.allocate(0);
+            private Account next = advance();
+            
+            @Override
+            public boolean hasNext() {
+                return next != null;
+            }
+            
+            @Override
+            public Account next() {
+                if (next == null) {
+                    throw new NoSuchElementException();
+                }
+                Account current = next;
+                next = advance();
+                return current;
+            }
+            
+            private Account advance() {
+                while (true) {
+                    if (!chunk.hasRemaining()) {
+                        if (nextSlot >= end) {
+                            return null;
+                        }
+                        int slots = (int) Math.min(SCAN_CHUNK_SLOTS, end - nextSlot);
+                        chunk = ByteBuffer.allocate(slots * SLOT_SIZE);
+                        try {
+                            channel.read(chunk, offset((int) nextSlot));
+                        } catch (IOException e) {
+                            throw new UncheckedIOException(e);
+                        }
+                        chunk.flip();
+                        chunk.limit(slots * SLOT_SIZE);
+                        nextSlot += slots;
+                    }
+                    int slotStart = chunk.position();
+                    Account account = null;
+                    if (chunk.get(slotStart) == SLOT_USED) {
+                        chunk.position(slotStart + SLOT_HEADER);
+                        account = AccountCodec.decode(chunk);
+                    }
+                    chunk.position(slotStart + SLOT_SIZE);
+                    if (account != null) {
+                        return account;
+                    }
+                }
+            }
+        };
+    }
+    
+    /**
+     * Clear the slot of an account
+     * @param id Account ID
+     * @return true if an account was stored in the slot
+     */
+    public synchronized boolean delete(int id) {
+        try {
+            if (!isUsed(id)) {
+                return false;
+            }
+            writeFully(ByteBuffer.wrap(new byte[] {0}), offset(id));
+            count--;
+            writeHeader();
+            return true;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+    
+    /**
+     * Empty the store
+     */
+    public synchronized void truncate() {
+        try {
+            channel.truncate(HEADER_SIZE);
+            count = 0;
+            writeHeader();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+    
+    /**
+     * @return Number of stored accounts
+     */
+    public synchronized int count() {
+        return count;
+    }
+    
+    /**
+     * Force written slots to the storage device
+     */
+    public void sync() {
+        try {
+            channel.force(false);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+    
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+    
+    private long slotLimit() {
+        try {
+            return (channel.size() - HEADER_SIZE + SLOT_SIZE - 1) / SLOT_SIZE;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+    
+    private boolean isUsed(int id) throws IOException {
+        if (id < 0) {
+            throw new IllegalArgumentException("Account id must not be negative: " + id);
+        }
+        ByteBuffer flag = ByteBuffer.allocate(1);
+        return channel.read(flag, offset(id)) == 1 && flag.get(0) == SLOT_USED;
+    }
+    
+    private void writeHeader() throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        header.putInt(count);
+        header.flip();
+        writeFully(header, 0);
+    }
+    
+    private void writeFully(ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            position += channel.write(buffer, position);
+        }
+    }
+    
+    private static long offset(int id) {
+        return HEADER_SIZE + (long) id * SLOT_SIZE;
+    }
+}
@@ -0,0 +1,77 @@
+package com.banking.dao;
+
+/**
+ * Count-min sketch of recent access frequency used for TinyLFU admission
+ * 
+ * Each key maps to four 4-bit counters packed sixteen to a long. Once the
+ * number of increments reaches the sample size every counter is halved, so
+ * the sketch forgets old popularity and tracks the current working set.
+ */
+final class FrequencySketch {
+    
+    private static final long[] SEEDS = {
+        0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L, 0x9ae16a3b2f90404fL, 0xcbf29ce484222325L
+    };
+    private static final long RESET_MASK = 0x7777777777777777L;
+    
+    private final long[] table;
+    private final int tableMask;
+    private final int sampleSize;
+    private int additions;
+    
+    FrequencySketch(int capacity) {
+        int size = Integer.highestOneBit(Math.max(4, capacity) - 1) << 1;
+        this.table = new long[size];
+        this.tableMask = size - 1;
+        this.sampleSize = 10 * Math.max(1, capacity);
+    }
+    
+    /**
+     * Estimated number of recent accesses to a key, between 0 and 15
+     */
+    int frequency(int key) {
+        int min = 15;
+        for (int i = 0; i < 4; i++) {
+            long hash = hash(key, i);
+            int index = (int) (hash >>> 32) & tableMask;
+            int shift = counterShift(hash);
+            min = Math.min(min, (int) ((table[index] >>> shift) & 0xfL));
+        }
+        return min;
+    }
+    
+    /**
+     * Record one access to a key
+     */
+    void increment(int key) {
+        boolean added = false;
+        for (int i = 0; i < 4; i++) {
+            long hash = hash(key, i);
+            int index = (int) (hash >>> 32) & tableMask;
+            int shift = counterShift(hash);
+            if (((table[index] >>> shift) & 0xfL) != 0xfL) {
+                table[index] += 1L << shift;
+                added = true;
+            }
+        }
+        if (added && ++additions >= sampleSize) {
+            reset();
+        }
+    }
+    
+    private void reset() {
+        for (int i = 0; i < table.length; i++) {
+            table[i] = (table[i] >>> 1) & RESET_MASK;
+        }
+        additions >>>= 1;
+    }
+    
+    private static long hash(int key, int row) {
+        long h = (key + SEEDS[row]) * SEEDS[row];
+        return h ^ (h >>> 29);
+    }
+    
+    private static int counterShift(long hash) {
+        return ((int) hash & 0xf) << 2;
+    }
+}
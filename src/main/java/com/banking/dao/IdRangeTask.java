@@ -0,0 +1,125 @@
+package com.banking.dao;
+
+import com.banking.entities.Account;
+import java.util.Iterator;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Fork/join task over the accounts of an id range
+ *
+ * The range [from, to) is split in half recursively; halves that hold no
+ * accounts are dropped after one {@link AccountRepository#hasAny} probe,
+ * and ranges of at most leafSpan ids are handled on one worker by
+ * {@link #computeLeaf()}. Bounds are longs so a range can include
+ * Integer.MAX_VALUE: [{@link #FIRST_ID}, {@link #END_ID}) covers every id.
+ * @param <T> Result of a range
+ */
+public abstract class IdRangeTask<T> extends RecursiveTask<T> {
+    private static final long serialVersionUID = 1L;
+
+    public static final long FIRST_ID = Integer.MIN_VALUE;
+    public static final long END_ID = Integer.MAX_VALUE + 1L;
+
+    protected final AccountRepository repository;
+    protected final long from;
+    protected final long to;
+    private final int leafSpan;
+
+    /**
+     * @param repository Accounts to visit
+     * @param from First id (inclusive)
+     * @param to Last id (exclusive)
+     * @param leafSpan Largest id range handled by one task
+     */
+    protected IdRangeTask(AccountRepository repository, long from, long to, int leafSpan) {
+        this.repository = repository;
+        this.from = from;
+        this.to = to;
+        this.leafSpan = leafSpan;
+    }
+
+    /**
+     * @return Result for the accounts of this leaf's range
+     */
+    protected abstract T computeLeaf();
+
+    /**
+     * @return Task of the same kind over [lo, hi)
+     */
+    protected abstract IdRangeTask<T> subtask(long lo, long hi);
+
+    /**
+     * @return Result of a range without accounts
+     */
+    protected abstract T empty();
+
+    /**
+     * Combine the results of two adjacent ranges
+     * @param low Result of the lower range
+     * @param high Result of the upper range
+     * @return Combined result
+     */
+    protected abstract T merge(T low, T high);
+
+    @Override
+    protected final T compute() {
+        if (to - from <= leafSpan) {
+            return computeLeaf();
+        }
+        long mid = from + (to - from) / 2;
+        IdRangeTask<T> low = isEmpty(from, mid) ? null : subtask(from, mid);
+        IdRangeTask<T> high = isEmpty(mid, to) ? null : subtask(mid, to);
+        if (low == null && high == null) {
+            return empty();
+        }
+        if (low == null) {
+            return high.compute();
+        }
+        if (high == null) {
+            return low.compute();
+        }
+        high.fork();
+        T result = low.compute();
+        return merge(result, high.join());
+    }
+
+    private boolean isEmpty(long lo, long hi) {
+        if (hi <= Integer.MAX_VALUE) {
+            return !repository.hasAny((int) lo, (int) hi);
+        }
+        return !repository.hasAny((int) lo, Integer.MAX_VALUE) && repository.findById(Integer.MAX_VALUE) == null;
+    }
+
+    /**
+     * @return Accounts of this task's range in ascending id order
+     */
+    protected Iterable<Account> accounts() {
+        if (to <= Integer.MAX_VALUE) {
+            return repository.findRange((int) from, (int) to);
+        }
+        // findRange excludes its upper bound, so the top id is looked up on its own
+        Account top = repository.findById(Integer.MAX_VALUE);
+        Iterable<Account> below = repository.findRange((int) from, Integer.MAX_VALUE);
+        if (top == null) {
+            return below;
+        }
+        return () -> new Iterator<>() {
+            private final Iterator<Account> rest = below.iterator();
+            private boolean topReturned;
+
+            @Override
+            public boolean hasNext() {
+                return rest.hasNext() || !topReturned;
+            }
+
+            @Override
+            public Account next() {
+                if (rest.hasNext()) {
+                    return rest.next();
+                }
+                topReturned = true;
+                return top;
+            }
+        };
+    }
+}
@@ -0,0 +1,325 @@
+package com.banking.dao;
+
+import com.banking.entities.Account;
+import com.banking.entities.VersionClock;
+import com.banking.events.AccountEvent;
+import com.banking.events.AccountEvents;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.NavigableSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+/**
+ * Default in-memory account repository backed by concurrent maps
+ * Each instance is an isolated store, so several can live side by side in one JVM.
+ */
+public class InMemoryAccountRepository implements AccountRepository {
+    
+    // Ordered primary index: a skip list keeps ids sorted so range scans,
+    // pagination and reverse iteration walk accounts in stable id order
+    private final NavigableMap<Integer, Account> accounts = new ConcurrentSkipListMap<>();
+    private final Map<String, Account> cardNumberIndex;
+    // Commit stamp at which each stored account became visible to snapshots
+    private final Map<Integer, Long> insertStamps;
+    // Accounts removed or replaced while a snapshot that can still see them was open
+    private final NavigableSet<AccountSnapshot.Retired> retired =
+            new ConcurrentSkipListSet<>(AccountSnapshot.Retired.ORDER);
+    
+    public InMemoryAccountRepository() {
+        this(16);
+    }
+    
+    /**
+     * Repository whose hash indexes are sized for a bulk load up front
+     * The concurrent maps grow in place afterwards, so there is no later
+     * resize step that could lose a concurrent insert.
+     * @param expectedAccounts Number of accounts the repository is expected to hold
+     */
+    public InMemoryAccountRepository(int expectedAccounts) {
+        cardNumberIndex = new ConcurrentHashMap<>(expectedAccounts);
+        insertStamps = new ConcurrentHashMap<>(expectedAccounts);
+    }
+    
+    /**
+     * Add account to storage
+     * @param account Account to add
+     */
+    @Override
+    public void add(Account account) {
+        boolean created;
+        long token = VersionClock.beginCommit();
+        try {
+            created = insert(account, VersionClock.nextStamp());
+        } finally {
+            VersionClock.endCommit(token);
+        }
+        if (created && AccountEvents.isActive()) {
+            AccountEvents.publish(AccountEvent.created(account));
+        }
+    }
+    
+    /**
+     * Add a batch of accounts in a single commit
+     * @param batch Accounts to add
+     */
+    @Override
+    public void addAll(Collection<? extends Account> batch) {
+        boolean publish = AccountEvents.isActive();
+        List<Account> created = publish ? new ArrayList<>(batch.size()) : null;
+        long token = VersionClock.beginCommit();
+        try {
+            long stamp = VersionClock.nextStamp();
+            for (Account account : batch) {
+                if (insert(account, stamp) && publish) {
+                    created.add(account);
+                }
+            }
+        } finally {
+            VersionClock.endCommit(token);
+        }
+        if (publish) {
+            for (Account account : created) {
+                AccountEvents.publish(AccountEvent.created(account));
+            }
+        }
+    }
+    
+    /**
+     * A replaced account is retired, and the new insert stamp recorded, before
+     * the replacement becomes reachable, so a snapshot scan that finds the
+     * replacement always finds the account it can still see in retired.
+     * @return true unless the same instance was already stored
+     */
+    private boolean insert(Account account, long stamp) {
+        int id = account.getId();
+        while (true) {
+            Account current = accounts.get(id);
+            if (current == account) {
+                return false;
+            }
+            if (current == null) {
+                if (accounts.putIfAbsent(id, account) == null) {
+                    insertStamps.put(id, stamp);
+                    cardNumberIndex.put(account.getCardNumber(), account);
+                    return true;
+                }
+                continue;
+            }
+            AccountSnapshot.Retired old = retire(current, stamp);
+            insertStamps.put(id, stamp);
+            if (accounts.replace(id, current, account)) {
+                cardNumberIndex.put(account.getCardNumber(), account);
+                return true;
+            }
+            if (old != null) {
+                retired.remove(old);
+            }
+        }
+    }
+    
+    /**
+     * Keep an account that is about to leave the live map for the snapshots that can still see it
+     * @return The retired entry, or null if no open snapshot can see the account
+     */
+    private AccountSnapshot.Retired retire(Account account, long stamp) {
+        Long inserted = insertStamps.get(account.getId());
+        if (inserted == null || inserted >= stamp || !VersionClock.hasActiveSnapshots()) {
+            return null;
+        }
+        AccountSnapshot.Retired old = new AccountSnapshot.Retired(account, inserted, stamp);
+        retired.add(old);
+        return old;
+    }
+    
+    /**
+     * Find account by ID
+     * @param id Account ID
+     * @return Account or null if not found
+     */
+    @Override
+    public Account findById(int id) {
+        return accounts.get(id);
+    }
+    
+    /**
+     * Find account by card number
+     * @param cardNumber Card number
+     * @return Account or null if not found
+     */
+    @Override
+    public Account findByCardNumber(String cardNumber) {
+        if (cardNumber == null) {
+            return null;
+        }
+        return cardNumberIndex.get(cardNumber);
+    }
+    
+    /**
+     * Remove account from storage
+     * @param id Account ID
+     */
+    @Override
+    public void remove(int id) {
+        Account account;
+        long token = VersionClock.beginCommit();
+        try {
+            long stamp = VersionClock.nextStamp();
+            while ((account = accounts.get(id)) != null) {
+                // Retired first, so a snapshot scan never finds the account in neither place
+                AccountSnapshot.Retired old = retire(account, stamp);
+                Long inserted = insertStamps.get(id);
+                if (accounts.remove(id, account)) {
+                    cardNumberIndex.remove(account.getCardNumber(), account);
+                    if (inserted != null) {
+                        insertStamps.remove(id, inserted);
+                    }
+                    break;
+                }
+                if (old != null) {
+                    retired.remove(old);
+                }
+            }
+        } finally {
+            VersionClock.endCommit(token);
+        }
+        if (account != null && AccountEvents.isActive()) {
+            AccountEvents.publish(AccountEvent.removed(account));
+        }
+    }
+    
+    /**
+     * Clear all accounts
+     * Runs as a single commit, and every account is retired before it leaves
+     * the live map, so open snapshots keep seeing the accounts they started with.
+     */
+    @Override
+    public void clear() {
+        List<Account> removed = AccountEvents.isActive() ? new ArrayList<>() : null;
+        long token = VersionClock.beginCommit();
+        try {
+            long stamp = VersionClock.nextStamp();
+            for (Map.Entry<Integer, Account> entry : accounts.entrySet()) {
+                int id = entry.getKey();
+                Account account = entry.getValue();
+                AccountSnapshot.Retired old = retire(account, stamp);
+                Long inserted = insertStamps.get(id);
+                if (accounts.remove(id, account)) {
+                    cardNumberIndex.remove(account.getCardNumber(), account);
+                    if (inserted != null) {
+                        insertStamps.remove(id, inserted);
+                    }
+                    if (removed != null) {
+                        removed.add(account);
+                    }
+                } else if (old != null) {
+                    retired.remove(old);
+                }
+            }
+        } finally {
+            VersionClock.endCommit(token);
+        }
+        if (removed != null) {
+            for (Account account : removed) {
+                AccountEvents.publish(AccountEvent.removed(account));
+            }
+        }
+    }
+    
+    /**
+     * Get all accounts count
+     * @return Number of accounts
+     */
+    @Override
+    public int count() {
+        return accounts.size();
+    }
+    
+    /**
+     * Iterate over all accounts in ascending id order
+     * The view is live and lazy: nothing is copied up front
+     * @return Accounts ordered by id
+     */
+    @Override
+    public Iterable<Account> findAll() {
+        return accounts.values();
+    }
+    
+    /**
+     * Iterate over accounts whose id lies in [fromId, toId)
+     * @param fromId First id (inclusive)
+     * @param toId Last id (exclusive)
+     * @return Accounts in ascending id order
+     */
+    @Override
+    public Iterable<Account> findRange(int fromId, int toId) {
+        if (fromId >= toId) {
+            return Collections.emptyList();
+        }
+        return accounts.subMap(fromId, true, toId, false).values();
+    }
+    
+    /**
+     * Iterate over accounts whose id lies in [fromId, toId), highest id first
+     * @param fromId First id (inclusive)
+     * @param toId Last id (exclusive)
+     * @return Accounts in descending id order
+     */
+    public Iterable<Account> findRangeDescending(int fromId, int toId) {
+        if (fromId >= toId) {
+            return Collections.emptyList();
+        }
+        return accounts.subMap(fromId, true, toId, false).descendingMap().values();
+    }
+    
+    /**
+     * Fetch the next page of accounts in ascending id order
+     * @param cursor Id of the last account already seen, or null to start from the beginning
+     * @param limit Maximum number of accounts in the page
+     * @return Page of accounts with the cursor for the following page
+     */
+    public AccountPage findPage(Integer cursor, int limit) {
+        NavigableMap<Integer, Account> tail = cursor == null
+                ? accounts : accounts.tailMap(cursor, false);
+        return AccountPage.of(tail, limit);
+    }
+    
+    /**
+     * Fetch the next page of accounts in descending id order
+     * @param cursor Id of the last account already seen, or null to start from the highest id
+     * @param limit Maximum number of accounts in the page
+     * @return Page of accounts with the cursor for the following page
+     */
+    public AccountPage findPageDescending(Integer cursor, int limit) {
+        NavigableMap<Integer, Account> head = cursor == null
+                ? accounts.descendingMap() : accounts.headMap(cursor, false).descendingMap();
+        return AccountPage.of(head, limit);
+    }
+    
+    /**
+     * Open a point-in-time snapshot of all accounts
+     * Writers keep running while the snapshot is open; close it when done
+     * so retained versions can be reclaimed.
+     * @return Snapshot reflecting every commit completed before this call
+     */
+    public AccountSnapshot openSnapshot() {
+        return new AccountSnapshot(VersionClock.openSnapshot(), this);
+    }
+    
+    NavigableMap<Integer, Account> accounts() {
+        return accounts;
+    }
+    
+    Map<Integer, Long> insertStamps() {
+        return insertStamps;
+    }
+    
+    NavigableSet<AccountSnapshot.Retired> retired() {
+        return retired;
+    }
+}
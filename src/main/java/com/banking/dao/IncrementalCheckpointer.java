@@ -0,0 +1,615 @@
+package com.banking.dao;
+
+import com.banking.entities.Account;
+import com.banking.events.AccountEvent;
+import com.banking.events.AccountEventListener;
+import com.banking.events.AccountEvents;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * Incremental checkpoints of a repository driven by a dirty bitmap
+ *
+ * Every committed event sets the bit for its account id, including events
+ * applied muted such as replicated changes. A background pass atomically
+ * takes and clears the set bits, encodes the current version of each changed
+ * account the repository holds with {@link AccountCodec} and appends them as
+ * one frame to the delta file, so checkpoint I/O follows the change rate
+ * rather than the number of accounts. Every mergeEvery passes the delta is
+ * folded into the base snapshot by a streaming merge of two id-ordered inputs.
+ * Writers never wait on a checkpoint: marking a bit is one atomic OR, and
+ * filtering out accounts of other repositories is left to the background pass.
+ *
+ * Files in the checkpoint directory:
+ * <ul>
+ *   <li>base.ckpt: magic, last merged sequence, id-ordered records, -1, CRC32</li>
+ *   <li>delta.ckpt: frames of payload length, CRC32 and payload (sequence,
+ *       count, records); a torn trailing frame is ignored</li>
+ * </ul>
+ * A record is {@code int id}, {@code short length} (-1 for a removed account)
+ * and the encoded account.
+ */
+public class IncrementalCheckpointer implements AccountEventListener, Closeable {
+
+    public static final String BASE_FILE = "base.ckpt";
+    public static final String DELTA_FILE = "delta.ckpt";
+    public static final long DEFAULT_INTERVAL_MILLIS = 1000;
+    public static final int DEFAULT_MERGE_EVERY = 16;
+
+    private static final int BASE_MAGIC = 0x434B5054;
+    private static final short REMOVED = -1;
+    // Account ids in checkpoints are never negative, so -1 ends the base records
+    private static final int END = -1;
+    private static final int INITIAL_BITMAP_WORDS = 1024;
+
+    private final AccountRepository repository;
+    private final Path base;
+    private final Path delta;
+    private final FileChannel deltaChannel;
+    private final int mergeEvery;
+    private final long intervalMillis;
+    private ScheduledExecutorService scheduler;
+
+    // One bit per account id; replaced by a larger copy when an id does not fit
+    private volatile AtomicLongArray dirty = new AtomicLongArray(INITIAL_BITMAP_WORDS);
+    // Separate from the checkpoint monitor so growing never waits on checkpoint I/O
+    private final Object growLock = new Object();
+
+    // Guarded by this
+    // Ids written live and not removed since; a missing account outside it belongs to another repository
+    private final BitSet stored = new BitSet();
+    private long sequence;
+    private long baseSequence;
+    private int framesSinceMerge;
+    private long checkpoints;
+    private long merges;
+    private long accountsWritten;
+    private int lastCheckpointAccounts;
+    private IOException lastFailure;
+
+    /**
+     * Checkpoint a repository once a second, merging every 16 checkpoints
+     * @param repository Repository whose accounts are checkpointed
+     * @param directory Directory for the base and delta files
+     */
+    public IncrementalCheckpointer(AccountRepository repository, Path directory) {
+        this(repository, directory, DEFAULT_INTERVAL_MILLIS, DEFAULT_MERGE_EVERY);
+    }
+
+    /**
+     * @param repository Repository whose accounts are checkpointed
+     * @param directory Directory for the base and delta files
+     * @param intervalMillis Delay between background checkpoints
+     * @param mergeEvery Checkpoints between merges into the base snapshot
+     */
+    public IncrementalCheckpointer(AccountRepository repository, Path directory,
+                                   long intervalMillis, int mergeEvery) {
+        if (intervalMillis <= 0 || mergeEvery <= 0) {
+            throw new IllegalArgumentException("Interval and merge frequency must be positive");
+        }
+        this.repository = repository;
+        this.base = directory.resolve(BASE_FILE);
+        this.delta = directory.resolve(DELTA_FILE);
+        this.intervalMillis = intervalMillis;
+        this.mergeEvery = mergeEvery;
+        try {
+            Files.createDirectories(directory);
+            this.baseSequence = Files.exists(base) ? readBaseSequence(base) : 0;
+            this.deltaChannel = FileChannel.open(delta, StandardOpenOption.CREATE,
+                    StandardOpenOption.READ, StandardOpenOption.WRITE);
+            this.sequence = Math.max(baseSequence, truncateTornFrame());
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot open checkpoint directory " + directory, e);
+        }
+    }
+
+    /**
+     * Start tracking changes and checkpointing in the background
+     * With no checkpoint on disk yet, every existing account is marked dirty
+     * so the first checkpoint captures the whole repository.
+     * @return This checkpointer
+     */
+    public synchronized IncrementalCheckpointer start() {
+        if (scheduler != null) {
+            return this;
+        }
+        AccountEvents.subscribe(this);
+        for (Account account : repository.findAll()) {
+            stored.set(account.getId());
+            if (sequence == 0) {
+                markDirty(account.getId());
+            }
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "account-checkpointer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(this::runScheduled, intervalMillis, intervalMillis,
+                TimeUnit.MILLISECONDS);
+        return this;
+    }
+
+    /**
+     * Mark the account dirty
+     * The hub is process-wide, so this also marks accounts of other
+     * repositories; checkpoint() drops them instead of the committing thread.
+     */
+    @Override
+    public void onEvent(AccountEvent event) {
+        markDirty(event.getAccountId());
+    }
+
+    @Override
+    public boolean receivesMuted() {
+        return true;
+    }
+
+    /**
+     * Record that an account changed since the last checkpoint
+     * @param id Account ID; negative ids are never stored and are ignored
+     */
+    public void markDirty(int id) {
+        if (id < 0) {
+            return;
+        }
+        int word = id >>> 6;
+        long bit = 1L << id;
+        while (true) {
+            AtomicLongArray bits = dirty;
+            if (word >= bits.length()) {
+                grow(word);
+                continue;
+            }
+            long current = bits.get(word);
+            if ((current & bit) != 0 || bits.compareAndSet(word, current, current | bit)) {
+                // A bit set in a bitmap being replaced may have missed the copy
+                if (dirty == bits) {
+                    return;
+                }
+            }
+        }
+    }
+
+    private void grow(int word) {
+        synchronized (growLock) {
+            AtomicLongArray old = dirty;
+            if (word < old.length()) {
+                return;
+            }
+            AtomicLongArray grown = new AtomicLongArray(Math.max(word + 1, old.length() * 2));
+            dirty = grown;
+            // Copy after publishing so late writers to the old bitmap retry on the new one
+            for (int i = 0; i < old.length(); i++) {
+                grown.getAndAccumulate(i, old.get(i), (a, b) -> a | b);
+            }
+        }
+    }
+
+    /**
+     * @return Accounts marked dirty and not yet checkpointed
+     */
+    public int getDirtyCount() {
+        AtomicLongArray bits = dirty;
+        int count = 0;
+        for (int i = 0; i < bits.length(); i++) {
+            count += Long.bitCount(bits.get(i));
+        }
+        return count;
+    }
+
+    private void runScheduled() {
+        try {
+            checkpoint();
+            synchronized (this) {
+                if (framesSinceMerge >= mergeEvery) {
+                    merge();
+                }
+            }
+        } catch (UncheckedIOException e) {
+            // Already recorded; the marks are restored so the next pass retries
+        }
+    }
+
+    /**
+     * Write every dirty account of the repository to the delta file
+     * A dirty id the repository does not hold is written as a removal only if
+     * it was written live before; otherwise it belongs to another repository.
+     * @return Number of accounts written
+     */
+    public synchronized int checkpoint() {
+        List<Integer> ids = new ArrayList<>();
+        AtomicLongArray bits = dirty;
+        for (int word = 0; word < bits.length(); word++) {
+            if (bits.get(word) == 0) {
+                continue;
+            }
+            long taken = bits.getAndSet(word, 0);
+            while (taken != 0) {
+                ids.add((word << 6) + Long.numberOfTrailingZeros(taken));
+                taken &= taken - 1;
+            }
+        }
+        List<Integer> written = new ArrayList<>(ids.size());
+        List<Account> accounts = new ArrayList<>(ids.size());
+        for (int id : ids) {
+            // Changes after this read set the bit again and go into the next frame
+            Account account = repository.findById(id);
+            if (account != null || stored.get(id)) {
+                written.add(id);
+                accounts.add(account);
+            }
+        }
+        if (written.isEmpty()) {
+            return 0;
+        }
+        try {
+            ByteArrayOutputStream payload = new ByteArrayOutputStream(written.size() * 48);
+            DataOutputStream out = new DataOutputStream(payload);
+            out.writeLong(sequence + 1);
+            out.writeInt(written.size());
+            for (int i = 0; i < written.size(); i++) {
+                writeRecord(out, written.get(i), accounts.get(i));
+            }
+            byte[] bytes = payload.toByteArray();
+            CRC32 crc = new CRC32();
+            crc.update(bytes);
+            ByteBuffer frame = ByteBuffer.allocate(8 + bytes.length);
+            frame.putInt(bytes.length).putInt((int) crc.getValue()).put(bytes).flip();
+            long position = deltaChannel.size();
+            while (frame.hasRemaining()) {
+                position += deltaChannel.write(frame, position);
+            }
+            deltaChannel.force(false);
+        } catch (IOException e) {
+            for (int id : written) {
+                markDirty(id);
+            }
+            lastFailure = e;
+            throw new UncheckedIOException("Checkpoint failed", e);
+        }
+        for (int i = 0; i < written.size(); i++) {
+            stored.set(written.get(i), accounts.get(i) != null);
+        }
+        sequence++;
+        framesSinceMerge++;
+        checkpoints++;
+        accountsWritten += written.size();
+        lastCheckpointAccounts = written.size();
+        return written.size();
+    }
+
+    /**
+     * Fold the delta file into the base snapshot and empty the delta
+     * Reads the current base sequentially, so memory use follows the delta size.
+     */
+    public synchronized void merge() {
+        try {
+            NavigableMap<Integer, byte[]> changes = new TreeMap<>();
+            long mergedSequence = readDelta(delta, baseSequence, changes);
+            if (changes.isEmpty()) {
+                return;
+            }
+            Path next = base.resolveSibling(BASE_FILE + ".tmp");
+            CRC32 crc = new CRC32();
+            try (DataOutputStream out = new DataOutputStream(new CheckedOutputStream(
+                    new BufferedOutputStream(Files.newOutputStream(next)), crc))) {
+                out.writeInt(BASE_MAGIC);
+                out.writeLong(mergedSequence);
+                Iterator<Map.Entry<Integer, byte[]>> pending = changes.entrySet().iterator();
+                Map.Entry<Integer, byte[]> change = pending.hasNext() ? pending.next() : null;
+                if (Files.exists(base)) {
+                    try (BaseReader reader = new BaseReader(base)) {
+                        int id;
+                        while ((id = reader.nextId()) != END) {
+                            byte[] record = readRecordBody(reader.in);
+                            while (change != null && change.getKey() < id) {
+                                writeLive(out, change.getKey(), change.getValue());
+                                change = pending.hasNext() ? pending.next() : null;
+                            }
+                            if (change != null && change.getKey() == id) {
+                                writeLive(out, id, change.getValue());
+                                change = pending.hasNext() ? pending.next() : null;
+                            } else {
+                                writeLive(out, id, record);
+                            }
+                        }
+                        reader.verify();
+                    }
+                }
+                while (change != null) {
+                    writeLive(out, change.getKey(), change.getValue());
+                    change = pending.hasNext() ? pending.next() : null;
+                }
+                out.writeInt(END);
+                out.writeInt((int) crc.getValue());
+            }
+            try (FileChannel written = FileChannel.open(next, StandardOpenOption.WRITE)) {
+                written.force(true);
+            }
+            Files.move(next, base, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            // A crash before this truncate only replays frames the base already holds
+            deltaChannel.truncate(0);
+            deltaChannel.force(true);
+            baseSequence = mergedSequence;
+            framesSinceMerge = 0;
+            merges++;
+        } catch (IOException e) {
+            lastFailure = e;
+            throw new UncheckedIOException("Checkpoint merge failed", e);
+        }
+    }
+
+    /**
+     * Base snapshots hold live accounts only, so removals are simply dropped
+     */
+    private static void writeLive(DataOutputStream out, int id, byte[] record) throws IOException {
+        if (record != null) {
+            writeBytes(out, id, record);
+        }
+    }
+
+    /**
+     * Restore accounts from a checkpoint directory
+     * @param directory Directory written by a checkpointer
+     * @return Restored accounts in id order
+     */
+    public static List<Account> load(Path directory) {
+        Path base = directory.resolve(BASE_FILE);
+        Path delta = directory.resolve(DELTA_FILE);
+        NavigableMap<Integer, byte[]> records = new TreeMap<>();
+        try {
+            long baseSequence = 0;
+            if (Files.exists(base)) {
+                try (BaseReader reader = new BaseReader(base)) {
+                    baseSequence = reader.sequence;
+                    int id;
+                    while ((id = reader.nextId()) != END) {
+                        records.put(id, readRecordBody(reader.in));
+                    }
+                    reader.verify();
+                }
+            }
+            if (Files.exists(delta)) {
+                readDelta(delta, baseSequence, records);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot read checkpoint in " + directory, e);
+        }
+        List<Account> accounts = new ArrayList<>(records.size());
+        for (byte[] record : records.values()) {
+            if (record != null) {
+                accounts.add(AccountCodec.decode(record));
+            }
+        }
+        return accounts;
+    }
+
+    /**
+     * Load a checkpoint into a repository without publishing events
+     * @param directory Directory written by a checkpointer
+     * @param repository Destination repository
+     * @return Number of accounts restored
+     */
+    public static int restore(Path directory, AccountRepository repository) {
+        List<Account> accounts = load(directory);
+        AccountEvents.runMuted(() -> repository.addAll(accounts));
+        return accounts.size();
+    }
+
+    /**
+     * Apply delta frames newer than a sequence; removed accounts map to null
+     * @return Highest sequence applied
+     */
+    private static long readDelta(Path file, long afterSequence, Map<Integer, byte[]> into) throws IOException {
+        long last = afterSequence;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            while (true) {
+                byte[] payload = readFrame(in);
+                if (payload == null) {
+                    return last;
+                }
+                DataInputStream frame = new DataInputStream(new ByteArrayInputStream(payload));
+                long frameSequence = frame.readLong();
+                int count = frame.readInt();
+                if (frameSequence <= afterSequence) {
+                    continue;
+                }
+                for (int i = 0; i < count; i++) {
+                    int id = frame.readInt();
+                    into.put(id, readRecordBody(frame));
+                }
+                last = frameSequence;
+            }
+        }
+    }
+
+    /**
+     * @return Next frame's payload, or null at the end or at a torn frame
+     */
+    private static byte[] readFrame(DataInputStream in) throws IOException {
+        try {
+            int length = in.readInt();
+            int checksum = in.readInt();
+            if (length < 0) {
+                return null;
+            }
+            byte[] payload = new byte[length];
+            in.readFully(payload);
+            CRC32 crc = new CRC32();
+            crc.update(payload);
+            return (int) crc.getValue() == checksum ? payload : null;
+        } catch (EOFException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Drop a frame torn by a crash so new frames append after valid data
+     * @return Sequence of the last valid frame
+     */
+    private long truncateTornFrame() throws IOException {
+        long valid = 0;
+        long last = 0;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(delta)))) {
+            byte[] payload;
+            while ((payload = readFrame(in)) != null) {
+                valid += 8 + payload.length;
+                last = ByteBuffer.wrap(payload).getLong();
+            }
+        }
+        if (deltaChannel.size() > valid) {
+            deltaChannel.truncate(valid);
+        }
+        return last;
+    }
+
+    private static void writeRecord(DataOutputStream out, int id, Account account) throws IOException {
+        writeBytes(out, id, account == null ? null : AccountCodec.encode(account));
+    }
+
+    private static void writeBytes(DataOutputStream out, int id, byte[] record) throws IOException {
+        out.writeInt(id);
+        if (record == null) {
+            out.writeShort(REMOVED);
+        } else {
+            out.writeShort(record.length);
+            out.write(record);
+        }
+    }
+
+    private static byte[] readRecordBody(DataInputStream in) throws IOException {
+        short length = in.readShort();
+        if (length == REMOVED) {
+            return null;
+        }
+        byte[] record = new byte[length];
+        in.readFully(record);
+        return record;
+    }
+
+    private static long readBaseSequence(Path file) throws IOException {
+        try (BaseReader reader = new BaseReader(file)) {
+            return reader.sequence;
+        }
+    }
+
+    /**
+     * Sequential reader over a base snapshot that checks its CRC at the end
+     */
+    private static final class BaseReader implements Closeable {
+        final CRC32 crc = new CRC32();
+        final DataInputStream in;
+        final long sequence;
+
+        BaseReader(Path file) throws IOException {
+            InputStream raw = new BufferedInputStream(Files.newInputStream(file));
+            this.in = new DataInputStream(new CheckedInputStream(raw, crc));
+            if (in.readInt() != BASE_MAGIC) {
+                in.close();
+                throw new IOException("Not a checkpoint base: " + file);
+            }
+            this.sequence = in.readLong();
+        }
+
+        /**
+         * @return Next record's id, or END after the last record
+         */
+        int nextId() throws IOException {
+            return in.readInt();
+        }
+
+        /**
+         * Check the trailer; call after END was returned
+         */
+        void verify() throws IOException {
+            int expected = (int) crc.getValue();
+            if (in.readInt() != expected) {
+                throw new IOException("Checkpoint base checksum mismatch");
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            in.close();
+        }
+    }
+
+    public synchronized long getCheckpointCount() {
+        return checkpoints;
+    }
+
+    public synchronized long getMergeCount() {
+        return merges;
+    }
+
+    /**
+     * @return Account records written to delta frames since opening
+     */
+    public synchronized long getAccountsWritten() {
+        return accountsWritten;
+    }
+
+    public synchronized int getLastCheckpointAccounts() {
+        return lastCheckpointAccounts;
+    }
+
+    /**
+     * @return Most recent I/O failure, or null
+     */
+    public synchronized IOException getLastFailure() {
+        return lastFailure;
+    }
+
+    /**
+     * Stop tracking, write a final checkpoint and close the delta file
+     */
+    @Override
+    public void close() throws IOException {
+        AccountEvents.unsubscribe(this);
+        ScheduledExecutorService running;
+        synchronized (this) {
+            running = scheduler;
+            scheduler = null;
+        }
+        if (running != null) {
+            running.shutdown();
+            try {
+                running.awaitTermination(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            checkpoint();
+        }
+        deltaChannel.close();
+    }
+}
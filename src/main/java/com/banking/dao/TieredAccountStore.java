@@ -0,0 +1,435 @@
+package com.banking.dao;
+
+import com.banking.entities.Account;
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Tiered account storage: a bounded on-heap cache in front of a {@link DiskAccountStore}
+ * 
+ * The cache uses W-TinyLFU: new entries land in a small LRU window, and an
+ * entry leaving the window only displaces the coldest main-space entry if the
+ * frequency sketch says it has been accessed more often recently. The main
+ * space is a segmented LRU (probation and protected) so one-off scans cannot
+ * flush the hot working set.
+ * 
+ * Inserts and removals go straight to disk. Changes made through cached
+ * Account objects are detected by their modification count and written back
+ * asynchronously; dirty entries that get evicted are queued and still served
+ * from memory until the write-back thread persists them. Callers
+ * should look accounts up again rather than keep references across long idle
+ * periods, since an evicted object is no longer tracked once written back.
+ */
+public class TieredAccountStore implements AccountRepository, Closeable {
+    
+    /**
+     * Resident account together with the modification count last persisted
+     */
+    private static final class Entry {
+        final Account account;
+        long persistedModifications;
+        
+        Entry(Account account, long persistedModifications) {
+            this.account = account;
+            this.persistedModifications = persistedModifications;
+        }
+        
+        boolean isDirty() {
+            return account.getModificationCount() != persistedModifications;
+        }
+    }
+    
+    private final DiskAccountStore disk;
+    private final FrequencySketch sketch;
+    private final int windowCapacity;
+    private final int protectedCapacity;
+    private final int mainCapacity;
+    
+    // Insertion order doubles as LRU order: the first entry is the eviction candidate
+    private final LinkedHashMap<Integer, Entry> window = new LinkedHashMap<>();
+    private final LinkedHashMap<Integer, Entry> probation = new LinkedHashMap<>();
+    private final LinkedHashMap<Integer, Entry> protectedSegment = new LinkedHashMap<>();
+    
+    // Dirty entries evicted from memory but not yet written back
+    private final Map<Integer, Entry> pendingWrites = new HashMap<>();
+    private final ScheduledExecutorService writeBack;
+    
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder writeBacks = new LongAdder();
+    
+    /**
+     * Create a tiered store
+     * @param disk Backing store
+     * @param capacity Maximum number of resident accounts
+     * @param writeBackIntervalMillis Delay between asynchronous write-back passes
+     */
+    public TieredAccountStore(DiskAccountStore disk, int capacity, long writeBackIntervalMillis) {
+        if (capacity < 2) {
+            throw new IllegalArgumentException("Cache capacity must be at least 2");
+        }
+        this.disk = disk;
+        this.sketch = new FrequencySketch(capacity);
+        this.windowCapacity = Math.max(1, capacity / 100);
+        this.mainCapacity = capacity - windowCapacity;
+        this.protectedCapacity = (int) (mainCapacity * 0.8);
+        this.writeBack = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "account-write-back");
+            thread.setDaemon(true);
+            return thread;
+        });
+        writeBack.scheduleWithFixedDelay(this::flush, writeBackIntervalMillis,
+                writeBackIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+    
+    /**
+     * Add account to storage
+     * @param account Account to add
+     */
+    @Override
+    public synchronized void add(Account account) {
+        disk.write(account);
+        pendingWrites.remove(account.getId());
+        removeResident(account.getId());
+        sketch.increment(account.getId());
+        admit(account.getId(), new Entry(account, account.getModificationCount()));
+    }
+    
+    /**
+     * Find account by ID, reading it from disk on a cache miss
+     * @param id Account ID
+     * @return Account or null if not found
+     */
+    @Override
+    public Account findById(int id) {
+        synchronized (this) {
+            sketch.increment(id);
+            Entry entry = touchOrReclaim(id);
+            if (entry != null) {
+                hits.increment();
+                return entry.account;
+            }
+        }
+        misses.increment();
+        Account loaded = disk.read(id);
+        if (loaded == null) {
+            return null;
+        }
+        synchronized (this) {
+            // Another thread may have loaded or evicted it while we were reading
+            Entry raced = touchOrReclaim(id);
+            if (raced != null) {
+                return raced.account;
+            }
+            admit(id, new Entry(loaded, loaded.getModificationCount()));
+            return loaded;
+        }
+    }
+    
+    /**
+     * Find account by card number
+     * @param cardNumber Card number
+     * @return Account or null if not found
+     */
+    @Override
+    public Account findByCardNumber(String cardNumber) {
+        Integer id = Account.idForCardNumber(cardNumber);
+        if (id == null) {
+            return null;
+        }
+        Account account = findById(id);
+        return account != null && account.getCardNumber().equals(cardNumber) ? account : null;
+    }
+    
+    /**
+     * Remove account from storage
+     * @param id Account ID
+     */
+    @Override
+    public synchronized void remove(int id) {
+        removeResident(id);
+        pendingWrites.remove(id);
+        disk.delete(id);
+    }
+    
+    /**
+     * Clear all accounts from both tiers
+     */
+    @Override
+    public synchronized void clear() {
+        window.clear();
+        probation.clear();
+        protectedSegment.clear();
+        pendingWrites.clear();
+        disk.truncate();
+    }
+    
+    /**
+     * @return Number of stored accounts
+     */
+    @Override
+    public int count() {
+        return disk.count();
+    }
+    
+    /**
+     * Iterate over all accounts in ascending id order
+     * @return Resident objects where cached, otherwise copies read from disk
+     */
+    @Override
+    public Iterable<Account> findAll() {
+        return findRange(0, Integer.MAX_VALUE);
+    }
+    
+    /**
+     * Iterate over accounts whose id lies in [fromId, toId)
+     * Scanned accounts are not admitted to the cache, so a full scan does not
+     * disturb the working set; persist changes to them with {@link #save(Account)}.
+     * @param fromId First id (inclusive)
+     * @param toId Last id (exclusive)
+     * @return Resident objects where cached, otherwise copies read from disk
+     */
+    @Override
+    public Iterable<Account> findRange(int fromId, int toId) {
+        Iterable<Account> onDisk = disk.scan(fromId, toId);
+        return () -> new Iterator<>() {
+            private final Iterator<Account> source = onDisk.iterator();
+            
+            @Override
+            public boolean hasNext() {
+                return source.hasNext();
+            }
+            
+            @Override
+            public Account next() {
+                Account stored = source.next();
+                synchronized (TieredAccountStore.this) {
+                    Entry entry = residentOrPending(stored.getId());
+                    return entry != null ? entry.account : stored;
+                }
+            }
+        };
+    }
+    
+    /**
+     * Persist an account that is not tracked by the cache
+     * Cached accounts are written back automatically.
+     * @param account Changed account
+     */
+    @Override
+    public synchronized void save(Account account) {
+        Entry entry = residentOrPending(account.getId());
+        if (entry == null || entry.account != account) {
+            disk.write(account);
+        }
+    }
+    
+    /**
+     * Write every dirty account, resident or evicted, back to disk
+     * The monitor is held for each slot write only, so a concurrent remove
+     * cannot be undone by a late write-back.
+     */
+    public void flush() {
+        List<Entry> dirty = new ArrayList<>();
+        synchronized (this) {
+            dirty.addAll(pendingWrites.values());
+            collectDirty(window, dirty);
+            collectDirty(probation, dirty);
+            collectDirty(protectedSegment, dirty);
+        }
+        for (Entry entry : dirty) {
+            // Read the count before encoding so a racing change is caught by the next pass
+            long modifications = entry.account.getModificationCount();
+            int id = entry.account.getId();
+            synchronized (this) {
+                if (!isTracked(id, entry)) {
+                    continue;
+                }
+                disk.write(entry.account);
+                entry.persistedModifications = modifications;
+                if (!entry.isDirty()) {
+                    pendingWrites.remove(id, entry);
+                }
+            }
+            writeBacks.increment();
+        }
+    }
+    
+    /**
+     * @return Number of lookups served from memory
+     */
+    public long getHitCount() {
+        return hits.sum();
+    }
+    
+    /**
+     * @return Number of lookups that had to go to disk
+     */
+    public long getMissCount() {
+        return misses.sum();
+    }
+    
+    /**
+     * @return Fraction of lookups served from memory, 0 if there were none
+     */
+    public double getHitRate() {
+        long h = hits.sum();
+        long total = h + misses.sum();
+        return total == 0 ? 0.0 : (double) h / total;
+    }
+    
+    /**
+     * @return Number of accounts evicted from memory
+     */
+    public long getEvictionCount() {
+        return evictions.sum();
+    }
+    
+    /**
+     * @return Number of dirty accounts written back to disk
+     */
+    public long getWriteBackCount() {
+        return writeBacks.sum();
+    }
+    
+    /**
+     * @return Number of accounts currently resident in memory
+     */
+    public synchronized int residentCount() {
+        return window.size() + probation.size() + protectedSegment.size();
+    }
+    
+    /**
+     * Stop the write-back thread after persisting all dirty accounts
+     */
+    @Override
+    public void close() {
+        writeBack.shutdown();
+        try {
+            writeBack.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        flush();
+        disk.sync();
+    }
+    
+    // Cache policy; all methods below run while holding the store's monitor
+    
+    /**
+     * Look up a resident entry, or bring back one still waiting for write-back
+     */
+    private Entry touchOrReclaim(int id) {
+        Entry entry = touch(id);
+        if (entry == null) {
+            entry = pendingWrites.remove(id);
+            if (entry != null) {
+                admit(id, entry);
+            }
+        }
+        return entry;
+    }
+    
+    /**
+     * Look up a resident entry and update its recency
+     */
+    private Entry touch(int id) {
+        Entry entry = window.remove(id);
+        if (entry != null) {
+            window.put(id, entry);
+            return entry;
+        }
+        entry = protectedSegment.remove(id);
+        if (entry != null) {
+            protectedSegment.put(id, entry);
+            return entry;
+        }
+        entry = probation.remove(id);
+        if (entry != null) {
+            // A second hit promotes the entry to the protected segment
+            protectedSegment.put(id, entry);
+            if (protectedSegment.size() > protectedCapacity) {
+                Map.Entry<Integer, Entry> demoted = first(protectedSegment);
+                protectedSegment.remove(demoted.getKey());
+                probation.put(demoted.getKey(), demoted.getValue());
+            }
+        }
+        return entry;
+    }
+    
+    /**
+     * Insert a new entry into the window and let the overflow compete for main space
+     */
+    private void admit(int id, Entry entry) {
+        window.put(id, entry);
+        if (window.size() <= windowCapacity) {
+            return;
+        }
+        Map.Entry<Integer, Entry> candidate = first(window);
+        window.remove(candidate.getKey());
+        if (probation.size() + protectedSegment.size() < mainCapacity) {
+            probation.put(candidate.getKey(), candidate.getValue());
+            return;
+        }
+        Map.Entry<Integer, Entry> victim = probation.isEmpty() ? first(protectedSegment) : first(probation);
+        if (sketch.frequency(candidate.getKey()) > sketch.frequency(victim.getKey())) {
+            probation.remove(victim.getKey());
+            protectedSegment.remove(victim.getKey());
+            evict(victim.getKey(), victim.getValue());
+            probation.put(candidate.getKey(), candidate.getValue());
+        } else {
+            evict(candidate.getKey(), candidate.getValue());
+        }
+    }
+    
+    private void evict(int id, Entry entry) {
+        evictions.increment();
+        if (entry.isDirty()) {
+            pendingWrites.put(id, entry);
+        }
+    }
+    
+    private Entry residentOrPending(int id) {
+        Entry entry = window.get(id);
+        if (entry == null) {
+            entry = probation.get(id);
+        }
+        if (entry == null) {
+            entry = protectedSegment.get(id);
+        }
+        return entry != null ? entry : pendingWrites.get(id);
+    }
+    
+    private boolean isTracked(int id, Entry entry) {
+        return pendingWrites.get(id) == entry || window.get(id) == entry
+                || probation.get(id) == entry || protectedSegment.get(id) == entry;
+    }
+    
+    private void removeResident(int id) {
+        if (window.remove(id) == null && probation.remove(id) == null) {
+            protectedSegment.remove(id);
+        }
+    }
+    
+    private static void collectDirty(Map<Integer, Entry> segment, List<Entry> dirty) {
+        for (Entry entry : segment.values()) {
+            if (entry.isDirty()) {
+                dirty.add(entry);
+            }
+        }
+    }
+    
+    private static Map.Entry<Integer, Entry> first(LinkedHashMap<Integer, Entry> segment) {
+        return segment.entrySet().iterator().next();
+    }
+}
@@ -0,0 +1,80 @@
+package com.banking.dao.lsm;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Bloom filter over account ids, stored alongside each segment
+ * Lets lookups skip segments that certainly do not contain an id.
+ */
+final class BloomFilter {
+    
+    private static final int BITS_PER_KEY = 10;
+    
+    private final long[] bits;
+    private final int hashes;
+    
+    BloomFilter(int expectedKeys) {
+        int numBits = Math.max(64, expectedKeys * BITS_PER_KEY);
+        this.bits = new long[(numBits + 63) / 64];
+        // k = ln 2 * bits per key is optimal; 10 bits per key gives about 1% false positives
+        this.hashes = 7;
+    }
+    
+    private BloomFilter(long[] bits, int hashes) {
+        this.bits = bits;
+        this.hashes = hashes;
+    }
+    
+    void add(int id) {
+        long hash = mix(id);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        long numBits = (long) bits.length * 64;
+        for (int i = 0; i < hashes; i++) {
+            long bit = ((h1 + (long) i * h2) & Long.MAX_VALUE) % numBits;
+            bits[(int) (bit >>> 6)] |= 1L << bit;
+        }
+    }
+    
+    boolean mightContain(int id) {
+        long hash = mix(id);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        long numBits = (long) bits.length * 64;
+        for (int i = 0; i < hashes; i++) {
+            long bit = ((h1 + (long) i * h2) & Long.MAX_VALUE) % numBits;
+            if ((bits[(int) (bit >>> 6)] & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+    
+    int serializedSize() {
+        return 8 + bits.length * 8;
+    }
+    
+    void writeTo(ByteBuffer buffer) {
+        buffer.putInt(hashes);
+        buffer.putInt(bits.length);
+        for (long word : bits) {
+            buffer.putLong(word);
+        }
+    }
+    
+    static BloomFilter readFrom(ByteBuffer buffer) {
+        int hashes = buffer.getInt();
+        long[] bits = new long[buffer.getInt()];
+        for (int i = 0; i < bits.length; i++) {
+            bits[i] = buffer.getLong();
+        }
+        return new BloomFilter(bits, hashes);
+    }
+    
+    private static long mix(int id) {
+        long h = id * 0x9e3779b97f4a7c15L;
+        h ^= h >>> 32;
+        h *= 0xd6e8feb86659fd93L;
+        return h ^ (h >>> 32);
+    }
+}
@@ -0,0 +1,740 @@
+package com.banking.dao.lsm;
+
+import com.banking.dao.AccountCodec;
+import com.banking.dao.AccountRepository;
+import com.banking.entities.Account;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Durable account store built as a log-structured merge tree
+ * 
+ * Writes are appended to a write-ahead log and applied to an in-memory
+ * memtable. Full memtables are flushed by a background thread into sorted,
+ * immutable segment files at level 0, each with a sparse index and a bloom
+ * filter. A separate compaction thread merges level 0 into level 1 once four
+ * segments accumulate, and level n into level n+1 once it outgrows ten times
+ * the size budget of the level above, keeping lookups to a handful of
+ * segments. The set of live segments is recorded in a MANIFEST file that is
+ * replaced atomically.
+ * 
+ * Accounts returned by lookups are decoded copies: persist changes by calling
+ * {@link #add(Account)} again.
+ */
+public class LsmAccountStore implements AccountRepository, Closeable {
+    
+    public static final long DEFAULT_MEMTABLE_BYTES = 4L << 20;
+    private static final int LEVEL0_COMPACTION_TRIGGER = 4;
+    private static final int LEVEL_SIZE_RATIO = 10;
+    private static final int MAX_IMMUTABLE_MEMTABLES = 4;
+    private static final int ENTRY_OVERHEAD = 48;
+    private static final String MANIFEST = "MANIFEST";
+    
+    /**
+     * Mutable in-memory table of recent writes and its log
+     */
+    private static final class Memtable {
+        final ConcurrentSkipListMap<Integer, byte[]> records = new ConcurrentSkipListMap<>();
+        final WriteAheadLog wal;
+        long bytes;
+        int countAfter;
+        
+        Memtable(WriteAheadLog wal) {
+            this.wal = wal;
+        }
+    }
+    
+    /**
+     * Immutable set of live segments
+     */
+    private static final class Version {
+        // Level 0 segments may overlap and are ordered newest first
+        final List<Segment> level0;
+        // Index i holds the single sorted run of level i + 1, or null
+        final List<Segment> levels;
+        
+        Version(List<Segment> level0, List<Segment> levels) {
+            this.level0 = Collections.unmodifiableList(level0);
+            this.levels = Collections.unmodifiableList(levels);
+        }
+        
+        List<Segment> all() {
+            List<Segment> all = new ArrayList<>(level0);
+            for (Segment segment : levels) {
+                if (segment != null) {
+                    all.add(segment);
+                }
+            }
+            return all;
+        }
+    }
+    
+    private final Path directory;
+    private final long memtableBytes;
+    private final boolean syncWrites;
+    private final AtomicLong sequence = new AtomicLong();
+    private final Object writeMutex = new Object();
+    private final Object versionLock = new Object();
+    private final ExecutorService flushExecutor;
+    private final ExecutorService compactionExecutor;
+    
+    private volatile Memtable active;
+    private volatile List<Memtable> immutables = Collections.emptyList();
+    private volatile Version version = new Version(new ArrayList<>(), new ArrayList<>());
+    private volatile int count;
+    private int persistedCount;
+    private Future<?> lastFlush;
+    private volatile Throwable backgroundFailure;
+    private volatile boolean closed;
+    
+    /**
+     * Open a store with the default memtable size and asynchronous log writes
+     * @param directory Store directory, created if missing
+     */
+    public LsmAccountStore(Path directory) {
+        this(directory, DEFAULT_MEMTABLE_BYTES, false);
+    }
+    
+    /**
+     * Open or create a store
+     * @param directory Store directory, created if missing
+     * @param memtableBytes Approximate memtable size that triggers a flush
+     * @param syncWrites true to force the write-ahead log to disk on every write
+     */
+    public LsmAccountStore(Path directory, long memtableBytes, boolean syncWrites) {
+        this.directory = directory;
+        this.memtableBytes = memtableBytes;
+        this.syncWrites = syncWrites;
+        this.flushExecutor = Executors.newSingleThreadExecutor(daemon("lsm-flush"));
+        this.compactionExecutor = Executors.newSingleThreadExecutor(daemon("lsm-compaction"));
+        try {
+            Files.createDirectories(directory);
+            recover();
+        } catch (IOException e) {
+            flushExecutor.shutdownNow();
+            compactionExecutor.shutdownNow();
+            throw new UncheckedIOException("Cannot open LSM store in " + directory, e);
+        }
+    }
+    
+    /**
+     * Add or replace an account
+     * @param account Account to store
+     */
+    @Override
+    public void add(Account account) {
+        put(account.getId(), AccountCodec.encode(account));
+    }
+    
+    /**
+     * Persist changes made to a decoded copy
+     * @param account Changed account
+     */
+    @Override
+    public void save(Account account) {
+        add(account);
+    }
+    
+    /**
+     * Find account by ID
+     * @param id Account ID
+     * @return Decoded copy of the account or null if not found
+     */
+    @Override
+    public Account findById(int id) {
+        byte[] value = lookup(id);
+        return value == null || value == Segment.TOMBSTONE ? null : AccountCodec.decode(value);
+    }
+    
+    /**
+     * Find account by card number
+     * @param cardNumber Card number
+     * @return Decoded copy of the account or null if not found
+     */
+    @Override
+    public Account findByCardNumber(String cardNumber) {
+        Integer id = Account.idForCardNumber(cardNumber);
+        return id == null ? null : findById(id);
+    }
+    
+    /**
+     * Remove account from storage
+     * @param id Account ID
+     */
+    @Override
+    public void remove(int id) {
+        put(id, Segment.TOMBSTONE);
+    }
+    
+    /**
+     * @return Number of stored accounts
+     */
+    @Override
+    public int count() {
+        return count;
+    }
+    
+    /**
+     * Iterate over accounts with ids in [fromId, toId) in ascending order
+     * Segments stay pinned until the iteration has been run to the end.
+     * @param fromId First id (inclusive)
+     * @param toId Last id (exclusive)
+     * @return Decoded accounts
+     */
+    @Override
+    public Iterable<Account> findRange(int fromId, int toId) {
+        if (fromId >= toId) {
+            return Collections.emptyList();
+        }
+        return () -> scan(fromId, toId - 1);
+    }
+    
+    /**
+     * Check whether any account has an id in [fromId, toId)
+     * Segments are released before returning, unlike an abandoned range scan.
+     * @param fromId First id (inclusive)
+     * @param toId Last id (exclusive)
+     * @return true if the range holds at least one account
+     */
+    @Override
+    public boolean hasAny(int fromId, int toId) {
+        if (fromId >= toId) {
+            return false;
+        }
+        Version pinned = pin();
+        try {
+            MergingIterator merged = merge(fromId, toId - 1, pinned);
+            while (merged.hasNext()) {
+                if (merged.next().getValue() != Segment.TOMBSTONE) {
+                    return true;
+                }
+            }
+            return false;
+        } finally {
+            unpin(pinned);
+        }
+    }
+    
+    /**
+     * Iterate over all accounts in ascending id order
+     * @return Decoded accounts
+     */
+    @Override
+    public Iterable<Account> findAll() {
+        return () -> scan(Integer.MIN_VALUE, Integer.MAX_VALUE);
+    }
+    
+    /**
+     * Remove every account and segment
+     */
+    @Override
+    public void clear() {
+        synchronized (writeMutex) {
+            checkOpen();
+            awaitFlushes();
+            List<Segment> dropped;
+            synchronized (versionLock) {
+                dropped = version.all();
+                version = new Version(new ArrayList<>(), new ArrayList<>());
+                count = 0;
+                persistedCount = 0;
+                saveManifest();
+            }
+            for (Segment segment : dropped) {
+                segment.markObsolete();
+            }
+            Memtable old = active;
+            active = newMemtable();
+            closeAndDelete(old.wal);
+        }
+    }
+    
+    /**
+     * Flush the memtable and wait until background flushes are done
+     */
+    public void flush() {
+        synchronized (writeMutex) {
+            checkOpen();
+            if (!active.records.isEmpty()) {
+                rotate();
+            }
+            awaitFlushes();
+        }
+    }
+    
+    /**
+     * Wait until no compaction is pending; mainly for tests and benchmarks
+     */
+    public void awaitCompaction() {
+        try {
+            compactionExecutor.submit(() -> { }).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+    
+    /**
+     * @return Number of segment files per level, level 0 first
+     */
+    public List<Integer> segmentsPerLevel() {
+        Version current = version;
+        List<Integer> result = new ArrayList<>();
+        result.add(current.level0.size());
+        for (Segment segment : current.levels) {
+            result.add(segment == null ? 0 : 1);
+        }
+        return result;
+    }
+    
+    /**
+     * Stop background threads and close files
+     * The memtable stays in its write-ahead log and is replayed on the next open.
+     */
+    @Override
+    public void close() throws IOException {
+        synchronized (writeMutex) {
+            if (closed) {
+                return;
+            }
+            awaitFlushes();
+            closed = true;
+        }
+        flushExecutor.shutdown();
+        compactionExecutor.shutdown();
+        try {
+            compactionExecutor.awaitTermination(1, TimeUnit.MINUTES);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        active.wal.sync();
+        active.wal.close();
+        synchronized (versionLock) {
+            for (Segment segment : version.all()) {
+                segment.release();
+            }
+        }
+    }
+    
+    // Write path
+    
+    private void put(int id, byte[] value) {
+        synchronized (writeMutex) {
+            checkOpen();
+            byte[] previous = lookup(id);
+            boolean existed = previous != null && previous != Segment.TOMBSTONE;
+            if (!existed && value == Segment.TOMBSTONE) {
+                return;
+            }
+            Memtable memtable = active;
+            try {
+                memtable.wal.append(id, value);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            memtable.records.put(id, value);
+            memtable.bytes += ENTRY_OVERHEAD + value.length;
+            if (value == Segment.TOMBSTONE) {
+                count--;
+            } else if (!existed) {
+                count++;
+            }
+            memtable.countAfter = count;
+            if (memtable.bytes >= memtableBytes) {
+                rotate();
+            }
+        }
+    }
+    
+    /**
+     * Seal the active memtable and hand it to the flush thread; caller holds writeMutex
+     */
+    private void rotate() {
+        Memtable sealed = active;
+        List<Memtable> sealedList = new ArrayList<>(immutables.size() + 1);
+        sealedList.add(sealed);
+        sealedList.addAll(immutables);
+        // Publish the sealed table before the new one so readers never miss it
+        immutables = Collections.unmodifiableList(sealedList);
+        active = newMemtable();
+        lastFlush = flushExecutor.submit(() -> flushMemtable(sealed));
+        if (sealedList.size() > MAX_IMMUTABLE_MEMTABLES) {
+            awaitFlushes();
+        }
+    }
+    
+    private void flushMemtable(Memtable memtable) {
+        try {
+            long seq = sequence.getAndIncrement();
+            Segment segment = Segment.write(seq, segmentPath(seq), memtable.records.entrySet().iterator(),
+                    memtable.records.size(), false);
+            synchronized (versionLock) {
+                if (segment != null) {
+                    List<Segment> level0 = new ArrayList<>(version.level0.size() + 1);
+                    level0.add(segment);
+                    level0.addAll(version.level0);
+                    version = new Version(level0, version.levels);
+                }
+                persistedCount = memtable.countAfter;
+                saveManifest();
+            }
+            List<Memtable> remaining = new ArrayList<>(immutables);
+            remaining.remove(memtable);
+            immutables = Collections.unmodifiableList(remaining);
+            closeAndDelete(memtable.wal);
+            compactionExecutor.execute(this::compact);
+        } catch (IOException | RuntimeException e) {
+            backgroundFailure = e;
+        }
+    }
+    
+    private void awaitFlushes() {
+        if (lastFlush == null) {
+            return;
+        }
+        try {
+            lastFlush.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(e.getCause());
+        }
+        checkBackgroundFailure();
+    }
+    
+    // Compaction
+    
+    private void compact() {
+        try {
+            while (!closed && compactOnce()) {
+                // keep going while some level is over budget
+            }
+        } catch (IOException | RuntimeException e) {
+            backgroundFailure = e;
+        }
+    }
+    
+    /**
+     * Merge one level into the next if it is over budget
+     * @return true if a compaction ran
+     */
+    private boolean compactOnce() throws IOException {
+        Version pinned = pin();
+        try {
+            List<Segment> inputs = new ArrayList<>();
+            int target;
+            if (pinned.level0.size() >= LEVEL0_COMPACTION_TRIGGER) {
+                inputs.addAll(pinned.level0);
+                target = 1;
+            } else {
+                target = -1;
+                long budget = memtableBytes;
+                for (int i = 0; i < pinned.levels.size(); i++) {
+                    budget *= LEVEL_SIZE_RATIO;
+                    Segment run = pinned.levels.get(i);
+                    if (run != null && run.sizeBytes() > budget) {
+                        inputs.add(run);
+                        target = i + 2;
+                        break;
+                    }
+                }
+                if (target < 0) {
+                    return false;
+                }
+            }
+            Segment existing = target - 1 < pinned.levels.size() ? pinned.levels.get(target - 1) : null;
+            if (existing != null) {
+                inputs.add(existing);
+            }
+            boolean deepest = true;
+            for (int i = target; i < pinned.levels.size(); i++) {
+                if (pinned.levels.get(i) != null) {
+                    deepest = false;
+                }
+            }
+            List<Iterator<Map.Entry<Integer, byte[]>>> sources = new ArrayList<>();
+            int expected = 0;
+            for (Segment input : inputs) {
+                sources.add(input.scan(Integer.MIN_VALUE, Integer.MAX_VALUE));
+                expected += input.records();
+            }
+            long seq = sequence.getAndIncrement();
+            Segment output = Segment.write(seq, segmentPath(seq), new MergingIterator(sources), expected, deepest);
+            synchronized (versionLock) {
+                Set<Segment> current = new HashSet<>(version.all());
+                if (!current.containsAll(inputs)) {
+                    // The store was cleared while we were merging
+                    if (output != null) {
+                        output.markObsolete();
+                    }
+                    return false;
+                }
+                List<Segment> level0 = new ArrayList<>(version.level0);
+                level0.removeAll(inputs);
+                List<Segment> levels = new ArrayList<>(version.levels);
+                while (levels.size() < target) {
+                    levels.add(null);
+                }
+                for (int i = 0; i < levels.size(); i++) {
+                    if (inputs.contains(levels.get(i))) {
+                        levels.set(i, null);
+                    }
+                }
+                levels.set(target - 1, output);
+                version = new Version(level0, levels);
+                saveManifest();
+            }
+            for (Segment input : inputs) {
+                input.markObsolete();
+            }
+            return true;
+        } finally {
+            unpin(pinned);
+        }
+    }
+    
+    // Read path
+    
+    private byte[] lookup(int id) {
+        byte[] value = active.records.get(id);
+        if (value != null) {
+            return value;
+        }
+        for (Memtable memtable : immutables) {
+            value = memtable.records.get(id);
+            if (value != null) {
+                return value;
+            }
+        }
+        Version pinned = pin();
+        try {
+            for (Segment segment : pinned.all()) {
+                value = segment.get(id);
+                if (value != null) {
+                    return value;
+                }
+            }
+            return null;
+        } finally {
+            unpin(pinned);
+        }
+    }
+    
+    private Iterator<Account> scan(int fromId, int toId) {
+        Version pinned = pin();
+        MergingIterator merged = merge(fromId, toId, pinned);
+        return new Iterator<>() {
+            private Account next = advance();
+            
+            @Override
+            public boolean hasNext() {
+                return next != null;
+            }
+            
+            @Override
+            public Account next() {
+                if (next == null) {
+                    throw new NoSuchElementException();
+                }
+                Account current = next;
+                next = advance();
+                return current;
+            }
+            
+            private Account advance() {
+                while (merged.hasNext()) {
+                    byte[] value = merged.next().getValue();
+                    if (value != Segment.TOMBSTONE) {
+                        return AccountCodec.decode(value);
+                    }
+                }
+                unpin(pinned);
+                return null;
+            }
+        };
+    }
+    
+    /**
+     * Merge the memtables and the pinned segments over ids in [fromId, toId]; newest source wins
+     */
+    private MergingIterator merge(int fromId, int toId, Version pinned) {
+        List<Iterator<Map.Entry<Integer, byte[]>>> sources = new ArrayList<>();
+        sources.add(active.records.subMap(fromId, true, toId, true).entrySet().iterator());
+        for (Memtable memtable : immutables) {
+            sources.add(memtable.records.subMap(fromId, true, toId, true).entrySet().iterator());
+        }
+        for (Segment segment : pinned.all()) {
+            sources.add(segment.scan(fromId, toId));
+        }
+        return new MergingIterator(sources);
+    }
+    
+    private Version pin() {
+        synchronized (versionLock) {
+            Version current = version;
+            for (Segment segment : current.all()) {
+                segment.retain();
+            }
+            return current;
+        }
+    }
+    
+    private void unpin(Version pinned) {
+        for (Segment segment : pinned.all()) {
+            segment.release();
+        }
+    }
+    
+    // Files
+    
+    private void recover() throws IOException {
+        TreeMap<Long, Path> logs = new TreeMap<>();
+        Set<Path> referenced = new HashSet<>();
+        long maxSequence = -1;
+        Path manifest = directory.resolve(MANIFEST);
+        List<Segment> level0 = new ArrayList<>();
+        List<Segment> levels = new ArrayList<>();
+        if (Files.exists(manifest)) {
+            for (String line : Files.readAllLines(manifest, StandardCharsets.UTF_8)) {
+                String[] parts = line.trim().split(" ");
+                if (parts[0].equals("count")) {
+                    persistedCount = Integer.parseInt(parts[1]);
+                } else if (parts[0].startsWith("L")) {
+                    int level = Integer.parseInt(parts[0].substring(1));
+                    for (int i = 1; i < parts.length; i++) {
+                        Segment segment = null;
+                        if (!parts[i].equals("-")) {
+                            long seq = Long.parseLong(parts[i]);
+                            segment = Segment.open(seq, segmentPath(seq));
+                            referenced.add(segment.file());
+                            maxSequence = Math.max(maxSequence, seq);
+                        }
+                        if (level == 0) {
+                            level0.add(segment);
+                        } else {
+                            levels.add(segment);
+                        }
+                    }
+                }
+            }
+        }
+        version = new Version(level0, levels);
+        count = persistedCount;
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory)) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                if (name.endsWith(".sst") && !referenced.contains(file)) {
+                    // Output of an interrupted flush or compaction
+                    Files.delete(file);
+                } else if (name.startsWith("wal-") && name.endsWith(".log")) {
+                    long seq = Long.parseLong(name.substring(4, name.length() - 4));
+                    logs.put(seq, file);
+                    maxSequence = Math.max(maxSequence, seq);
+                }
+            }
+        }
+        sequence.set(maxSequence + 1);
+        active = newMemtable();
+        for (Path log : logs.values()) {
+            WriteAheadLog.replay(log, this::put);
+        }
+        flush();
+        for (Path log : logs.values()) {
+            Files.deleteIfExists(log);
+        }
+    }
+    
+    /**
+     * Write the manifest; caller holds versionLock
+     */
+    private void saveManifest() {
+        Path temp = directory.resolve(MANIFEST + ".tmp");
+        try {
+            try (BufferedWriter out = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)) {
+                out.write("count " + persistedCount + "\n");
+                StringBuilder level0 = new StringBuilder("L0");
+                for (Segment segment : version.level0) {
+                    level0.append(' ').append(segment.sequence());
+                }
+                out.write(level0.append('\n').toString());
+                for (int i = 0; i < version.levels.size(); i++) {
+                    Segment segment = version.levels.get(i);
+                    out.write("L" + (i + 1) + " " + (segment == null ? "-" : segment.sequence()) + "\n");
+                }
+            }
+            Files.move(temp, directory.resolve(MANIFEST), StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+    
+    private Memtable newMemtable() {
+        long seq = sequence.getAndIncrement();
+        try {
+            return new Memtable(new WriteAheadLog(seq, directory.resolve("wal-" + seq + ".log"), syncWrites));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+    
+    private Path segmentPath(long seq) {
+        return directory.resolve(seq + ".sst");
+    }
+    
+    private static void closeAndDelete(WriteAheadLog wal) {
+        try {
+            wal.close();
+            Files.deleteIfExists(wal.file());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+    
+    private void checkOpen() {
+        if (closed) {
+            throw new IllegalStateException("Store is closed");
+        }
+        checkBackgroundFailure();
+    }
+    
+    private void checkBackgroundFailure() {
+        Throwable failure = backgroundFailure;
+        if (failure != null) {
+            throw new IllegalStateException("Background flush or compaction failed", failure);
+        }
+    }
+    
+    private static ThreadFactory daemon(String name) {
+        return runnable -> {
+            Thread thread = new Thread(runnable, name);
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
@@ -0,0 +1,77 @@
+package com.banking.dao.lsm;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
+
+/**
+ * K-way merge of sorted record sources
+ * Sources are given newest first; when several hold the same id only the
+ * newest record is returned, which may be a tombstone.
+ */
+final class MergingIterator implements Iterator<Map.Entry<Integer, byte[]>> {
+    
+    private static final class Source {
+        final Iterator<Map.Entry<Integer, byte[]>> records;
+        final int rank;
+        Map.Entry<Integer, byte[]> head;
+        
+        Source(Iterator<Map.Entry<Integer, byte[]>> records, int rank) {
+            this.records = records;
+            this.rank = rank;
+        }
+        
+        boolean advance() {
+            head = records.hasNext() ? records.next() : null;
+            return head != null;
+        }
+        
+        int key() {
+            return head.getKey();
+        }
+    }
+    
+    private final PriorityQueue<Source> queue;
+    
+    MergingIterator(List<Iterator<Map.Entry<Integer, byte[]>>> newestFirst) {
+        this.queue = new PriorityQueue<>(Math.max(1, newestFirst.size()), (a, b) -> {
+            int byKey = Integer.compare(a.key(), b.key());
+            return byKey != 0 ? byKey : Integer.compare(a.rank, b.rank);
+        });
+        for (int i = 0; i < newestFirst.size(); i++) {
+            Source source = new Source(newestFirst.get(i), i);
+            if (source.advance()) {
+                queue.add(source);
+            }
+        }
+    }
+    
+    @Override
+    public boolean hasNext() {
+        return !queue.isEmpty();
+    }
+    
+    @Override
+    public Map.Entry<Integer, byte[]> next() {
+        Source newest = queue.poll();
+        if (newest == null) {
+            throw new NoSuchElementException();
+        }
+        Map.Entry<Integer, byte[]> record = newest.head;
+        int key = newest.key();
+        requeue(newest);
+        // Older versions of the same id are shadowed
+        while (!queue.isEmpty() && queue.peek().key() == key) {
+            requeue(queue.poll());
+        }
+        return record;
+    }
+    
+    private void requeue(Source source) {
+        if (source.advance()) {
+            queue.add(source);
+        }
+    }
+}
@@ -0,0 +1,377 @@
+package com.banking.dao.lsm;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.AbstractMap.SimpleImmutableEntry;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Immutable sorted segment file (SSTable) of account records
+ * 
+ * File layout:
+ * <pre>
+ *   data    : (id int, length int, bytes) per record in ascending id order, length -1 marks a tombstone
+ *   index   : count int, then (id int, offset long) for every INDEX_INTERVAL-th record
+ *   bloom   : serialized {@link BloomFilter}
+ *   footer  : indexOffset long, bloomOffset long, records int, minId int, maxId int, magic int
+ * </pre>
+ * The sparse index and bloom filter are loaded on open; a point lookup reads
+ * at most one index block from disk.
+ */
+final class Segment {
+    
+    static final byte[] TOMBSTONE = new byte[0];
+    private static final int INDEX_INTERVAL = 16;
+    private static final int FOOTER_SIZE = 32;
+    private static final int MAGIC = 0x4c534d31;
+    private static final int IO_BUFFER = 64 * 1024;
+    
+    private final long sequence;
+    private final Path file;
+    private final FileChannel channel;
+    private final int[] indexIds;
+    private final long[] indexOffsets;
+    private final long dataEnd;
+    private final BloomFilter bloom;
+    private final int records;
+    private final int minId;
+    private final int maxId;
+    // One reference is held by the store while the segment is live; readers add their own
+    private final AtomicInteger references = new AtomicInteger(1);
+    private volatile boolean obsolete;
+    
+    private Segment(long sequence, Path file, FileChannel channel, int[] indexIds, long[] indexOffsets,
+                    long dataEnd, BloomFilter bloom, int records, int minId, int maxId) {
+        this.sequence = sequence;
+        this.file = file;
+        this.channel = channel;
+        this.indexIds = indexIds;
+        this.indexOffsets = indexOffsets;
+        this.dataEnd = dataEnd;
+        this.bloom = bloom;
+        this.records = records;
+        this.minId = minId;
+        this.maxId = maxId;
+    }
+    
+    /**
+     * Write sorted records into a new segment file and open it
+     * @param sequence Segment sequence number
+     * @param file Destination file
+     * @param records Records in ascending id order
+     * @param expectedRecords Upper bound on the number of records, used to size the bloom filter
+     * @param dropTombstones true when writing the deepest level, where deletes can be forgotten
+     * @return Opened segment, or null if every record was dropped
+     */
+    static Segment write(long sequence, Path file, Iterator<Map.Entry<Integer, byte[]>> records,
+                         int expectedRecords, boolean dropTombstones) throws IOException {
+        BloomFilter bloom = new BloomFilter(Math.max(1, expectedRecords));
+        List<Integer> sparseIds = new ArrayList<>();
+        List<Long> sparseOffsets = new ArrayList<>();
+        int count = 0;
+        int min = 0;
+        int max = 0;
+        long position = 0;
+        try (FileChannel out = FileChannel.open(file, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+            ByteBuffer buffer = ByteBuffer.allocate(IO_BUFFER);
+            while (records.hasNext()) {
+                Map.Entry<Integer, byte[]> record = records.next();
+                byte[] value = record.getValue();
+                if (dropTombstones && value == TOMBSTONE) {
+                    continue;
+                }
+                int id = record.getKey();
+                if (count % INDEX_INTERVAL == 0) {
+                    sparseIds.add(id);
+                    sparseOffsets.add(position);
+                }
+                if (count == 0) {
+                    min = id;
+                }
+                max = id;
+                bloom.add(id);
+                int size = 8 + value.length;
+                if (buffer.remaining() < size) {
+                    drain(out, buffer);
+                    if (buffer.capacity() < size) {
+                        buffer = ByteBuffer.allocate(size);
+                    }
+                }
+                buffer.putInt(id);
+                buffer.putInt(value == TOMBSTONE ? -1 : value.length);
+                buffer.put(value);
+                position += size;
+                count++;
+            }
+            drain(out, buffer);
+            if (count > 0) {
+                long indexOffset = position;
+                ByteBuffer index = ByteBuffer.allocate(4 + sparseIds.size() * 12);
+                index.putInt(sparseIds.size());
+                for (int i = 0; i < sparseIds.size(); i++) {
+                    index.putInt(sparseIds.get(i));
+                    index.putLong(sparseOffsets.get(i));
+                }
+                drain(out, index);
+                long bloomOffset = indexOffset + index.capacity();
+                ByteBuffer tail = ByteBuffer.allocate(bloom.serializedSize() + FOOTER_SIZE);
+                bloom.writeTo(tail);
+                tail.putLong(indexOffset);
+                tail.putLong(bloomOffset);
+                tail.putInt(count);
+                tail.putInt(min);
+                tail.putInt(max);
+                tail.putInt(MAGIC);
+                drain(out, tail);
+                out.force(true);
+            }
+        }
+        if (count == 0) {
+            // Every record was a dropped tombstone
+            Files.deleteIfExists(file);
+            return null;
+        }
+        return open(sequence, file);
+    }
+    
+    /**
+     * Open an existing segment file
+     */
+    static Segment open(long sequence, Path file) throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+        try {
+            long size = channel.size();
+            ByteBuffer footer = readAt(channel, size - FOOTER_SIZE, FOOTER_SIZE);
+            long indexOffset = footer.getLong();
+            long bloomOffset = footer.getLong();
+            int records = footer.getInt();
+            int minId = footer.getInt();
+            int maxId = footer.getInt();
+            if (footer.getInt() != MAGIC) {
+                throw new IOException("Not a segment file: " + file);
+            }
+            ByteBuffer index = readAt(channel, indexOffset, (int) (bloomOffset - indexOffset));
+            int entries = index.getInt();
+            int[] ids = new int[entries];
+            long[] offsets = new long[entries];
+            for (int i = 0; i < entries; i++) {
+                ids[i] = index.getInt();
+                offsets[i] = index.getLong();
+            }
+            BloomFilter bloom = BloomFilter.readFrom(
+                    readAt(channel, bloomOffset, (int) (size - FOOTER_SIZE - bloomOffset)));
+            return new Segment(sequence, file, channel, ids, offsets, indexOffset, bloom, records, minId, maxId);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+    
+    /**
+     * Look up one id
+     * @return Record bytes, {@link #TOMBSTONE} if deleted here, or null if the segment has no record
+     */
+    byte[] get(int id) {
+        if (id < minId || id > maxId || !bloom.mightContain(id)) {
+            return null;
+        }
+        int block = floorBlock(id);
+        long start = indexOffsets[block];
+        long end = block + 1 < indexOffsets.length ? indexOffsets[block + 1] : dataEnd;
+        try {
+            ByteBuffer data = readAt(channel, start, (int) (end - start));
+            while (data.hasRemaining()) {
+                int recordId = data.getInt();
+                int length = data.getInt();
+                if (recordId == id) {
+                    if (length < 0) {
+                        return TOMBSTONE;
+                    }
+                    byte[] value = new byte[length];
+                    data.get(value);
+                    return value;
+                }
+                if (recordId > id) {
+                    return null;
+                }
+                data.position(data.position() + Math.max(0, length));
+            }
+            return null;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+    
+    /**
+     * Iterate over records with ids in [fromId, toId], in ascending order
+     */
+    Iterator<Map.Entry<Integer, byte[]>> scan(int fromId, int toId) {
+        long start = fromId <= minId ? 0 : indexOffsets[floorBlock(fromId)];
+        return new Iterator<>() {
+            private long position = start;
+            private ByteBuffer buffer = ByteBuffer.allocate(0);
+            private Map.Entry<Integer, byte[]> next = advance();
+            
+            @Override
+            public boolean hasNext() {
+                return next != null;
+            }
+            
+            @Override
+            public Map.Entry<Integer, byte[]> next() {
+                if (next == null) {
+                    throw new NoSuchElementException();
+                }
+                Map.Entry<Integer, byte[]> current = next;
+                next = advance();
+                return current;
+            }
+            
+            private Map.Entry<Integer, byte[]> advance() {
+                while (true) {
+                    if (!ensure(8)) {
+                        return null;
+                    }
+                    int id = buffer.getInt();
+                    int length = buffer.getInt();
+                    if (!ensure(Math.max(0, length))) {
+                        return null;
+                    }
+                    byte[] value = TOMBSTONE;
+                    if (length >= 0) {
+                        value = new byte[length];
+                        buffer.get(value);
+                    }
+                    if (id > toId) {
+                        return null;
+                    }
+                    if (id >= fromId) {
+                        return new SimpleImmutableEntry<>(id, value);
+                    }
+                }
+            }
+            
+            private boolean ensure(int bytes) {
+                if (buffer.remaining() >= bytes) {
+                    return true;
+                }
+                long available = dataEnd - position + buffer.remaining();
+                if (available < bytes) {
+                    return false;
+                }
+                int chunk = (int) Math.min(Math.max(IO_BUFFER, bytes), dataEnd - position);
+                ByteBuffer refill = ByteBuffer.allocate(buffer.remaining() + chunk);
+                refill.put(buffer);
+                try {
+                    ByteBuffer read = readAt(channel, position, chunk);
+                    refill.put(read);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                position += chunk;
+                refill.flip();
+                buffer = refill;
+                return true;
+            }
+        };
+    }
+    
+    long sequence() {
+        return sequence;
+    }
+    
+    int records() {
+        return records;
+    }
+    
+    long sizeBytes() {
+        return dataEnd;
+    }
+    
+    Path file() {
+        return file;
+    }
+    
+    /**
+     * Pin the segment for a reader
+     * @return false if the segment has already been released for good
+     */
+    boolean retain() {
+        while (true) {
+            int current = references.get();
+            if (current == 0) {
+                return false;
+            }
+            if (references.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+    
+    /**
+     * Drop one reference; the last one closes the file and deletes it if obsolete
+     */
+    void release() {
+        if (references.decrementAndGet() == 0) {
+            try {
+                channel.close();
+                if (obsolete) {
+                    Files.deleteIfExists(file);
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+    
+    /**
+     * Drop the store's own reference after compaction replaced this segment
+     */
+    void markObsolete() {
+        obsolete = true;
+        release();
+    }
+    
+    private int floorBlock(int id) {
+        int low = 0;
+        int high = indexIds.length - 1;
+        while (low < high) {
+            int mid = (low + high + 1) >>> 1;
+            if (indexIds[mid] <= id) {
+                low = mid;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return low;
+    }
+    
+    private static ByteBuffer readAt(FileChannel channel, long position, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new IOException("Unexpected end of segment file");
+            }
+        }
+        buffer.flip();
+        return buffer;
+    }
+    
+    private static void drain(FileChannel out, ByteBuffer buffer) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            out.write(buffer);
+        }
+        buffer.clear();
+    }
+}
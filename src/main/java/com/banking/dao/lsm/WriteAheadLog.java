@@ -0,0 +1,95 @@
+package com.banking.dao.lsm;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.function.BiConsumer;
+
+/**
+ * Append-only log of memtable writes, replayed after a crash
+ * Each entry is (id int, length int, bytes) with length -1 for a delete.
+ */
+final class WriteAheadLog implements Closeable {
+    
+    private final long sequence;
+    private final Path file;
+    private final FileChannel channel;
+    private final boolean syncWrites;
+    private ByteBuffer buffer = ByteBuffer.allocate(4096);
+    
+    WriteAheadLog(long sequence, Path file, boolean syncWrites) throws IOException {
+        this.sequence = sequence;
+        this.file = file;
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.APPEND);
+        this.syncWrites = syncWrites;
+    }
+    
+    /**
+     * Append one write; callers serialize appends
+     */
+    void append(int id, byte[] value) throws IOException {
+        int size = 8 + value.length;
+        if (buffer.capacity() < size) {
+            buffer = ByteBuffer.allocate(size);
+        }
+        buffer.clear();
+        buffer.putInt(id);
+        buffer.putInt(value == Segment.TOMBSTONE ? -1 : value.length);
+        buffer.put(value);
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        if (syncWrites) {
+            channel.force(false);
+        }
+    }
+    
+    long sequence() {
+        return sequence;
+    }
+    
+    Path file() {
+        return file;
+    }
+    
+    void sync() throws IOException {
+        channel.force(false);
+    }
+    
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+    
+    /**
+     * Replay every complete entry of a log file; a torn final entry is ignored
+     */
+    static void replay(Path file, BiConsumer<Integer, byte[]> apply) throws IOException {
+        try (FileChannel in = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer data = ByteBuffer.allocate((int) in.size());
+            while (data.hasRemaining() && in.read(data) >= 0) {
+                // keep reading until the whole file is buffered
+            }
+            data.flip();
+            while (data.remaining() >= 8) {
+                int id = data.getInt();
+                int length = data.getInt();
+                if (length > data.remaining()) {
+                    return;
+                }
+                if (length < 0) {
+                    apply.accept(id, Segment.TOMBSTONE);
+                } else {
+                    byte[] value = new byte[length];
+                    data.get(value);
+                    apply.accept(id, value);
+                }
+            }
+        }
+    }
+}
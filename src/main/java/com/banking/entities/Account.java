@@ -1,6 +1,12 @@
 package com.banking.entities;
 
 import com.banking.dao.AccountDAO;
+import com.banking.entities.AccountStateMachine.Transition;
+import com.banking.events.AccountEvent;
+import com.banking.events.AccountEvents;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.UnaryOperator;
 
 /**
  * Account entity representing a client bank account with state-based behavior
@@ -17,26 +23,116 @@ public class Account {
     private int id;
     private String clientName;
     private String cardNumber;
-    private double balance;
-    private AccountStatus status;
+    // Balance and status live in an immutable version swapped by compare-and-set
+    private final AtomicReference<AccountState> state;
+    // Bumped after every committed change so stores can detect dirty accounts
+    private volatile long modifications;
+    
+    private static final AtomicLongFieldUpdater<Account> MODIFICATIONS =
+            AtomicLongFieldUpdater.newUpdater(Account.class, "modifications");
     
     public Account(int id) {
         this.id = id;
         this.cardNumber = generateCardNumber(id);
-        this.balance = 0;
-        this.status = AccountStatus.Unverified;
+        this.state = new AtomicReference<>(new AccountState(0L, AccountStatus.Unverified, 0, 0, 0, 0L, 0L, null));
     }
     
     public Account(int id, String clientName, double initialBalance) {
         this.id = id;
         this.clientName = clientName;
         this.cardNumber = generateCardNumber(id);
-        this.balance = initialBalance;
-        this.status = AccountStatus.Unverified;
+        this.state = new AtomicReference<>(new AccountState(Money.fromDouble(initialBalance),
+                AccountStatus.Unverified, 0, 0, 0, 0L, 0L, null));
+    }
+    
+    /**
+     * Open an account with its initial balance in cents
+     * A factory rather than a constructor overload, so an int balance passed
+     * to {@link #Account(int, String, double)} keeps meaning whole units.
+     * @param id Account ID
+     * @param clientName Client name
+     * @param initialBalanceCents Initial balance in cents
+     * @return New unverified account
+     */
+    public static Account ofCents(int id, String clientName, long initialBalanceCents) {
+        Account account = new Account(id, clientName, 0);
+        account.state.set(new AccountState(initialBalanceCents, AccountStatus.Unverified, 0, 0, 0, 0L, 0L, null));
+        return account;
+    }
+    
+    /**
+     * Restore an account from persisted state without publishing events
+     */
+    public Account(int id, String clientName, double balance, AccountStatus status) {
+        this.id = id;
+        this.clientName = clientName;
+        this.cardNumber = generateCardNumber(id);
+        this.state = new AtomicReference<>(new AccountState(Money.fromDouble(balance), status, 0, 0, 0, 0L, 0L, null));
+    }
+    
+    /**
+     * Restore an account with credit score state without publishing events
+     */
+    Account(int id, String clientName, double balance, AccountStatus status, int creditScore,
+            int overdraftAttempts, int successfulTransactions) {
+        this.id = id;
+        this.clientName = clientName;
+        this.cardNumber = generateCardNumber(id);
+        this.state = new AtomicReference<>(new AccountState(Money.fromDouble(balance), status, creditScore,
+                overdraftAttempts, successfulTransactions, 0L, 0L, null));
     }
     
     private String generateCardNumber(int id) {
-        return String.format("%04d %04d %04d %04d", id, id, id, id);
+        return cardNumberFor(id);
+    }
+    
+    /**
+     * Card number assigned to an account id
+     * @param id Account ID
+     * @return Card number in "XXXX XXXX XXXX XXXX" format
+     */
+    public static String cardNumberFor(int id) {
+        if (id < 0) {
+            return String.format("%04d %04d %04d %04d", id, id, id, id);
+        }
+        // Same output as the format above without going through Formatter
+        String digits = Integer.toString(id);
+        int width = Math.max(4, digits.length());
+        char[] card = new char[width * 4 + 3];
+        for (int group = 0; group < 4; group++) {
+            int start = group * (width + 1);
+            int pad = width - digits.length();
+            for (int i = 0; i < pad; i++) {
+                card[start + i] = '0';
+            }
+            digits.getChars(0, digits.length(), card, start + pad);
+            if (group < 3) {
+                card[start + width] = ' ';
+            }
+        }
+        return new String(card);
+    }
+    
+    /**
+     * Recover the account id a card number was generated from
+     * @param cardNumber Card number
+     * @return Account ID, or null if the card number was not generated by {@link #cardNumberFor(int)}
+     */
+    public static Integer idForCardNumber(String cardNumber) {
+        if (cardNumber == null) {
+            return null;
+        }
+        int space = cardNumber.indexOf(' ');
+        if (space <= 0) {
+            return null;
+        }
+        int id;
+        try {
+            id = Integer.parseInt(cardNumber.substring(0, space));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+        return cardNumberFor(id).equals(cardNumber) ? id : null;
     }
     
     /**
@@ -45,13 +141,37 @@ public class Account {
      * @return true if successful, false otherwise
      */
     public boolean deposit(double amount) {
-        if (status == AccountStatus.Closed) {
+        return depositCents(Money.fromPositiveAmount(amount));
+    }
+    
+    /**
+     * Deposit money into account
+     * @param cents Amount to deposit in cents
+     * @return true if successful, false otherwise
+     */
+    public boolean depositCents(long cents) {
+        if (cents <= 0) {
             return false;
         }
-        if (amount <= 0) {
-            return false;
+        AccountState installed;
+        long token = VersionClock.beginCommit();
+        try {
+            long stamp = VersionClock.nextStamp();
+            do {
+                AccountState current = state.get();
+                if (current.getStatus() == AccountStatus.Closed) {
+                    return false;
+                }
+                installed = install(current, prepareCommit(AccountEvent.Type.Deposited,
+                        current.next(Money.add(current.getBalanceCents(), cents), current.getStatus(), stamp)));
+            } while (installed == null);
+        } finally {
+            VersionClock.endCommit(token);
+        }
+        if (AccountEvents.isActive()) {
+            AccountEvents.publish(AccountEvent.deposited(id, Money.toDouble(cents), installed));
         }
-        balance += amount;
+        afterCommit(AccountEvent.Type.Deposited, installed);
         return true;
     }
     
@@ -61,35 +181,85 @@ public class Account {
      * @return true if successful, false otherwise
      */
     public boolean withdraw(double amount) {
-        if (status == AccountStatus.Closed || status == AccountStatus.Suspended) {
+        return withdrawCents(Money.fromPositiveAmount(amount));
+    }
+    
+    /**
+     * Withdraw money from account
+     * @param cents Amount to withdraw in cents
+     * @return true if successful, false otherwise
+     */
+    public boolean withdrawCents(long cents) {
+        if (cents <= 0) {
             return false;
         }
-        if (status == AccountStatus.Unverified) {
-            return false;
+        AccountState installed;
+        long token = VersionClock.beginCommit();
+        try {
+            long stamp = VersionClock.nextStamp();
+            do {
+                AccountState current = state.get();
+                AccountStatus status = current.getStatus();
+                if (status == AccountStatus.Closed || status == AccountStatus.Suspended) {
+                    return false;
+                }
+                if (status == AccountStatus.Unverified) {
+                    return false;
+                }
+                if (cents > current.getBalanceCents()) {
+                    return false;
+                }
+                installed = install(current, prepareCommit(AccountEvent.Type.Withdrawn,
+                        current.next(current.getBalanceCents() - cents, status, stamp)));
+            } while (installed == null);
+        } finally {
+            VersionClock.endCommit(token);
         }
-        if (amount <= 0 || amount > balance) {
-            return false;
+        if (AccountEvents.isActive()) {
+            AccountEvents.publish(AccountEvent.withdrawn(id, Money.toDouble(cents), installed));
         }
-        balance -= amount;
+        afterCommit(AccountEvent.Type.Withdrawn, installed);
         return true;
     }
     
     /**
-     * Transfer money to another account
+     * Transfer money to another account in the default repository
      * @param recipientCardNumber Recipient's card number
      * @param amount Amount to transfer
      * @param description Transfer description
      * @return true if successful, false otherwise
      */
     public boolean transfer(String recipientCardNumber, double amount, String description) {
-        if (status != AccountStatus.Verified) {
+        return transferTo(AccountDAO.findByCardNumber(recipientCardNumber), amount, description);
+    }
+    
+    /**
+     * Transfer money to an already resolved recipient
+     * @param recipient Recipient account, or null if the card number was unknown
+     * @param amount Amount to transfer
+     * @param description Transfer description
+     * @return true if successful, false otherwise
+     */
+    public boolean transferTo(Account recipient, double amount, String description) {
+        return transferCents(recipient, Money.fromPositiveAmount(amount), description);
+    }
+    
+    /**
+     * Transfer money to an already resolved recipient
+     * The amount must be within the sender's transaction limit.
+     * @param recipient Recipient account, or null if the card number was unknown
+     * @param cents Amount to transfer in cents
+     * @param description Transfer description
+     * @return true if successful, false otherwise
+     */
+    public boolean transferCents(Account recipient, long cents, String description) {
+        if (getStatus() != AccountStatus.Verified) {
             return false;
         }
-        if (amount <= 0 || amount > balance) {
+        if (cents <= 0 || cents > getBalanceCents() || cents > getTransactionLimitCents()) {
             return false;
         }
         
-        Account recipient = AccountDAO.findByCardNumber(recipientCardNumber);
         if (recipient == null) {
             return false;
         }
@@ -97,11 +267,150 @@ public class Account {
             return false;
         }
         
-        this.balance -= amount;
-        recipient.balance += amount;
+        // Both legs share one commit stamp so snapshots see the transfer whole or not at all
+        AccountState sent;
+        AccountState received;
+        long token = VersionClock.beginCommit();
+        try {
+            long stamp = VersionClock.nextStamp();
+            do {
+                AccountState current = state.get();
+                if (current.getStatus() != AccountStatus.Verified || cents > current.getBalanceCents()) {
+                    return false;
+                }
+                sent = install(current, current.getBalanceCents() - cents, current.getStatus(), stamp);
+            } while (sent == null);
+            do {
+                AccountState current = recipient.state.get();
+                received = recipient.install(current, Money.add(current.getBalanceCents(), cents),
+                        current.getStatus(), stamp);
+            } while (received == null);
+        } finally {
+            VersionClock.endCommit(token);
+        }
+        if (AccountEvents.isActive()) {
+            double amount = Money.toDouble(cents);
+            AccountEvents.publish(AccountEvent.transferSent(id, recipient.id, amount, sent));
+            AccountEvents.publish(AccountEvent.transferReceived(recipient.id, id, amount, received));
+        }
         return true;
     }
     
+    /**
+     * Post interest or a fee in one commit
+     * Uses the same compare-and-set path as a deposit, but no account
+     * subclass treats it as a client deposit or withdrawal. A fee is reduced
+     * to what the balance covers, so it never overdraws; closed accounts are
+     * not posted to. Publishes Deposited for interest and Withdrawn for a fee.
+     * @param cents Interest when positive, fee when negative
+     * @return Cents actually posted, with the same sign; 0 if nothing was posted
+     */
+    public long postAccrualCents(long cents) {
+        if (cents == 0) {
+            return 0;
+        }
+        AccountState installed;
+        long posted;
+        long token = VersionClock.beginCommit();
+        try {
+            long stamp = VersionClock.nextStamp();
+            do {
+                AccountState current = state.get();
+                if (current.getStatus() == AccountStatus.Closed) {
+                    return 0;
+                }
+                posted = cents > 0 ? cents : -Math.min(-cents, Math.max(0, current.getBalanceCents()));
+                if (posted == 0) {
+                    return 0;
+                }
+                installed = install(current, Money.add(current.getBalanceCents(), posted), current.getStatus(), stamp);
+            } while (installed == null);
+        } finally {
+            VersionClock.endCommit(token);
+        }
+        if (AccountEvents.isActive()) {
+            double amount = Money.toDouble(Math.abs(posted));
+            AccountEvents.publish(posted > 0 ? AccountEvent.deposited(id, amount, installed)
+                    : AccountEvent.withdrawn(id, amount, installed));
+        }
+        return posted;
+    }
+    
+    /**
+     * Apply net balance changes to several accounts as one commit
+     * Debits are installed first, each checked like the sending leg of a
+     * transfer; if one fails, the debits already installed are reversed and
+     * nothing is credited. Credits are not re-checked, as with a transfer's
+     * receiving leg. All versions share one commit stamp, so snapshots see
+     * the whole posting or none of it. Each account gets one TransferSent or
+     * TransferReceived event for its net amount, with counterparty
+     * {@link AccountEvent#NET_SETTLEMENT}.
+     * @param accounts Distinct accounts to post to
+     * @param deltaCents Net change per account; negative values are debits
+     * @return Index of the first debit that could not be applied, or -1 if everything was posted
+     */
+    public static int postNet(Account[] accounts, long[] deltaCents) {
+        AccountState[] installed = new AccountState[accounts.length];
+        int failed = -1;
+        long token = VersionClock.beginCommit();
+        try {
+            long stamp = VersionClock.nextStamp();
+            for (int i = 0; i < accounts.length && failed < 0; i++) {
+                if (deltaCents[i] < 0) {
+                    installed[i] = accounts[i].debitForPosting(-deltaCents[i], stamp);
+                    if (installed[i] == null) {
+                        failed = i;
+                    }
+                }
+            }
+            for (int i = 0; i < accounts.length; i++) {
+                if (failed >= 0) {
+                    if (installed[i] != null) {
+                        accounts[i].addForPosting(-deltaCents[i], stamp);
+                    }
+                } else if (deltaCents[i] > 0) {
+                    installed[i] = accounts[i].addForPosting(deltaCents[i], stamp);
+                }
+            }
+        } finally {
+            VersionClock.endCommit(token);
+        }
+        if (failed < 0 && AccountEvents.isActive()) {
+            for (int i = 0; i < accounts.length; i++) {
+                double amount = Money.toDouble(Math.abs(deltaCents[i]));
+                if (deltaCents[i] < 0) {
+                    AccountEvents.publish(AccountEvent.transferSent(accounts[i].id, AccountEvent.NET_SETTLEMENT,
+                            amount, installed[i]));
+                } else if (deltaCents[i] > 0) {
+                    AccountEvents.publish(AccountEvent.transferReceived(accounts[i].id, AccountEvent.NET_SETTLEMENT,
+                            amount, installed[i]));
+                }
+            }
+        }
+        return failed;
+    }
+    
+    private AccountState debitForPosting(long cents, long stamp) {
+        AccountState installed;
+        do {
+            AccountState current = state.get();
+            if (current.getStatus() != AccountStatus.Verified || cents > current.getBalanceCents()) {
+                return null;
+            }
+            installed = install(current, current.getBalanceCents() - cents, current.getStatus(), stamp);
+        } while (installed == null);
+        return installed;
+    }
+    
+    private AccountState addForPosting(long cents, long stamp) {
+        AccountState installed;
+        do {
+            AccountState current = state.get();
+            installed = install(current, Money.add(current.getBalanceCents(), cents), current.getStatus(), stamp);
+        } while (installed == null);
+        return installed;
+    }
+    
     // State transition methods
     
     /**
@@ -109,11 +418,7 @@ public class Account {
      * @return true if verification successful
      */
     public boolean verify() {
-        if (status == AccountStatus.Unverified) {
-            status = AccountStatus.Verified;
-            return true;
-        }
-        return false;
+        return transition(Transition.Verify);
     }
     
     /**
@@ -121,11 +426,7 @@ public class Account {
      * @return true if suspension successful
      */
     public boolean suspend() {
-        if (status == AccountStatus.Verified) {
-            status = AccountStatus.Suspended;
-            return true;
-        }
-        return false;
+        return transition(Transition.Suspend);
     }
     
     /**
@@ -133,11 +434,7 @@ public class Account {
      * @return true if closure successful
      */
     public boolean close() {
-        if (status != AccountStatus.Closed) {
-            status = AccountStatus.Closed;
-            return true;
-        }
-        return false;
+        return transition(Transition.Close);
     }
     
     /**
@@ -145,11 +442,143 @@ public class Account {
      * @return true if appeal successful
      */
     public boolean appeal() {
-        if (status == AccountStatus.Suspended) {
-            status = AccountStatus.Verified;
-            return true;
+        return transition(Transition.Appeal);
+    }
+    
+    /**
+     * Apply a lifecycle transition if the transition matrix allows it
+     * The status is checked and swapped in one compare-and-set, so of several
+     * concurrent transitions from the same status exactly one commits.
+     * @param transition Transition to apply
+     * @return true if the transition was committed
+     */
+    public boolean transition(Transition transition) {
+        AccountState installed;
+        AccountEvent.Type change = transition.getEventType();
+        long token = VersionClock.beginCommit();
+        try {
+            long stamp = VersionClock.nextStamp();
+            do {
+                AccountState current = state.get();
+                AccountStatus to = AccountStateMachine.target(transition, current.getStatus());
+                if (to == null) {
+                    return false;
+                }
+                installed = install(current, prepareCommit(change,
+                        current.next(current.getBalanceCents(), to, stamp)));
+            } while (installed == null);
+        } finally {
+            VersionClock.endCommit(token);
+        }
+        if (AccountEvents.isActive()) {
+            AccountEvents.publish(AccountEvent.statusChanged(change, id, installed));
+        }
+        afterCommit(change, installed);
+        return true;
+    }
+    
+    /**
+     * Check a transition against the current status without applying it
+     * @param transition Transition to check
+     * @return true if the transition is currently allowed
+     */
+    public boolean canTransition(Transition transition) {
+        return AccountStateMachine.isAllowed(transition, getStatus());
+    }
+    
+    /**
+     * Adjust the version a deposit, withdrawal or transition is about to install
+     * Runs inside the compare-and-set loop, possibly more than once per commit,
+     * so it must only compute. Credit score accounts update their score and
+     * counters here, so they change atomically with the balance or status.
+     * @param change Deposited, Withdrawn or the event type of the transition
+     * @param next Version about to be installed
+     * @return Version to install instead
+     */
+    protected AccountState prepareCommit(AccountEvent.Type change, AccountState next) {
+        return next;
+    }
+    
+    /**
+     * Side effects of a committed deposit, withdrawal or transition; runs once per commit, after its event
+     * @param change Deposited, Withdrawn or the event type of the transition
+     * @param installed Version the commit installed
+     */
+    protected void afterCommit(AccountEvent.Type change, AccountState installed) {
+    }
+    
+    /**
+     * Commit a change that keeps the balance and status
+     * @param change Builds the new version from a copy of the current one, or returns null to commit nothing;
+     *               may run more than once, so it must only compute
+     * @return Installed version, or null if nothing was committed
+     */
+    protected AccountState commitUpdate(UnaryOperator<AccountState> change) {
+        AccountState installed;
+        long token = VersionClock.beginCommit();
+        try {
+            long stamp = VersionClock.nextStamp();
+            do {
+                AccountState current = state.get();
+                AccountState next = change.apply(current.next(current.getBalanceCents(), current.getStatus(), stamp));
+                if (next == null) {
+                    return null;
+                }
+                installed = install(current, next);
+            } while (installed == null);
+        } finally {
+            VersionClock.endCommit(token);
         }
-        return false;
+        return installed;
+    }
+    
+    /**
+     * Install the version following current if no other commit got there first
+     * @return The installed version, or null if current was no longer the latest
+     */
+    private AccountState install(AccountState current, long newBalanceCents, AccountStatus newStatus, long stamp) {
+        return install(current, current.next(newBalanceCents, newStatus, stamp));
+    }
+    
+    private AccountState install(AccountState current, AccountState next) {
+        if (state.compareAndSet(current, next)) {
+            markModified();
+            return next;
+        }
+        return null;
+    }
+    
+    /**
+     * Record that persistent state changed outside balance and status
+     */
+    protected void markModified() {
+        MODIFICATIONS.incrementAndGet(this);
+    }
+    
+    /**
+     * @return Number of committed changes so far; differs whenever the account is dirty
+     */
+    public long getModificationCount() {
+        return modifications;
+    }
+    
+    // Versioned state
+    
+    /**
+     * Get the current committed version of balance and status
+     * @return Latest version
+     */
+    public AccountState getState() {
+        return state.get();
+    }
+    
+    /**
+     * Get the version of balance and status visible to a snapshot
+     * @param snapshotStamp Stamp obtained from {@link VersionClock#openSnapshot()}
+     * @return Version committed at or before the stamp, or null if none is retained
+     */
+    public AccountState getStateAt(long snapshotStamp) {
+        return state.get().visibleAt(snapshotStamp);
     }
     
     // Getters and Setters
@@ -171,14 +600,44 @@ public class Account {
     }
     
     public double getBalance() {
-        return balance;
+        return state.get().getBalance();
+    }
+    
+    public long getBalanceCents() {
+        return state.get().getBalanceCents();
     }
     
     public AccountStatus getStatus() {
-        return status;
+        return state.get().getStatus();
     }
     
+    /**
+     * Largest single withdrawal or transfer the account allows
+     * @return Limit in cents; plain accounts have no credit-based limit
+     */
+    public long getTransactionLimitCents() {
+        return Long.MAX_VALUE;
+    }
+    
+    /**
+     * Force a status regardless of the transition matrix (administrative override)
+     * Publishes StatusOverridden and runs no transition hooks.
+     * @param status New status
+     */
     public void setStatus(AccountStatus status) {
-        this.status = status;
+        AccountState installed;
+        long token = VersionClock.beginCommit();
+        try {
+            long stamp = VersionClock.nextStamp();
+            do {
+                AccountState current = state.get();
+                installed = install(current, current.getBalanceCents(), status, stamp);
+            } while (installed == null);
+        } finally {
+            VersionClock.endCommit(token);
+        }
+        if (AccountEvents.isActive()) {
+            AccountEvents.publish(AccountEvent.statusChanged(AccountEvent.Type.StatusOverridden, id, installed));
+        }
     }
 }
\ No newline at end of file
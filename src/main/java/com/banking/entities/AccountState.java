@@ -0,0 +1,158 @@
+package com.banking.entities;
+
+import com.banking.entities.Account.AccountStatus;
+
+/**
+ * Immutable version of an account's balance, status and credit score state
+ * 
+ * Each commit installs a new version; older versions stay linked behind it
+ * only while an open snapshot may still need them. Plain accounts carry zero
+ * credit score fields.
+ */
+public final class AccountState {
+    
+    private final long balanceCents;
+    private final AccountStatus status;
+    private final int creditScore;
+    // Credit-based limit for creditScore, computed whenever the score is set
+    private final long transactionLimitCents;
+    private final int overdraftAttempts;
+    private final int successfulTransactions;
+    private final long commitStamp;
+    private final long sequence;
+    private volatile AccountState previous;
+    
+    AccountState(long balanceCents, AccountStatus status, int creditScore, int overdraftAttempts,
+                 int successfulTransactions, long commitStamp, long sequence, AccountState previous) {
+        this(balanceCents, status, creditScore, CreditScoreAccount.limitFor(creditScore), overdraftAttempts,
+                successfulTransactions, commitStamp, sequence, previous);
+    }
+    
+    private AccountState(long balanceCents, AccountStatus status, int creditScore, long transactionLimitCents,
+                         int overdraftAttempts, int successfulTransactions, long commitStamp, long sequence,
+                         AccountState previous) {
+        this.balanceCents = balanceCents;
+        this.status = status;
+        this.creditScore = creditScore;
+        this.transactionLimitCents = transactionLimitCents;
+        this.overdraftAttempts = overdraftAttempts;
+        this.successfulTransactions = successfulTransactions;
+        this.commitStamp = commitStamp;
+        this.sequence = sequence;
+        this.previous = previous;
+    }
+    
+    /**
+     * Build the version that follows this one; credit score fields and the limit carry over
+     * @param newBalanceCents Balance in cents after the commit
+     * @param newStatus Status after the commit
+     * @param stamp Commit stamp
+     * @return New version, linked to this one if a snapshot may read it
+     */
+    AccountState next(long newBalanceCents, AccountStatus newStatus, long stamp) {
+        if (!VersionClock.hasActiveSnapshots()) {
+            return new AccountState(newBalanceCents, newStatus, creditScore, transactionLimitCents,
+                    overdraftAttempts, successfulTransactions, stamp, sequence + 1, null);
+        }
+        prune(VersionClock.oldestActiveSnapshot());
+        return new AccountState(newBalanceCents, newStatus, creditScore, transactionLimitCents,
+                overdraftAttempts, successfulTransactions, stamp, sequence + 1, this);
+    }
+    
+    /**
+     * Same version with other credit score fields; only for versions not yet installed
+     * The transaction limit is recomputed here, the only place a score changes.
+     * @param newCreditScore Credit score
+     * @param newOverdraftAttempts Overdraft attempts
+     * @param newSuccessfulTransactions Successful deposits and withdrawals
+     * @return Replacement version with the same balance, status, stamp, sequence and predecessor
+     */
+    AccountState withCredit(int newCreditScore, int newOverdraftAttempts, int newSuccessfulTransactions) {
+        long limitCents = newCreditScore == creditScore
+                ? transactionLimitCents : CreditScoreAccount.limitFor(newCreditScore);
+        return new AccountState(balanceCents, status, newCreditScore, limitCents, newOverdraftAttempts,
+                newSuccessfulTransactions, commitStamp, sequence, previous);
+    }
+    
+    /**
+     * Cut the chain below the newest version every open snapshot can already see
+     */
+    private void prune(long oldestSnapshot) {
+        for (AccountState s = this; s != null; s = s.previous) {
+            if (s.commitStamp <= oldestSnapshot) {
+                s.previous = null;
+                return;
+            }
+        }
+    }
+    
+    /**
+     * Find the version visible to a snapshot
+     * @param snapshotStamp Snapshot stamp
+     * @return Newest version committed at or before the stamp, or null
+     */
+    AccountState visibleAt(long snapshotStamp) {
+        for (AccountState s = this; s != null; s = s.previous) {
+            if (s.commitStamp <= snapshotStamp) {
+                return s;
+            }
+        }
+        return null;
+    }
+    
+    public long getBalanceCents() {
+        return balanceCents;
+    }
+    
+    public double getBalance() {
+        return Money.toDouble(balanceCents);
+    }
+    
+    public AccountStatus getStatus() {
+        return status;
+    }
+    
+    /**
+     * @return Credit score; 0 for plain accounts
+     */
+    public int getCreditScore() {
+        return creditScore;
+    }
+    
+    /**
+     * @return Credit-based transaction limit in cents for this version's score; 0 for plain accounts
+     */
+    public long getTransactionLimitCents() {
+        return transactionLimitCents;
+    }
+    
+    /**
+     * @return Withdrawals rejected for exceeding the balance; 0 for plain accounts
+     */
+    public int getOverdraftAttempts() {
+        return overdraftAttempts;
+    }
+    
+    /**
+     * @return Successful deposits and withdrawals; 0 for plain accounts
+     */
+    public int getSuccessfulTransactions() {
+        return successfulTransactions;
+    }
+    
+    public long getCommitStamp() {
+        return commitStamp;
+    }
+    
+    /**
+     * Position of this version in its account's history
+     * Grows by one with every installed version, in installation order.
+     * Commit stamps are drawn before the compare-and-set, so two racing
+     * commits can install in the opposite order of their stamps; the
+     * sequence never does.
+     * @return 0 for the version an account was created or restored with
+     */
+    public long getSequence() {
+        return sequence;
+    }
+}
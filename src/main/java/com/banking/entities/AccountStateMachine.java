@@ -0,0 +1,75 @@
+package com.banking.entities;
+
+import com.banking.entities.Account.AccountStatus;
+import com.banking.events.AccountEvent;
+
+/**
+ * Transition matrix for the account lifecycle
+ *
+ * The matrix is built once, indexed by transition and current status, and
+ * holds the target status or null where the transition is not allowed.
+ * {@link Account#transition(Transition)} reads it inside its compare-and-set
+ * loop, so checking and applying a transition costs an array lookup and a CAS.
+ */
+public final class AccountStateMachine {
+
+    /**
+     * Lifecycle actions, each published as its own event type
+     */
+    public enum Transition {
+        Verify(AccountEvent.Type.Verified),
+        Suspend(AccountEvent.Type.Suspended),
+        Appeal(AccountEvent.Type.Appealed),
+        Close(AccountEvent.Type.Closed);
+
+        private final AccountEvent.Type eventType;
+
+        Transition(AccountEvent.Type eventType) {
+            this.eventType = eventType;
+        }
+
+        public AccountEvent.Type getEventType() {
+            return eventType;
+        }
+    }
+
+    private static final AccountStatus[] STATUSES = AccountStatus.values();
+    private static final AccountStatus[][] TARGETS = new AccountStatus[Transition.values().length][STATUSES.length];
+
+    static {
+        allow(Transition.Verify, AccountStatus.Unverified, AccountStatus.Verified);
+        allow(Transition.Suspend, AccountStatus.Verified, AccountStatus.Suspended);
+        allow(Transition.Appeal, AccountStatus.Suspended, AccountStatus.Verified);
+        for (AccountStatus status : STATUSES) {
+            if (status != AccountStatus.Closed) {
+                allow(Transition.Close, status, AccountStatus.Closed);
+            }
+        }
+    }
+
+    private AccountStateMachine() {
+    }
+
+    private static void allow(Transition transition, AccountStatus from, AccountStatus to) {
+        TARGETS[transition.ordinal()][from.ordinal()] = to;
+    }
+
+    /**
+     * Look up where a transition leads
+     * @param transition Transition to apply
+     * @param from Current status
+     * @return Target status, or null if the transition is not allowed from this status
+     */
+    public static AccountStatus target(Transition transition, AccountStatus from) {
+        return TARGETS[transition.ordinal()][from.ordinal()];
+    }
+
+    /**
+     * @param transition Transition to apply
+     * @param from Current status
+     * @return true if the matrix allows the transition
+     */
+    public static boolean isAllowed(Transition transition, AccountStatus from) {
+        return target(transition, from) != null;
+    }
+}
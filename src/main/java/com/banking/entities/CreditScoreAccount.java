@@ -1,29 +1,63 @@
 package com.banking.entities;
 
+import com.banking.events.AccountEvent;
+import com.banking.events.AccountEvents;
+
 /**
  * Extended Account class with Credit Score feature
  * This is the GREEN PHASE implementation for TDD
+ * 
+ * The score and its counters live in the account's versioned state, so each
+ * change to them is one compare-and-set together with the balance or status
+ * change that caused it.
  */
 public class CreditScoreAccount extends Account {
     
-    private int creditScore;
-    private int overdraftAttempts;
-    private int successfulTransactions;
-    
     // Credit score constants
     private static final int INITIAL_SCORE = 700;
-    private static final int MIN_SCORE = 300;
-    private static final int MAX_SCORE = 850;
-    private static final int DEPOSIT_BONUS = 5;
-    private static final int OVERDRAFT_PENALTY = 20;
-    private static final int SUSPENSION_PENALTY = 50;
-    private static final int APPEAL_RECOVERY = 25;
+    public static final int MIN_SCORE = 300;
+    public static final int MAX_SCORE = 850;
+    // Event-driven adjustments, public so policy simulations start from the live values
+    public static final int DEPOSIT_BONUS = 5;
+    public static final int DEPOSITS_PER_BONUS = 3;
+    public static final int OVERDRAFT_PENALTY = 20;
+    public static final int SUSPENSION_PENALTY = 50;
+    public static final int APPEAL_RECOVERY = 25;
+    // Each score point allows $10 per transaction
+    public static final long LIMIT_CENTS_PER_POINT = 10 * Money.SCALE;
+    
+    // Recalculation factors, public so the columnar kernels can apply the same rule
+    public static final int BASE_SCORE = INITIAL_SCORE;
+    public static final long HIGH_BALANCE_CENTS = 5000 * Money.SCALE;
+    public static final long MEDIUM_BALANCE_CENTS = 1000 * Money.SCALE;
+    public static final long LOW_BALANCE_CENTS = 100 * Money.SCALE;
+    public static final int HIGH_BALANCE_BONUS = 50;
+    public static final int MEDIUM_BALANCE_BONUS = 25;
+    public static final int LOW_BALANCE_PENALTY = 25;
+    public static final int POINTS_PER_SUCCESS = 2;
+    public static final int POINTS_PER_OVERDRAFT = 10;
+    public static final int VERIFIED_BONUS = 10;
+    public static final int SUSPENDED_PENALTY = 30;
+    public static final int CLOSED_PENALTY = 50;
     
     public CreditScoreAccount(int id, String clientName, double initialBalance) {
-        super(id, clientName, initialBalance);
-        this.creditScore = INITIAL_SCORE;
-        this.overdraftAttempts = 0;
-        this.successfulTransactions = 0;
+        super(id, clientName, initialBalance, AccountStatus.Unverified, INITIAL_SCORE, 0, 0);
+    }
+    
+    /**
+     * Restore a credit score account from persisted state
+     */
+    public CreditScoreAccount(int id, String clientName, double balance, int creditScore,
+                              int overdraftAttempts, int successfulTransactions) {
+        this(id, clientName, balance, AccountStatus.Unverified, creditScore, overdraftAttempts, successfulTransactions);
+    }
+    
+    /**
+     * Restore a credit score account from persisted state, including its status
+     */
+    public CreditScoreAccount(int id, String clientName, double balance, AccountStatus status, int creditScore,
+                              int overdraftAttempts, int successfulTransactions) {
+        super(id, clientName, balance, status, creditScore, overdraftAttempts, successfulTransactions);
     }
     
     /**
@@ -31,7 +65,21 @@ public class CreditScoreAccount extends Account {
      * @return Credit score (300-850)
      */
     public int getCreditScore() {
-        return creditScore;
+        return getState().getCreditScore();
+    }
+    
+    /**
+     * @return Number of withdrawals rejected for exceeding the balance
+     */
+    public int getOverdraftAttempts() {
+        return getState().getOverdraftAttempts();
+    }
+    
+    /**
+     * @return Number of successful deposits and withdrawals
+     */
+    public int getSuccessfulTransactions() {
+        return getState().getSuccessfulTransactions();
     }
     
     /**
@@ -39,46 +87,50 @@ public class CreditScoreAccount extends Account {
      * @return Maximum allowed transaction amount
      */
     public double getTransactionLimit() {
-        // Higher credit score = higher limit
-        // Score 700 = $7000 limit
-        return creditScore * 10.0;
+        return Money.toDouble(getTransactionLimitCents());
     }
     
     /**
-     * Deposit with credit score update
+     * Get transaction limit based on credit score
+     * Precomputed with the score in each committed version, so checking it is
+     * a field read and score and limit always agree.
+     * @return Maximum allowed transaction amount in cents
      */
     @Override
-    public boolean deposit(double amount) {
-        boolean result = super.deposit(amount);
-        if (result) {
-            successfulTransactions++;
-            // Improve credit score for successful deposits
-            if (successfulTransactions % 3 == 0) {
-                adjustCreditScore(DEPOSIT_BONUS);
-            }
-        }
-        return result;
+    public long getTransactionLimitCents() {
+        return getState().getTransactionLimitCents();
+    }
+    
+    /**
+     * Transaction limit for a score
+     */
+    static long limitFor(int score) {
+        // Higher credit score = higher limit
+        // Score 700 = $7000 limit
+        return score * LIMIT_CENTS_PER_POINT;
     }
     
     /**
      * Withdraw with credit score check
      */
     @Override
-    public boolean withdraw(double amount) {
+    public boolean withdrawCents(long cents) {
         // Check credit-based limit
-        if (amount > getTransactionLimit()) {
+        if (cents > getTransactionLimitCents()) {
             return false;
         }
         
-        boolean result = super.withdraw(amount);
-        if (!result && amount > getBalance()) {
-            // Overdraft attempt - penalize credit score
-            overdraftAttempts++;
-            adjustCreditScore(-OVERDRAFT_PENALTY);
-        } else if (result) {
-            successfulTransactions++;
+        if (super.withdrawCents(cents)) {
+            return true;
         }
-        return result;
+        // Overdraft attempt - penalize credit score, unless the balance covered it by now
+        AccountState penalized = commitUpdate(next -> cents <= next.getBalanceCents() ? null
+                : scored(next.withCredit(next.getCreditScore(), next.getOverdraftAttempts() + 1,
+                        next.getSuccessfulTransactions()), -OVERDRAFT_PENALTY));
+        if (penalized != null) {
+            publishCreditChange("overdraft", penalized);
+        }
+        return false;
     }
     
     /**
@@ -87,41 +139,72 @@ public class CreditScoreAccount extends Account {
      * @return true if successful
      */
     public boolean withdrawWithCreditCheck(double amount) {
-        if (amount > getTransactionLimit()) {
+        long cents = Money.fromPositiveAmount(amount);
+        if (cents > getTransactionLimitCents()) {
             return false;
         }
-        return withdraw(amount);
+        return withdrawCents(cents);
     }
     
     /**
-     * Suspend account with credit score penalty
+     * Successful deposits and withdrawals count towards the score, every
+     * third deposit earns a bonus; suspension costs credit score and a
+     * successful appeal recovers part of it
      */
     @Override
-    public boolean suspend() {
-        boolean result = super.suspend();
-        if (result) {
-            adjustCreditScore(-SUSPENSION_PENALTY);
+    protected AccountState prepareCommit(AccountEvent.Type change, AccountState next) {
+        switch (change) {
+            case Deposited: {
+                int successes = next.getSuccessfulTransactions() + 1;
+                AccountState counted = next.withCredit(next.getCreditScore(), next.getOverdraftAttempts(), successes);
+                // Improve credit score for successful deposits
+                return successes % DEPOSITS_PER_BONUS == 0 ? scored(counted, DEPOSIT_BONUS) : counted;
+            }
+            case Withdrawn:
+                return next.withCredit(next.getCreditScore(), next.getOverdraftAttempts(),
+                        next.getSuccessfulTransactions() + 1);
+            case Suspended:
+                return scored(next, -SUSPENSION_PENALTY);
+            case Appealed:
+                return scored(next, APPEAL_RECOVERY);
+            default:
+                return next;
         }
-        return result;
     }
     
-    /**
-     * Appeal with partial credit score recovery
-     */
     @Override
-    public boolean appeal() {
-        boolean result = super.appeal();
-        if (result) {
-            adjustCreditScore(APPEAL_RECOVERY);
+    protected void afterCommit(AccountEvent.Type change, AccountState installed) {
+        switch (change) {
+            case Deposited:
+                publishCreditChange("deposit", installed);
+                break;
+            case Withdrawn:
+                publishCreditChange("withdrawal", installed);
+                break;
+            case Suspended:
+                publishCreditChange("suspension", installed);
+                break;
+            case Appealed:
+                publishCreditChange("appeal", installed);
+                break;
+            default:
+                break;
         }
-        return result;
     }
     
     /**
      * Adjust credit score within bounds
      */
-    private void adjustCreditScore(int adjustment) {
-        creditScore = Math.max(MIN_SCORE, Math.min(MAX_SCORE, creditScore + adjustment));
+    private static AccountState scored(AccountState next, int adjustment) {
+        return withScore(next, next.getCreditScore() + adjustment);
+    }
+    
+    /**
+     * Same version with a new score, clamped to 300-850
+     */
+    private static AccountState withScore(AccountState next, int score) {
+        return next.withCredit(Math.max(MIN_SCORE, Math.min(MAX_SCORE, score)), next.getOverdraftAttempts(),
+                next.getSuccessfulTransactions());
     }
     
     /**
@@ -129,36 +212,87 @@ public class CreditScoreAccount extends Account {
      * This is a more sophisticated calculation for the REFACTOR phase
      */
     public void recalculateCreditScore() {
-        int baseScore = INITIAL_SCORE;
+        // Every factor comes from the version the new score is installed over
+        AccountState installed = commitUpdate(next -> withScore(next, computeScore(next.getBalanceCents(),
+                next.getSuccessfulTransactions(), next.getOverdraftAttempts(), next.getStatus())));
+        publishCreditChange("recalculation", installed);
+    }
+    
+    /**
+     * Install a score over whatever version is current, without checking its factors
+     * Publishes the same recalculation event as {@link #recalculateCreditScore()}.
+     * @param score Score to install, clamped to 300-850
+     */
+    public void applyComputedScore(int score) {
+        publishCreditChange("recalculation", commitUpdate(next -> withScore(next, score)));
+    }
+    
+    /**
+     * Install a score computed outside the account from the factors of one version
+     * Used by bulk scoring. The score is installed only if that version is
+     * still current; otherwise the score is recomputed from the current
+     * factors inside the commit, as {@link #recalculateCreditScore()} does.
+     * @param score Score from {@link #computeScore} or an equivalent kernel, clamped to 300-850
+     * @param computedFrom Sequence of the version the score was computed from
+     */
+    public void applyComputedScore(int score, long computedFrom) {
+        AccountState installed = commitUpdate(next -> withScore(next, next.getSequence() == computedFrom + 1
+                ? score
+                : computeScore(next.getBalanceCents(), next.getSuccessfulTransactions(),
+                        next.getOverdraftAttempts(), next.getStatus())));
+        publishCreditChange("recalculation", installed);
+    }
+    
+    /**
+     * Credit score for a set of account factors
+     * Pure function behind {@link #recalculateCreditScore()}, usable for bulk scoring.
+     * @param balanceCents Balance in cents
+     * @param successfulTransactions Successful deposits and withdrawals
+     * @param overdraftAttempts Withdrawals rejected for exceeding the balance
+     * @param status Account status
+     * @return Score clamped to 300-850
+     */
+    public static int computeScore(long balanceCents, int successfulTransactions, int overdraftAttempts,
+                                   AccountStatus status) {
+        long baseScore = BASE_SCORE;
         
         // Balance factor (higher balance = better score)
-        if (getBalance() > 5000) {
-            baseScore += 50;
-        } else if (getBalance() > 1000) {
-            baseScore += 25;
-        } else if (getBalance() < 100) {
-            baseScore -= 25;
+        if (balanceCents > HIGH_BALANCE_CENTS) {
+            baseScore += HIGH_BALANCE_BONUS;
+        } else if (balanceCents > MEDIUM_BALANCE_CENTS) {
+            baseScore += MEDIUM_BALANCE_BONUS;
+        } else if (balanceCents < LOW_BALANCE_CENTS) {
+            baseScore -= LOW_BALANCE_PENALTY;
         }
         
         // Transaction history factor
-        baseScore += (successfulTransactions * 2);
-        baseScore -= (overdraftAttempts * 10);
+        baseScore += ((long) successfulTransactions * POINTS_PER_SUCCESS);
+        baseScore -= ((long) overdraftAttempts * POINTS_PER_OVERDRAFT);
         
         // Status factor
-        switch (getStatus()) {
+        switch (status) {
             case Verified:
-                baseScore += 10;
+                baseScore += VERIFIED_BONUS;
                 break;
             case Suspended:
-                baseScore -= 30;
+                baseScore -= SUSPENDED_PENALTY;
                 break;
             case Closed:
-                baseScore -= 50;
+                baseScore -= CLOSED_PENALTY;
                 break;
             default:
                 break;
         }
         
-        creditScore = Math.max(MIN_SCORE, Math.min(MAX_SCORE, baseScore));
+        return (int) Math.max(MIN_SCORE, Math.min(MAX_SCORE, baseScore));
+    }
+    
+    /**
+     * Publish the score and counters a commit installed
+     */
+    private void publishCreditChange(String reason, AccountState installed) {
+        if (AccountEvents.isActive()) {
+            AccountEvents.publish(AccountEvent.creditScoreAdjusted(getId(), installed, reason));
+        }
     }
 }
\ No newline at end of file
@@ -0,0 +1,154 @@
+package com.banking.entities;
+
+/**
+ * Fixed-point money arithmetic on long minor units (cents)
+ *
+ * Amounts are plain longs holding cents, so account arithmetic is exact and
+ * allocates nothing. Arithmetic throws {@link ArithmeticException} on
+ * overflow instead of wrapping. The double methods are adapters for the
+ * existing double API and round to the nearest cent.
+ */
+public final class Money {
+
+    /** Minor units per major unit */
+    public static final long SCALE = 100;
+
+    /** Largest double amount that converts to cents without losing precision (2^53 cents) */
+    public static final double MAX_EXACT_AMOUNT = 90_071_992_547_409.91;
+
+    private Money() {
+    }
+
+    /**
+     * @param major Whole currency units
+     * @return Cents
+     */
+    public static long ofMajor(long major) {
+        return Math.multiplyExact(major, SCALE);
+    }
+
+    /**
+     * Convert a double amount to cents, rounding half away from zero
+     * @param amount Amount in currency units
+     * @return Cents
+     * @throws IllegalArgumentException if the amount is not finite or too large to be exact
+     */
+    public static long fromDouble(double amount) {
+        if (!(Math.abs(amount) <= MAX_EXACT_AMOUNT)) {
+            throw new IllegalArgumentException("Amount out of range: " + amount);
+        }
+        double scaled = amount * SCALE;
+        return (long) (scaled < 0 ? scaled - 0.5 : scaled + 0.5);
+    }
+
+    /**
+     * Convert an amount argument from the double API
+     * @param amount Amount in currency units
+     * @return Cents, or 0 if the amount is not positive, not finite or too large,
+     *         so callers reject it like any other non-positive amount
+     */
+    public static long fromPositiveAmount(double amount) {
+        return amount > 0 && amount <= MAX_EXACT_AMOUNT ? fromDouble(amount) : 0;
+    }
+
+    /**
+     * @param cents Cents
+     * @return Amount in currency units
+     */
+    public static double toDouble(long cents) {
+        return cents / (double) SCALE;
+    }
+
+    public static long add(long a, long b) {
+        return Math.addExact(a, b);
+    }
+
+    public static long subtract(long a, long b) {
+        return Math.subtractExact(a, b);
+    }
+
+    /**
+     * Parse a decimal amount such as "12", "12.5" or "-0.07"
+     * Surrounding whitespace and one leading sign are accepted; more than two
+     * fraction digits, exponents and grouping separators are not.
+     * @param text Amount text
+     * @return Cents
+     * @throws NumberFormatException if the text is not a valid amount
+     */
+    public static long parse(CharSequence text) {
+        int start = 0;
+        int end = text.length();
+        while (start < end && Character.isWhitespace(text.charAt(start))) {
+            start++;
+        }
+        while (end > start && Character.isWhitespace(text.charAt(end - 1))) {
+            end--;
+        }
+        boolean negative = false;
+        if (start < end && (text.charAt(start) == '-' || text.charAt(start) == '+')) {
+            negative = text.charAt(start) == '-';
+            start++;
+        }
+        long units = 0;
+        int digits = 0;
+        int fractionDigits = -1;
+        try {
+            for (int i = start; i < end; i++) {
+                char c = text.charAt(i);
+                if (c == '.' && fractionDigits < 0) {
+                    fractionDigits = 0;
+                    continue;
+                }
+                if (c < '0' || c > '9' || fractionDigits == 2) {
+                    throw invalid(text);
+                }
+                // Accumulate negatively so Long.MIN_VALUE cents still parse
+                units = Math.subtractExact(Math.multiplyExact(units, 10), c - '0');
+                digits++;
+                if (fractionDigits >= 0) {
+                    fractionDigits++;
+                }
+            }
+            if (digits == 0) {
+                throw invalid(text);
+            }
+            for (int i = Math.max(fractionDigits, 0); i < 2; i++) {
+                units = Math.multiplyExact(units, 10);
+            }
+            return negative ? units : Math.negateExact(units);
+        } catch (ArithmeticException e) {
+            throw invalid(text);
+        }
+    }
+
+    private static NumberFormatException invalid(CharSequence text) {
+        return new NumberFormatException("Invalid amount: \"" + text + "\"");
+    }
+
+    /**
+     * Append an amount with exactly two fraction digits, e.g. "-1234.05"
+     * @param out Destination
+     * @param cents Cents
+     * @return out
+     */
+    public static StringBuilder appendTo(StringBuilder out, long cents) {
+        long major = cents / SCALE;
+        int minor = (int) Math.abs(cents % SCALE);
+        if (cents < 0 && major == 0) {
+            out.append('-');
+        }
+        out.append(major).append('.');
+        if (minor < 10) {
+            out.append('0');
+        }
+        return out.append(minor);
+    }
+
+    /**
+     * @param cents Cents
+     * @return Amount with exactly two fraction digits
+     */
+    public static String format(long cents) {
+        return appendTo(new StringBuilder(24), cents).toString();
+    }
+}
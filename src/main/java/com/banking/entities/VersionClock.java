@@ -0,0 +1,101 @@
+package com.banking.entities;
+
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * Global commit clock for multi-version account state
+ * 
+ * Every balance or status change runs inside a commit and is stamped with a
+ * value from this clock. Writers only share the commit gate, so they never
+ * block each other. Opening or closing a snapshot takes the gate exclusively
+ * for the few instructions needed to read the clock, which guarantees that
+ * every commit stamped at or below the snapshot has finished installing its
+ * versions and that every later commit receives a higher stamp.
+ */
+public final class VersionClock {
+    
+    private static final StampedLock gate = new StampedLock();
+    private static final AtomicLong clock = new AtomicLong();
+    private static final ConcurrentSkipListMap<Long, Integer> activeSnapshots = new ConcurrentSkipListMap<>();
+    private static volatile long oldestActive = Long.MAX_VALUE;
+    
+    private VersionClock() {
+    }
+    
+    /**
+     * Enter a commit
+     * @return Gate token that must be passed to {@link #endCommit(long)}
+     */
+    public static long beginCommit() {
+        return gate.readLock();
+    }
+    
+    /**
+     * Draw the commit stamp for the commit entered with the given token
+     * @return Stamp to attach to every version installed by this commit
+     */
+    public static long nextStamp() {
+        return clock.incrementAndGet();
+    }
+    
+    /**
+     * Leave a commit
+     * @param token Token returned by {@link #beginCommit()}
+     */
+    public static void endCommit(long token) {
+        gate.unlockRead(token);
+    }
+    
+    /**
+     * Register a new snapshot reader
+     * @return Snapshot stamp: versions stamped at or below it are visible
+     */
+    public static long openSnapshot() {
+        long token = gate.writeLock();
+        try {
+            long stamp = clock.get();
+            activeSnapshots.merge(stamp, 1, Integer::sum);
+            oldestActive = activeSnapshots.firstKey();
+            return stamp;
+        } finally {
+            gate.unlockWrite(token);
+        }
+    }
+    
+    /**
+     * Release a snapshot reader so its versions can be reclaimed
+     * @param stamp Stamp returned by {@link #openSnapshot()}
+     */
+    public static void closeSnapshot(long stamp) {
+        long token = gate.writeLock();
+        try {
+            activeSnapshots.computeIfPresent(stamp, (key, count) -> count > 1 ? count - 1 : null);
+            oldestActive = activeSnapshots.isEmpty() ? Long.MAX_VALUE : activeSnapshots.firstKey();
+        } finally {
+            gate.unlockWrite(token);
+        }
+    }
+    
+    /**
+     * @return true if any snapshot is open and old versions must be retained
+     */
+    public static boolean hasActiveSnapshots() {
+        return oldestActive != Long.MAX_VALUE;
+    }
+    
+    /**
+     * @return Stamp of the oldest open snapshot, or Long.MAX_VALUE if none
+     */
+    public static long oldestActiveSnapshot() {
+        return oldestActive;
+    }
+    
+    /**
+     * @return Stamp of the most recent commit
+     */
+    public static long currentStamp() {
+        return clock.get();
+    }
+}
@@ -0,0 +1,243 @@
+package com.banking.events;
+
+import com.banking.entities.Account;
+import com.banking.entities.Account.AccountStatus;
+import com.banking.entities.AccountState;
+import com.banking.entities.CreditScoreAccount;
+import com.banking.entities.Money;
+
+/**
+ * Immutable record of one committed change to an account
+ *
+ * Balance events carry the amount moved and credit score events the reason
+ * the score moved. Every event also carries the account's whole version
+ * right after the commit: balance, status, credit score fields, commit
+ * stamp and the account's version sequence.
+ *
+ * Events are published after their commit, so two threads changing the
+ * same account can deliver its events in the opposite order. The sequence
+ * grows by one with every version installed on the account, so a listener
+ * that keeps the latest sequence per account can ignore stale arrivals;
+ * events of one commit share a sequence and carry the same version.
+ */
+public final class AccountEvent {
+
+    public enum Type {
+        AccountCreated,
+        Deposited,
+        Withdrawn,
+        TransferSent,
+        TransferReceived,
+        Verified,
+        Suspended,
+        Closed,
+        Appealed,
+        StatusOverridden,
+        CreditScoreAdjusted,
+        AccountRemoved
+    }
+
+    /**
+     * Counterparty of a net settlement posting, which has no single other side
+     * Every id an account, escrow included, can have is above it.
+     */
+    public static final int NET_SETTLEMENT = Integer.MIN_VALUE;
+
+    private final Type type;
+    private final int accountId;
+    private final double amount;
+    private final long balanceAfterCents;
+    private final int counterpartyId;
+    private final String clientName;
+    private final AccountStatus status;
+    private final boolean creditAccount;
+    private final int creditScore;
+    private final int overdraftAttempts;
+    private final int successfulTransactions;
+    private final String reason;
+    private final long commitStamp;
+    private final long sequence;
+
+    AccountEvent(Type type, int accountId, double amount, long balanceAfterCents, int counterpartyId,
+                         String clientName, AccountStatus status, boolean creditAccount, int creditScore,
+                         int overdraftAttempts, int successfulTransactions, String reason,
+                         long commitStamp, long sequence) {
+        this.type = type;
+        this.accountId = accountId;
+        this.amount = amount;
+        this.balanceAfterCents = balanceAfterCents;
+        this.counterpartyId = counterpartyId;
+        this.clientName = clientName;
+        this.status = status;
+        this.creditAccount = creditAccount;
+        this.creditScore = creditScore;
+        this.overdraftAttempts = overdraftAttempts;
+        this.successfulTransactions = successfulTransactions;
+        this.reason = reason;
+        this.commitStamp = commitStamp;
+        this.sequence = sequence;
+    }
+
+    /**
+     * Account entered a repository; carries its full state at that point
+     * @param account New account
+     * @return Event
+     */
+    public static AccountEvent created(Account account) {
+        return snapshotEvent(Type.AccountCreated, account);
+    }
+
+    /**
+     * Account left a repository; carries its state at that point
+     * @param account Removed account
+     * @return Event
+     */
+    public static AccountEvent removed(Account account) {
+        return snapshotEvent(Type.AccountRemoved, account);
+    }
+
+    public static AccountEvent deposited(int accountId, double amount, AccountState after) {
+        return balanceEvent(Type.Deposited, accountId, amount, 0, after);
+    }
+
+    public static AccountEvent withdrawn(int accountId, double amount, AccountState after) {
+        return balanceEvent(Type.Withdrawn, accountId, amount, 0, after);
+    }
+
+    public static AccountEvent transferSent(int accountId, int recipientId, double amount, AccountState after) {
+        return balanceEvent(Type.TransferSent, accountId, amount, recipientId, after);
+    }
+
+    public static AccountEvent transferReceived(int accountId, int senderId, double amount, AccountState after) {
+        return balanceEvent(Type.TransferReceived, accountId, amount, senderId, after);
+    }
+
+    /**
+     * Status change
+     * @param type One of Verified, Suspended, Closed, Appealed or StatusOverridden
+     * @param accountId Account ID
+     * @param after State installed by the change
+     * @return Event
+     */
+    public static AccountEvent statusChanged(Type type, int accountId, AccountState after) {
+        return versionEvent(type, accountId, 0, 0, null, false, null, after);
+    }
+
+    /**
+     * Credit score or its counters changed
+     * @param accountId Account ID
+     * @param after Version installed by the change
+     * @param reason What caused the change
+     * @return Event
+     */
+    public static AccountEvent creditScoreAdjusted(int accountId, AccountState after, String reason) {
+        return versionEvent(Type.CreditScoreAdjusted, accountId, 0, 0, null, true, reason, after);
+    }
+
+    private static AccountEvent balanceEvent(Type type, int accountId, double amount, int counterpartyId,
+                                             AccountState after) {
+        return versionEvent(type, accountId, amount, counterpartyId, null, false, null, after);
+    }
+
+    private static AccountEvent snapshotEvent(Type type, Account account) {
+        AccountState state = account.getState();
+        return versionEvent(type, account.getId(), state.getBalance(), 0, account.getClientName(),
+                account instanceof CreditScoreAccount, null, state);
+    }
+
+    private static AccountEvent versionEvent(Type type, int accountId, double amount, int counterpartyId,
+                                             String clientName, boolean creditAccount, String reason,
+                                             AccountState after) {
+        return new AccountEvent(type, accountId, amount, after.getBalanceCents(), counterpartyId, clientName,
+                after.getStatus(), creditAccount, after.getCreditScore(), after.getOverdraftAttempts(),
+                after.getSuccessfulTransactions(), reason, after.getCommitStamp(), after.getSequence());
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public int getAccountId() {
+        return accountId;
+    }
+
+    /**
+     * @return Amount moved, or the opening balance for AccountCreated
+     */
+    public double getAmount() {
+        return amount;
+    }
+
+    /**
+     * @return Balance right after the event
+     */
+    public double getBalanceAfter() {
+        return Money.toDouble(balanceAfterCents);
+    }
+
+    /**
+     * @return Balance right after the event in cents
+     */
+    public long getBalanceAfterCents() {
+        return balanceAfterCents;
+    }
+
+    /**
+     * @return Other side of a transfer, or {@link #NET_SETTLEMENT} for a netted posting
+     */
+    public int getCounterpartyId() {
+        return counterpartyId;
+    }
+
+    public String getClientName() {
+        return clientName;
+    }
+
+    /**
+     * @return Status after the event
+     */
+    public AccountStatus getStatus() {
+        return status;
+    }
+
+    public boolean isCreditAccount() {
+        return creditAccount;
+    }
+
+    public int getCreditScore() {
+        return creditScore;
+    }
+
+    public int getOverdraftAttempts() {
+        return overdraftAttempts;
+    }
+
+    public int getSuccessfulTransactions() {
+        return successfulTransactions;
+    }
+
+    public String getReason() {
+        return reason;
+    }
+
+    /**
+     * @return Stamp of the commit that installed the version, from {@link com.banking.entities.VersionClock}
+     */
+    public long getCommitStamp() {
+        return commitStamp;
+    }
+
+    /**
+     * @return Position of the version among the account's versions; higher is newer
+     */
+    public long getSequence() {
+        return sequence;
+    }
+
+    @Override
+    public String toString() {
+        return type + "[account=" + accountId + (amount != 0 ? ", amount=" + amount : "")
+                + (status != null ? ", status=" + status : "")
+                + (type == Type.CreditScoreAdjusted ? ", score=" + creditScore + ", reason=" + reason : "") + "]";
+    }
+}
@@ -0,0 +1,78 @@
+package com.banking.events;
+
+import com.banking.entities.Account.AccountStatus;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * Binary encoding of {@link AccountEvent} for shipping events between processes
+ */
+public final class AccountEventCodec {
+
+    private static final AccountEvent.Type[] TYPES = AccountEvent.Type.values();
+    private static final AccountStatus[] STATUSES = AccountStatus.values();
+
+    private AccountEventCodec() {
+    }
+
+    /**
+     * Write one event
+     * @param out Destination
+     * @param event Event
+     * @throws IOException if the destination fails
+     */
+    public static void write(DataOutput out, AccountEvent event) throws IOException {
+        out.writeByte(event.getType().ordinal());
+        out.writeInt(event.getAccountId());
+        out.writeDouble(event.getAmount());
+        out.writeLong(event.getBalanceAfterCents());
+        out.writeInt(event.getCounterpartyId());
+        writeString(out, event.getClientName());
+        out.writeByte(event.getStatus() == null ? -1 : event.getStatus().ordinal());
+        out.writeBoolean(event.isCreditAccount());
+        out.writeInt(event.getCreditScore());
+        out.writeInt(event.getOverdraftAttempts());
+        out.writeInt(event.getSuccessfulTransactions());
+        writeString(out, event.getReason());
+        out.writeLong(event.getCommitStamp());
+        out.writeLong(event.getSequence());
+    }
+
+    /**
+     * Read one event
+     * @param in Source
+     * @return Event
+     * @throws IOException if the source fails or ends
+     */
+    public static AccountEvent read(DataInput in) throws IOException {
+        AccountEvent.Type type = TYPES[in.readByte()];
+        int accountId = in.readInt();
+        double amount = in.readDouble();
+        long balanceAfterCents = in.readLong();
+        int counterpartyId = in.readInt();
+        String clientName = readString(in);
+        byte status = in.readByte();
+        boolean creditAccount = in.readBoolean();
+        int creditScore = in.readInt();
+        int overdraftAttempts = in.readInt();
+        int successfulTransactions = in.readInt();
+        String reason = readString(in);
+        long commitStamp = in.readLong();
+        long sequence = in.readLong();
+        return new AccountEvent(type, accountId, amount, balanceAfterCents, counterpartyId, clientName,
+                status < 0 ? null : STATUSES[status], creditAccount, creditScore,
+                overdraftAttempts, successfulTransactions, reason, commitStamp, sequence);
+    }
+
+    private static void writeString(DataOutput out, String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeUTF(value);
+        }
+    }
+
+    private static String readString(DataInput in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+}
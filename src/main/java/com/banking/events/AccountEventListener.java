@@ -0,0 +1,24 @@
+package com.banking.events;
+
+/**
+ * Receives account events as they are committed
+ */
+@FunctionalInterface
+public interface AccountEventListener {
+
+    /**
+     * Called on the thread that committed the change; keep it short
+     * @param event Committed event
+     */
+    void onEvent(AccountEvent event);
+
+    /**
+     * Whether this listener also receives events published inside {@link AccountEvents#runMuted}
+     * Muting keeps applied changes from being re-published; listeners that
+     * track local state rather than forward changes opt in here.
+     * @return false by default
+     */
+    default boolean receivesMuted() {
+        return false;
+    }
+}
@@ -0,0 +1,92 @@
+package com.banking.events;
+
+import java.util.Arrays;
+
+/**
+ * Process-wide hub that fans account events out to listeners
+ *
+ * Publishers check {@link #isActive()} before building an event, so with no
+ * listeners registered the account hot paths pay one volatile read.
+ */
+public final class AccountEvents {
+
+    private static final AccountEventListener[] NONE = new AccountEventListener[0];
+
+    // Copy-on-write so publishing never locks
+    private static volatile AccountEventListener[] listeners = NONE;
+    // Subset of listeners that opted into muted events
+    private static volatile AccountEventListener[] mutedListeners = NONE;
+    private static final ThreadLocal<Boolean> MUTED = ThreadLocal.withInitial(() -> Boolean.FALSE);
+
+    private AccountEvents() {
+    }
+
+    /**
+     * Register a listener
+     * @param listener Listener to add
+     */
+    public static synchronized void subscribe(AccountEventListener listener) {
+        AccountEventListener[] current = listeners;
+        AccountEventListener[] grown = Arrays.copyOf(current, current.length + 1);
+        grown[current.length] = listener;
+        listeners = grown;
+        mutedListeners = receivingMuted(grown);
+    }
+
+    /**
+     * Remove a listener
+     * @param listener Listener to remove
+     */
+    public static synchronized void unsubscribe(AccountEventListener listener) {
+        AccountEventListener[] current = listeners;
+        for (int i = 0; i < current.length; i++) {
+            if (current[i] == listener) {
+                AccountEventListener[] shrunk = new AccountEventListener[current.length - 1];
+                System.arraycopy(current, 0, shrunk, 0, i);
+                System.arraycopy(current, i + 1, shrunk, i, current.length - i - 1);
+                listeners = shrunk.length == 0 ? NONE : shrunk;
+                mutedListeners = receivingMuted(shrunk);
+                return;
+            }
+        }
+    }
+
+    private static AccountEventListener[] receivingMuted(AccountEventListener[] all) {
+        return Arrays.stream(all).filter(AccountEventListener::receivesMuted).toArray(AccountEventListener[]::new);
+    }
+
+    /**
+     * @return true if at least one listener is registered
+     */
+    public static boolean isActive() {
+        return listeners.length != 0;
+    }
+
+    /**
+     * Deliver an event to every listener, or only to those that receive muted events while muted
+     * @param event Event
+     */
+    public static void publish(AccountEvent event) {
+        for (AccountEventListener listener : MUTED.get() ? mutedListeners : listeners) {
+            listener.onEvent(event);
+        }
+    }
+
+    /**
+     * Run an action without publishing the events it causes on this thread
+     * Listeners that {@link AccountEventListener#receivesMuted() receive muted events} still see them.
+     * @param action Action, typically applying changes that came from another source
+     */
+    public static void runMuted(Runnable action) {
+        if (MUTED.get()) {
+            action.run();
+            return;
+        }
+        MUTED.set(Boolean.TRUE);
+        try {
+            action.run();
+        } finally {
+            MUTED.set(Boolean.FALSE);
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package com.banking.events;
+
+import com.banking.entities.Account;
+import com.banking.entities.Account.AccountStatus;
+import com.banking.entities.CreditScoreAccount;
+import com.banking.entities.Money;
+
+/**
+ * Mutable account state folded from events during replay
+ *
+ * Every event carries the account's whole version, so folding installs the
+ * newest version seen; events that arrive after a newer one of the same
+ * account are ignored.
+ */
+class AccountProjection {
+
+    private final int id;
+    private final String clientName;
+    private final boolean creditAccount;
+    private long balanceCents;
+    private AccountStatus status;
+    private int creditScore;
+    private int overdraftAttempts;
+    private int successfulTransactions;
+    private long sequence;
+
+    private AccountProjection(AccountEvent created) {
+        this.id = created.getAccountId();
+        this.clientName = created.getClientName();
+        this.creditAccount = created.isCreditAccount();
+        install(created);
+    }
+
+    private AccountProjection(AccountProjection other) {
+        this.id = other.id;
+        this.clientName = other.clientName;
+        this.creditAccount = other.creditAccount;
+        this.balanceCents = other.balanceCents;
+        this.status = other.status;
+        this.creditScore = other.creditScore;
+        this.overdraftAttempts = other.overdraftAttempts;
+        this.successfulTransactions = other.successfulTransactions;
+        this.sequence = other.sequence;
+    }
+
+    static AccountProjection created(AccountEvent event) {
+        return new AccountProjection(event);
+    }
+
+    AccountProjection copy() {
+        return new AccountProjection(this);
+    }
+
+    /**
+     * Fold one event for this account into the state
+     * @param event Event other than AccountCreated
+     */
+    void apply(AccountEvent event) {
+        if (event.getSequence() > sequence) {
+            install(event);
+        }
+    }
+
+    private void install(AccountEvent event) {
+        balanceCents = event.getBalanceAfterCents();
+        status = event.getStatus();
+        creditScore = event.getCreditScore();
+        overdraftAttempts = event.getOverdraftAttempts();
+        successfulTransactions = event.getSuccessfulTransactions();
+        sequence = event.getSequence();
+    }
+
+    /**
+     * @return Detached account holding this state
+     */
+    Account toAccount() {
+        double balance = Money.toDouble(balanceCents);
+        if (creditAccount) {
+            return new CreditScoreAccount(id, clientName, balance, status, creditScore,
+                    overdraftAttempts, successfulTransactions);
+        }
+        return new Account(id, clientName, balance, status);
+    }
+}
@@ -0,0 +1,240 @@
+package com.banking.events;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Flow;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.SubmissionPublisher;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Change data capture feed of account inserts, removals, balance changes and
+ * status changes
+ *
+ * The committing thread only stamps the change and queues it. A dedicated
+ * thread drains the queue in batches, appends each change to a
+ * {@link ChangeTopic} and then offers it to the {@link Flow} subscribers,
+ * which receive records as fast as they request them. A subscriber whose
+ * buffer is full does not slow the account that changed: the record is
+ * dropped for that subscriber only and counted, and the gap in offsets tells
+ * it to catch up by reading the topic.
+ *
+ * An account's events can arrive out of commit order. A change older than
+ * the last one captured for its account is not appended, so the newest
+ * record of an account always holds its current balance and status.
+ */
+public class ChangeFeed implements Flow.Publisher<ChangeRecord>, AccountEventListener, AutoCloseable {
+
+    public static final int DEFAULT_BUFFER_CAPACITY = Flow.defaultBufferSize();
+
+    private final ChangeTopic topic;
+    private final SubmissionPublisher<ChangeRecord> publisher;
+    private final AtomicLong dropped = new AtomicLong();
+    private final BlockingQueue<Pending> queue = new LinkedBlockingQueue<>();
+    private final AtomicLong queued = new AtomicLong();
+    // Changes taken from the queue and handled; guarded by this
+    private long handled;
+    private volatile boolean closed;
+    private final Thread appender;
+    // Sequence of the last captured version per account; only touched by the appender thread
+    private final Map<Integer, Long> captured = new HashMap<>();
+
+    // Queued by close() to stop the appender once the changes before it are handled
+    private static final Pending STOP = new Pending(null, 0);
+    private volatile RuntimeException lastFailure;
+
+    private static class Pending {
+        final AccountEvent event;
+        final long timestamp;
+
+        Pending(AccountEvent event, long timestamp) {
+            this.event = event;
+            this.timestamp = timestamp;
+        }
+    }
+
+    public ChangeFeed(ChangeTopic topic) {
+        this(topic, DEFAULT_BUFFER_CAPACITY);
+    }
+
+    /**
+     * @param topic Topic every change is appended to
+     * @param bufferCapacity Records buffered per subscriber before drops
+     */
+    public ChangeFeed(ChangeTopic topic, int bufferCapacity) {
+        this.topic = topic;
+        this.publisher = new SubmissionPublisher<>(ForkJoinPool.commonPool(), bufferCapacity);
+        this.appender = new Thread(this::drain, "change-feed");
+        appender.setDaemon(true);
+        appender.start();
+    }
+
+    /**
+     * Start capturing changes from all accounts
+     * @return This feed
+     */
+    public ChangeFeed start() {
+        AccountEvents.subscribe(this);
+        return this;
+    }
+
+    @Override
+    public void subscribe(Flow.Subscriber<? super ChangeRecord> subscriber) {
+        publisher.subscribe(subscriber);
+    }
+
+    @Override
+    public void onEvent(AccountEvent event) {
+        if (event.getType() == AccountEvent.Type.CreditScoreAdjusted || closed) {
+            return;
+        }
+        queued.incrementAndGet();
+        queue.add(new Pending(event, System.currentTimeMillis()));
+    }
+
+    private void drain() {
+        List<Pending> batch = new ArrayList<>();
+        boolean stopping = false;
+        while (!stopping) {
+            try {
+                batch.add(queue.take());
+            } catch (InterruptedException e) {
+                return;
+            }
+            queue.drainTo(batch);
+            int changes = 0;
+            for (Pending change : batch) {
+                if (change == STOP) {
+                    stopping = true;
+                    continue;
+                }
+                changes++;
+                try {
+                    append(change);
+                } catch (RuntimeException e) {
+                    // Keep draining; the record is missing from the topic and the subscribers
+                    lastFailure = e;
+                }
+            }
+            synchronized (this) {
+                handled += changes;
+                notifyAll();
+            }
+            batch.clear();
+        }
+    }
+
+    /**
+     * Append a queued change to the topic and offer it; the single appender orders both the same way
+     */
+    private void append(Pending change) {
+        AccountEvent event = change.event;
+        if (!capture(event)) {
+            return;
+        }
+        ChangeRecord record = topic.append(event.getType(), event.getAccountId(),
+                event.getBalanceAfter(), event.getStatus(), change.timestamp);
+        publisher.offer(record, (subscriber, item) -> {
+            dropped.incrementAndGet();
+            return false;
+        });
+    }
+
+    /**
+     * Wait until every change queued so far is appended and offered
+     * @param timeoutMillis Maximum wait
+     * @return true if caught up in time
+     */
+    public synchronized boolean awaitCaptured(long timeoutMillis) {
+        long target = queued.get();
+        long deadline = System.nanoTime() + timeoutMillis * 1_000_000L;
+        while (handled < target) {
+            long left = deadline - System.nanoTime();
+            if (left <= 0) {
+                return false;
+            }
+            try {
+                wait(Math.max(1, left / 1_000_000L));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Track the account's newest version
+     * @return false if a newer version of the account was already captured
+     */
+    private boolean capture(AccountEvent event) {
+        int accountId = event.getAccountId();
+        switch (event.getType()) {
+            case AccountCreated:
+                captured.put(accountId, event.getSequence());
+                return true;
+            case AccountRemoved:
+                captured.remove(accountId);
+                return true;
+            default:
+                Long last = captured.get(accountId);
+                if (last != null && event.getSequence() < last) {
+                    return false;
+                }
+                captured.put(accountId, event.getSequence());
+                return true;
+        }
+    }
+
+    public ChangeTopic getTopic() {
+        return topic;
+    }
+
+    /**
+     * @return Records dropped for slow subscribers since the feed started
+     */
+    public long getDroppedCount() {
+        return dropped.get();
+    }
+
+    /**
+     * @return Number of current subscribers
+     */
+    public int getSubscriberCount() {
+        return publisher.getNumberOfSubscribers();
+    }
+
+    /**
+     * @return Last exception appending a change, or null
+     */
+    public RuntimeException getLastFailure() {
+        return lastFailure;
+    }
+
+    /**
+     * @return Changes queued and not yet appended
+     */
+    public int getQueuedCount() {
+        return queue.size();
+    }
+
+    /**
+     * Stop capturing, append the changes already queued and complete all subscribers
+     */
+    @Override
+    public void close() {
+        AccountEvents.unsubscribe(this);
+        closed = true;
+        queue.add(STOP);
+        try {
+            appender.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        publisher.close();
+    }
+}
@@ -0,0 +1,87 @@
+package com.banking.events;
+
+import com.banking.entities.Account.AccountStatus;
+import java.nio.ByteBuffer;
+
+/**
+ * Compact change data capture record: an account's balance and status right
+ * after an insert, removal, balance change or status change
+ *
+ * Encoded as {@link #SIZE} bytes: type, status (-1 when absent), two reserved
+ * bytes, account id, balance and commit time in epoch milliseconds.
+ */
+public final class ChangeRecord {
+
+    public static final int SIZE = 24;
+
+    private static final AccountEvent.Type[] TYPES = AccountEvent.Type.values();
+    private static final AccountStatus[] STATUSES = AccountStatus.values();
+
+    private final long offset;
+    private final AccountEvent.Type type;
+    private final int accountId;
+    private final double balance;
+    private final AccountStatus status;
+    private final long timestamp;
+
+    public ChangeRecord(long offset, AccountEvent.Type type, int accountId, double balance,
+                        AccountStatus status, long timestamp) {
+        this.offset = offset;
+        this.type = type;
+        this.accountId = accountId;
+        this.balance = balance;
+        this.status = status;
+        this.timestamp = timestamp;
+    }
+
+    /**
+     * @return Position in the topic; consecutive records have consecutive offsets
+     */
+    public long getOffset() {
+        return offset;
+    }
+
+    public AccountEvent.Type getType() {
+        return type;
+    }
+
+    public int getAccountId() {
+        return accountId;
+    }
+
+    public double getBalance() {
+        return balance;
+    }
+
+    public AccountStatus getStatus() {
+        return status;
+    }
+
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    void encode(ByteBuffer out) {
+        out.put((byte) type.ordinal());
+        out.put(status == null ? -1 : (byte) status.ordinal());
+        out.putShort((short) 0);
+        out.putInt(accountId);
+        out.putDouble(balance);
+        out.putLong(timestamp);
+    }
+
+    static ChangeRecord decode(long offset, ByteBuffer in) {
+        AccountEvent.Type type = TYPES[in.get()];
+        byte status = in.get();
+        in.getShort();
+        int accountId = in.getInt();
+        double balance = in.getDouble();
+        long timestamp = in.getLong();
+        return new ChangeRecord(offset, type, accountId, balance, status < 0 ? null : STATUSES[status], timestamp);
+    }
+
+    @Override
+    public String toString() {
+        return offset + ":" + type + "[account=" + accountId + ", balance=" + balance + ", status=" + status + "]";
+    }
+}
@@ -0,0 +1,126 @@
+package com.banking.events;
+
+import com.banking.entities.Account.AccountStatus;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Append-only file of {@link ChangeRecord}s that consumers tail by offset
+ *
+ * Record n lives at byte n * {@link ChangeRecord#SIZE}, so a consumer only has
+ * to remember the next offset it wants. Reads never block the writer.
+ */
+public class ChangeTopic implements Closeable {
+
+    private final FileChannel channel;
+    private final ByteBuffer writeBuffer = ByteBuffer.allocate(ChangeRecord.SIZE);
+    // Published after the record bytes are written, so readers never see a partial record
+    private volatile long endOffset;
+
+    /**
+     * Open or create a topic file
+     * @param file Topic file
+     */
+    public ChangeTopic(Path file) {
+        try {
+            this.channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                    StandardOpenOption.READ, StandardOpenOption.WRITE);
+            long records = channel.size() / ChangeRecord.SIZE;
+            // Drop a record torn by a crash mid-write
+            channel.truncate(records * ChangeRecord.SIZE);
+            this.endOffset = records;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot open change topic " + file, e);
+        }
+    }
+
+    /**
+     * Append a record at the next offset
+     * @param type Change type
+     * @param accountId Account ID
+     * @param balance Balance after the change
+     * @param status Status after the change
+     * @param timestamp Commit time in epoch milliseconds
+     * @return Appended record
+     */
+    public synchronized ChangeRecord append(AccountEvent.Type type, int accountId, double balance,
+                                            AccountStatus status, long timestamp) {
+        long offset = endOffset;
+        ChangeRecord record = new ChangeRecord(offset, type, accountId, balance, status, timestamp);
+        writeBuffer.clear();
+        record.encode(writeBuffer);
+        writeBuffer.flip();
+        try {
+            long position = offset * ChangeRecord.SIZE;
+            while (writeBuffer.hasRemaining()) {
+                position += channel.write(writeBuffer, position);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot append to change topic", e);
+        }
+        endOffset = offset + 1;
+        return record;
+    }
+
+    /**
+     * Read records starting at an offset
+     * @param fromOffset First offset to read
+     * @param maxRecords Maximum number of records
+     * @return Records in offset order; empty if the consumer is caught up
+     */
+    public List<ChangeRecord> read(long fromOffset, int maxRecords) {
+        long end = Math.min(endOffset, fromOffset + maxRecords);
+        if (fromOffset < 0 || fromOffset >= end) {
+            return new ArrayList<>();
+        }
+        int count = (int) (end - fromOffset);
+        ByteBuffer buffer = ByteBuffer.allocate(count * ChangeRecord.SIZE);
+        try {
+            long position = fromOffset * ChangeRecord.SIZE;
+            while (buffer.hasRemaining()) {
+                int read = channel.read(buffer, position + buffer.position());
+                if (read < 0) {
+                    throw new IOException("Unexpected end of change topic");
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot read change topic", e);
+        }
+        buffer.flip();
+        List<ChangeRecord> records = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            records.add(ChangeRecord.decode(fromOffset + i, buffer));
+        }
+        return records;
+    }
+
+    /**
+     * @return Offset the next record will get
+     */
+    public long getEndOffset() {
+        return endOffset;
+    }
+
+    /**
+     * Force appended records to the storage device
+     */
+    public void sync() {
+        try {
+            channel.force(false);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot sync change topic", e);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
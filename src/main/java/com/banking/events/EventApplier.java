@@ -0,0 +1,73 @@
+package com.banking.events;
+
+import com.banking.dao.AccountRepository;
+import com.banking.entities.Account;
+import com.banking.entities.CreditScoreAccount;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Applies events produced elsewhere to a local repository
+ *
+ * Each change installs a restored copy of the account built from the version
+ * the event carries, so applying never re-runs business rules. Changes are
+ * made with event publishing muted on the applying thread, so a replica in
+ * the same JVM as its source does not feed its own writes back.
+ *
+ * The source can deliver one account's events out of commit order. The
+ * applier remembers the sequence of the version it installed per account
+ * and skips events that are not newer, so the last arrival cannot roll an
+ * account back. Apply events from one thread.
+ */
+public class EventApplier {
+
+    private final AccountRepository repository;
+    // Source sequence of the version installed per account
+    private final Map<Integer, Long> installed = new HashMap<>();
+
+    public EventApplier(AccountRepository repository) {
+        this.repository = repository;
+    }
+
+    /**
+     * Apply one event
+     * @param event Event from the source
+     */
+    public void apply(AccountEvent event) {
+        AccountEvents.runMuted(() -> applyMuted(event));
+    }
+
+    private void applyMuted(AccountEvent event) {
+        switch (event.getType()) {
+            case AccountCreated:
+                repository.add(AccountProjection.created(event).toAccount());
+                installed.put(event.getAccountId(), event.getSequence());
+                return;
+            case AccountRemoved:
+                repository.remove(event.getAccountId());
+                installed.remove(event.getAccountId());
+                return;
+            default:
+                break;
+        }
+        Account existing = repository.findById(event.getAccountId());
+        if (existing == null) {
+            return;
+        }
+        Long current = installed.get(event.getAccountId());
+        if (current != null && event.getSequence() <= current) {
+            return;
+        }
+        Account updated;
+        if (existing instanceof CreditScoreAccount) {
+            updated = new CreditScoreAccount(existing.getId(), existing.getClientName(), event.getBalanceAfter(),
+                    event.getStatus(), event.getCreditScore(), event.getOverdraftAttempts(),
+                    event.getSuccessfulTransactions());
+        } else {
+            updated = new Account(existing.getId(), existing.getClientName(), event.getBalanceAfter(),
+                    event.getStatus());
+        }
+        repository.add(updated);
+        installed.put(event.getAccountId(), event.getSequence());
+    }
+}
@@ -0,0 +1,342 @@
+package com.banking.events;
+
+import com.banking.entities.Account;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.RandomAccess;
+import java.util.TreeMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+/**
+ * Ordered account event log, partitioned by account id
+ *
+ * All events of one account land in the same partition, so partitions
+ * replay independently and in parallel. Events are appended as they are
+ * published, which for one account can differ from commit order when
+ * threads race; replay keeps the version with the highest sequence, so the
+ * outcome does not depend on arrival order. Every snapshotInterval
+ * events a partition folds its tail into a new snapshot of its accounts;
+ * rebuilding then starts from the latest snapshot and only replays the events
+ * appended after it.
+ *
+ * Folding runs on the common fork/join pool, so the publishing thread only
+ * appends, and holds the partition lock just to read the tail and to
+ * install the result. Once folded, events are dropped from the partition
+ * unless the log retains history, which consumers that replay whole
+ * histories, such as {@link com.banking.scoring.PolicySimulator}, need.
+ *
+ * Subscribe a log with {@link AccountEvents#subscribe} to record live changes.
+ */
+public class EventLog implements AccountEventListener {
+
+    public static final int DEFAULT_SNAPSHOT_INTERVAL = 10_000;
+
+    private final Partition[] partitions;
+    private final int snapshotInterval;
+    private final boolean retainHistory;
+
+    public EventLog() {
+        this(Runtime.getRuntime().availableProcessors() * 2, DEFAULT_SNAPSHOT_INTERVAL);
+    }
+
+    /**
+     * Log that drops events once they are folded into a snapshot
+     * @param partitionCount Number of independent partitions
+     * @param snapshotInterval Events per partition between snapshots
+     */
+    public EventLog(int partitionCount, int snapshotInterval) {
+        this(partitionCount, snapshotInterval, false);
+    }
+
+    /**
+     * @param partitionCount Number of independent partitions
+     * @param snapshotInterval Events per partition between snapshots
+     * @param retainHistory Whether events stay readable after they are folded into a snapshot
+     */
+    public EventLog(int partitionCount, int snapshotInterval, boolean retainHistory) {
+        if (partitionCount <= 0 || snapshotInterval <= 0) {
+            throw new IllegalArgumentException("Partition count and snapshot interval must be positive");
+        }
+        this.partitions = new Partition[partitionCount];
+        for (int i = 0; i < partitionCount; i++) {
+            partitions[i] = new Partition();
+        }
+        this.snapshotInterval = snapshotInterval;
+        this.retainHistory = retainHistory;
+    }
+
+    @Override
+    public void onEvent(AccountEvent event) {
+        append(event);
+    }
+
+    /**
+     * Append an event to its account's partition
+     * @param event Event
+     */
+    public void append(AccountEvent event) {
+        Partition partition = partitions[partitionOf(event.getAccountId())];
+        if (partition.append(event, snapshotInterval)) {
+            ForkJoinPool.commonPool().execute(() -> partition.snapshot(retainHistory));
+        }
+    }
+
+    /**
+     * @return Total number of events appended to the log, including dropped ones
+     */
+    public long size() {
+        long size = 0;
+        for (Partition partition : partitions) {
+            size += partition.size();
+        }
+        return size;
+    }
+
+    /**
+     * @return Number of events still held by the partitions
+     */
+    public long retainedSize() {
+        long size = 0;
+        for (Partition partition : partitions) {
+            size += partition.events().size();
+        }
+        return size;
+    }
+
+    public int getPartitionCount() {
+        return partitions.length;
+    }
+
+    public boolean isRetainingHistory() {
+        return retainHistory;
+    }
+
+    /**
+     * @param partition Partition index
+     * @return Events a rebuild of this partition has to replay after its snapshot
+     */
+    public int tailLength(int partition) {
+        return partitions[partition].tailLength();
+    }
+
+    /**
+     * Events of one partition as of now, oldest first
+     * The view is read-only and does not copy the events; it keeps showing the
+     * same events while more are appended or old ones are dropped, so it can
+     * be read without locking.
+     * @param partition Partition index
+     * @return Events the partition holds: all of them if the log retains history, else its tail
+     */
+    public List<AccountEvent> partitionView(int partition) {
+        return partitions[partition].events();
+    }
+
+    /**
+     * Events of one account in the order they were appended
+     * {@link AccountEvent#getSequence()} gives their commit order. Without
+     * retained history only the events not yet folded into a snapshot are left.
+     * @param accountId Account ID
+     * @return Events, oldest first
+     */
+    public List<AccountEvent> eventsFor(int accountId) {
+        List<AccountEvent> events = new ArrayList<>();
+        for (AccountEvent event : partitions[partitionOf(accountId)].events()) {
+            if (event.getAccountId() == accountId) {
+                events.add(event);
+            }
+        }
+        return events;
+    }
+
+    /**
+     * Rebuild every account, replaying partitions in parallel
+     * @return Detached accounts by id, in ascending id order
+     */
+    public NavigableMap<Integer, Account> rebuild() {
+        List<Map<Integer, AccountProjection>> replayed = IntStream.range(0, partitions.length)
+                .parallel()
+                .mapToObj(p -> partitions[p].replay())
+                .collect(ArrayList::new, List::add, List::addAll);
+        NavigableMap<Integer, Account> accounts = new TreeMap<>();
+        for (Map<Integer, AccountProjection> partition : replayed) {
+            for (AccountProjection projection : partition.values()) {
+                Account account = projection.toAccount();
+                accounts.put(account.getId(), account);
+            }
+        }
+        return accounts;
+    }
+
+    /**
+     * Rebuild a single account from its partition
+     * @param accountId Account ID
+     * @return Detached account, or null if it was never created
+     */
+    public Account rebuild(int accountId) {
+        AccountProjection projection = partitions[partitionOf(accountId)].replay().get(accountId);
+        return projection == null ? null : projection.toAccount();
+    }
+
+    /**
+     * Fold all pending tails into fresh snapshots on the calling thread
+     */
+    public void snapshot() {
+        for (Partition partition : partitions) {
+            partition.snapshot(retainHistory);
+        }
+    }
+
+    private int partitionOf(int accountId) {
+        return Math.floorMod(accountId, partitions.length);
+    }
+
+    private static void fold(Map<Integer, AccountProjection> state, List<AccountEvent> events) {
+        for (AccountEvent event : events) {
+            if (event.getType() == AccountEvent.Type.AccountCreated) {
+                state.put(event.getAccountId(), AccountProjection.created(event));
+            } else if (event.getType() == AccountEvent.Type.AccountRemoved) {
+                state.remove(event.getAccountId());
+            } else {
+                AccountProjection projection = state.get(event.getAccountId());
+                // Changes made before the account was stored are already in its AccountCreated
+                if (projection != null) {
+                    projection.apply(event);
+                }
+            }
+        }
+    }
+
+    private static Map<Integer, AccountProjection> copy(Map<Integer, AccountProjection> state) {
+        Map<Integer, AccountProjection> copy = new HashMap<>(Math.max(16, state.size() * 4 / 3 + 1));
+        for (Map.Entry<Integer, AccountProjection> entry : state.entrySet()) {
+            copy.put(entry.getKey(), entry.getValue().copy());
+        }
+        return copy;
+    }
+
+    /**
+     * One partition: its events plus the latest snapshot of its accounts
+     *
+     * Events go into an append-only array. Slots below size are never written
+     * again, and growing or dropping folded events copies into a new array,
+     * so a view taken under the lock stays valid and unchanged without
+     * copying while appends continue.
+     */
+    private static class Partition {
+        private AccountEvent[] events = new AccountEvent[16];
+        private int size;
+        private long appended;
+        // Never mutated once published; replays copy it
+        private Map<Integer, AccountProjection> snapshot = Collections.emptyMap();
+        private int snapshotPosition;
+        private boolean folding;
+        // Serializes folds so a background and an explicit snapshot do not race
+        private final Object foldLock = new Object();
+
+        /**
+         * @return true if the caller should schedule a snapshot
+         */
+        synchronized boolean append(AccountEvent event, int snapshotInterval) {
+            if (size == events.length) {
+                events = Arrays.copyOf(events, size * 2);
+            }
+            events[size++] = event;
+            appended++;
+            if (!folding && size - snapshotPosition >= snapshotInterval) {
+                folding = true;
+                return true;
+            }
+            return false;
+        }
+
+        void snapshot(boolean retainHistory) {
+            synchronized (foldLock) {
+                Map<Integer, AccountProjection> base;
+                List<AccountEvent> tail;
+                int end;
+                synchronized (this) {
+                    if (snapshotPosition == size) {
+                        folding = false;
+                        return;
+                    }
+                    base = snapshot;
+                    end = size;
+                    tail = new EventView(events, snapshotPosition, end);
+                }
+                Map<Integer, AccountProjection> next = copy(base);
+                fold(next, tail);
+                synchronized (this) {
+                    snapshot = next;
+                    if (retainHistory) {
+                        snapshotPosition = end;
+                    } else {
+                        // Later appends stay; views of the old array keep their events
+                        events = Arrays.copyOfRange(events, end, end + Math.max(16, events.length - end));
+                        size -= end;
+                        snapshotPosition = 0;
+                    }
+                    folding = false;
+                }
+            }
+        }
+
+        Map<Integer, AccountProjection> replay() {
+            Map<Integer, AccountProjection> base;
+            List<AccountEvent> tail;
+            synchronized (this) {
+                base = snapshot;
+                tail = new EventView(events, snapshotPosition, size);
+            }
+            Map<Integer, AccountProjection> state = copy(base);
+            fold(state, tail);
+            return state;
+        }
+
+        synchronized long size() {
+            return appended;
+        }
+
+        synchronized int tailLength() {
+            return size - snapshotPosition;
+        }
+
+        synchronized List<AccountEvent> events() {
+            return new EventView(events, 0, size);
+        }
+    }
+
+    /**
+     * Read-only window on a partition's event array
+     */
+    private static final class EventView extends AbstractList<AccountEvent> implements RandomAccess {
+        private final AccountEvent[] events;
+        private final int from;
+        private final int to;
+
+        EventView(AccountEvent[] events, int from, int to) {
+            this.events = events;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        public AccountEvent get(int index) {
+            if (index < 0 || index >= to - from) {
+                throw new IndexOutOfBoundsException("Index " + index + " of " + (to - from));
+            }
+            return events[from + index];
+        }
+
+        @Override
+        public int size() {
+            return to - from;
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package com.banking.fraud;
+
+/**
+ * Risk score of one transfer and the window statistics behind it
+ *
+ * Each statistic includes the transfer being scored. The score is the
+ * largest of the statistics as a percentage of its threshold, capped at 100.
+ */
+public final class FraudAssessment {
+
+    private final int accountId;
+    private final int score;
+    private final String dominantFactor;
+    private final boolean flagged;
+    private final boolean suspended;
+    private final int transfers;
+    private final long amountCents;
+    private final long distinctRecipients;
+    private final int newRecipients;
+
+    FraudAssessment(int accountId, int score, String dominantFactor, boolean flagged, boolean suspended,
+                    int transfers, long amountCents, long distinctRecipients, int newRecipients) {
+        this.accountId = accountId;
+        this.score = score;
+        this.dominantFactor = dominantFactor;
+        this.flagged = flagged;
+        this.suspended = suspended;
+        this.transfers = transfers;
+        this.amountCents = amountCents;
+        this.distinctRecipients = distinctRecipients;
+        this.newRecipients = newRecipients;
+    }
+
+    public int getAccountId() {
+        return accountId;
+    }
+
+    /**
+     * @return Risk from 0 to 100
+     */
+    public int getScore() {
+        return score;
+    }
+
+    /**
+     * @return Statistic closest to its threshold: transfers, amount, recipients or newRecipients
+     */
+    public String getDominantFactor() {
+        return dominantFactor;
+    }
+
+    /**
+     * @return true if the score reached the flag threshold
+     */
+    public boolean isFlagged() {
+        return flagged;
+    }
+
+    /**
+     * @return true if this assessment suspended the sender
+     */
+    public boolean isSuspended() {
+        return suspended;
+    }
+
+    public int getTransfers() {
+        return transfers;
+    }
+
+    public long getAmountCents() {
+        return amountCents;
+    }
+
+    /**
+     * @return Estimated distinct recipients in the window
+     */
+    public long getDistinctRecipients() {
+        return distinctRecipients;
+    }
+
+    /**
+     * @return Transfers in the window to recipients the sender had not paid before
+     */
+    public int getNewRecipients() {
+        return newRecipients;
+    }
+
+    @Override
+    public String toString() {
+        return "FraudAssessment[account=" + accountId + ", score=" + score + " (" + dominantFactor + ")"
+                + ", transfers=" + transfers + ", amountCents=" + amountCents
+                + ", recipients=" + distinctRecipients + ", newRecipients=" + newRecipients
+                + (flagged ? ", flagged" : "") + (suspended ? ", suspended" : "") + "]";
+    }
+}
@@ -0,0 +1,290 @@
+package com.banking.fraud;
+
+import com.banking.entities.Account;
+import com.banking.entities.Money;
+import com.banking.services.RollingWindow;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongSupplier;
+
+/**
+ * Streaming velocity checks on outgoing transfers
+ *
+ * Each sender has a fixed-size profile over a sliding window: the number and
+ * amount of transfers, the distinct recipient cards (one HyperLogLog sketch
+ * per time bucket, merged on read) and how many transfers went to cards the
+ * sender had never paid before (a two-generation Bloom filter of known
+ * cards). Memory per account is constant however many transfers it sends,
+ * and scoring a transfer is a few array reads under the sender's own lock.
+ *
+ * A transfer is scored before it runs, as if it had gone through, and only
+ * counts towards the window once {@link #record} is called after it commits,
+ * so rejected transfers never build up a sender's statistics. The score is
+ * the statistic closest to its threshold, as a percentage, capped at 100; a
+ * transfer that would bring any statistic to its threshold is flagged. With
+ * auto-suspend on, a flagged sender is suspended at once: under the default
+ * thresholds that is the fifth new recipient or $10,000 sent within an hour,
+ * a single transfer of $10,000 included.
+ */
+public class FraudDetector {
+
+    public static final long DEFAULT_WINDOW_MILLIS = 60 * 60 * 1000L;
+    public static final int DEFAULT_TRANSFER_THRESHOLD = 20;
+    public static final long DEFAULT_AMOUNT_THRESHOLD_CENTS = 10_000 * Money.SCALE;
+    public static final int DEFAULT_RECIPIENT_THRESHOLD = 10;
+    public static final int DEFAULT_NEW_RECIPIENT_THRESHOLD = 5;
+    public static final int FLAG_SCORE = 100;
+
+    static final int BUCKETS = 12;
+    static final int SKETCH_PRECISION = 6;
+    // Bloom filter of known recipients: 1024 bits, 3 probes, a new generation every 128 cards
+    private static final int FILTER_WORDS = 16;
+    private static final int FILTER_MASK = FILTER_WORDS * 64 - 1;
+    private static final int GENERATION_SIZE = 128;
+
+    private final long windowMillis;
+    private final int transferThreshold;
+    private final long amountThresholdCents;
+    private final int recipientThreshold;
+    private final int newRecipientThreshold;
+    private final boolean autoSuspend;
+    private final LongSupplier clock;
+    private final Map<Integer, Profile> profiles = new ConcurrentHashMap<>();
+    private final Set<Integer> flagged = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Default thresholds over a one-hour window on the system clock
+     * @param autoSuspend Whether flagged senders are suspended
+     */
+    public FraudDetector(boolean autoSuspend) {
+        this(DEFAULT_WINDOW_MILLIS, DEFAULT_TRANSFER_THRESHOLD, DEFAULT_AMOUNT_THRESHOLD_CENTS,
+                DEFAULT_RECIPIENT_THRESHOLD, DEFAULT_NEW_RECIPIENT_THRESHOLD, autoSuspend, System::currentTimeMillis);
+    }
+
+    /**
+     * @param windowMillis Length of the sliding window
+     * @param transferThreshold Transfers per window that flag a sender
+     * @param amountThresholdCents Cents sent per window that flag a sender
+     * @param recipientThreshold Distinct recipients per window that flag a sender
+     * @param newRecipientThreshold Transfers to never-paid recipients per window that flag a sender
+     * @param autoSuspend Whether flagged senders are suspended
+     * @param clock Current time in milliseconds
+     */
+    public FraudDetector(long windowMillis, int transferThreshold, long amountThresholdCents,
+                         int recipientThreshold, int newRecipientThreshold, boolean autoSuspend,
+                         LongSupplier clock) {
+        if (transferThreshold <= 0 || amountThresholdCents <= 0 || recipientThreshold <= 0
+                || newRecipientThreshold <= 0) {
+            throw new IllegalArgumentException("Thresholds must be positive");
+        }
+        if (windowMillis < BUCKETS) {
+            throw new IllegalArgumentException("Window must be at least " + BUCKETS + " ms");
+        }
+        this.windowMillis = windowMillis;
+        this.transferThreshold = transferThreshold;
+        this.amountThresholdCents = amountThresholdCents;
+        this.recipientThreshold = recipientThreshold;
+        this.newRecipientThreshold = newRecipientThreshold;
+        this.autoSuspend = autoSuspend;
+        this.clock = clock;
+    }
+
+    /**
+     * Score an outgoing transfer before it runs, as if it went through
+     * The window is left untouched; call {@link #record} once the transfer
+     * commits. Concurrent transfers of one sender are each scored without
+     * the others.
+     * @param sender Sending account
+     * @param recipientCardNumber Recipient card number
+     * @param cents Amount in cents
+     * @return Assessment of the transfer
+     */
+    public FraudAssessment assess(Account sender, String recipientCardNumber, long cents) {
+        int accountId = sender.getId();
+        long now = clock.getAsLong();
+        long hash = HyperLogLog.hash(recipientCardNumber);
+        Profile profile = profiles.computeIfAbsent(accountId, id -> new Profile());
+        int transfers;
+        long amount;
+        long recipients;
+        int newRecipients;
+        synchronized (profile) {
+            transfers = profile.transfers.getCount(now) + 1;
+            amount = profile.transfers.getAmount(now) + cents;
+            recipients = profile.distinctRecipients(now, hash);
+            newRecipients = profile.newRecipients.getCount(now) + (profile.isKnown(hash) ? 0 : 1);
+        }
+
+        int score = percent(transfers, transferThreshold);
+        String factor = "transfers";
+        int next = percent(amount, amountThresholdCents);
+        if (next > score) {
+            score = next;
+            factor = "amount";
+        }
+        next = percent(recipients, recipientThreshold);
+        if (next > score) {
+            score = next;
+            factor = "recipients";
+        }
+        next = percent(newRecipients, newRecipientThreshold);
+        if (next > score) {
+            score = next;
+            factor = "newRecipients";
+        }
+
+        boolean isFlagged = score >= FLAG_SCORE;
+        boolean suspended = false;
+        if (isFlagged) {
+            flagged.add(accountId);
+            suspended = autoSuspend && sender.suspend();
+        }
+        return new FraudAssessment(accountId, score, factor, isFlagged, suspended,
+                transfers, amount, recipients, newRecipients);
+    }
+
+    /**
+     * Count a committed transfer towards the sender's window
+     * @param sender Sending account
+     * @param recipientCardNumber Recipient card number
+     * @param cents Amount in cents
+     */
+    public void record(Account sender, String recipientCardNumber, long cents) {
+        long now = clock.getAsLong();
+        long hash = HyperLogLog.hash(recipientCardNumber);
+        Profile profile = profiles.computeIfAbsent(sender.getId(), id -> new Profile());
+        synchronized (profile) {
+            profile.record(now, hash, cents);
+        }
+    }
+
+    private static int percent(long value, long threshold) {
+        return (int) Math.min(FLAG_SCORE, value * FLAG_SCORE / threshold);
+    }
+
+    /**
+     * @param accountId Account ID
+     * @return true if any transfer of the account has been flagged since the last clear
+     */
+    public boolean isFlagged(int accountId) {
+        return flagged.contains(accountId);
+    }
+
+    /**
+     * @return IDs of flagged accounts in ascending order
+     */
+    public Set<Integer> getFlaggedAccounts() {
+        return new TreeSet<>(flagged);
+    }
+
+    /**
+     * Clear an account's flag after review; its window statistics are kept
+     * @param accountId Account ID
+     * @return true if the account was flagged
+     */
+    public boolean clearFlag(int accountId) {
+        return flagged.remove(accountId);
+    }
+
+    /**
+     * Drop an account's profile and flag, e.g. after it was removed
+     * @param accountId Account ID
+     */
+    public void forget(int accountId) {
+        profiles.remove(accountId);
+        flagged.remove(accountId);
+    }
+
+    public boolean isAutoSuspend() {
+        return autoSuspend;
+    }
+
+    /**
+     * Window statistics of one sender; guarded by its own monitor
+     */
+    private class Profile {
+        final RollingWindow transfers = new RollingWindow(windowMillis, BUCKETS);
+        final RollingWindow newRecipients = new RollingWindow(windowMillis, BUCKETS);
+        final HyperLogLog[] sketches = new HyperLogLog[BUCKETS];
+        // Absolute bucket index each sketch belongs to
+        final long[] sketchBuckets = new long[BUCKETS];
+        final HyperLogLog merged = new HyperLogLog(SKETCH_PRECISION);
+        long[] known = new long[FILTER_WORDS];
+        long[] previous = new long[FILTER_WORDS];
+        int knownSize;
+
+        Profile() {
+            for (int i = 0; i < BUCKETS; i++) {
+                sketches[i] = new HyperLogLog(SKETCH_PRECISION);
+                sketchBuckets[i] = Long.MIN_VALUE;
+            }
+        }
+
+        void record(long now, long hash, long cents) {
+            transfers.record(now, cents);
+            if (!isKnown(hash)) {
+                newRecipients.record(now, 1);
+                remember(hash);
+            }
+            long bucket = Math.floorDiv(now, windowMillis / BUCKETS);
+            int slot = (int) Math.floorMod(bucket, (long) BUCKETS);
+            if (sketchBuckets[slot] != bucket) {
+                sketches[slot].clear();
+                sketchBuckets[slot] = bucket;
+            }
+            sketches[slot].add(hash);
+        }
+
+        /**
+         * @param hash Recipient of the transfer being scored, counted as well
+         */
+        long distinctRecipients(long now, long hash) {
+            long bucket = Math.floorDiv(now, windowMillis / BUCKETS);
+            merged.clear();
+            for (int i = 0; i < BUCKETS; i++) {
+                if (sketchBuckets[i] > bucket - BUCKETS) {
+                    merged.merge(sketches[i]);
+                }
+            }
+            merged.add(hash);
+            return merged.estimate();
+        }
+
+        boolean isKnown(long hash) {
+            return contains(known, hash) || contains(previous, hash);
+        }
+
+        void remember(long hash) {
+            if (knownSize == GENERATION_SIZE) {
+                long[] recycled = previous;
+                Arrays.fill(recycled, 0);
+                previous = known;
+                known = recycled;
+                knownSize = 0;
+            }
+            for (int k = 0; k < 3; k++) {
+                int bit = probe(hash, k);
+                known[bit >>> 6] |= 1L << bit;
+            }
+            knownSize++;
+        }
+
+        private boolean contains(long[] filter, long hash) {
+            for (int k = 0; k < 3; k++) {
+                int bit = probe(hash, k);
+                if ((filter[bit >>> 6] & (1L << bit)) == 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private int probe(long hash, int k) {
+            // Double hashing over the two halves of the hash
+            return (int) ((hash >>> 32) + k * (int) hash) & FILTER_MASK;
+        }
+    }
+}
@@ -4,6 +4,7 @@ import com.banking.controllers.ClientController;
 import com.banking.dao.AccountDAO;
 import com.banking.entities.Account;
 import com.banking.entities.Account.AccountStatus;
+import com.banking.entities.Money;
 
 import javax.swing.*;
 import java.awt.*;
@@ -176,7 +177,7 @@ public class BankingGUI extends JFrame {
         if (currentAccount != null) {
             clientNameField.setText(currentAccount.getClientName());
             accountNumberField.setText(currentAccount.getCardNumber());
-            balanceField.setText(String.format("$%.2f", currentAccount.getBalance()));
+            balanceField.setText(Money.appendTo(new StringBuilder("$"), currentAccount.getBalanceCents()).toString());
             
             AccountStatus status = currentAccount.getStatus();
             statusLabel.setText(status.toString());
@@ -219,13 +220,13 @@ public class BankingGUI extends JFrame {
     
     private void handleDeposit() {
         try {
-            double amount = parseAmount();
-            if (amount <= 0) {
+            long cents = parseAmount();
+            if (cents <= 0) {
                 addNotification("Invalid amount entered");
                 return;
             }
             
-            String result = controller.processDeposit(currentAccount, amount);
+            String result = controller.processDepositCents(currentAccount, cents);
             addNotification(result);
             updateGUI();
             amountField.setText("");
@@ -236,13 +237,13 @@ public class BankingGUI extends JFrame {
     
     private void handleWithdraw() {
         try {
-            double amount = parseAmount();
-            if (amount <= 0) {
+            long cents = parseAmount();
+            if (cents <= 0) {
                 addNotification("Invalid amount entered");
                 return;
             }
             
-            String result = controller.processWithdrawal(currentAccount, amount);
+            String result = controller.processWithdrawalCents(currentAccount, cents);
             addNotification(result);
             updateGUI();
             amountField.setText("");
@@ -253,8 +254,8 @@ public class BankingGUI extends JFrame {
     
     private void handleTransfer() {
         try {
-            double amount = parseAmount();
-            if (amount <= 0) {
+            long cents = parseAmount();
+            if (cents <= 0) {
                 addNotification("Invalid amount entered");
                 return;
             }
@@ -266,7 +267,7 @@ public class BankingGUI extends JFrame {
                 JOptionPane.QUESTION_MESSAGE);
             
             if (targetCard != null && !targetCard.trim().isEmpty()) {
-                String result = controller.processTransfer(currentAccount, targetCard, amount, "GUI Transfer");
+                String result = controller.processTransferCents(currentAccount, targetCard, cents, "GUI Transfer");
                 addNotification(result);
                 updateGUI();
                 amountField.setText("");
@@ -282,12 +283,11 @@ public class BankingGUI extends JFrame {
         addNotification("Statement viewed");
     }
     
-    private double parseAmount() throws NumberFormatException {
-        String text = amountField.getText().trim();
-        if (text.isEmpty()) {
-            throw new NumberFormatException("Empty input");
-        }
-        return Double.parseDouble(text);
+    /**
+     * @return Entered amount in cents
+     */
+    private long parseAmount() throws NumberFormatException {
+        return Money.parse(amountField.getText());
     }
     
     public static void main(String[] args) {
@@ -0,0 +1,309 @@
+package com.banking.io;
+
+import com.banking.dao.AccountRepository;
+import com.banking.dao.AccountSnapshot;
+import com.banking.dao.InMemoryAccountRepository;
+import com.banking.entities.Account;
+import com.banking.entities.Account.AccountStatus;
+import com.banking.entities.CreditScoreAccount;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Streams accounts into a compact columnar file
+ *
+ * Rows are grouped into blocks. Each block starts with a fixed header holding
+ * the row count, min/max statistics and the byte length of each column, so a
+ * reader can skip a block or a column without decoding it. Columns:
+ * <ul>
+ *   <li>id: zigzag varint deltas from the previous id</li>
+ *   <li>card number: only the rows whose card number differs from
+ *       {@link Account#cardNumberFor(int)} are stored</li>
+ *   <li>balance: cents as zigzag varint deltas</li>
+ *   <li>status: per-block dictionary of status names plus run-length encoded indexes</li>
+ *   <li>credit score: presence bitmap plus zigzag varint deltas for present values</li>
+ * </ul>
+ * The file ends with a block offset index and the total row count. Read it
+ * back with {@link ColumnarAccountReader}.
+ */
+public class AccountExporter {
+
+    static final int MAGIC = 0x41434F4C;
+    static final short VERSION = 1;
+    static final int FILE_HEADER_SIZE = 6;
+    static final int BLOCK_HEADER_SIZE = 56;
+    static final int FOOTER_SIZE = 16;
+    static final int COLUMN_COUNT = 5;
+
+    public static final int DEFAULT_BLOCK_ROWS = 65536;
+
+    private final int blockRows;
+
+    public AccountExporter() {
+        this(DEFAULT_BLOCK_ROWS);
+    }
+
+    /**
+     * @param blockRows Maximum rows per block
+     */
+    public AccountExporter(int blockRows) {
+        if (blockRows <= 0) {
+            throw new IllegalArgumentException("Block size must be positive");
+        }
+        this.blockRows = blockRows;
+    }
+
+    /**
+     * Export every account in a repository
+     * The default in-memory repository is exported from a snapshot so balances
+     * and statuses are consistent across the whole file.
+     * @param repository Source repository
+     * @param file Output file, replaced if it exists
+     * @return Number of rows written
+     */
+    public long export(AccountRepository repository, Path file) {
+        try (BlockWriter writer = new BlockWriter(file)) {
+            if (repository instanceof InMemoryAccountRepository) {
+                try (AccountSnapshot snapshot = ((InMemoryAccountRepository) repository).openSnapshot()) {
+                    snapshot.forEach((account, state) ->
+                            writer.append(account, state.getBalanceCents(), state.getStatus()));
+                }
+            } else {
+                for (Account account : repository.findAll()) {
+                    writer.append(account, account.getBalanceCents(), account.getStatus());
+                }
+            }
+            return writer.finish();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot export accounts to " + file, e);
+        }
+    }
+
+    /**
+     * Export accounts in the order given
+     * @param accounts Accounts to export
+     * @param file Output file, replaced if it exists
+     * @return Number of rows written
+     */
+    public long export(Iterable<? extends Account> accounts, Path file) {
+        try (BlockWriter writer = new BlockWriter(file)) {
+            for (Account account : accounts) {
+                writer.append(account, account.getBalanceCents(), account.getStatus());
+            }
+            return writer.finish();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot export accounts to " + file, e);
+        }
+    }
+
+    /**
+     * Encodes rows into column buffers and writes a block whenever it fills
+     */
+    private class BlockWriter implements AutoCloseable {
+        private final FileChannel channel;
+        private final List<Long> blockOffsets = new ArrayList<>();
+        private final ByteBuffer header = ByteBuffer.allocate(BLOCK_HEADER_SIZE);
+        private final ByteBuffer ids = ByteBuffer.allocate(blockRows * 5);
+        private ByteBuffer cards = ByteBuffer.allocate(256);
+        private final ByteBuffer balances = ByteBuffer.allocate(blockRows * 10);
+        private final ByteBuffer statusRuns = ByteBuffer.allocate(blockRows * 6);
+        private final ByteBuffer scores = ByteBuffer.allocate(blockRows * 5);
+        private final byte[] scorePresence = new byte[(blockRows + 7) / 8];
+        private final List<AccountStatus> statusDictionary = new ArrayList<>();
+
+        private long position;
+        private long totalRows;
+        private int rows;
+        private int cardExceptions;
+        private int previousId;
+        private long previousCents;
+        private int previousScore;
+        private int currentStatus = -1;
+        private int statusRunLength;
+        private int minId;
+        private int maxId;
+        private long minCents;
+        private long maxCents;
+        private int minScore;
+        private int maxScore;
+
+        BlockWriter(Path file) throws IOException {
+            this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING);
+            ByteBuffer fileHeader = ByteBuffer.allocate(FILE_HEADER_SIZE);
+            fileHeader.putInt(MAGIC).putShort(VERSION).flip();
+            write(fileHeader);
+            resetBlock();
+        }
+
+        void append(Account account, long cents, AccountStatus status) {
+            int id = account.getId();
+            if (rows == 0) {
+                minId = maxId = id;
+                minCents = maxCents = cents;
+            } else {
+                minId = Math.min(minId, id);
+                maxId = Math.max(maxId, id);
+                minCents = Math.min(minCents, cents);
+                maxCents = Math.max(maxCents, cents);
+            }
+
+            Varint.putSigned(ids, (long) id - previousId);
+            previousId = id;
+
+            String card = account.getCardNumber();
+            if (!Account.cardNumberFor(id).equals(card)) {
+                byte[] bytes = card == null ? new byte[0] : card.getBytes(StandardCharsets.UTF_8);
+                ensureCards(bytes.length + 10);
+                Varint.putUnsigned(cards, rows);
+                Varint.putUnsigned(cards, bytes.length);
+                cards.put(bytes);
+                cardExceptions++;
+            }
+
+            Varint.putSigned(balances, cents - previousCents);
+            previousCents = cents;
+
+            int statusIndex = statusDictionary.indexOf(status);
+            if (statusIndex < 0) {
+                statusIndex = statusDictionary.size();
+                statusDictionary.add(status);
+            }
+            if (statusIndex == currentStatus) {
+                statusRunLength++;
+            } else {
+                endStatusRun();
+                currentStatus = statusIndex;
+                statusRunLength = 1;
+            }
+
+            if (account instanceof CreditScoreAccount) {
+                int score = ((CreditScoreAccount) account).getCreditScore();
+                scorePresence[rows >>> 3] |= (byte) (1 << (rows & 7));
+                Varint.putSigned(scores, score - previousScore);
+                previousScore = score;
+                minScore = minScore < 0 ? score : Math.min(minScore, score);
+                maxScore = Math.max(maxScore, score);
+            }
+
+            rows++;
+            if (rows == blockRows) {
+                writeBlock();
+            }
+        }
+
+        long finish() throws IOException {
+            if (rows > 0) {
+                writeBlock();
+            }
+            ByteBuffer footer = ByteBuffer.allocate(blockOffsets.size() * 8 + FOOTER_SIZE);
+            for (long offset : blockOffsets) {
+                footer.putLong(offset);
+            }
+            footer.putInt(blockOffsets.size()).putLong(totalRows).putInt(MAGIC).flip();
+            write(footer);
+            channel.force(false);
+            return totalRows;
+        }
+
+        @Override
+        public void close() throws IOException {
+            channel.close();
+        }
+
+        private void writeBlock() {
+            endStatusRun();
+            ByteBuffer cardColumn = ByteBuffer.allocate(5 + cards.position());
+            Varint.putUnsigned(cardColumn, cardExceptions);
+            cardColumn.put(cards.flip()).flip();
+
+            ByteBuffer statusColumn = ByteBuffer.allocate(64 + statusRuns.position());
+            Varint.putUnsigned(statusColumn, statusDictionary.size());
+            for (AccountStatus status : statusDictionary) {
+                byte[] name = status.name().getBytes(StandardCharsets.UTF_8);
+                Varint.putUnsigned(statusColumn, name.length);
+                statusColumn.put(name);
+            }
+            statusColumn.put(statusRuns.flip()).flip();
+
+            int presenceBytes = (rows + 7) / 8;
+            ByteBuffer scoreColumn = ByteBuffer.allocate(presenceBytes + scores.position());
+            scoreColumn.put(scorePresence, 0, presenceBytes).put(scores.flip()).flip();
+
+            ByteBuffer[] columns = {ids.flip(), cardColumn, balances.flip(), statusColumn, scoreColumn};
+            header.clear();
+            header.putInt(rows).putInt(minId).putInt(maxId).putLong(minCents).putLong(maxCents)
+                    .putInt(minScore).putInt(maxScore);
+            for (ByteBuffer column : columns) {
+                header.putInt(column.remaining());
+            }
+            header.flip();
+
+            blockOffsets.add(position);
+            ByteBuffer[] block = new ByteBuffer[COLUMN_COUNT + 1];
+            block[0] = header;
+            System.arraycopy(columns, 0, block, 1, COLUMN_COUNT);
+            try {
+                write(block);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            totalRows += rows;
+            resetBlock();
+        }
+
+        private void endStatusRun() {
+            if (statusRunLength > 0) {
+                Varint.putUnsigned(statusRuns, statusRunLength);
+                Varint.putUnsigned(statusRuns, currentStatus);
+                statusRunLength = 0;
+            }
+        }
+
+        private void resetBlock() {
+            ids.clear();
+            cards.clear();
+            balances.clear();
+            statusRuns.clear();
+            scores.clear();
+            Arrays.fill(scorePresence, (byte) 0);
+            statusDictionary.clear();
+            rows = 0;
+            cardExceptions = 0;
+            previousId = 0;
+            previousCents = 0;
+            previousScore = 0;
+            currentStatus = -1;
+            minScore = -1;
+            maxScore = -1;
+        }
+
+        private void ensureCards(int extra) {
+            if (cards.remaining() < extra) {
+                ByteBuffer grown = ByteBuffer.allocate(Math.max(cards.capacity() * 2, cards.position() + extra));
+                grown.put(cards.flip());
+                cards = grown;
+            }
+        }
+
+        private void write(ByteBuffer... buffers) throws IOException {
+            long expected = 0;
+            for (ByteBuffer buffer : buffers) {
+                expected += buffer.remaining();
+            }
+            long written = 0;
+            while (written < expected) {
+                written += channel.write(buffers);
+            }
+            position += expected;
+        }
+    }
+}
@@ -0,0 +1,472 @@
+package com.banking.io;
+
+import com.banking.dao.AccountRepository;
+import com.banking.entities.Account;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+/**
+ * Bulk account import for partner bank onboarding
+ *
+ * The input file is split into chunks that are memory-mapped and parsed in
+ * parallel. CSV chunks end on a line break so no row straddles two chunks;
+ * binary chunks end on a record boundary. Parsed accounts are handed to the
+ * repository in batches through {@link AccountRepository#addAll}, after the
+ * repository indexes have been sized for the expected total.
+ *
+ * CSV rows are {@code id,clientName,balance}. An optional header line is
+ * skipped and the client name may be quoted, with {@code ""} as an escaped
+ * quote. Binary records are {@link #BINARY_RECORD_SIZE} bytes: int id, double
+ * balance, one unsigned length byte and up to {@link #MAX_BINARY_NAME_BYTES}
+ * bytes of UTF-8 name, zero padded.
+ */
+public class AccountImporter {
+
+    public enum Format { CSV, BINARY }
+
+    public static final int BINARY_RECORD_SIZE = 64;
+    public static final int MAX_BINARY_NAME_BYTES = BINARY_RECORD_SIZE - 13;
+    public static final int MAX_REPORTED_ERRORS = 1000;
+
+    private static final int DEFAULT_BATCH_SIZE = 4096;
+    private static final int DEFAULT_CHUNK_BYTES = 8 << 20;
+    private static final int BOUNDARY_SCAN_BYTES = 4096;
+    private static final int SAMPLE_BYTES = 64 * 1024;
+
+    private final AccountRepository repository;
+    private final int parallelism;
+    private final int batchSize;
+    private final int chunkBytes;
+
+    /**
+     * Create an importer using every available processor
+     * @param repository Repository that receives the accounts
+     */
+    public AccountImporter(AccountRepository repository) {
+        this(repository, Runtime.getRuntime().availableProcessors(), DEFAULT_BATCH_SIZE, DEFAULT_CHUNK_BYTES);
+    }
+
+    /**
+     * Create an importer with explicit tuning
+     * @param repository Repository that receives the accounts
+     * @param parallelism Number of parser threads
+     * @param batchSize Accounts per repository batch
+     * @param chunkBytes Target input bytes per parallel chunk
+     */
+    public AccountImporter(AccountRepository repository, int parallelism, int batchSize, int chunkBytes) {
+        if (parallelism <= 0 || batchSize <= 0 || chunkBytes <= 0) {
+            throw new IllegalArgumentException("Parallelism, batch size and chunk size must be positive");
+        }
+        this.repository = repository;
+        this.parallelism = parallelism;
+        this.batchSize = batchSize;
+        this.chunkBytes = chunkBytes;
+    }
+
+    /**
+     * Import every account in a file
+     * @param file Input file
+     * @param format Input format
+     * @return Counts, rejected rows and throughput
+     */
+    public ImportResult importFile(Path file, Format format) {
+        long started = System.nanoTime();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            List<long[]> chunks = format == Format.CSV ? csvChunks(channel, size) : binaryChunks(size);
+            repository.ensureCapacity(repository.count() + estimateRows(channel, size, format));
+
+            Set<Integer> seen = ConcurrentHashMap.newKeySet();
+            List<Callable<ChunkResult>> tasks = new ArrayList<>(chunks.size());
+            for (int i = 0; i < chunks.size(); i++) {
+                long[] range = chunks.get(i);
+                boolean first = i == 0;
+                tasks.add(() -> {
+                    MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY,
+                            range[0], range[1] - range[0]);
+                    ChunkParser parser = new ChunkParser(seen);
+                    if (format == Format.CSV) {
+                        parser.parseCsv(buffer, first);
+                    } else {
+                        parser.parseBinary(buffer, range[0] / BINARY_RECORD_SIZE);
+                    }
+                    parser.flush();
+                    return parser.result;
+                });
+            }
+            List<ChunkResult> results = runAll(tasks);
+            return merge(results, format, size, System.nanoTime() - started);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot import accounts from " + file, e);
+        }
+    }
+
+    /**
+     * Write one binary import record
+     * @param out Buffer with at least {@link #BINARY_RECORD_SIZE} bytes remaining
+     * @param id Account ID
+     * @param clientName Client name
+     * @param balance Initial balance
+     */
+    public static void writeBinaryRecord(ByteBuffer out, int id, String clientName, double balance) {
+        byte[] name = clientName.getBytes(StandardCharsets.UTF_8);
+        if (name.length > MAX_BINARY_NAME_BYTES) {
+            throw new IllegalArgumentException("Client name longer than " + MAX_BINARY_NAME_BYTES + " bytes");
+        }
+        int start = out.position();
+        out.putInt(id);
+        out.putDouble(balance);
+        out.put((byte) name.length);
+        out.put(name);
+        while (out.position() < start + BINARY_RECORD_SIZE) {
+            out.put((byte) 0);
+        }
+    }
+
+    private List<long[]> csvChunks(FileChannel channel, long size) throws IOException {
+        List<long[]> chunks = new ArrayList<>();
+        ByteBuffer scan = ByteBuffer.allocate(BOUNDARY_SCAN_BYTES);
+        long start = 0;
+        while (start < size) {
+            long end = Math.min(size, start + chunkBytes);
+            // Move the cut forward to just past the next line break
+            while (end < size) {
+                scan.clear();
+                int read = channel.read(scan, end - 1);
+                int newline = -1;
+                for (int i = 0; i < read; i++) {
+                    if (scan.get(i) == '\n') {
+                        newline = i;
+                        break;
+                    }
+                }
+                if (newline >= 0) {
+                    end = end + newline;
+                    break;
+                }
+                end = Math.min(size, end + read);
+            }
+            chunks.add(new long[] {start, end});
+            start = end;
+        }
+        return chunks;
+    }
+
+    private List<long[]> binaryChunks(long size) {
+        List<long[]> chunks = new ArrayList<>();
+        long step = Math.max(BINARY_RECORD_SIZE, chunkBytes / BINARY_RECORD_SIZE * BINARY_RECORD_SIZE);
+        for (long start = 0; start < size; start += step) {
+            chunks.add(new long[] {start, Math.min(size, start + step)});
+        }
+        return chunks;
+    }
+
+    private int estimateRows(FileChannel channel, long size, Format format) throws IOException {
+        if (format == Format.BINARY) {
+            return (int) Math.min(Integer.MAX_VALUE, size / BINARY_RECORD_SIZE);
+        }
+        ByteBuffer sample = ByteBuffer.allocate((int) Math.min(size, SAMPLE_BYTES));
+        int read = Math.max(0, channel.read(sample, 0));
+        int lines = 0;
+        for (int i = 0; i < read; i++) {
+            if (sample.get(i) == '\n') {
+                lines++;
+            }
+        }
+        if (lines == 0) {
+            return 1;
+        }
+        return (int) Math.min(Integer.MAX_VALUE, size * lines / read + 1);
+    }
+
+    private List<ChunkResult> runAll(List<Callable<ChunkResult>> tasks) {
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            List<ChunkResult> results = new ArrayList<>(tasks.size());
+            for (Future<ChunkResult> future : pool.invokeAll(tasks)) {
+                results.add(future.get());
+            }
+            return results;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Import interrupted", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw new UncheckedIOException((IOException) cause);
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new IllegalStateException("Import failed", cause);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    private ImportResult merge(List<ChunkResult> results, Format format, long size, long elapsed) {
+        long imported = 0;
+        long rejected = 0;
+        long linesBefore = 0;
+        List<ImportResult.RowError> errors = new ArrayList<>();
+        for (ChunkResult result : results) {
+            imported += result.imported;
+            rejected += result.rejected;
+            for (ImportResult.RowError error : result.errors) {
+                // CSV chunks number their lines locally; binary records are numbered from the file start
+                long line = format == Format.CSV ? linesBefore + error.getLine() : error.getLine();
+                errors.add(new ImportResult.RowError(line, error.getMessage()));
+            }
+            linesBefore += result.lines;
+        }
+        errors.sort(Comparator.comparingLong(ImportResult.RowError::getLine));
+        if (errors.size() > MAX_REPORTED_ERRORS) {
+            errors = new ArrayList<>(errors.subList(0, MAX_REPORTED_ERRORS));
+        }
+        return new ImportResult(imported, rejected, errors, size, elapsed, results.size());
+    }
+
+    private static class ChunkResult {
+        long imported;
+        long rejected;
+        long lines;
+        final List<ImportResult.RowError> errors = new ArrayList<>();
+    }
+
+    /**
+     * Parses one chunk on one thread and feeds the repository in batches
+     */
+    private class ChunkParser {
+        private final Set<Integer> seen;
+        private final ChunkResult result = new ChunkResult();
+        private List<Account> batch = new ArrayList<>(batchSize);
+        private byte[] line = new byte[256];
+
+        ChunkParser(Set<Integer> seen) {
+            this.seen = seen;
+        }
+
+        void parseCsv(MappedByteBuffer buffer, boolean firstChunk) {
+            int limit = buffer.limit();
+            int pos = 0;
+            while (pos < limit) {
+                int length = 0;
+                while (pos < limit) {
+                    byte b = buffer.get(pos++);
+                    if (b == '\n') {
+                        break;
+                    }
+                    if (length == line.length) {
+                        byte[] grown = new byte[line.length * 2];
+                        System.arraycopy(line, 0, grown, 0, length);
+                        line = grown;
+                    }
+                    line[length++] = b;
+                }
+                if (length > 0 && line[length - 1] == '\r') {
+                    length--;
+                }
+                result.lines++;
+                if (firstChunk && result.lines == 1 && isHeader(length)) {
+                    continue;
+                }
+                if (isBlank(length)) {
+                    continue;
+                }
+                String error = parseCsvRow(length);
+                if (error != null) {
+                    reject(result.lines, error);
+                }
+            }
+        }
+
+        void parseBinary(MappedByteBuffer buffer, long firstRecord) {
+            int limit = buffer.limit();
+            long record = firstRecord;
+            for (int pos = 0; pos < limit; pos += BINARY_RECORD_SIZE) {
+                record++;
+                if (limit - pos < BINARY_RECORD_SIZE) {
+                    reject(record, "truncated record of " + (limit - pos) + " bytes");
+                    break;
+                }
+                int id = buffer.getInt(pos);
+                double balance = buffer.getDouble(pos + 4);
+                int nameLength = buffer.get(pos + 12) & 0xFF;
+                if (nameLength > MAX_BINARY_NAME_BYTES) {
+                    reject(record, "name length " + nameLength + " exceeds record");
+                    continue;
+                }
+                byte[] name = new byte[nameLength];
+                buffer.get(pos + 13, name);
+                String error = accept(id, new String(name, StandardCharsets.UTF_8), balance);
+                if (error != null) {
+                    reject(record, error);
+                }
+            }
+        }
+
+        void flush() {
+            if (!batch.isEmpty()) {
+                repository.addAll(batch);
+                batch = new ArrayList<>(batchSize);
+            }
+        }
+
+        private String parseCsvRow(int length) {
+            int[] starts = new int[3];
+            int[] ends = new int[3];
+            int fields = 0;
+            int pos = 0;
+            while (true) {
+                if (fields == 3) {
+                    return "expected 3 fields but found more";
+                }
+                int start = pos;
+                int end;
+                if (pos < length && line[pos] == '"') {
+                    // Unescape the quoted value in place; it can only shrink
+                    int out = pos;
+                    pos++;
+                    while (true) {
+                        if (pos >= length) {
+                            return "unterminated quoted field";
+                        }
+                        byte b = line[pos++];
+                        if (b == '"') {
+                            if (pos < length && line[pos] == '"') {
+                                line[out++] = '"';
+                                pos++;
+                            } else {
+                                break;
+                            }
+                        } else {
+                            line[out++] = b;
+                        }
+                    }
+                    if (pos < length && line[pos] != ',') {
+                        return "unexpected character after quoted field";
+                    }
+                    end = out;
+                } else {
+                    while (pos < length && line[pos] != ',') {
+                        pos++;
+                    }
+                    while (start < pos && line[start] == ' ') {
+                        start++;
+                    }
+                    end = pos;
+                    while (end > start && line[end - 1] == ' ') {
+                        end--;
+                    }
+                }
+                starts[fields] = start;
+                ends[fields] = end;
+                fields++;
+                if (pos >= length) {
+                    break;
+                }
+                pos++;
+            }
+            if (fields != 3) {
+                return "expected 3 fields but found " + fields;
+            }
+
+            long id = 0;
+            boolean negative = false;
+            int i = starts[0];
+            if (i < ends[0] && line[i] == '-') {
+                negative = true;
+                i++;
+            }
+            if (i == ends[0]) {
+                return "invalid account id";
+            }
+            for (; i < ends[0]; i++) {
+                int digit = line[i] - '0';
+                if (digit < 0 || digit > 9) {
+                    return "invalid account id";
+                }
+                id = id * 10 + digit;
+                if (id > Integer.MAX_VALUE + 1L) {
+                    return "account id out of range";
+                }
+            }
+            id = negative ? -id : id;
+            if (id > Integer.MAX_VALUE) {
+                return "account id out of range";
+            }
+
+            double balance;
+            try {
+                balance = Double.parseDouble(new String(line, starts[2], ends[2] - starts[2],
+                        StandardCharsets.ISO_8859_1));
+            } catch (NumberFormatException e) {
+                return "invalid balance";
+            }
+            String name = new String(line, starts[1], ends[1] - starts[1], StandardCharsets.UTF_8);
+            return accept((int) id, name, balance);
+        }
+
+        private String accept(int id, String clientName, double balance) {
+            if (clientName.isEmpty()) {
+                return "client name is empty";
+            }
+            if (Double.isNaN(balance) || Double.isInfinite(balance) || balance < 0) {
+                return "balance must be a non-negative number";
+            }
+            if (!seen.add(id)) {
+                return "duplicate account id " + id;
+            }
+            if (repository.findById(id) != null) {
+                return "account " + id + " already exists";
+            }
+            batch.add(new Account(id, clientName, balance));
+            result.imported++;
+            if (batch.size() == batchSize) {
+                flush();
+            }
+            return null;
+        }
+
+        private void reject(long lineNumber, String message) {
+            result.rejected++;
+            if (result.errors.size() < MAX_REPORTED_ERRORS) {
+                result.errors.add(new ImportResult.RowError(lineNumber, message));
+            }
+        }
+
+        private boolean isHeader(int length) {
+            for (int i = 0; i < length; i++) {
+                byte b = line[i];
+                if (b != ' ') {
+                    return b != '-' && (b < '0' || b > '9');
+                }
+            }
+            return false;
+        }
+
+        private boolean isBlank(int length) {
+            for (int i = 0; i < length; i++) {
+                if (line[i] != ' ' && line[i] != '\t') {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
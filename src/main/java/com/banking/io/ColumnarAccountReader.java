@@ -0,0 +1,286 @@
+package com.banking.io;
+
+import com.banking.entities.Account;
+import com.banking.entities.Account.AccountStatus;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Predicate;
+
+/**
+ * Reads files written by {@link AccountExporter}
+ *
+ * Only the block headers are loaded on open. Blocks are decoded on demand and
+ * can be skipped by their statistics; {@link #totalBalanceCents()} decodes the
+ * balance column alone.
+ */
+public class ColumnarAccountReader implements Closeable {
+
+    public static final int NO_CREDIT_SCORE = -1;
+
+    /**
+     * Receives one exported row
+     */
+    @FunctionalInterface
+    public interface RowVisitor {
+        /**
+         * @param id Account ID
+         * @param cardNumber Card number
+         * @param balanceCents Balance in cents
+         * @param status Account status
+         * @param creditScore Credit score, or {@link #NO_CREDIT_SCORE} for basic accounts
+         */
+        void visit(int id, String cardNumber, long balanceCents, AccountStatus status, int creditScore);
+    }
+
+    /**
+     * Statistics stored in a block header
+     */
+    public static class BlockStats {
+        private final int rows;
+        private final int minId;
+        private final int maxId;
+        private final long minBalanceCents;
+        private final long maxBalanceCents;
+        private final int minCreditScore;
+        private final int maxCreditScore;
+
+        BlockStats(ByteBuffer header) {
+            this.rows = header.getInt();
+            this.minId = header.getInt();
+            this.maxId = header.getInt();
+            this.minBalanceCents = header.getLong();
+            this.maxBalanceCents = header.getLong();
+            this.minCreditScore = header.getInt();
+            this.maxCreditScore = header.getInt();
+        }
+
+        public int getRows() {
+            return rows;
+        }
+
+        public int getMinId() {
+            return minId;
+        }
+
+        public int getMaxId() {
+            return maxId;
+        }
+
+        public long getMinBalanceCents() {
+            return minBalanceCents;
+        }
+
+        public long getMaxBalanceCents() {
+            return maxBalanceCents;
+        }
+
+        /**
+         * @return Lowest credit score, or {@link #NO_CREDIT_SCORE} if the block has none
+         */
+        public int getMinCreditScore() {
+            return minCreditScore;
+        }
+
+        public int getMaxCreditScore() {
+            return maxCreditScore;
+        }
+    }
+
+    private final FileChannel channel;
+    private final long[] blockOffsets;
+    private final List<BlockStats> stats;
+    private final int[][] columnLengths;
+    private final long rowCount;
+
+    /**
+     * Open an export file and load its block headers
+     * @param file Export file
+     */
+    public ColumnarAccountReader(Path file) {
+        try {
+            this.channel = FileChannel.open(file, StandardOpenOption.READ);
+            long size = channel.size();
+            if (size < AccountExporter.FILE_HEADER_SIZE + AccountExporter.FOOTER_SIZE) {
+                throw new IllegalArgumentException("Not an account export file: " + file);
+            }
+            ByteBuffer footer = read(size - AccountExporter.FOOTER_SIZE, AccountExporter.FOOTER_SIZE);
+            int blocks = footer.getInt();
+            this.rowCount = footer.getLong();
+            if (footer.getInt() != AccountExporter.MAGIC || read(0, 4).getInt() != AccountExporter.MAGIC) {
+                throw new IllegalArgumentException("Not an account export file: " + file);
+            }
+            ByteBuffer index = read(size - AccountExporter.FOOTER_SIZE - blocks * 8L, blocks * 8);
+            this.blockOffsets = new long[blocks];
+            this.columnLengths = new int[blocks][AccountExporter.COLUMN_COUNT];
+            List<BlockStats> loaded = new ArrayList<>(blocks);
+            for (int i = 0; i < blocks; i++) {
+                blockOffsets[i] = index.getLong();
+                ByteBuffer header = read(blockOffsets[i], AccountExporter.BLOCK_HEADER_SIZE);
+                loaded.add(new BlockStats(header));
+                for (int c = 0; c < AccountExporter.COLUMN_COUNT; c++) {
+                    columnLengths[i][c] = header.getInt();
+                }
+            }
+            this.stats = Collections.unmodifiableList(loaded);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot open account export " + file, e);
+        }
+    }
+
+    public long getRowCount() {
+        return rowCount;
+    }
+
+    public int getBlockCount() {
+        return blockOffsets.length;
+    }
+
+    public List<BlockStats> getBlockStats() {
+        return stats;
+    }
+
+    /**
+     * Visit every row in file order
+     * @param visitor Row visitor
+     */
+    public void forEach(RowVisitor visitor) {
+        forEach(block -> true, visitor);
+    }
+
+    /**
+     * Visit the rows of the blocks whose statistics pass a filter
+     * @param blockFilter Decides from the header whether a block is decoded
+     * @param visitor Row visitor
+     */
+    public void forEach(Predicate<BlockStats> blockFilter, RowVisitor visitor) {
+        for (int block = 0; block < blockOffsets.length; block++) {
+            if (blockFilter.test(stats.get(block))) {
+                decodeBlock(block, visitor);
+            }
+        }
+    }
+
+    /**
+     * Visit rows with fromId &lt;= id &lt; toId, skipping blocks outside the range
+     * @param fromId Lowest id, inclusive
+     * @param toId Highest id, exclusive
+     * @param visitor Row visitor
+     */
+    public void forEachInIdRange(int fromId, int toId, RowVisitor visitor) {
+        forEach(block -> block.getMaxId() >= fromId && block.getMinId() < toId,
+                (id, card, cents, status, score) -> {
+                    if (id >= fromId && id < toId) {
+                        visitor.visit(id, card, cents, status, score);
+                    }
+                });
+    }
+
+    /**
+     * Sum all balances reading only the balance column
+     * @return Total balance in cents
+     */
+    public long totalBalanceCents() {
+        long total = 0;
+        for (int block = 0; block < blockOffsets.length; block++) {
+            ByteBuffer balances = column(block, 2);
+            long cents = 0;
+            for (int row = 0; row < stats.get(block).getRows(); row++) {
+                cents += Varint.getSigned(balances);
+                total += cents;
+            }
+        }
+        return total;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    private void decodeBlock(int block, RowVisitor visitor) {
+        int rows = stats.get(block).getRows();
+        ByteBuffer ids = column(block, 0);
+        ByteBuffer cards = column(block, 1);
+        ByteBuffer balances = column(block, 2);
+        ByteBuffer statuses = column(block, 3);
+        ByteBuffer scores = column(block, 4);
+
+        int exceptions = (int) Varint.getUnsigned(cards);
+        int nextException = exceptions > 0 ? (int) Varint.getUnsigned(cards) : -1;
+
+        AccountStatus[] dictionary = new AccountStatus[(int) Varint.getUnsigned(statuses)];
+        for (int i = 0; i < dictionary.length; i++) {
+            byte[] name = new byte[(int) Varint.getUnsigned(statuses)];
+            statuses.get(name);
+            dictionary[i] = AccountStatus.valueOf(new String(name, StandardCharsets.UTF_8));
+        }
+        int runLeft = 0;
+        AccountStatus status = null;
+
+        int presenceBytes = (rows + 7) / 8;
+        ByteBuffer presence = scores.slice(0, presenceBytes);
+        scores.position(presenceBytes);
+
+        int id = 0;
+        long cents = 0;
+        int score = 0;
+        for (int row = 0; row < rows; row++) {
+            id += (int) Varint.getSigned(ids);
+            cents += Varint.getSigned(balances);
+
+            String card;
+            if (row == nextException) {
+                byte[] bytes = new byte[(int) Varint.getUnsigned(cards)];
+                cards.get(bytes);
+                card = new String(bytes, StandardCharsets.UTF_8);
+                nextException = --exceptions > 0 ? (int) Varint.getUnsigned(cards) : -1;
+            } else {
+                card = Account.cardNumberFor(id);
+            }
+
+            if (runLeft == 0) {
+                runLeft = (int) Varint.getUnsigned(statuses);
+                status = dictionary[(int) Varint.getUnsigned(statuses)];
+            }
+            runLeft--;
+
+            int creditScore = NO_CREDIT_SCORE;
+            if ((presence.get(row >>> 3) & (1 << (row & 7))) != 0) {
+                score += (int) Varint.getSigned(scores);
+                creditScore = score;
+            }
+            visitor.visit(id, card, cents, status, creditScore);
+        }
+    }
+
+    private ByteBuffer column(int block, int column) {
+        long offset = blockOffsets[block] + AccountExporter.BLOCK_HEADER_SIZE;
+        for (int c = 0; c < column; c++) {
+            offset += columnLengths[block][c];
+        }
+        try {
+            return read(offset, columnLengths[block][column]);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private ByteBuffer read(long offset, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, offset + buffer.position()) < 0) {
+                throw new IOException("Unexpected end of export file");
+            }
+        }
+        return buffer.flip();
+    }
+}
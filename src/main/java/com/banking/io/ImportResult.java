@@ -0,0 +1,106 @@
+package com.banking.io;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Outcome of a bulk account import
+ */
+public class ImportResult {
+
+    /**
+     * A rejected input row
+     */
+    public static class RowError {
+        private final long line;
+        private final String message;
+
+        public RowError(long line, String message) {
+            this.line = line;
+            this.message = message;
+        }
+
+        /**
+         * @return 1-based line number for CSV input, record number for binary input
+         */
+        public long getLine() {
+            return line;
+        }
+
+        public String getMessage() {
+            return message;
+        }
+
+        @Override
+        public String toString() {
+            return "line " + line + ": " + message;
+        }
+    }
+
+    private final long imported;
+    private final long rejected;
+    private final List<RowError> errors;
+    private final long bytesRead;
+    private final long elapsedNanos;
+    private final int chunks;
+
+    public ImportResult(long imported, long rejected, List<RowError> errors,
+                        long bytesRead, long elapsedNanos, int chunks) {
+        this.imported = imported;
+        this.rejected = rejected;
+        this.errors = Collections.unmodifiableList(errors);
+        this.bytesRead = bytesRead;
+        this.elapsedNanos = elapsedNanos;
+        this.chunks = chunks;
+    }
+
+    public long getImported() {
+        return imported;
+    }
+
+    public long getRejected() {
+        return rejected;
+    }
+
+    /**
+     * Get the rejected rows in input order
+     * Only the first {@link AccountImporter#MAX_REPORTED_ERRORS} are kept;
+     * {@link #getRejected()} always has the full count.
+     * @return Row errors
+     */
+    public List<RowError> getErrors() {
+        return errors;
+    }
+
+    public long getBytesRead() {
+        return bytesRead;
+    }
+
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+
+    public int getChunks() {
+        return chunks;
+    }
+
+    /**
+     * @return Imported accounts per second of wall-clock time
+     */
+    public double getRowsPerSecond() {
+        return elapsedNanos == 0 ? 0 : imported * 1e9 / elapsedNanos;
+    }
+
+    /**
+     * @return Input megabytes processed per second of wall-clock time
+     */
+    public double getMegabytesPerSecond() {
+        return elapsedNanos == 0 ? 0 : bytesRead / (1024.0 * 1024.0) * 1e9 / elapsedNanos;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("Imported %d accounts, rejected %d rows in %.1f ms (%.0f rows/s, %.1f MB/s)",
+                imported, rejected, elapsedNanos / 1e6, getRowsPerSecond(), getMegabytesPerSecond());
+    }
+}
@@ -0,0 +1,41 @@
+package com.banking.io;
+
+import java.nio.ByteBuffer;
+
+/**
+ * LEB128 variable-length integers with zigzag mapping for signed deltas
+ */
+final class Varint {
+
+    private Varint() {
+    }
+
+    static void putUnsigned(ByteBuffer out, long value) {
+        while ((value & ~0x7FL) != 0) {
+            out.put((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.put((byte) value);
+    }
+
+    static long getUnsigned(ByteBuffer in) {
+        long value = 0;
+        int shift = 0;
+        byte b;
+        do {
+            b = in.get();
+            value |= (long) (b & 0x7F) << shift;
+            shift += 7;
+        } while (b < 0);
+        return value;
+    }
+
+    static void putSigned(ByteBuffer out, long value) {
+        putUnsigned(out, (value << 1) ^ (value >> 63));
+    }
+
+    static long getSigned(ByteBuffer in) {
+        long raw = getUnsigned(in);
+        return (raw >>> 1) ^ -(raw & 1);
+    }
+}
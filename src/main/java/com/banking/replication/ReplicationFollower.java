@@ -0,0 +1,202 @@
+package com.banking.replication;
+
+import com.banking.dao.AccountDAO;
+import com.banking.dao.AccountRepository;
+import com.banking.entities.Account;
+import com.banking.events.AccountEvent;
+import com.banking.events.AccountEventCodec;
+import com.banking.events.AccountEvents;
+import com.banking.events.EventApplier;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Follower side of log-shipping replication
+ *
+ * Connects to a {@link ReplicationLeader}, applies each shipped entry to its
+ * own repository in sequence order and acknowledges after every batch.
+ * Entries at or below the applied sequence are skipped, so a reconnect that
+ * resends a batch is harmless.
+ *
+ * On a full resync the follower installs the leader's copy of every account,
+ * removes the accounts the copy does not have and continues from the
+ * sequence the copy was taken at.
+ */
+public class ReplicationFollower implements Closeable {
+
+    // Replaced on a full resync; used by the reader thread only
+    private EventApplier applier;
+    private final AccountRepository repository;
+    private volatile long appliedSequence;
+    private volatile Socket socket;
+    private Thread reader;
+
+    /**
+     * @param repository Repository the follower keeps in step with the leader
+     */
+    public ReplicationFollower(AccountRepository repository) {
+        this.repository = repository;
+        this.applier = new EventApplier(repository);
+    }
+
+    /**
+     * Connect to a leader on this machine and start applying entries
+     * @param port Leader port
+     * @throws IOException if the leader is not reachable
+     */
+    public synchronized void connect(int port) throws IOException {
+        Socket connected = new Socket(InetAddress.getLoopbackAddress(), port);
+        connected.setTcpNoDelay(true);
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(connected.getOutputStream()));
+        out.writeLong(appliedSequence);
+        out.flush();
+        DataInputStream in = new DataInputStream(new BufferedInputStream(connected.getInputStream()));
+        socket = connected;
+        reader = new Thread(() -> follow(in, out), "replication-follower");
+        reader.setDaemon(true);
+        reader.start();
+    }
+
+    private void follow(DataInputStream in, DataOutputStream out) {
+        try {
+            while (true) {
+                int count = in.readInt();
+                if (count == ReplicationLeader.RESYNC) {
+                    resync(in);
+                }
+                for (int i = 0; i < count; i++) {
+                    long sequence = in.readLong();
+                    AccountEvent event = AccountEventCodec.read(in);
+                    if (sequence > appliedSequence) {
+                        applier.apply(event);
+                        appliedSequence = sequence;
+                    }
+                }
+                out.writeLong(appliedSequence);
+                out.flush();
+                synchronized (this) {
+                    notifyAll();
+                }
+            }
+        } catch (EOFException e) {
+            // Leader closed the stream
+        } catch (IOException e) {
+            // Connection dropped; connect again to resume
+        } finally {
+            synchronized (this) {
+                socket = null;
+                notifyAll();
+            }
+        }
+    }
+
+    /**
+     * Replace the repository's contents with the leader's copy
+     */
+    private void resync(DataInputStream in) throws IOException {
+        long sequence = in.readLong();
+        EventApplier fresh = new EventApplier(repository);
+        Set<Integer> copied = new HashSet<>();
+        while (in.readBoolean()) {
+            AccountEvent event = AccountEventCodec.read(in);
+            fresh.apply(event);
+            copied.add(event.getAccountId());
+        }
+        List<Integer> stale = new ArrayList<>();
+        for (Account account : repository.findAll()) {
+            if (!copied.contains(account.getId())) {
+                stale.add(account.getId());
+            }
+        }
+        AccountEvents.runMuted(() -> stale.forEach(repository::remove));
+        applier = fresh;
+        appliedSequence = sequence;
+    }
+
+    /**
+     * Wait until an entry has been applied
+     * @param sequence Entry sequence
+     * @param timeoutMillis Maximum wait
+     * @return true if applied in time
+     */
+    public synchronized boolean awaitSequence(long sequence, long timeoutMillis) {
+        long deadline = System.nanoTime() + timeoutMillis * 1_000_000L;
+        while (appliedSequence < sequence) {
+            long left = deadline - System.nanoTime();
+            if (left <= 0) {
+                return false;
+            }
+            try {
+                wait(Math.max(1, left / 1_000_000L));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Wait until the leader closes the connection
+     * @throws InterruptedException if interrupted
+     */
+    public void awaitDisconnect() throws InterruptedException {
+        Thread current;
+        synchronized (this) {
+            current = reader;
+        }
+        if (current != null) {
+            current.join();
+        }
+    }
+
+    public long getAppliedSequence() {
+        return appliedSequence;
+    }
+
+    public AccountRepository getRepository() {
+        return repository;
+    }
+
+    public boolean isConnected() {
+        return socket != null;
+    }
+
+    @Override
+    public void close() throws IOException {
+        Socket current = socket;
+        if (current != null) {
+            current.close();
+        }
+    }
+
+    /**
+     * Run a follower process that replicates into the default AccountDAO
+     * Usage: ReplicationFollower &lt;leader port&gt;
+     * @param args Leader port
+     * @throws Exception if the leader cannot be reached
+     */
+    public static void main(String[] args) throws Exception {
+        if (args.length != 1) {
+            System.err.println("Usage: ReplicationFollower <leader port>");
+            System.exit(2);
+        }
+        ReplicationFollower follower = new ReplicationFollower(AccountDAO.getDefault());
+        follower.connect(Integer.parseInt(args[0]));
+        System.out.println("Following leader on port " + args[0]);
+        follower.awaitDisconnect();
+        System.out.println("Applied " + follower.getAppliedSequence() + " entries, "
+                + AccountDAO.count() + " accounts");
+    }
+}
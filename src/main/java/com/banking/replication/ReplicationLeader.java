@@ -0,0 +1,476 @@
+package com.banking.replication;
+
+import com.banking.dao.AccountDAO;
+import com.banking.dao.AccountRepository;
+import com.banking.entities.Account;
+import com.banking.events.AccountEvent;
+import com.banking.events.AccountEventCodec;
+import com.banking.events.AccountEventListener;
+import com.banking.events.AccountEvents;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Leader side of log-shipping replication
+ *
+ * Every committed account event becomes a numbered journal entry. A sender
+ * thread streams unsent entries to the connected follower in batches of up to
+ * maxBatch entries; the follower acknowledges the highest entry it applied
+ * after each batch. Entries are retained until acknowledged so they can be
+ * resent when a follower reconnects and reports where it stopped.
+ *
+ * In {@link Mode#Synchronous} mode the committing thread waits until its entry
+ * is acknowledged, and also waits for retained space once maxRetained entries
+ * are unacknowledged. The first wait that passes the sync timeout degrades the
+ * leader to asynchronous shipping, as semi-synchronous replication does, so a
+ * follower that is down stalls one writer rather than every commit; writers
+ * wait again once the follower has acknowledged every entry. In
+ * {@link Mode#Asynchronous} mode it never waits: the follower trails by the
+ * replication lag, and once it falls maxRetained entries behind, the
+ * retained entries are dropped and the follower is marked for a full resync.
+ *
+ * A full resync copies every account of the source repository to the
+ * follower, then streams the entries journaled after it was started. It is
+ * also sent when a follower connects with a sequence the leader no longer
+ * retains. The copy is read live; entries the copy already reflects are
+ * skipped by the follower's applier, which never installs an older version.
+ *
+ * Wire format: the follower opens the connection and sends its last applied
+ * sequence; the leader then sends frames of {@code int count} followed by
+ * {@code count} pairs of {@code long sequence} and an encoded event, and the
+ * follower answers each frame with {@code long appliedSequence}. A resync
+ * frame has the count {@link #RESYNC}, then {@code long sequence}, then one
+ * {@code true} and an encoded AccountCreated event per account, ended by
+ * {@code false}.
+ */
+public class ReplicationLeader implements AccountEventListener, Closeable {
+
+    public enum Mode {
+        Synchronous,
+        Asynchronous
+    }
+
+    public static final int DEFAULT_MAX_BATCH = 512;
+    public static final long DEFAULT_SYNC_TIMEOUT_MILLIS = 5000;
+    public static final int DEFAULT_MAX_RETAINED = 1_000_000;
+    // Frame count announcing a full resync
+    static final int RESYNC = -1;
+
+    private final ServerSocket server;
+    private final AccountRepository source;
+    private final Mode mode;
+    private final int maxBatch;
+    private final long syncTimeoutMillis;
+    private final int maxRetained;
+    private final Thread sender;
+
+    // Unacknowledged entries, oldest first, starting at retained.get(head); guarded by this
+    private final List<Entry> retained = new ArrayList<>();
+    private int head;
+    private long lastSequence;
+    private long sentSequence;
+    // Highest sequence no longer retained, acknowledged or dropped
+    private long discardedSequence;
+    private boolean resyncNeeded;
+    // Synchronous mode shipping asynchronously after a sync timeout, until the follower catches up
+    private boolean degraded;
+    private volatile long ackedSequence;
+    private volatile boolean closed;
+    private volatile Socket connection;
+    private long batchesSent;
+    private long entriesSent;
+    private long syncTimeouts;
+    private long resyncs;
+
+    private static class Entry {
+        final long sequence;
+        final AccountEvent event;
+        final long appendedNanos;
+
+        Entry(long sequence, AccountEvent event, long appendedNanos) {
+            this.sequence = sequence;
+            this.event = event;
+            this.appendedNanos = appendedNanos;
+        }
+    }
+
+    /**
+     * Listen for a follower on a loopback port with default batching, resyncing from the default AccountDAO
+     * @param port Port, or 0 for any free port
+     * @param mode Replication mode
+     * @throws IOException if the port cannot be bound
+     */
+    public ReplicationLeader(int port, Mode mode) throws IOException {
+        this(port, mode, DEFAULT_MAX_BATCH, DEFAULT_SYNC_TIMEOUT_MILLIS, DEFAULT_MAX_RETAINED);
+    }
+
+    /**
+     * Listen for a follower on a loopback port, resyncing from the default AccountDAO
+     * @param port Port, or 0 for any free port
+     * @param mode Replication mode
+     * @param maxBatch Maximum entries per frame
+     * @param syncTimeoutMillis Longest a synchronous writer waits for an acknowledgement or for retained space
+     *                          before the leader degrades to asynchronous shipping
+     * @param maxRetained Unacknowledged entries kept for the follower
+     * @throws IOException if the port cannot be bound
+     */
+    public ReplicationLeader(int port, Mode mode, int maxBatch, long syncTimeoutMillis, int maxRetained)
+            throws IOException {
+        this(port, mode, maxBatch, syncTimeoutMillis, maxRetained, AccountDAO.getDefault());
+    }
+
+    /**
+     * Listen for a follower on a loopback port
+     * @param port Port, or 0 for any free port
+     * @param mode Replication mode
+     * @param maxBatch Maximum entries per frame
+     * @param syncTimeoutMillis Longest a synchronous writer waits for an acknowledgement or for retained space
+     *                          before the leader degrades to asynchronous shipping
+     * @param maxRetained Unacknowledged entries kept for the follower
+     * @param source Repository copied to a follower that needs a full resync
+     * @throws IOException if the port cannot be bound
+     */
+    public ReplicationLeader(int port, Mode mode, int maxBatch, long syncTimeoutMillis, int maxRetained,
+                             AccountRepository source) throws IOException {
+        if (maxBatch <= 0 || maxRetained <= 0) {
+            throw new IllegalArgumentException("Batch size and retained entries must be positive");
+        }
+        this.source = source;
+        this.server = new ServerSocket(port, 1, InetAddress.getLoopbackAddress());
+        this.mode = mode;
+        this.maxBatch = maxBatch;
+        this.syncTimeoutMillis = syncTimeoutMillis;
+        this.maxRetained = maxRetained;
+        this.sender = new Thread(this::serve, "replication-sender");
+        sender.setDaemon(true);
+        sender.start();
+    }
+
+    /**
+     * Start shipping committed account events
+     * @return This leader
+     */
+    public ReplicationLeader start() {
+        AccountEvents.subscribe(this);
+        return this;
+    }
+
+    @Override
+    public void onEvent(AccountEvent event) {
+        append(event);
+    }
+
+    /**
+     * Add an event to the journal and, in synchronous mode, wait for the follower
+     * In asynchronous mode a full journal drops the follower's entries instead of waiting.
+     * @param event Committed event
+     * @return Sequence number of the entry
+     */
+    public long append(AccountEvent event) {
+        long sequence;
+        synchronized (this) {
+            if (retained.size() - head >= maxRetained) {
+                if (mode == Mode.Synchronous && !degraded) {
+                    awaitAck(lastSequence - maxRetained + 1);
+                } else {
+                    discardThrough(lastSequence);
+                    resyncNeeded = true;
+                }
+            }
+            sequence = ++lastSequence;
+            retained.add(new Entry(sequence, event, System.nanoTime()));
+            notifyAll();
+            if (mode == Mode.Synchronous) {
+                awaitAck(sequence);
+            }
+        }
+        return sequence;
+    }
+
+    /**
+     * Wait until the follower has applied an entry
+     * @param sequence Entry sequence
+     * @param timeoutMillis Maximum wait
+     * @return true if acknowledged in time
+     */
+    public synchronized boolean awaitAcknowledged(long sequence, long timeoutMillis) {
+        long deadline = System.nanoTime() + timeoutMillis * 1_000_000L;
+        while (ackedSequence < sequence && !closed) {
+            long left = deadline - System.nanoTime();
+            if (left <= 0) {
+                return false;
+            }
+            try {
+                wait(Math.max(1, left / 1_000_000L));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+        return ackedSequence >= sequence;
+    }
+
+    /**
+     * Wait for a synchronous writer's entry, degrading to asynchronous shipping on timeout; caller holds the monitor
+     */
+    private void awaitAck(long sequence) {
+        long deadline = System.nanoTime() + syncTimeoutMillis * 1_000_000L;
+        while (ackedSequence < sequence && !closed && !degraded) {
+            long left = deadline - System.nanoTime();
+            if (left <= 0) {
+                syncTimeouts++;
+                degraded = true;
+                // Release the other writers waiting on the same follower
+                notifyAll();
+                return;
+            }
+            try {
+                wait(Math.max(1, left / 1_000_000L));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    private void serve() {
+        while (!closed) {
+            try (Socket socket = server.accept()) {
+                socket.setTcpNoDelay(true);
+                connection = socket;
+                DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+                DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+                long followerApplied = in.readLong();
+                synchronized (this) {
+                    acknowledge(followerApplied);
+                    // Entries up to the ack are gone; a follower behind them needs a fresh copy
+                    if (followerApplied < discardedSequence || followerApplied > lastSequence) {
+                        resyncNeeded = true;
+                    }
+                    sentSequence = ackedSequence;
+                }
+                Thread acks = new Thread(() -> readAcks(in, socket), "replication-acks");
+                acks.setDaemon(true);
+                acks.start();
+                ship(out, socket);
+            } catch (IOException e) {
+                // Follower went away; wait for it to reconnect and resume from its last ack
+            } finally {
+                synchronized (this) {
+                    connection = null;
+                }
+            }
+        }
+    }
+
+    private void ship(DataOutputStream out, Socket socket) throws IOException {
+        List<Entry> batch = new ArrayList<>(maxBatch);
+        while (!closed) {
+            batch.clear();
+            long resyncSequence = -1;
+            synchronized (this) {
+                while (!closed && connection == socket && !resyncNeeded && sentSequence >= lastSequence) {
+                    try {
+                        wait();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                }
+                if (closed || connection != socket) {
+                    return;
+                }
+                if (resyncNeeded) {
+                    // Entries journaled from here on are streamed after the copy
+                    resyncNeeded = false;
+                    discardThrough(lastSequence);
+                    resyncSequence = lastSequence;
+                    sentSequence = lastSequence;
+                    resyncs++;
+                } else {
+                    int index = head + (int) (sentSequence + 1 - retained.get(head).sequence);
+                    while (index < retained.size() && batch.size() < maxBatch) {
+                        batch.add(retained.get(index++));
+                    }
+                }
+            }
+            if (resyncSequence >= 0) {
+                sendResync(out, resyncSequence);
+                continue;
+            }
+            out.writeInt(batch.size());
+            for (Entry entry : batch) {
+                out.writeLong(entry.sequence);
+                AccountEventCodec.write(out, entry.event);
+            }
+            out.flush();
+            synchronized (this) {
+                sentSequence = batch.get(batch.size() - 1).sequence;
+                batchesSent++;
+                entriesSent += batch.size();
+            }
+        }
+    }
+
+    /**
+     * Copy every source account to the follower, as of a point after the given sequence
+     */
+    private void sendResync(DataOutputStream out, long sequence) throws IOException {
+        out.writeInt(RESYNC);
+        out.writeLong(sequence);
+        for (Account account : source.findAll()) {
+            out.writeBoolean(true);
+            AccountEventCodec.write(out, AccountEvent.created(account));
+        }
+        out.writeBoolean(false);
+        out.flush();
+    }
+
+    private void readAcks(DataInputStream in, Socket socket) {
+        try {
+            while (true) {
+                long applied = in.readLong();
+                synchronized (this) {
+                    acknowledge(applied);
+                }
+            }
+        } catch (IOException e) {
+            // Wake the sender so it drops this connection and accepts the next one
+            synchronized (this) {
+                if (connection == socket) {
+                    connection = null;
+                }
+                notifyAll();
+            }
+        }
+    }
+
+    /**
+     * Drop entries up to an acknowledged sequence; caller holds the monitor
+     */
+    private void acknowledge(long applied) {
+        applied = Math.min(applied, lastSequence);
+        if (applied > ackedSequence) {
+            ackedSequence = applied;
+            discardThrough(applied);
+            notifyAll();
+        }
+        if (degraded && ackedSequence >= lastSequence) {
+            degraded = false;
+        }
+    }
+
+    /**
+     * Stop retaining entries up to a sequence; caller holds the monitor
+     */
+    private void discardThrough(long sequence) {
+        while (head < retained.size() && retained.get(head).sequence <= sequence) {
+            retained.set(head++, null);
+        }
+        if (head == retained.size()) {
+            retained.clear();
+            head = 0;
+        } else if (head > 1024 && head * 2 > retained.size()) {
+            retained.subList(0, head).clear();
+            head = 0;
+        }
+        discardedSequence = Math.max(discardedSequence, sequence);
+    }
+
+    public int getPort() {
+        return server.getLocalPort();
+    }
+
+    public Mode getMode() {
+        return mode;
+    }
+
+    /**
+     * @return true while a follower is connected
+     */
+    public boolean isFollowerConnected() {
+        return connection != null;
+    }
+
+    public synchronized long getLastSequence() {
+        return lastSequence;
+    }
+
+    public long getAckedSequence() {
+        return ackedSequence;
+    }
+
+    /**
+     * @return Journal entries committed here but not yet applied by the follower
+     */
+    public synchronized long getLagEntries() {
+        return lastSequence - ackedSequence;
+    }
+
+    /**
+     * @return Age of the oldest unacknowledged entry in milliseconds, 0 when caught up
+     */
+    public synchronized long getLagMillis() {
+        if (head >= retained.size()) {
+            return 0;
+        }
+        return (System.nanoTime() - retained.get(head).appendedNanos) / 1_000_000L;
+    }
+
+    public synchronized long getBatchesSent() {
+        return batchesSent;
+    }
+
+    /**
+     * @return Mean entries per frame sent so far
+     */
+    public synchronized double getAverageBatchSize() {
+        return batchesSent == 0 ? 0 : (double) entriesSent / batchesSent;
+    }
+
+    /**
+     * @return true while synchronous mode ships asynchronously after a sync timeout
+     */
+    public synchronized boolean isDegraded() {
+        return degraded;
+    }
+
+    /**
+     * @return Writers that stopped waiting for the follower after the sync timeout, each degrading the leader
+     */
+    public synchronized long getSyncTimeouts() {
+        return syncTimeouts;
+    }
+
+    /**
+     * @return Full copies of the source repository sent to followers
+     */
+    public synchronized long getResyncs() {
+        return resyncs;
+    }
+
+    /**
+     * Stop shipping and disconnect the follower
+     */
+    @Override
+    public void close() throws IOException {
+        AccountEvents.unsubscribe(this);
+        synchronized (this) {
+            closed = true;
+            notifyAll();
+        }
+        server.close();
+        Socket socket = connection;
+        if (socket != null) {
+            socket.close();
+        }
+    }
+}
@@ -0,0 +1,238 @@
+package com.banking.scheduling;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Append-only journal of schedule changes and runs
+ *
+ * Each record is (length int, type byte, fields). Records are buffered
+ * and written with one write and one sync per call, so a batch of runs
+ * costs a single sync. A record torn by a crash is cut off on open.
+ */
+final class ScheduleJournal implements Closeable {
+
+    private static final byte SCHEDULE = 1;
+    private static final byte CANCEL = 2;
+    private static final byte FIRED = 3;
+    private static final byte DONE = 4;
+    // Carries only the highest order id handed out; written by compaction
+    private static final byte HIGH_WATER = 5;
+
+    private final Path file;
+    private FileChannel channel;
+    private final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    private final DataOutputStream out = new DataOutputStream(bytes);
+    private final ByteArrayOutputStream record = new ByteArrayOutputStream();
+    private final DataOutputStream recordOut = new DataOutputStream(record);
+
+    // State rebuilt on open
+    private final Map<Long, ScheduledTransfer> pending = new LinkedHashMap<>();
+    private final Map<Long, List<Long>> inDoubt = new LinkedHashMap<>();
+    private long maxId;
+
+    ScheduleJournal(Path file) throws IOException {
+        this.file = file;
+        Path parent = file.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        long valid = replay();
+        channel.truncate(valid);
+        channel.position(valid);
+    }
+
+    private long replay() throws IOException {
+        ByteBuffer data = ByteBuffer.allocate((int) channel.size());
+        while (data.hasRemaining() && channel.read(data, data.position()) >= 0) {
+            // keep reading until the whole file is buffered
+        }
+        data.flip();
+        long valid = 0;
+        while (data.remaining() >= 4) {
+            int length = data.getInt();
+            if (length <= 0 || length > data.remaining()) {
+                break;
+            }
+            byte[] body = new byte[length];
+            data.get(body);
+            apply(new DataInputStream(new ByteArrayInputStream(body)));
+            valid = data.position();
+        }
+        return valid;
+    }
+
+    private void apply(DataInputStream in) throws IOException {
+        byte type = in.readByte();
+        long id = in.readLong();
+        maxId = Math.max(maxId, id);
+        switch (type) {
+            case SCHEDULE: {
+                long due = in.readLong();
+                int senderId = in.readInt();
+                long cents = in.readLong();
+                long interval = in.readLong();
+                String card = in.readUTF();
+                String description = in.readUTF();
+                pending.put(id, new ScheduledTransfer(id, senderId, card, cents, description, due, interval));
+                break;
+            }
+            case CANCEL:
+                pending.remove(id);
+                break;
+            case FIRED: {
+                long due = in.readLong();
+                inDoubt.computeIfAbsent(id, k -> new ArrayList<>()).add(due);
+                ScheduledTransfer transfer = pending.get(id);
+                if (transfer != null) {
+                    if (transfer.isRecurring()) {
+                        transfer.setNextRunMillis(due + transfer.getIntervalMillis());
+                    } else {
+                        pending.remove(id);
+                    }
+                }
+                break;
+            }
+            case DONE: {
+                long due = in.readLong();
+                List<Long> runs = inDoubt.get(id);
+                if (runs != null && runs.remove(Long.valueOf(due)) && runs.isEmpty()) {
+                    inDoubt.remove(id);
+                }
+                break;
+            }
+            case HIGH_WATER:
+                break;
+            default:
+                throw new IOException("Unknown schedule record type " + type);
+        }
+    }
+
+    /**
+     * @return Orders still pending after replay, by id
+     */
+    Map<Long, ScheduledTransfer> pending() {
+        return pending;
+    }
+
+    /**
+     * @return Runs journaled as fired without a matching completion: order id to due times
+     */
+    Map<Long, List<Long>> inDoubt() {
+        return inDoubt;
+    }
+
+    /**
+     * @return Highest order id found in the journal, including the high-water mark
+     */
+    long maxId() {
+        return maxId;
+    }
+
+    void schedule(ScheduledTransfer transfer) throws IOException {
+        begin(SCHEDULE, transfer.getId());
+        recordOut.writeLong(transfer.getNextRunMillis());
+        recordOut.writeInt(transfer.getSenderId());
+        recordOut.writeLong(transfer.getCents());
+        recordOut.writeLong(transfer.getIntervalMillis());
+        recordOut.writeUTF(transfer.getRecipientCardNumber());
+        recordOut.writeUTF(transfer.getDescription() == null ? "" : transfer.getDescription());
+        end();
+    }
+
+    void cancel(long id) throws IOException {
+        begin(CANCEL, id);
+        end();
+    }
+
+    void fired(long id, long dueMillis) throws IOException {
+        begin(FIRED, id);
+        recordOut.writeLong(dueMillis);
+        end();
+    }
+
+    void done(long id, long dueMillis) throws IOException {
+        begin(DONE, id);
+        recordOut.writeLong(dueMillis);
+        end();
+    }
+
+    /**
+     * Write and sync every record added since the last flush
+     */
+    void flush() throws IOException {
+        if (bytes.size() == 0) {
+            return;
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(bytes.toByteArray());
+        bytes.reset();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        channel.force(false);
+    }
+
+    /**
+     * Replace the journal with the order id high-water mark, one schedule record
+     * per pending order and one fired record per in-doubt run
+     * @param highWater Highest order id handed out so far
+     */
+    void rewrite(Collection<ScheduledTransfer> orders, Map<Long, List<Long>> unresolved, long highWater)
+            throws IOException {
+        flush();
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        begin(HIGH_WATER, highWater);
+        end();
+        for (Map.Entry<Long, List<Long>> runs : unresolved.entrySet()) {
+            for (long due : runs.getValue()) {
+                fired(runs.getKey(), due);
+            }
+        }
+        for (ScheduledTransfer order : orders) {
+            schedule(order);
+        }
+        Files.write(temp, bytes.toByteArray());
+        bytes.reset();
+        try (FileChannel sync = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+            sync.force(true);
+        }
+        channel.close();
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        channel.position(channel.size());
+    }
+
+    private void begin(byte type, long id) throws IOException {
+        record.reset();
+        recordOut.writeByte(type);
+        recordOut.writeLong(id);
+    }
+
+    private void end() throws IOException {
+        out.writeInt(record.size());
+        record.writeTo(out);
+    }
+
+    @Override
+    public void close() throws IOException {
+        flush();
+        channel.close();
+    }
+}
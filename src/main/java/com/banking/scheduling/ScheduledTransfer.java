@@ -0,0 +1,78 @@
+package com.banking.scheduling;
+
+import com.banking.entities.Money;
+
+/**
+ * A future-dated or standing transfer order
+ */
+public final class ScheduledTransfer {
+
+    private final long id;
+    private final int senderId;
+    private final String recipientCardNumber;
+    private final long cents;
+    private final String description;
+    private final long intervalMillis;
+    // Guarded by the owning scheduler
+    private long nextRunMillis;
+
+    ScheduledTransfer(long id, int senderId, String recipientCardNumber, long cents, String description,
+                      long nextRunMillis, long intervalMillis) {
+        this.id = id;
+        this.senderId = senderId;
+        this.recipientCardNumber = recipientCardNumber;
+        this.cents = cents;
+        this.description = description;
+        this.nextRunMillis = nextRunMillis;
+        this.intervalMillis = intervalMillis;
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    public int getSenderId() {
+        return senderId;
+    }
+
+    public String getRecipientCardNumber() {
+        return recipientCardNumber;
+    }
+
+    public long getCents() {
+        return cents;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    /**
+     * @return Time between runs, or 0 for a one-off transfer
+     */
+    public long getIntervalMillis() {
+        return intervalMillis;
+    }
+
+    public boolean isRecurring() {
+        return intervalMillis > 0;
+    }
+
+    /**
+     * @return Due time of the next run
+     */
+    public long getNextRunMillis() {
+        return nextRunMillis;
+    }
+
+    void setNextRunMillis(long nextRunMillis) {
+        this.nextRunMillis = nextRunMillis;
+    }
+
+    @Override
+    public String toString() {
+        return "ScheduledTransfer[" + id + ": " + senderId + " -> " + recipientCardNumber + ", "
+                + Money.format(cents) + ", next=" + nextRunMillis
+                + (isRecurring() ? ", every " + intervalMillis + " ms" : "") + "]";
+    }
+}
@@ -0,0 +1,252 @@
+package com.banking.scheduling;
+
+import java.util.function.Consumer;
+
+/**
+ * Hierarchical timing wheel
+ *
+ * Time is counted in ticks. Each of the {@value #LEVELS} levels has 64
+ * slots; a level-k slot spans 64^k ticks, so the levels together cover the
+ * whole range of a long. A timer goes to the level of the highest 6-bit
+ * group in which its deadline differs from the current tick, which makes
+ * scheduling and cancelling O(1): a slot is an intrusive doubly-linked
+ * list and an occupancy bitmap per level marks the non-empty slots. When
+ * time reaches the start of a higher-level slot, its timers cascade down
+ * to lower levels. Advancing jumps straight from one occupied slot to the
+ * next through the bitmaps, so idle stretches cost nothing however short
+ * the tick.
+ *
+ * Timers fire on the first advance at or after their deadline tick, in
+ * deadline order and, for equal deadlines, in scheduling order. Timers
+ * that are already due when scheduled fire first, in scheduling order.
+ *
+ * Not thread-safe; callers synchronize.
+ *
+ * @param <T> Value carried by each timer
+ */
+public class TimingWheel<T> {
+
+    static final int LEVELS = 11;
+    private static final int SLOT_BITS = 6;
+    private static final int SLOTS = 1 << SLOT_BITS;
+    private static final long SLOT_MASK = SLOTS - 1;
+
+    private final long tickMillis;
+    private final Slot<T>[][] slots;
+    private final long[] occupied = new long[LEVELS];
+    // Timers whose deadline had already passed when they were scheduled
+    private final Slot<T> overdue = new Slot<>(-1, -1);
+    private long currentTick;
+    private int size;
+
+    /**
+     * @param tickMillis Length of a tick
+     * @param startMillis Time the wheel starts at; never negative
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public TimingWheel(long tickMillis, long startMillis) {
+        if (tickMillis <= 0 || startMillis < 0) {
+            throw new IllegalArgumentException("Tick must be positive and start time non-negative");
+        }
+        this.tickMillis = tickMillis;
+        this.currentTick = startMillis / tickMillis;
+        this.slots = new Slot[LEVELS][SLOTS];
+        for (int level = 0; level < LEVELS; level++) {
+            for (int index = 0; index < SLOTS; index++) {
+                slots[level][index] = new Slot<>(level, index);
+            }
+        }
+    }
+
+    /**
+     * Schedule a value
+     * @param deadlineMillis Time to fire at; rounded up to a whole tick
+     * @param value Value handed back when the timer fires
+     * @return Handle for {@link #cancel(Timer)}
+     */
+    public Timer<T> schedule(long deadlineMillis, T value) {
+        long ticks = Math.max(0, deadlineMillis) / tickMillis;
+        if (ticks * tickMillis < deadlineMillis) {
+            ticks++;
+        }
+        Timer<T> timer = new Timer<>(ticks, value);
+        place(timer);
+        size++;
+        return timer;
+    }
+
+    /**
+     * Remove a timer that has not fired yet
+     * @param timer Handle returned by {@link #schedule(long, Object)}
+     * @return true if the timer was pending
+     */
+    public boolean cancel(Timer<T> timer) {
+        if (timer.slot == null) {
+            return false;
+        }
+        unlink(timer);
+        size--;
+        return true;
+    }
+
+    /**
+     * Move time forward and fire every timer that became due
+     * @param nowMillis Current time; earlier times than a previous call fire nothing
+     * @param expired Receives each due timer's value, in deadline order
+     */
+    public void advance(long nowMillis, Consumer<T> expired) {
+        fire(overdue, expired);
+        long target = nowMillis / tickMillis;
+        while (true) {
+            long tick = nextEventTick();
+            if (tick > target) {
+                currentTick = Math.max(currentTick, target);
+                return;
+            }
+            currentTick = tick;
+            // Higher levels first, so their timers can still land in this tick's level-0 slot
+            for (int level = LEVELS - 1; level > 0; level--) {
+                int shift = level * SLOT_BITS;
+                if (shift < 64 && (tick & ((1L << shift) - 1)) == 0) {
+                    Slot<T> slot = slots[level][(int) ((tick >>> shift) & SLOT_MASK)];
+                    Timer<T> timer = slot.head;
+                    while (timer != null) {
+                        Timer<T> next = timer.next;
+                        unlink(timer);
+                        place(timer);
+                        timer = next;
+                    }
+                }
+            }
+            // Cascaded timers due exactly now land in overdue
+            fire(overdue, expired);
+            fire(slots[0][(int) (tick & SLOT_MASK)], expired);
+        }
+    }
+
+    /**
+     * @return Earliest tick after the current one at which a slot starts holding due or cascading timers
+     */
+    private long nextEventTick() {
+        long best = Long.MAX_VALUE;
+        for (int level = 0; level < LEVELS; level++) {
+            if (occupied[level] == 0) {
+                continue;
+            }
+            int shift = level * SLOT_BITS;
+            int group = (int) ((currentTick >>> shift) & SLOT_MASK);
+            long above = group == SLOTS - 1 ? 0 : occupied[level] & (-1L << (group + 1));
+            if (above == 0) {
+                continue;
+            }
+            long index = Long.numberOfTrailingZeros(above);
+            int upper = shift + SLOT_BITS;
+            long high = upper >= 64 ? 0 : (currentTick >>> upper) << upper;
+            best = Math.min(best, high | (index << shift));
+        }
+        return best;
+    }
+
+    private void place(Timer<T> timer) {
+        long deadline = timer.deadlineTick;
+        if (deadline <= currentTick) {
+            append(overdue, timer);
+            return;
+        }
+        int level = (63 - Long.numberOfLeadingZeros(deadline ^ currentTick)) / SLOT_BITS;
+        int index = (int) ((deadline >>> (level * SLOT_BITS)) & SLOT_MASK);
+        append(slots[level][index], timer);
+        occupied[level] |= 1L << index;
+    }
+
+    private void fire(Slot<T> slot, Consumer<T> expired) {
+        while (slot.head != null) {
+            Timer<T> timer = slot.head;
+            unlink(timer);
+            size--;
+            expired.accept(timer.value);
+        }
+    }
+
+    private void append(Slot<T> slot, Timer<T> timer) {
+        timer.slot = slot;
+        timer.prev = slot.tail;
+        timer.next = null;
+        if (slot.tail == null) {
+            slot.head = timer;
+        } else {
+            slot.tail.next = timer;
+        }
+        slot.tail = timer;
+    }
+
+    private void unlink(Timer<T> timer) {
+        Slot<T> slot = timer.slot;
+        if (timer.prev == null) {
+            slot.head = timer.next;
+        } else {
+            timer.prev.next = timer.next;
+        }
+        if (timer.next == null) {
+            slot.tail = timer.prev;
+        } else {
+            timer.next.prev = timer.prev;
+        }
+        if (slot.head == null && slot.level >= 0) {
+            occupied[slot.level] &= ~(1L << slot.index);
+        }
+        timer.slot = null;
+        timer.prev = null;
+        timer.next = null;
+    }
+
+    /**
+     * @return Timers scheduled and not yet fired or cancelled
+     */
+    public int size() {
+        return size;
+    }
+
+    public long getTickMillis() {
+        return tickMillis;
+    }
+
+    /**
+     * Pending timer; doubles as the list node of its slot
+     */
+    public static final class Timer<T> {
+        private final long deadlineTick;
+        private final T value;
+        private Slot<T> slot;
+        private Timer<T> prev;
+        private Timer<T> next;
+
+        private Timer(long deadlineTick, T value) {
+            this.deadlineTick = deadlineTick;
+            this.value = value;
+        }
+
+        public T getValue() {
+            return value;
+        }
+
+        /**
+         * @return true until the timer fires or is cancelled
+         */
+        public boolean isPending() {
+            return slot != null;
+        }
+    }
+
+    private static final class Slot<T> {
+        final int level;
+        final int index;
+        Timer<T> head;
+        Timer<T> tail;
+
+        Slot(int level, int index) {
+            this.level = level;
+            this.index = index;
+        }
+    }
+}
@@ -0,0 +1,411 @@
+package com.banking.scheduling;
+
+import com.banking.entities.Account;
+import com.banking.entities.Money;
+import com.banking.scheduling.TimingWheel.Timer;
+import com.banking.services.TransactionService;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * In-process scheduler for future-dated and standing transfers
+ *
+ * Orders wait in a {@link TimingWheel}, so scheduling and cancelling are
+ * O(1) however many orders are pending. Each run collects every due order
+ * and executes them in batches of {@value #BATCH_SIZE} through
+ * {@link TransactionService#processTransfer}, so the service's rolling caps
+ * and fraud checks apply as usual.
+ *
+ * Every change is journaled before it takes effect. A batch is journaled as
+ * fired, with one sync, before any of its transfers runs, and as done after
+ * they all ran. On restart the journal is replayed: a run journaled as fired
+ * is never repeated, so a crash cannot duplicate a transfer, and runs that
+ * were due while the process was down fire after restart. A run fired but
+ * not done, because the process stopped or the transfer threw, may or may
+ * not have moved money; it is reported by {@link #getInDoubt()} for
+ * reconciliation at once, and again after a restart until resolved.
+ *
+ * Each call to {@link #runDue()} executes every due order at most once, so a
+ * recurring order that missed several runs catches up one run per call
+ * rather than firing the whole backlog under the lock. A run that fails,
+ * e.g. for lack of funds, or throws is not retried; a recurring order still
+ * moves on to its next run.
+ */
+public class TransferScheduler implements Closeable {
+
+    public static final long DEFAULT_TICK_MILLIS = 1000;
+    static final int BATCH_SIZE = 1024;
+
+    private final TransactionService service;
+    private final ScheduleJournal journal;
+    private final LongSupplier clock;
+    private final TimingWheel<ScheduledTransfer> wheel;
+    private final Map<Long, Timer<ScheduledTransfer>> timers = new HashMap<>();
+    private final Map<Long, List<Long>> inDoubt = new LinkedHashMap<>();
+    private ScheduledExecutorService runner;
+    private long nextId;
+    private long executedRuns;
+    private long failedRuns;
+    private RuntimeException lastFailure;
+
+    /**
+     * One-second ticks on the system clock
+     * @param service Service that executes the transfers
+     * @param journalFile Journal file; created if missing, replayed otherwise
+     */
+    public TransferScheduler(TransactionService service, Path journalFile) {
+        this(service, journalFile, DEFAULT_TICK_MILLIS, System::currentTimeMillis);
+    }
+
+    /**
+     * @param service Service that executes the transfers
+     * @param journalFile Journal file; created if missing, replayed otherwise
+     * @param tickMillis Resolution of due times
+     * @param clock Current time in epoch milliseconds
+     */
+    public TransferScheduler(TransactionService service, Path journalFile, long tickMillis, LongSupplier clock) {
+        this.service = service;
+        this.clock = clock;
+        try {
+            this.journal = new ScheduleJournal(journalFile);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot open schedule journal " + journalFile, e);
+        }
+        this.wheel = new TimingWheel<>(tickMillis, clock.getAsLong());
+        this.nextId = journal.maxId() + 1;
+        for (Map.Entry<Long, List<Long>> runs : journal.inDoubt().entrySet()) {
+            inDoubt.put(runs.getKey(), new ArrayList<>(runs.getValue()));
+        }
+        for (ScheduledTransfer transfer : journal.pending().values()) {
+            timers.put(transfer.getId(), wheel.schedule(transfer.getNextRunMillis(), transfer));
+        }
+    }
+
+    /**
+     * Schedule a one-off transfer
+     * @param senderId Sender account ID
+     * @param recipientCardNumber Recipient card number
+     * @param amount Amount to transfer
+     * @param description Transfer description
+     * @param runAtMillis Due time
+     * @return Order ID
+     */
+    public long scheduleOnce(int senderId, String recipientCardNumber, double amount,
+                             String description, long runAtMillis) {
+        return scheduleOnceCents(senderId, recipientCardNumber, Money.fromPositiveAmount(amount), description,
+                runAtMillis);
+    }
+
+    /**
+     * Schedule a one-off transfer
+     * @param senderId Sender account ID
+     * @param recipientCardNumber Recipient card number
+     * @param cents Amount to transfer in cents
+     * @param description Transfer description
+     * @param runAtMillis Due time
+     * @return Order ID
+     */
+    public synchronized long scheduleOnceCents(int senderId, String recipientCardNumber, long cents,
+                                               String description, long runAtMillis) {
+        return add(senderId, recipientCardNumber, cents, description, runAtMillis, 0);
+    }
+
+    /**
+     * Schedule a standing order
+     * @param senderId Sender account ID
+     * @param recipientCardNumber Recipient card number
+     * @param amount Amount of each transfer
+     * @param description Transfer description
+     * @param firstRunMillis Due time of the first transfer
+     * @param intervalMillis Time between transfers
+     * @return Order ID
+     */
+    public long scheduleRecurring(int senderId, String recipientCardNumber, double amount,
+                                  String description, long firstRunMillis, long intervalMillis) {
+        return scheduleRecurringCents(senderId, recipientCardNumber, Money.fromPositiveAmount(amount),
+                description, firstRunMillis, intervalMillis);
+    }
+
+    /**
+     * Schedule a standing order
+     * @param senderId Sender account ID
+     * @param recipientCardNumber Recipient card number
+     * @param cents Amount of each transfer in cents
+     * @param description Transfer description
+     * @param firstRunMillis Due time of the first transfer
+     * @param intervalMillis Time between transfers
+     * @return Order ID
+     */
+    public synchronized long scheduleRecurringCents(int senderId, String recipientCardNumber, long cents,
+                                                    String description, long firstRunMillis,
+                                                    long intervalMillis) {
+        if (intervalMillis <= 0) {
+            throw new IllegalArgumentException("Interval must be positive");
+        }
+        return add(senderId, recipientCardNumber, cents, description, firstRunMillis, intervalMillis);
+    }
+
+    private long add(int senderId, String recipientCardNumber, long cents, String description,
+                     long runAtMillis, long intervalMillis) {
+        if (cents <= 0 || recipientCardNumber == null) {
+            throw new IllegalArgumentException("Invalid amount or recipient");
+        }
+        ScheduledTransfer transfer = new ScheduledTransfer(nextId++, senderId, recipientCardNumber, cents,
+                description, runAtMillis, intervalMillis);
+        try {
+            journal.schedule(transfer);
+            journal.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot journal scheduled transfer", e);
+        }
+        timers.put(transfer.getId(), wheel.schedule(runAtMillis, transfer));
+        return transfer.getId();
+    }
+
+    /**
+     * Cancel an order; runs already fired are not undone
+     * @param id Order ID
+     * @return true if the order was pending
+     */
+    public synchronized boolean cancel(long id) {
+        Timer<ScheduledTransfer> timer = timers.get(id);
+        if (timer == null) {
+            return false;
+        }
+        try {
+            journal.cancel(id);
+            journal.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot journal cancellation", e);
+        }
+        timers.remove(id);
+        wheel.cancel(timer);
+        return true;
+    }
+
+    /**
+     * Execute every order that is due now, each at most once
+     * Recurring orders still behind after their run are due again on the next call.
+     * @return Number of runs executed, successful or not
+     */
+    public synchronized int runDue() {
+        List<ScheduledTransfer> due = new ArrayList<>();
+        wheel.advance(clock.getAsLong(), due::add);
+        for (int from = 0; from < due.size(); from += BATCH_SIZE) {
+            List<ScheduledTransfer> batch = due.subList(from, Math.min(due.size(), from + BATCH_SIZE));
+            try {
+                execute(batch);
+            } catch (UncheckedIOException e) {
+                // Nothing of the remaining batches was fired; they are due again on the next call
+                for (ScheduledTransfer transfer : due.subList(from + batch.size(), due.size())) {
+                    timers.put(transfer.getId(), wheel.schedule(transfer.getNextRunMillis(), transfer));
+                }
+                throw e;
+            }
+        }
+        return due.size();
+    }
+
+    private void execute(List<ScheduledTransfer> batch) {
+        try {
+            for (ScheduledTransfer transfer : batch) {
+                journal.fired(transfer.getId(), transfer.getNextRunMillis());
+            }
+            journal.flush();
+        } catch (IOException e) {
+            // The runs may or may not be journaled as fired, so none of them runs now
+            reschedule(batch, false);
+            throw new UncheckedIOException("Cannot journal scheduled runs", e);
+        }
+        try {
+            for (ScheduledTransfer transfer : batch) {
+                long dueMillis = transfer.getNextRunMillis();
+                boolean success;
+                try {
+                    Account sender = service.getRepository().findById(transfer.getSenderId());
+                    success = service.processTransferCents(sender, transfer.getRecipientCardNumber(),
+                            transfer.getCents(), transfer.getDescription());
+                } catch (RuntimeException e) {
+                    // The run stays fired in the journal, exactly like one cut short by a crash
+                    inDoubt.computeIfAbsent(transfer.getId(), id -> new ArrayList<>()).add(dueMillis);
+                    lastFailure = e;
+                    continue;
+                }
+                if (success) {
+                    executedRuns++;
+                } else {
+                    failedRuns++;
+                }
+                journal.done(transfer.getId(), dueMillis);
+            }
+            journal.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot journal completed runs", e);
+        } finally {
+            reschedule(batch, true);
+        }
+    }
+
+    /**
+     * Put fired orders back on the wheel
+     * @param ran Whether the runs took place; recurring orders then move on to their next run
+     */
+    private void reschedule(List<ScheduledTransfer> batch, boolean ran) {
+        for (ScheduledTransfer transfer : batch) {
+            if (!ran) {
+                timers.put(transfer.getId(), wheel.schedule(transfer.getNextRunMillis(), transfer));
+            } else if (transfer.isRecurring()) {
+                transfer.setNextRunMillis(transfer.getNextRunMillis() + transfer.getIntervalMillis());
+                timers.put(transfer.getId(), wheel.schedule(transfer.getNextRunMillis(), transfer));
+            } else {
+                timers.remove(transfer.getId());
+            }
+        }
+    }
+
+    /**
+     * Run due transfers in the background
+     * @param periodMillis Delay between runs
+     * @return This scheduler
+     */
+    public synchronized TransferScheduler start(long periodMillis) {
+        if (runner != null) {
+            return this;
+        }
+        runner = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "transfer-scheduler");
+            thread.setDaemon(true);
+            return thread;
+        });
+        runner.scheduleWithFixedDelay(this::runScheduled, periodMillis, periodMillis, TimeUnit.MILLISECONDS);
+        return this;
+    }
+
+    private void runScheduled() {
+        try {
+            runDue();
+        } catch (RuntimeException e) {
+            // An exception would cancel the fixed-delay task; record it and try again next period
+            synchronized (this) {
+                lastFailure = e;
+            }
+        }
+    }
+
+    /**
+     * @param id Order ID
+     * @return Pending order, or null if it ran, was cancelled or never existed
+     */
+    public synchronized ScheduledTransfer get(long id) {
+        Timer<ScheduledTransfer> timer = timers.get(id);
+        return timer == null ? null : timer.getValue();
+    }
+
+    /**
+     * @return Number of pending orders
+     */
+    public synchronized int size() {
+        return timers.size();
+    }
+
+    /**
+     * @return Runs fired but not done, found in the journal or cut short by an exception: order ID to due times
+     */
+    public synchronized Map<Long, List<Long>> getInDoubt() {
+        Map<Long, List<Long>> copy = new LinkedHashMap<>();
+        for (Map.Entry<Long, List<Long>> runs : inDoubt.entrySet()) {
+            copy.put(runs.getKey(), new ArrayList<>(runs.getValue()));
+        }
+        return copy;
+    }
+
+    /**
+     * Mark every in-doubt run of an order as reconciled
+     * @param id Order ID
+     * @return true if the order had a run in doubt
+     */
+    public synchronized boolean resolveInDoubt(long id) {
+        List<Long> runs = inDoubt.get(id);
+        if (runs == null) {
+            return false;
+        }
+        try {
+            for (long dueMillis : runs) {
+                journal.done(id, dueMillis);
+            }
+            journal.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot journal resolution", e);
+        }
+        inDoubt.remove(id);
+        return true;
+    }
+
+    /**
+     * Rewrite the journal down to the pending orders and the runs still in doubt
+     * The highest order ID handed out is kept too, so IDs are never reused after a restart.
+     */
+    public synchronized void compact() {
+        List<ScheduledTransfer> orders = new ArrayList<>(timers.size());
+        for (Timer<ScheduledTransfer> timer : timers.values()) {
+            orders.add(timer.getValue());
+        }
+        try {
+            journal.rewrite(orders, inDoubt, nextId - 1);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot compact schedule journal", e);
+        }
+    }
+
+    public synchronized long getExecutedRuns() {
+        return executedRuns;
+    }
+
+    /**
+     * @return Runs whose transfer was refused, e.g. for lack of funds
+     */
+    public synchronized long getFailedRuns() {
+        return failedRuns;
+    }
+
+    /**
+     * @return Most recent exception from a transfer or a background run, or null
+     */
+    public synchronized RuntimeException getLastFailure() {
+        return lastFailure;
+    }
+
+    /**
+     * Stop background runs and close the journal
+     */
+    @Override
+    public void close() throws IOException {
+        ScheduledExecutorService running;
+        synchronized (this) {
+            running = runner;
+            runner = null;
+        }
+        if (running != null) {
+            running.shutdown();
+            try {
+                running.awaitTermination(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        synchronized (this) {
+            journal.close();
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package com.banking.scoring;
+
+import com.banking.entities.CreditScoreAccount;
+
+/**
+ * Event-driven credit score adjustments to evaluate in a simulation
+ *
+ * Mirrors the adjustment constants of {@link CreditScoreAccount};
+ * {@link #CURRENT} holds their live values. Recalculations use
+ * {@link CreditScoreAccount#computeScore} under every policy.
+ */
+public final class CreditPolicy {
+
+    public static final CreditPolicy CURRENT = new CreditPolicy("current",
+            CreditScoreAccount.DEPOSIT_BONUS, CreditScoreAccount.DEPOSITS_PER_BONUS,
+            CreditScoreAccount.OVERDRAFT_PENALTY, CreditScoreAccount.SUSPENSION_PENALTY,
+            CreditScoreAccount.APPEAL_RECOVERY, CreditScoreAccount.LIMIT_CENTS_PER_POINT);
+
+    private final String name;
+    private final int depositBonus;
+    private final int depositsPerBonus;
+    private final int overdraftPenalty;
+    private final int suspensionPenalty;
+    private final int appealRecovery;
+    private final long limitCentsPerPoint;
+
+    /**
+     * @param name Label shown in results
+     * @param depositBonus Points added when a deposit brings the successful transactions to a multiple of depositsPerBonus
+     * @param depositsPerBonus Successful transactions per deposit bonus
+     * @param overdraftPenalty Points removed for a withdrawal exceeding the balance
+     * @param suspensionPenalty Points removed on suspension
+     * @param appealRecovery Points added on a successful appeal
+     * @param limitCentsPerPoint Transaction limit per score point, in cents
+     */
+    public CreditPolicy(String name, int depositBonus, int depositsPerBonus, int overdraftPenalty,
+                        int suspensionPenalty, int appealRecovery, long limitCentsPerPoint) {
+        if (depositsPerBonus <= 0) {
+            throw new IllegalArgumentException("Deposits per bonus must be positive");
+        }
+        if (limitCentsPerPoint < 0) {
+            throw new IllegalArgumentException("Limit per point must not be negative");
+        }
+        this.name = name;
+        this.depositBonus = depositBonus;
+        this.depositsPerBonus = depositsPerBonus;
+        this.overdraftPenalty = overdraftPenalty;
+        this.suspensionPenalty = suspensionPenalty;
+        this.appealRecovery = appealRecovery;
+        this.limitCentsPerPoint = limitCentsPerPoint;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getDepositBonus() {
+        return depositBonus;
+    }
+
+    public int getDepositsPerBonus() {
+        return depositsPerBonus;
+    }
+
+    public int getOverdraftPenalty() {
+        return overdraftPenalty;
+    }
+
+    public int getSuspensionPenalty() {
+        return suspensionPenalty;
+    }
+
+    public int getAppealRecovery() {
+        return appealRecovery;
+    }
+
+    public long getLimitCentsPerPoint() {
+        return limitCentsPerPoint;
+    }
+
+    /**
+     * @param score Credit score
+     * @return Transaction limit in cents under this policy
+     */
+    public long limitCents(int score) {
+        return score * limitCentsPerPoint;
+    }
+
+    @Override
+    public String toString() {
+        return name + " [depositBonus=" + depositBonus + "/" + depositsPerBonus
+                + ", overdraftPenalty=" + overdraftPenalty + ", suspensionPenalty=" + suspensionPenalty
+                + ", appealRecovery=" + appealRecovery + ", limitCentsPerPoint=" + limitCentsPerPoint + "]";
+    }
+}
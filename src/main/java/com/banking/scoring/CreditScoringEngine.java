@@ -0,0 +1,134 @@
+package com.banking.scoring;
+
+import com.banking.dao.AccountRepository;
+import com.banking.dao.IdRangeTask;
+import com.banking.entities.Account;
+import com.banking.entities.AccountState;
+import com.banking.entities.CreditScoreAccount;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Bulk credit score recalculation
+ *
+ * The id space is split on a fork/join pool by {@link IdRangeTask}, and
+ * ranges of at most leafSpan ids are scored on one worker by walking the
+ * repository's range view. A leaf copies its accounts' factors into
+ * {@link ScoreColumns}, taking each account's balance and status from a
+ * single committed version, scores the columns with a {@link ScoreKernel}
+ * and installs the results.
+ * A result is only installed over the version it was computed from; an
+ * account changed in between is rescored from its new version instead.
+ * Workers count scores into their own tallies, which are merged on the way
+ * back up, so there is no shared state besides the accounts.
+ */
+public class CreditScoringEngine {
+
+    public static final int DEFAULT_LEAF_SPAN = 4096;
+
+    private final int parallelism;
+    private final int leafSpan;
+    private final ScoreKernel kernel;
+
+    public CreditScoringEngine() {
+        this(Runtime.getRuntime().availableProcessors(), DEFAULT_LEAF_SPAN);
+    }
+
+    /**
+     * @param parallelism Worker threads
+     * @param leafSpan Largest id range scored by one task
+     */
+    public CreditScoringEngine(int parallelism, int leafSpan) {
+        this(parallelism, leafSpan, ScoreKernels.best());
+    }
+
+    /**
+     * @param parallelism Worker threads
+     * @param leafSpan Largest id range scored by one task
+     * @param kernel Kernel that computes the scores of a leaf
+     */
+    public CreditScoringEngine(int parallelism, int leafSpan, ScoreKernel kernel) {
+        if (parallelism <= 0 || leafSpan <= 0) {
+            throw new IllegalArgumentException("Parallelism and leaf span must be positive");
+        }
+        if (kernel == null) {
+            throw new IllegalArgumentException("Kernel is required");
+        }
+        this.parallelism = parallelism;
+        this.leafSpan = leafSpan;
+        this.kernel = kernel;
+    }
+
+    /**
+     * Recalculate the score of every credit score account in a repository
+     * @param repository Accounts to rescore; other account kinds are skipped
+     * @return Score distribution before and after
+     */
+    public ScoreDistributionReport recalculateAll(AccountRepository repository) {
+        long started = System.nanoTime();
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            ScoreDistributionReport.Tally tally = pool.invoke(
+                    new RangeTask(repository, IdRangeTask.FIRST_ID, IdRangeTask.END_ID));
+            return new ScoreDistributionReport(tally, (System.nanoTime() - started) / 1_000_000L);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Scores the credit score accounts of one id range
+     */
+    private class RangeTask extends IdRangeTask<ScoreDistributionReport.Tally> {
+        private static final long serialVersionUID = 1L;
+
+        RangeTask(AccountRepository repository, long from, long to) {
+            super(repository, from, to, leafSpan);
+        }
+
+        @Override
+        protected IdRangeTask<ScoreDistributionReport.Tally> subtask(long lo, long hi) {
+            return new RangeTask(repository, lo, hi);
+        }
+
+        @Override
+        protected ScoreDistributionReport.Tally empty() {
+            return new ScoreDistributionReport.Tally();
+        }
+
+        @Override
+        protected ScoreDistributionReport.Tally merge(ScoreDistributionReport.Tally low,
+                                                      ScoreDistributionReport.Tally high) {
+            return low.merge(high);
+        }
+
+        @Override
+        protected ScoreDistributionReport.Tally computeLeaf() {
+            List<CreditScoreAccount> scored = new ArrayList<>();
+            List<AccountState> read = new ArrayList<>();
+            ScoreColumns columns = new ScoreColumns();
+            for (Account account : accounts()) {
+                if (account instanceof CreditScoreAccount) {
+                    CreditScoreAccount credit = (CreditScoreAccount) account;
+                    AccountState state = credit.getState();
+                    scored.add(credit);
+                    read.add(state);
+                    columns.add(state);
+                }
+            }
+            columns.score(kernel);
+
+            ScoreDistributionReport.Tally tally = new ScoreDistributionReport.Tally();
+            for (int i = 0; i < scored.size(); i++) {
+                CreditScoreAccount credit = scored.get(i);
+                // The version the score was computed from; a change since then is not this pass's move
+                int before = read.get(i).getCreditScore();
+                credit.applyComputedScore(columns.getScore(i), read.get(i).getSequence());
+                repository.save(credit);
+                tally.add(before, credit.getCreditScore());
+            }
+            return tally;
+        }
+    }
+}
@@ -0,0 +1,128 @@
+package com.banking.scoring;
+
+import com.banking.entities.CreditScoreAccount;
+import com.banking.entities.Money;
+
+/**
+ * Outcome of replaying the recorded history under one credit policy
+ *
+ * Keeps the exact count of accounts per simulated score, so score and
+ * transaction-limit percentiles are exact, and a {@link ScoreDistributionReport}
+ * comparing the recorded scores (before) with the simulated ones (after).
+ */
+public class PolicySimulationResult {
+
+    static final int SCORES = CreditScoreAccount.MAX_SCORE - CreditScoreAccount.MIN_SCORE + 1;
+    private static final double[] SUMMARY_PERCENTILES = {10, 25, 50, 75, 90};
+
+    private final CreditPolicy policy;
+    private final ScoreDistributionReport distribution;
+    private final long[] counts;
+
+    PolicySimulationResult(CreditPolicy policy, ScoreDistributionReport distribution, long[] counts) {
+        this.policy = policy;
+        this.distribution = distribution;
+        this.counts = counts.clone();
+    }
+
+    public CreditPolicy getPolicy() {
+        return policy;
+    }
+
+    /**
+     * @return Recorded scores (before) against simulated scores (after)
+     */
+    public ScoreDistributionReport getDistribution() {
+        return distribution;
+    }
+
+    /**
+     * @return Number of credit score accounts replayed
+     */
+    public long getAccounts() {
+        return distribution.getAccountsScored();
+    }
+
+    /**
+     * @param score Credit score
+     * @return Accounts ending the replay with exactly this score
+     */
+    public long countAt(int score) {
+        if (score < CreditScoreAccount.MIN_SCORE || score > CreditScoreAccount.MAX_SCORE) {
+            return 0;
+        }
+        return counts[score - CreditScoreAccount.MIN_SCORE];
+    }
+
+    public double getMeanScore() {
+        return distribution.getMeanAfter();
+    }
+
+    /**
+     * @return Mean transaction limit in cents under the policy
+     */
+    public double getMeanLimitCents() {
+        return getMeanScore() * policy.getLimitCentsPerPoint();
+    }
+
+    /**
+     * Lowest simulated score that at least the given share of accounts score at or below
+     * @param percentile Percentile in [0, 100]
+     * @return Credit score
+     * @throws IllegalStateException if no accounts were replayed
+     */
+    public int scoreAtPercentile(double percentile) {
+        if (percentile < 0 || percentile > 100 || Double.isNaN(percentile)) {
+            throw new IllegalArgumentException("Percentile must be between 0 and 100");
+        }
+        long total = getAccounts();
+        if (total == 0) {
+            throw new IllegalStateException("No accounts replayed");
+        }
+        long wanted = Math.max(1, (long) Math.ceil(percentile / 100.0 * total));
+        long seen = 0;
+        for (int i = 0; i < SCORES; i++) {
+            seen += counts[i];
+            if (seen >= wanted) {
+                return CreditScoreAccount.MIN_SCORE + i;
+            }
+        }
+        return CreditScoreAccount.MAX_SCORE;
+    }
+
+    /**
+     * @param percentile Percentile in [0, 100]
+     * @return Transaction limit in cents at the percentile
+     */
+    public long limitAtPercentileCents(double percentile) {
+        return policy.limitCents(scoreAtPercentile(percentile));
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("Policy ").append(policy).append('\n');
+        sb.append(distribution);
+        if (getAccounts() > 0) {
+            sb.append("Percentile  Score      Limit\n");
+            for (double p : SUMMARY_PERCENTILES) {
+                String label = "p" + (int) p;
+                String score = Integer.toString(scoreAtPercentile(p));
+                String limit = Money.format(limitAtPercentileCents(p));
+                sb.append(label);
+                for (int i = label.length(); i < 10; i++) {
+                    sb.append(' ');
+                }
+                for (int i = score.length(); i < 7; i++) {
+                    sb.append(' ');
+                }
+                sb.append(score);
+                for (int i = limit.length(); i < 11; i++) {
+                    sb.append(' ');
+                }
+                sb.append(limit).append('\n');
+            }
+        }
+        return sb.toString();
+    }
+}
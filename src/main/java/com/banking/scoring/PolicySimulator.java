@@ -0,0 +1,252 @@
+package com.banking.scoring;
+
+import com.banking.entities.Account.AccountStatus;
+import com.banking.entities.CreditScoreAccount;
+import com.banking.events.AccountEvent;
+import com.banking.events.EventLog;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * What-if replay of recorded credit history under alternative policies
+ *
+ * Every CreditScoreAdjusted event records why the score moved, so the
+ * history of an account can be replayed with different adjustment values:
+ * a deposit that completed a bonus run earns the policy's deposit bonus, an
+ * overdraft costs its penalty, and so on. Recalculations are re-run with
+ * the balance and status carried by the account's preceding events.
+ * Adjustments with an unknown reason apply the recorded change.
+ *
+ * Log partitions hold all events of their accounts, so they are replayed
+ * in parallel on a fork/join pool, each straight from a read-only view of
+ * the partition. All policies are evaluated in the same pass over the
+ * events, which keeps the cost of a sweep close to that of one policy.
+ *
+ * Counters are taken from the history as recorded: a withdrawal rejected by
+ * the transaction limit is not logged, so a policy that changes limits
+ * cannot change which withdrawals were attempted.
+ *
+ * Only events the log still holds are replayed, and an account is only
+ * replayed from its AccountCreated, so the log should be created with
+ * retained history.
+ */
+public class PolicySimulator {
+
+    private final EventLog log;
+    private final int parallelism;
+
+    /**
+     * @param log Event log holding the history to replay
+     */
+    public PolicySimulator(EventLog log) {
+        this(log, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * @param log Event log holding the history to replay
+     * @param parallelism Worker threads
+     */
+    public PolicySimulator(EventLog log, int parallelism) {
+        if (parallelism <= 0) {
+            throw new IllegalArgumentException("Parallelism must be positive");
+        }
+        this.log = log;
+        this.parallelism = parallelism;
+    }
+
+    /**
+     * Replay the history under one policy
+     * @param policy Policy to evaluate
+     * @return Score and limit distribution under the policy
+     */
+    public PolicySimulationResult simulate(CreditPolicy policy) {
+        return simulate(Collections.singletonList(policy)).get(0);
+    }
+
+    /**
+     * Replay the history once, evaluating several policies side by side
+     * @param policies Policies to evaluate
+     * @return One result per policy, in the same order
+     */
+    public List<PolicySimulationResult> simulate(List<CreditPolicy> policies) {
+        if (policies.isEmpty()) {
+            throw new IllegalArgumentException("At least one policy is required");
+        }
+        CreditPolicy[] evaluated = policies.toArray(new CreditPolicy[0]);
+        long started = System.nanoTime();
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        Outcome outcome;
+        try {
+            outcome = pool.invoke(new PartitionTask(evaluated, 0, log.getPartitionCount()));
+        } finally {
+            pool.shutdown();
+        }
+        long elapsedMillis = (System.nanoTime() - started) / 1_000_000L;
+        List<PolicySimulationResult> results = new ArrayList<>(evaluated.length);
+        for (int p = 0; p < evaluated.length; p++) {
+            results.add(new PolicySimulationResult(evaluated[p],
+                    new ScoreDistributionReport(outcome.tallies[p], elapsedMillis), outcome.counts[p]));
+        }
+        return results;
+    }
+
+    /**
+     * Replays partitions [from, to)
+     */
+    private class PartitionTask extends RecursiveTask<Outcome> {
+        private static final long serialVersionUID = 1L;
+        private final CreditPolicy[] policies;
+        private final int from;
+        private final int to;
+
+        PartitionTask(CreditPolicy[] policies, int from, int to) {
+            this.policies = policies;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected Outcome compute() {
+            if (to - from <= 1) {
+                Outcome outcome = new Outcome(policies.length);
+                if (from < to) {
+                    replay(log.partitionView(from), outcome);
+                }
+                return outcome;
+            }
+            int mid = (from + to) >>> 1;
+            PartitionTask high = new PartitionTask(policies, mid, to);
+            high.fork();
+            Outcome outcome = new PartitionTask(policies, from, mid).compute();
+            return outcome.merge(high.join());
+        }
+
+        private void replay(List<AccountEvent> events, Outcome outcome) {
+            Map<Integer, Replay> accounts = new HashMap<>();
+            for (AccountEvent event : events) {
+                switch (event.getType()) {
+                    case AccountCreated:
+                        if (event.isCreditAccount()) {
+                            accounts.put(event.getAccountId(), new Replay(event, policies.length));
+                        } else {
+                            accounts.remove(event.getAccountId());
+                        }
+                        break;
+                    case AccountRemoved:
+                        accounts.remove(event.getAccountId());
+                        break;
+                    case CreditScoreAdjusted: {
+                        Replay replay = accounts.get(event.getAccountId());
+                        if (replay != null) {
+                            replay.adjust(event, policies);
+                        }
+                        break;
+                    }
+                    default: {
+                        // Changes made before the account was stored are already in its AccountCreated
+                        Replay replay = accounts.get(event.getAccountId());
+                        if (replay != null) {
+                            replay.balanceCents = event.getBalanceAfterCents();
+                            replay.status = event.getStatus();
+                        }
+                        break;
+                    }
+                }
+            }
+            for (Replay replay : accounts.values()) {
+                for (int p = 0; p < policies.length; p++) {
+                    outcome.tallies[p].add(replay.recordedScore, replay.scores[p]);
+                    outcome.counts[p][replay.scores[p] - CreditScoreAccount.MIN_SCORE]++;
+                }
+            }
+        }
+    }
+
+    /**
+     * One account during replay: its recorded state and its score under each policy
+     */
+    private static final class Replay {
+        long balanceCents;
+        AccountStatus status;
+        int recordedScore;
+        final int[] scores;
+
+        Replay(AccountEvent created, int policyCount) {
+            balanceCents = created.getBalanceAfterCents();
+            status = created.getStatus();
+            recordedScore = clamp(created.getCreditScore());
+            scores = new int[policyCount];
+            Arrays.fill(scores, recordedScore);
+        }
+
+        void adjust(AccountEvent event, CreditPolicy[] policies) {
+            String reason = event.getReason() == null ? "" : event.getReason();
+            int recordedChange = event.getCreditScore() - recordedScore;
+            for (int p = 0; p < policies.length; p++) {
+                CreditPolicy policy = policies[p];
+                switch (reason) {
+                    case "deposit":
+                        if (event.getSuccessfulTransactions() % policy.getDepositsPerBonus() == 0) {
+                            scores[p] = clamp(scores[p] + policy.getDepositBonus());
+                        }
+                        break;
+                    case "withdrawal":
+                        break;
+                    case "overdraft":
+                        scores[p] = clamp(scores[p] - policy.getOverdraftPenalty());
+                        break;
+                    case "suspension":
+                        scores[p] = clamp(scores[p] - policy.getSuspensionPenalty());
+                        break;
+                    case "appeal":
+                        scores[p] = clamp(scores[p] + policy.getAppealRecovery());
+                        break;
+                    case "recalculation":
+                        scores[p] = CreditScoreAccount.computeScore(balanceCents,
+                                event.getSuccessfulTransactions(), event.getOverdraftAttempts(), status);
+                        break;
+                    default:
+                        scores[p] = clamp(scores[p] + recordedChange);
+                        break;
+                }
+            }
+            recordedScore = clamp(event.getCreditScore());
+        }
+
+        private static int clamp(int score) {
+            return Math.max(CreditScoreAccount.MIN_SCORE, Math.min(CreditScoreAccount.MAX_SCORE, score));
+        }
+    }
+
+    /**
+     * Per-policy counts for a group of partitions, merged up the fork/join tree
+     */
+    private static final class Outcome {
+        final ScoreDistributionReport.Tally[] tallies;
+        final long[][] counts;
+
+        Outcome(int policyCount) {
+            tallies = new ScoreDistributionReport.Tally[policyCount];
+            counts = new long[policyCount][PolicySimulationResult.SCORES];
+            for (int p = 0; p < policyCount; p++) {
+                tallies[p] = new ScoreDistributionReport.Tally();
+            }
+        }
+
+        Outcome merge(Outcome other) {
+            for (int p = 0; p < tallies.length; p++) {
+                tallies[p].merge(other.tallies[p]);
+                for (int s = 0; s < PolicySimulationResult.SCORES; s++) {
+                    counts[p][s] += other.counts[p][s];
+                }
+            }
+            return this;
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package com.banking.scoring;
+
+import com.banking.entities.Account.AccountStatus;
+import com.banking.entities.AccountState;
+import com.banking.entities.CreditScoreAccount;
+import java.util.Arrays;
+
+/**
+ * Credit score factors laid out column by column
+ *
+ * Row i of every array belongs to the same account: balance in cents,
+ * successful transactions, overdraft attempts and status ordinal. A
+ * {@link ScoreKernel} reads the factor columns and fills the score column,
+ * so scoring a batch walks a few dense primitive arrays instead of chasing
+ * one account object and its state version per row.
+ */
+public final class ScoreColumns {
+
+    private static final int INITIAL_CAPACITY = 64;
+
+    long[] balanceCents;
+    int[] successfulTransactions;
+    int[] overdraftAttempts;
+    int[] statusOrdinals;
+    int[] scores;
+    int size;
+
+    public ScoreColumns() {
+        this(INITIAL_CAPACITY);
+    }
+
+    /**
+     * @param capacity Rows to allocate up front
+     */
+    public ScoreColumns(int capacity) {
+        if (capacity < 0) {
+            throw new IllegalArgumentException("Capacity must not be negative");
+        }
+        balanceCents = new long[capacity];
+        successfulTransactions = new int[capacity];
+        overdraftAttempts = new int[capacity];
+        statusOrdinals = new int[capacity];
+        scores = new int[capacity];
+    }
+
+    /**
+     * Append an account's factors, all read from one committed version
+     * @param account Account to score
+     * @return Row index
+     */
+    public int add(CreditScoreAccount account) {
+        return add(account.getState());
+    }
+
+    /**
+     * Append the factors of one committed version
+     * @param state Version to score
+     * @return Row index
+     */
+    public int add(AccountState state) {
+        return add(state.getBalanceCents(), state.getSuccessfulTransactions(), state.getOverdraftAttempts(),
+                state.getStatus());
+    }
+
+    /**
+     * Append one row of factors
+     * @param balance Balance in cents
+     * @param successes Successful deposits and withdrawals
+     * @param overdrafts Withdrawals rejected for exceeding the balance
+     * @param status Account status
+     * @return Row index
+     */
+    public int add(long balance, int successes, int overdrafts, AccountStatus status) {
+        if (size == balanceCents.length) {
+            grow();
+        }
+        balanceCents[size] = balance;
+        successfulTransactions[size] = successes;
+        overdraftAttempts[size] = overdrafts;
+        statusOrdinals[size] = status.ordinal();
+        return size++;
+    }
+
+    private void grow() {
+        int capacity = Math.max(INITIAL_CAPACITY, balanceCents.length * 2);
+        balanceCents = Arrays.copyOf(balanceCents, capacity);
+        successfulTransactions = Arrays.copyOf(successfulTransactions, capacity);
+        overdraftAttempts = Arrays.copyOf(overdraftAttempts, capacity);
+        statusOrdinals = Arrays.copyOf(statusOrdinals, capacity);
+        scores = Arrays.copyOf(scores, capacity);
+    }
+
+    /**
+     * Fill the score column for every row
+     * @param kernel Kernel to run
+     */
+    public void score(ScoreKernel kernel) {
+        kernel.score(balanceCents, successfulTransactions, overdraftAttempts, statusOrdinals, scores, size);
+    }
+
+    /**
+     * @param row Row index
+     * @return Score computed by the last {@link #score(ScoreKernel)} call
+     */
+    public int getScore(int row) {
+        if (row < 0 || row >= size) {
+            throw new IndexOutOfBoundsException("Row " + row + " of " + size);
+        }
+        return scores[row];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Drop all rows, keeping the arrays for reuse
+     */
+    public void clear() {
+        size = 0;
+    }
+}
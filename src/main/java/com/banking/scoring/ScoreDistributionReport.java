@@ -0,0 +1,162 @@
+package com.banking.scoring;
+
+import com.banking.entities.CreditScoreAccount;
+
+/**
+ * Credit score distribution before and after a bulk recalculation
+ *
+ * Scores are counted in buckets of {@link #BUCKET_WIDTH} points starting at
+ * 300; the last bucket also holds 850.
+ */
+public class ScoreDistributionReport {
+
+    public static final int BUCKET_WIDTH = 50;
+    public static final int BUCKET_COUNT =
+            (CreditScoreAccount.MAX_SCORE - CreditScoreAccount.MIN_SCORE) / BUCKET_WIDTH;
+
+    private final long[] before;
+    private final long[] after;
+    private final long accountsScored;
+    private final long increased;
+    private final long decreased;
+    private final long sumBefore;
+    private final long sumAfter;
+    private final long elapsedMillis;
+
+    ScoreDistributionReport(Tally tally, long elapsedMillis) {
+        this.before = tally.before.clone();
+        this.after = tally.after.clone();
+        this.accountsScored = tally.count;
+        this.increased = tally.increased;
+        this.decreased = tally.decreased;
+        this.sumBefore = tally.sumBefore;
+        this.sumAfter = tally.sumAfter;
+        this.elapsedMillis = elapsedMillis;
+    }
+
+    /**
+     * @param score Credit score
+     * @return Bucket holding the score
+     */
+    public static int bucketOf(int score) {
+        int bucket = (score - CreditScoreAccount.MIN_SCORE) / BUCKET_WIDTH;
+        return Math.max(0, Math.min(BUCKET_COUNT - 1, bucket));
+    }
+
+    /**
+     * @param bucket Bucket index
+     * @return Lowest score counted in the bucket
+     */
+    public static int bucketLowerBound(int bucket) {
+        return CreditScoreAccount.MIN_SCORE + bucket * BUCKET_WIDTH;
+    }
+
+    public long getBefore(int bucket) {
+        return before[bucket];
+    }
+
+    public long getAfter(int bucket) {
+        return after[bucket];
+    }
+
+    public long getAccountsScored() {
+        return accountsScored;
+    }
+
+    public long getIncreased() {
+        return increased;
+    }
+
+    public long getDecreased() {
+        return decreased;
+    }
+
+    public long getUnchanged() {
+        return accountsScored - increased - decreased;
+    }
+
+    public double getMeanBefore() {
+        return accountsScored == 0 ? 0 : (double) sumBefore / accountsScored;
+    }
+
+    public double getMeanAfter() {
+        return accountsScored == 0 ? 0 : (double) sumAfter / accountsScored;
+    }
+
+    public long getElapsedMillis() {
+        return elapsedMillis;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("Rescored ").append(accountsScored).append(" accounts in ").append(elapsedMillis)
+                .append(" ms: ").append(increased).append(" up, ").append(decreased).append(" down, ")
+                .append(getUnchanged()).append(" unchanged\n");
+        sb.append("Score      Before      After     Change\n");
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            int low = bucketLowerBound(i);
+            int high = i == BUCKET_COUNT - 1 ? CreditScoreAccount.MAX_SCORE : low + BUCKET_WIDTH - 1;
+            pad(sb.append(low).append('-').append(high), 7);
+            pad(sb, 11, Long.toString(before[i]));
+            pad(sb, 11, Long.toString(after[i]));
+            long change = after[i] - before[i];
+            pad(sb, 11, (change > 0 ? "+" : "") + change);
+            sb.append('\n');
+        }
+        return sb.toString();
+    }
+
+    private static void pad(StringBuilder sb, int width) {
+        int line = sb.lastIndexOf("\n") + 1;
+        while (sb.length() - line < width) {
+            sb.append(' ');
+        }
+    }
+
+    private static void pad(StringBuilder sb, int width, String value) {
+        for (int i = value.length(); i < width; i++) {
+            sb.append(' ');
+        }
+        sb.append(value);
+    }
+
+    /**
+     * Mutable counts for one part of a recalculation, merged up the fork/join tree
+     */
+    static final class Tally {
+        final long[] before = new long[BUCKET_COUNT];
+        final long[] after = new long[BUCKET_COUNT];
+        long count;
+        long increased;
+        long decreased;
+        long sumBefore;
+        long sumAfter;
+
+        void add(int scoreBefore, int scoreAfter) {
+            before[bucketOf(scoreBefore)]++;
+            after[bucketOf(scoreAfter)]++;
+            count++;
+            if (scoreAfter > scoreBefore) {
+                increased++;
+            } else if (scoreAfter < scoreBefore) {
+                decreased++;
+            }
+            sumBefore += scoreBefore;
+            sumAfter += scoreAfter;
+        }
+
+        Tally merge(Tally other) {
+            for (int i = 0; i < BUCKET_COUNT; i++) {
+                before[i] += other.before[i];
+                after[i] += other.after[i];
+            }
+            count += other.count;
+            increased += other.increased;
+            decreased += other.decreased;
+            sumBefore += other.sumBefore;
+            sumAfter += other.sumAfter;
+            return this;
+        }
+    }
+}
@@ -0,0 +1,316 @@
+package com.banking.scoring;
+
+import com.banking.dao.AccountRepository;
+import com.banking.entities.Account;
+import com.banking.entities.AccountState;
+import com.banking.entities.CreditScoreAccount;
+import com.banking.events.AccountEvent;
+import com.banking.events.AccountEventListener;
+import com.banking.events.AccountEvents;
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * Live distribution of credit scores for rank and percentile queries
+ *
+ * Scores only take the 551 values from 300 to 850, so the index keeps a
+ * count per score and a Fenwick tree over the same counts. A score change
+ * moves one account between two counts: O(1) for the histogram and
+ * O(log 551) for the tree. Counting the accounts at or below a score is a
+ * Fenwick prefix sum, and finding the score at a percentile is a descent
+ * of the tree, both independent of the number of accounts. Each score also
+ * keeps the ids holding it, in id order, so the top K accounts are read by
+ * walking down from 850.
+ *
+ * The index follows CreditScoreAdjusted, AccountCreated and AccountRemoved
+ * events once started. The hub is process-wide, so with a repository only
+ * accounts it holds are indexed; the repository is only consulted for
+ * accounts not indexed yet. An account's events can arrive out of commit
+ * order, so the index remembers the sequence of the version each score came
+ * from and ignores older ones. A removal leaves the sequence it was taken at
+ * behind, so an adjustment committed before the removal but delivered after
+ * it does not bring the account back. Changes made while events are muted,
+ * such as restores, are not seen; start the index after loading or call
+ * {@link #update(int, int)} for them.
+ */
+public class ScoreIndex implements AccountEventListener, Closeable {
+
+    private static final int MIN = CreditScoreAccount.MIN_SCORE;
+    private static final int MAX = CreditScoreAccount.MAX_SCORE;
+    private static final int SCORES = MAX - MIN + 1;
+    // Highest power of two not above SCORES, where a Fenwick descent starts
+    private static final int TOP_STEP = Integer.highestOneBit(SCORES);
+
+    private final AccountRepository repository;
+
+    // Guarded by this
+    private final Map<Integer, Integer> scores = new HashMap<>();
+    // Sequence of the version each followed score came from
+    private final Map<Integer, Long> sequences = new HashMap<>();
+    // Sequence each removed account was removed at; dropped when the id is created again
+    private final Map<Integer, Long> removals = new HashMap<>();
+    private final int[] histogram = new int[SCORES];
+    // 1-based Fenwick tree over histogram
+    private final int[] tree = new int[SCORES + 1];
+    private final List<TreeSet<Integer>> holders = new ArrayList<>(SCORES);
+    private boolean started;
+
+    /**
+     * @param repository Repository whose credit score accounts are indexed, or null to start empty and
+     *                   follow the events of every account
+     */
+    public ScoreIndex(AccountRepository repository) {
+        this.repository = repository;
+        for (int i = 0; i < SCORES; i++) {
+            holders.add(new TreeSet<>());
+        }
+    }
+
+    /**
+     * Subscribe to account events and index the repository's current scores
+     * Subscribing first means a score that changes while the repository is
+     * read is either seen by the scan or arrives later as an event.
+     * @return This index
+     */
+    public ScoreIndex start() {
+        synchronized (this) {
+            if (started) {
+                return this;
+            }
+            started = true;
+        }
+        AccountEvents.subscribe(this);
+        if (repository != null) {
+            for (Account account : repository.findAll()) {
+                if (account instanceof CreditScoreAccount) {
+                    AccountState state = account.getState();
+                    follow(account.getId(), state.getCreditScore(), state.getSequence(), false);
+                }
+            }
+        }
+        return this;
+    }
+
+    /**
+     * Stop following account events; the index keeps answering from what it has
+     */
+    @Override
+    public void close() {
+        AccountEvents.unsubscribe(this);
+        synchronized (this) {
+            started = false;
+        }
+    }
+
+    @Override
+    public void onEvent(AccountEvent event) {
+        int accountId = event.getAccountId();
+        switch (event.getType()) {
+            case AccountCreated:
+                if (event.isCreditAccount() && holds(accountId, true)) {
+                    follow(accountId, event.getCreditScore(), event.getSequence(), true);
+                }
+                break;
+            case CreditScoreAdjusted:
+                if (holds(accountId, false)) {
+                    follow(accountId, event.getCreditScore(), event.getSequence(), false);
+                }
+                break;
+            case AccountRemoved:
+                removed(accountId, event.getSequence());
+                break;
+            default:
+                break;
+        }
+    }
+
+    /**
+     * @param created true for a creation, which is always checked against the repository
+     * @return true if the account's events belong in this index
+     */
+    private boolean holds(int accountId, boolean created) {
+        if (repository == null || (!created && getScore(accountId) != null)) {
+            return true;
+        }
+        return repository.findById(accountId) instanceof CreditScoreAccount;
+    }
+
+    /**
+     * Index the score of a committed version unless a newer one or a later removal got there first
+     * @param reset true if the account was (re)created, which restarts its sequence
+     */
+    private synchronized void follow(int accountId, int score, long sequence, boolean reset) {
+        if (reset) {
+            removals.remove(accountId);
+        } else {
+            Long last = sequences.get(accountId);
+            Long removedAt = removals.get(accountId);
+            if ((last != null && sequence < last) || (removedAt != null && sequence <= removedAt)) {
+                return;
+            }
+        }
+        sequences.put(accountId, sequence);
+        update(accountId, score);
+    }
+
+    private synchronized void removed(int accountId, long sequence) {
+        removals.merge(accountId, sequence, Math::max);
+        remove(accountId);
+    }
+
+    /**
+     * Set an account's score, adding the account if it is not indexed
+     * @param accountId Account ID
+     * @param score Credit score, clamped to 300-850
+     */
+    public synchronized void update(int accountId, int score) {
+        int clamped = Math.max(MIN, Math.min(MAX, score));
+        Integer previous = scores.put(accountId, clamped);
+        if (previous != null) {
+            if (previous == clamped) {
+                return;
+            }
+            move(accountId, previous, -1);
+        }
+        move(accountId, clamped, 1);
+    }
+
+    /**
+     * Drop an account from the index
+     * @param accountId Account ID
+     * @return true if the account was indexed
+     */
+    public synchronized boolean remove(int accountId) {
+        sequences.remove(accountId);
+        Integer previous = scores.remove(accountId);
+        if (previous == null) {
+            return false;
+        }
+        move(accountId, previous, -1);
+        return true;
+    }
+
+    private void move(int accountId, int score, int delta) {
+        int slot = score - MIN;
+        histogram[slot] += delta;
+        for (int i = slot + 1; i <= SCORES; i += i & -i) {
+            tree[i] += delta;
+        }
+        if (delta > 0) {
+            holders.get(slot).add(accountId);
+        } else {
+            holders.get(slot).remove(accountId);
+        }
+    }
+
+    /**
+     * @return Number of indexed accounts
+     */
+    public synchronized int size() {
+        return scores.size();
+    }
+
+    /**
+     * @param accountId Account ID
+     * @return Indexed score, or null if the account is not indexed
+     */
+    public synchronized Integer getScore(int accountId) {
+        return scores.get(accountId);
+    }
+
+    /**
+     * @param score Credit score
+     * @return Number of accounts holding exactly this score
+     */
+    public synchronized int countAt(int score) {
+        return score < MIN || score > MAX ? 0 : histogram[score - MIN];
+    }
+
+    /**
+     * @param score Credit score
+     * @return Number of accounts scoring at or below the score
+     */
+    public synchronized int countAtOrBelow(int score) {
+        if (score < MIN) {
+            return 0;
+        }
+        int count = 0;
+        for (int i = Math.min(score, MAX) - MIN + 1; i > 0; i -= i & -i) {
+            count += tree[i];
+        }
+        return count;
+    }
+
+    /**
+     * Rank of an account, 1 being the best score; accounts with equal scores share a rank
+     * @param accountId Account ID
+     * @return Rank, or null if the account is not indexed
+     */
+    public synchronized Integer rankOf(int accountId) {
+        Integer score = scores.get(accountId);
+        return score == null ? null : scores.size() - countAtOrBelow(score) + 1;
+    }
+
+    /**
+     * Percentile rank of an account: the share of accounts scoring at or below it
+     * @param accountId Account ID
+     * @return Percentile in (0, 100], or null if the account is not indexed
+     */
+    public synchronized Double percentileOf(int accountId) {
+        Integer score = scores.get(accountId);
+        return score == null ? null : 100.0 * countAtOrBelow(score) / scores.size();
+    }
+
+    /**
+     * Lowest score that at least the given share of accounts score at or below
+     * @param percentile Percentile in [0, 100]; 50 is the median
+     * @return Credit score
+     * @throws IllegalStateException if the index is empty
+     */
+    public synchronized int scoreAtPercentile(double percentile) {
+        if (percentile < 0 || percentile > 100 || Double.isNaN(percentile)) {
+            throw new IllegalArgumentException("Percentile must be between 0 and 100");
+        }
+        int total = scores.size();
+        if (total == 0) {
+            throw new IllegalStateException("No scores indexed");
+        }
+        long wanted = Math.max(1, (long) Math.ceil(percentile / 100.0 * total));
+        // Find the last slot whose prefix sum is still below wanted; the answer is the next one
+        int slot = 0;
+        long below = 0;
+        for (int step = TOP_STEP; step > 0; step >>= 1) {
+            int next = slot + step;
+            if (next <= SCORES && below + tree[next] < wanted) {
+                slot = next;
+                below += tree[next];
+            }
+        }
+        return MIN + slot;
+    }
+
+    /**
+     * Best scoring accounts, highest score first and by id within a score
+     * @param k Number of accounts
+     * @return Up to k account ids
+     */
+    public synchronized List<Integer> topK(int k) {
+        List<Integer> top = new ArrayList<>(Math.max(0, Math.min(k, scores.size())));
+        for (int slot = SCORES - 1; slot >= 0 && top.size() < k; slot--) {
+            if (histogram[slot] == 0) {
+                continue;
+            }
+            for (Integer id : holders.get(slot)) {
+                if (top.size() == k) {
+                    break;
+                }
+                top.add(id);
+            }
+        }
+        return top;
+    }
+}
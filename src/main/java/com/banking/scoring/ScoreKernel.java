@@ -0,0 +1,29 @@
+package com.banking.scoring;
+
+/**
+ * Computes credit scores over columnar factors
+ *
+ * Every kernel applies the rule of
+ * {@link com.banking.entities.CreditScoreAccount#computeScore} to each row
+ * and must produce exactly the same scores; they differ only in how the
+ * rows are processed. Use {@link ScoreKernels} to obtain one.
+ */
+public interface ScoreKernel {
+
+    /**
+     * Score rows [0, length)
+     * @param balanceCents Balances in cents
+     * @param successfulTransactions Successful transaction counts
+     * @param overdraftAttempts Overdraft attempt counts
+     * @param statusOrdinals Account status ordinals
+     * @param scores Output scores
+     * @param length Number of rows to score
+     */
+    void score(long[] balanceCents, int[] successfulTransactions, int[] overdraftAttempts,
+               int[] statusOrdinals, int[] scores, int length);
+
+    /**
+     * @return Short name for logs and benchmarks
+     */
+    String getName();
+}
@@ -0,0 +1,83 @@
+package com.banking.scoring;
+
+import com.banking.entities.Account.AccountStatus;
+import com.banking.entities.CreditScoreAccount;
+
+/**
+ * Available credit score kernels
+ *
+ * The vector kernel is built on the incubating jdk.incubator.vector module,
+ * which the JVM only resolves when started with
+ * {@code --add-modules jdk.incubator.vector}. It is therefore loaded by name,
+ * and only when that module is present; otherwise {@link #best()} falls back
+ * to the scalar kernel.
+ */
+public final class ScoreKernels {
+
+    static final String VECTOR_MODULE = "jdk.incubator.vector";
+    private static final String VECTOR_KERNEL = "com.banking.scoring.VectorScoreKernel";
+
+    private static final ScoreKernel SCALAR = new ScalarScoreKernel();
+    private static final ScoreKernel VECTOR = loadVectorKernel();
+
+    private ScoreKernels() {
+    }
+
+    /**
+     * @return Kernel that scores one row at a time with {@link CreditScoreAccount#computeScore}
+     */
+    public static ScoreKernel scalar() {
+        return SCALAR;
+    }
+
+    /**
+     * @return Kernel that scores several rows per instruction, or null if the vector module is not available
+     */
+    public static ScoreKernel vector() {
+        return VECTOR;
+    }
+
+    /**
+     * @return Vector kernel when available, scalar kernel otherwise
+     */
+    public static ScoreKernel best() {
+        return VECTOR != null ? VECTOR : SCALAR;
+    }
+
+    private static ScoreKernel loadVectorKernel() {
+        if (ModuleLayer.boot().findModule(VECTOR_MODULE).isEmpty()) {
+            return null;
+        }
+        try {
+            return (ScoreKernel) Class.forName(VECTOR_KERNEL).getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException | LinkageError e) {
+            return null;
+        }
+    }
+
+    /**
+     * Reference kernel, also used for the tail rows the vector kernel cannot fill a register with
+     */
+    static final class ScalarScoreKernel implements ScoreKernel {
+        private static final AccountStatus[] STATUSES = AccountStatus.values();
+
+        @Override
+        public void score(long[] balanceCents, int[] successfulTransactions, int[] overdraftAttempts,
+                          int[] statusOrdinals, int[] scores, int length) {
+            scoreRange(balanceCents, successfulTransactions, overdraftAttempts, statusOrdinals, scores, 0, length);
+        }
+
+        static void scoreRange(long[] balanceCents, int[] successfulTransactions, int[] overdraftAttempts,
+                               int[] statusOrdinals, int[] scores, int from, int to) {
+            for (int i = from; i < to; i++) {
+                scores[i] = CreditScoreAccount.computeScore(balanceCents[i], successfulTransactions[i],
+                        overdraftAttempts[i], STATUSES[statusOrdinals[i]]);
+            }
+        }
+
+        @Override
+        public String getName() {
+            return "scalar";
+        }
+    }
+}
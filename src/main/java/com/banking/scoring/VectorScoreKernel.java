@@ -0,0 +1,92 @@
+package com.banking.scoring;
+
+import com.banking.entities.Account.AccountStatus;
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.LongVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorShape;
+import jdk.incubator.vector.VectorSpecies;
+
+import static com.banking.entities.CreditScoreAccount.BASE_SCORE;
+import static com.banking.entities.CreditScoreAccount.CLOSED_PENALTY;
+import static com.banking.entities.CreditScoreAccount.HIGH_BALANCE_BONUS;
+import static com.banking.entities.CreditScoreAccount.HIGH_BALANCE_CENTS;
+import static com.banking.entities.CreditScoreAccount.LOW_BALANCE_CENTS;
+import static com.banking.entities.CreditScoreAccount.LOW_BALANCE_PENALTY;
+import static com.banking.entities.CreditScoreAccount.MAX_SCORE;
+import static com.banking.entities.CreditScoreAccount.MEDIUM_BALANCE_BONUS;
+import static com.banking.entities.CreditScoreAccount.MEDIUM_BALANCE_CENTS;
+import static com.banking.entities.CreditScoreAccount.MIN_SCORE;
+import static com.banking.entities.CreditScoreAccount.POINTS_PER_OVERDRAFT;
+import static com.banking.entities.CreditScoreAccount.POINTS_PER_SUCCESS;
+import static com.banking.entities.CreditScoreAccount.SUSPENDED_PENALTY;
+import static com.banking.entities.CreditScoreAccount.VERIFIED_BONUS;
+
+/**
+ * Branch-free credit scoring with the Vector API
+ *
+ * Scores are accumulated in long lanes, as in the scalar rule, so counters
+ * anywhere in the int range give identical results. The int columns are
+ * loaded at half the long register width, which gives them the same lane
+ * count, and widened. Each if/else of the scalar rule becomes a lane mask
+ * and a masked add; the clamp is a lane-wise max and min. Rows left over
+ * after the last full register are scored by the scalar kernel.
+ *
+ * Only loaded through {@link ScoreKernels} when the vector module is present.
+ */
+final class VectorScoreKernel implements ScoreKernel {
+
+    private static final VectorSpecies<Long> LONGS = LongVector.SPECIES_PREFERRED;
+    private static final VectorSpecies<Integer> INTS =
+            VectorSpecies.of(int.class, VectorShape.forBitSize(LONGS.vectorBitSize() / 2));
+
+    private static final int VERIFIED = AccountStatus.Verified.ordinal();
+    private static final int SUSPENDED = AccountStatus.Suspended.ordinal();
+    private static final int CLOSED = AccountStatus.Closed.ordinal();
+
+    @Override
+    public void score(long[] balanceCents, int[] successfulTransactions, int[] overdraftAttempts,
+                      int[] statusOrdinals, int[] scores, int length) {
+        int upper = LONGS.loopBound(length);
+        int i = 0;
+        for (; i < upper; i += LONGS.length()) {
+            LongVector balance = LongVector.fromArray(LONGS, balanceCents, i);
+            LongVector successes = widen(IntVector.fromArray(INTS, successfulTransactions, i));
+            LongVector overdrafts = widen(IntVector.fromArray(INTS, overdraftAttempts, i));
+            IntVector status = IntVector.fromArray(INTS, statusOrdinals, i);
+
+            // Transaction history factor
+            LongVector score = successes.mul(POINTS_PER_SUCCESS)
+                    .sub(overdrafts.mul(POINTS_PER_OVERDRAFT))
+                    .add(BASE_SCORE);
+
+            // Balance factor: the tiers are exclusive, so medium excludes high
+            VectorMask<Long> high = balance.compare(VectorOperators.GT, HIGH_BALANCE_CENTS);
+            VectorMask<Long> medium = balance.compare(VectorOperators.GT, MEDIUM_BALANCE_CENTS).andNot(high);
+            VectorMask<Long> low = balance.compare(VectorOperators.LT, LOW_BALANCE_CENTS);
+            score = score.add(HIGH_BALANCE_BONUS, high)
+                    .add(MEDIUM_BALANCE_BONUS, medium)
+                    .sub(LOW_BALANCE_PENALTY, low);
+
+            // Status factor
+            score = score.add(VERIFIED_BONUS, status.compare(VectorOperators.EQ, VERIFIED).cast(LONGS))
+                    .sub(SUSPENDED_PENALTY, status.compare(VectorOperators.EQ, SUSPENDED).cast(LONGS))
+                    .sub(CLOSED_PENALTY, status.compare(VectorOperators.EQ, CLOSED).cast(LONGS));
+
+            score = score.max(MIN_SCORE).min(MAX_SCORE);
+            ((IntVector) score.convertShape(VectorOperators.L2I, INTS, 0)).intoArray(scores, i);
+        }
+        ScoreKernels.ScalarScoreKernel.scoreRange(balanceCents, successfulTransactions, overdraftAttempts,
+                statusOrdinals, scores, i, length);
+    }
+
+    private static LongVector widen(IntVector values) {
+        return (LongVector) values.convertShape(VectorOperators.I2L, LONGS, 0);
+    }
+
+    @Override
+    public String getName() {
+        return "vector-" + LONGS.length() + "x64";
+    }
+}
@@ -1,14 +1,26 @@
 package com.banking.services;
 
 import com.banking.dao.AccountDAO;
+import com.banking.dao.AccountRepository;
 import com.banking.entities.Account;
 import com.banking.entities.Account.AccountStatus;
+import com.banking.entities.Money;
 
 /**
  * Service class for account management
  */
 public class AccountService {
     
+    private final AccountRepository repository;
+    
+    public AccountService() {
+        this(AccountDAO.getDefault());
+    }
+    
+    public AccountService(AccountRepository repository) {
+        this.repository = repository;
+    }
+    
     /**
      * Create new account
      * @param id Account ID
@@ -18,7 +30,20 @@ public class AccountService {
      */
     public Account createAccount(int id, String clientName, double initialBalance) {
         Account account = new Account(id, clientName, initialBalance);
-        AccountDAO.add(account);
+        repository.add(account);
+        return account;
+    }
+    
+    /**
+     * Create new account
+     * @param id Account ID
+     * @param clientName Client name
+     * @param initialBalanceCents Initial balance in cents
+     * @return Created account
+     */
+    public Account createAccountCents(int id, String clientName, long initialBalanceCents) {
+        Account account = Account.ofCents(id, clientName, initialBalanceCents);
+        repository.add(account);
         return account;
     }
     
@@ -28,7 +53,7 @@ public class AccountService {
      * @return Account or null
      */
     public Account getAccount(int id) {
-        return AccountDAO.findById(id);
+        return repository.findById(id);
     }
     
     /**
@@ -45,7 +70,8 @@ public class AccountService {
         sb.append("=== ACCOUNT STATEMENT ===\n");
         sb.append("Client Name: ").append(account.getClientName()).append("\n");
         sb.append("Card Number: ").append(account.getCardNumber()).append("\n");
-        sb.append("Balance: $").append(String.format("%.2f", account.getBalance())).append("\n");
+        sb.append("Balance: $");
+        Money.appendTo(sb, account.getBalanceCents()).append("\n");
         sb.append("Status: ").append(account.getStatus()).append("\n");
         sb.append("========================\n");
         
@@ -84,8 +110,8 @@ public class AccountService {
      * @return true if successful
      */
     public boolean verifyAccount(int id) {
-        Account account = AccountDAO.findById(id);
-        return account != null && account.verify();
+        Account account = repository.findById(id);
+        return account != null && saved(account, account.verify());
     }
     
     /**
@@ -94,8 +120,8 @@ public class AccountService {
      * @return true if successful
      */
     public boolean suspendAccount(int id) {
-        Account account = AccountDAO.findById(id);
-        return account != null && account.suspend();
+        Account account = repository.findById(id);
+        return account != null && saved(account, account.suspend());
     }
     
     /**
@@ -104,7 +130,21 @@ public class AccountService {
      * @return true if successful
      */
     public boolean closeAccount(int id) {
-        Account account = AccountDAO.findById(id);
-        return account != null && account.close();
+        Account account = repository.findById(id);
+        return account != null && saved(account, account.close());
+    }
+    
+    /**
+     * @return Repository this service reads and writes
+     */
+    public AccountRepository getRepository() {
+        return repository;
+    }
+    
+    private boolean saved(Account account, boolean changed) {
+        if (changed) {
+            repository.save(account);
+        }
+        return changed;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,168 @@
+package com.banking.services;
+
+import com.banking.dao.AccountRepository;
+import com.banking.entities.Account;
+import com.banking.entities.Account.AccountStatus;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Multilateral netting of a batch of transfers
+ *
+ * Instead of moving money transfer by transfer, the batch is reduced to one
+ * net position per account and each position is posted once, all in a
+ * single commit through {@link Account#postNet(Account[], long[])}. A batch
+ * of n transfers among k accounts costs k balance updates and one commit
+ * instead of 2n updates and n commits.
+ *
+ * Each request is first checked like a single transfer (verified sender,
+ * positive amount within the sender's credit-based transaction limit, known
+ * and open recipient). Only the net debits have to
+ * be covered, so a sender may pay out more than its balance as long as it
+ * receives enough in the same batch. A sender whose net debit is not covered
+ * has all its transfers rejected; positions are then recomputed, since the
+ * accounts it would have paid may now fall short too. Settled accounts are
+ * saved once each. Rolling caps and fraud checks of the single-transfer
+ * path are not applied to batches.
+ */
+public class NettingEngine {
+
+    public static final String INVALID_SENDER = "Sender is not verified";
+    public static final String INVALID_AMOUNT = "Invalid amount";
+    public static final String OVER_LIMIT = "Amount exceeds transaction limit";
+    public static final String UNKNOWN_RECIPIENT = "Unknown or closed recipient";
+    public static final String NOT_COVERED = "Net debit not covered";
+
+    private final AccountRepository repository;
+
+    /**
+     * @param repository Repository used to resolve recipients and persist changes
+     */
+    public NettingEngine(AccountRepository repository) {
+        this.repository = repository;
+    }
+
+    /**
+     * Net and settle a batch of transfers
+     * @param batch Transfers to settle
+     * @return Settled totals, net positions and rejected requests
+     */
+    public NettingResult settle(List<TransferRequest> batch) {
+        IdentityHashMap<TransferRequest, String> rejected = new IdentityHashMap<>();
+        List<TransferRequest> accepted = new ArrayList<>(batch.size());
+        List<Account> recipients = new ArrayList<>(batch.size());
+        for (TransferRequest request : batch) {
+            Account sender = request.getSender();
+            Account recipient = request.getRecipientCardNumber() == null
+                    ? null : repository.findByCardNumber(request.getRecipientCardNumber());
+            if (sender == null || sender.getStatus() != AccountStatus.Verified) {
+                rejected.put(request, INVALID_SENDER);
+            } else if (request.getCents() <= 0) {
+                rejected.put(request, INVALID_AMOUNT);
+            } else if (request.getCents() > sender.getTransactionLimitCents()) {
+                rejected.put(request, OVER_LIMIT);
+            } else if (recipient == null || recipient.getStatus() == AccountStatus.Closed) {
+                rejected.put(request, UNKNOWN_RECIPIENT);
+            } else {
+                accepted.add(request);
+                recipients.add(recipient);
+            }
+        }
+
+        while (true) {
+            LinkedHashMap<Integer, Position> positions = net(accepted, recipients);
+            Set<Integer> defaulted = new HashSet<>();
+            for (Position position : positions.values()) {
+                if (position.cents < 0 && (position.account.getStatus() != AccountStatus.Verified
+                        || -position.cents > position.account.getBalanceCents())) {
+                    defaulted.add(position.account.getId());
+                }
+            }
+            if (defaulted.isEmpty()) {
+                int failed = post(positions);
+                if (failed < 0) {
+                    return result(accepted, positions, rejected);
+                }
+                // A concurrent change drained an account between the check and the posting
+                defaulted.add(failed);
+            }
+            for (int i = accepted.size() - 1; i >= 0; i--) {
+                if (defaulted.contains(accepted.get(i).getSender().getId())) {
+                    rejected.put(accepted.remove(i), NOT_COVERED);
+                    recipients.remove(i);
+                }
+            }
+        }
+    }
+
+    private static LinkedHashMap<Integer, Position> net(List<TransferRequest> accepted, List<Account> recipients) {
+        LinkedHashMap<Integer, Position> positions = new LinkedHashMap<>();
+        for (int i = 0; i < accepted.size(); i++) {
+            TransferRequest request = accepted.get(i);
+            position(positions, request.getSender()).cents -= request.getCents();
+            position(positions, recipients.get(i)).cents += request.getCents();
+        }
+        positions.values().removeIf(position -> position.cents == 0);
+        return positions;
+    }
+
+    private static Position position(Map<Integer, Position> positions, Account account) {
+        return positions.computeIfAbsent(account.getId(), id -> new Position(account));
+    }
+
+    /**
+     * @return Account id whose debit failed, or -1 if every position was posted and saved
+     */
+    private int post(LinkedHashMap<Integer, Position> positions) {
+        Account[] accounts = new Account[positions.size()];
+        long[] deltas = new long[positions.size()];
+        int i = 0;
+        for (Position position : positions.values()) {
+            accounts[i] = position.account;
+            deltas[i++] = position.cents;
+        }
+        int failed = Account.postNet(accounts, deltas);
+        if (failed >= 0) {
+            return accounts[failed].getId();
+        }
+        for (Account account : accounts) {
+            repository.save(account);
+        }
+        return -1;
+    }
+
+    private static NettingResult result(List<TransferRequest> accepted, LinkedHashMap<Integer, Position> positions,
+                                        IdentityHashMap<TransferRequest, String> rejected) {
+        long gross = 0;
+        for (TransferRequest request : accepted) {
+            gross += request.getCents();
+        }
+        long net = 0;
+        LinkedHashMap<Integer, Long> netPositions = new LinkedHashMap<>();
+        for (Map.Entry<Integer, Position> entry : positions.entrySet()) {
+            long cents = entry.getValue().cents;
+            netPositions.put(entry.getKey(), cents);
+            if (cents < 0) {
+                net -= cents;
+            }
+        }
+        return new NettingResult(accepted.size(), gross, net, netPositions, rejected);
+    }
+
+    /**
+     * Running net change of one account
+     */
+    private static final class Position {
+        final Account account;
+        long cents;
+
+        Position(Account account) {
+            this.account = account;
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package com.banking.services;
+
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Outcome of settling one batch of transfers by multilateral netting
+ */
+public final class NettingResult {
+
+    private final int settledTransfers;
+    private final long grossCents;
+    private final long netCents;
+    private final Map<Integer, Long> netPositions;
+    private final Map<TransferRequest, String> rejected;
+
+    NettingResult(int settledTransfers, long grossCents, long netCents, LinkedHashMap<Integer, Long> netPositions,
+                  IdentityHashMap<TransferRequest, String> rejected) {
+        this.settledTransfers = settledTransfers;
+        this.grossCents = grossCents;
+        this.netCents = netCents;
+        this.netPositions = Collections.unmodifiableMap(netPositions);
+        this.rejected = Collections.unmodifiableMap(rejected);
+    }
+
+    /**
+     * @return Transfers of the batch that were settled
+     */
+    public int getSettledTransfers() {
+        return settledTransfers;
+    }
+
+    /**
+     * @return Balance updates applied; one per account with a non-zero net position
+     */
+    public int getPostings() {
+        return netPositions.size();
+    }
+
+    /**
+     * @return Sum of the settled transfer amounts
+     */
+    public long getGrossCents() {
+        return grossCents;
+    }
+
+    /**
+     * @return Money that actually moved: the sum of the net debits
+     */
+    public long getNetCents() {
+        return netCents;
+    }
+
+    /**
+     * @return Non-zero net change per account id, in cents, in first-seen order
+     */
+    public Map<Integer, Long> getNetPositions() {
+        return netPositions;
+    }
+
+    /**
+     * @return Requests left out of the settlement, with the reason for each
+     */
+    public Map<TransferRequest, String> getRejected() {
+        return rejected;
+    }
+
+    @Override
+    public String toString() {
+        return "NettingResult[settled=" + settledTransfers + ", rejected=" + rejected.size()
+                + ", postings=" + getPostings() + ", grossCents=" + grossCents + ", netCents=" + netCents + "]";
+    }
+}
@@ -0,0 +1,181 @@
+package com.banking.services;
+
+import com.banking.entities.Money;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BooleanSupplier;
+import java.util.function.LongSupplier;
+
+/**
+ * Per-account rolling daily and weekly caps on outgoing money
+ *
+ * Each account gets a daily window of 24 hourly buckets and a weekly window
+ * of 28 six-hour buckets, tracking both the amount and the number of
+ * withdrawals and transfers. Checking and recording happen under the
+ * account's own lock, together with the transaction itself, so concurrent
+ * transactions cannot overshoot a cap between the check and the record.
+ */
+public class RollingLimits {
+
+    public static final long DAY_MILLIS = 24L * 60 * 60 * 1000;
+    public static final long WEEK_MILLIS = 7 * DAY_MILLIS;
+    public static final int DAY_BUCKETS = 24;
+    public static final int WEEK_BUCKETS = 28;
+
+    public static final long DEFAULT_DAILY_AMOUNT_CENTS = 20_000 * Money.SCALE;
+    public static final int DEFAULT_DAILY_COUNT = 50;
+    public static final long DEFAULT_WEEKLY_AMOUNT_CENTS = 50_000 * Money.SCALE;
+    public static final int DEFAULT_WEEKLY_COUNT = 200;
+
+    private final long dailyAmountCents;
+    private final int dailyCount;
+    private final long weeklyAmountCents;
+    private final int weeklyCount;
+    private final LongSupplier clock;
+    private final Map<Integer, Usage> usage = new ConcurrentHashMap<>();
+
+    /**
+     * Default caps on the system clock
+     */
+    public RollingLimits() {
+        this(DEFAULT_DAILY_AMOUNT_CENTS, DEFAULT_DAILY_COUNT, DEFAULT_WEEKLY_AMOUNT_CENTS, DEFAULT_WEEKLY_COUNT,
+                System::currentTimeMillis);
+    }
+
+    /**
+     * @param dailyAmountCents Most money out per rolling day, in cents
+     * @param dailyCount Most transactions out per rolling day
+     * @param weeklyAmountCents Most money out per rolling week, in cents
+     * @param weeklyCount Most transactions out per rolling week
+     * @param clock Current time in milliseconds
+     */
+    public RollingLimits(long dailyAmountCents, int dailyCount, long weeklyAmountCents, int weeklyCount,
+                         LongSupplier clock) {
+        if (dailyAmountCents <= 0 || dailyCount <= 0 || weeklyAmountCents <= 0 || weeklyCount <= 0) {
+            throw new IllegalArgumentException("Limits must be positive");
+        }
+        this.dailyAmountCents = dailyAmountCents;
+        this.dailyCount = dailyCount;
+        this.weeklyAmountCents = weeklyAmountCents;
+        this.weeklyCount = weeklyCount;
+        this.clock = clock;
+    }
+
+    /**
+     * Check whether an outgoing transaction would fit the caps, without recording it
+     * @param accountId Account ID
+     * @param cents Amount in cents
+     * @return true if the transaction is within every cap
+     */
+    public boolean allows(int accountId, long cents) {
+        Usage account = usage.get(accountId);
+        if (account == null) {
+            return cents <= dailyAmountCents && cents <= weeklyAmountCents;
+        }
+        synchronized (account) {
+            return account.fits(clock.getAsLong(), cents);
+        }
+    }
+
+    /**
+     * Run an outgoing transaction if it fits the caps, and count it if it succeeds
+     * @param accountId Account ID
+     * @param cents Amount in cents
+     * @param transaction Transaction to run; returns true if it was committed
+     * @return true if the transaction fit the caps and succeeded
+     */
+    public boolean runWithinLimits(int accountId, long cents, BooleanSupplier transaction) {
+        Usage account = usage.computeIfAbsent(accountId, id -> new Usage());
+        synchronized (account) {
+            long now = clock.getAsLong();
+            if (!account.fits(now, cents)) {
+                return false;
+            }
+            if (!transaction.getAsBoolean()) {
+                return false;
+            }
+            account.daily.record(now, cents);
+            account.weekly.record(now, cents);
+            return true;
+        }
+    }
+
+    /**
+     * @param accountId Account ID
+     * @return Money out in the rolling day, in cents
+     */
+    public long getDailyAmountCents(int accountId) {
+        Usage account = usage.get(accountId);
+        if (account == null) {
+            return 0;
+        }
+        synchronized (account) {
+            return account.daily.getAmount(clock.getAsLong());
+        }
+    }
+
+    /**
+     * @param accountId Account ID
+     * @return Transactions out in the rolling day
+     */
+    public int getDailyCount(int accountId) {
+        Usage account = usage.get(accountId);
+        if (account == null) {
+            return 0;
+        }
+        synchronized (account) {
+            return account.daily.getCount(clock.getAsLong());
+        }
+    }
+
+    /**
+     * @param accountId Account ID
+     * @return Money out in the rolling week, in cents
+     */
+    public long getWeeklyAmountCents(int accountId) {
+        Usage account = usage.get(accountId);
+        if (account == null) {
+            return 0;
+        }
+        synchronized (account) {
+            return account.weekly.getAmount(clock.getAsLong());
+        }
+    }
+
+    /**
+     * @param accountId Account ID
+     * @return Transactions out in the rolling week
+     */
+    public int getWeeklyCount(int accountId) {
+        Usage account = usage.get(accountId);
+        if (account == null) {
+            return 0;
+        }
+        synchronized (account) {
+            return account.weekly.getCount(clock.getAsLong());
+        }
+    }
+
+    /**
+     * Drop an account's counters, e.g. after it was removed
+     * @param accountId Account ID
+     */
+    public void forget(int accountId) {
+        usage.remove(accountId);
+    }
+
+    /**
+     * Both windows of one account; guarded by its own monitor
+     */
+    private class Usage {
+        final RollingWindow daily = new RollingWindow(DAY_MILLIS, DAY_BUCKETS);
+        final RollingWindow weekly = new RollingWindow(WEEK_MILLIS, WEEK_BUCKETS);
+
+        boolean fits(long now, long cents) {
+            return daily.getCount(now) < dailyCount
+                    && weekly.getCount(now) < weeklyCount
+                    && daily.getAmount(now) + cents <= dailyAmountCents
+                    && weekly.getAmount(now) + cents <= weeklyAmountCents;
+        }
+    }
+}
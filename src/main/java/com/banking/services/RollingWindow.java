@@ -0,0 +1,94 @@
+package com.banking.services;
+
+/**
+ * Amount and count over a sliding time window, kept in a ring of time buckets
+ *
+ * The window is split into a fixed number of buckets. Recording adds to the
+ * bucket for the current time; moving forward clears the buckets that fell
+ * out of the window and subtracts them from running totals. Recording and
+ * reading are O(1) amortized (a jump clears at most every bucket once) and
+ * memory is fixed by the bucket count, however many transactions there are.
+ * Entries leave the window a whole bucket at a time, so the window covers
+ * between windowMillis - bucketMillis and windowMillis of history.
+ *
+ * Not thread-safe; callers synchronize.
+ */
+public class RollingWindow {
+
+    private final long bucketMillis;
+    private final long[] amounts;
+    private final int[] counts;
+    // Absolute index (time / bucketMillis) of the newest bucket
+    private long head = Long.MIN_VALUE;
+    private long totalAmount;
+    private int totalCount;
+
+    /**
+     * @param windowMillis Length of the window
+     * @param buckets Number of buckets the window is divided into
+     */
+    public RollingWindow(long windowMillis, int buckets) {
+        if (buckets <= 0 || windowMillis < buckets) {
+            throw new IllegalArgumentException("Window must hold at least one millisecond per bucket");
+        }
+        this.bucketMillis = windowMillis / buckets;
+        this.amounts = new long[buckets];
+        this.counts = new int[buckets];
+    }
+
+    /**
+     * Add one entry at a point in time
+     * @param nowMillis Current time; earlier times than a previous call count towards the newest bucket
+     * @param amount Amount to add
+     */
+    public void record(long nowMillis, long amount) {
+        advance(nowMillis);
+        int slot = slot(head);
+        amounts[slot] += amount;
+        counts[slot]++;
+        totalAmount += amount;
+        totalCount++;
+    }
+
+    /**
+     * @param nowMillis Current time
+     * @return Sum of amounts recorded within the window
+     */
+    public long getAmount(long nowMillis) {
+        advance(nowMillis);
+        return totalAmount;
+    }
+
+    /**
+     * @param nowMillis Current time
+     * @return Number of entries recorded within the window
+     */
+    public int getCount(long nowMillis) {
+        advance(nowMillis);
+        return totalCount;
+    }
+
+    private void advance(long nowMillis) {
+        long index = Math.floorDiv(nowMillis, bucketMillis);
+        if (head == Long.MIN_VALUE) {
+            head = index;
+            return;
+        }
+        if (index <= head) {
+            return;
+        }
+        long steps = Math.min(index - head, amounts.length);
+        for (long k = 1; k <= steps; k++) {
+            int slot = slot(head + k);
+            totalAmount -= amounts[slot];
+            totalCount -= counts[slot];
+            amounts[slot] = 0;
+            counts[slot] = 0;
+        }
+        head = index;
+    }
+
+    private int slot(long index) {
+        return (int) Math.floorMod(index, (long) amounts.length);
+    }
+}
@@ -0,0 +1,199 @@
+package com.banking.services;
+
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.LongSupplier;
+
+/**
+ * Lock-free token buckets, one per key
+ *
+ * Each bucket is a single long: the time of its last refill in the upper
+ * bits and its tokens, in thousandths, in the lower {@value #TOKEN_BITS}
+ * bits. Buckets live in fixed-size AtomicLongArray chunks that are
+ * allocated on first use, so they are never copied or moved. A key is
+ * mapped to its slot once; after that, taking a token is a map lookup and
+ * a compare-and-set loop. Buckets are refilled lazily from the elapsed
+ * time when a token is taken, so idle keys cost nothing. Once every slot
+ * is in use, further keys share the buckets of a separate overflow chunk by
+ * hash, so they never drain the bucket of a tracked key.
+ *
+ * @param <K> Key type, e.g. account id or client name
+ */
+public class TokenBucketLimiter<K> {
+
+    static final int TOKEN_BITS = 20;
+    private static final long TOKEN_MASK = (1L << TOKEN_BITS) - 1;
+    private static final long MILLI = 1000;
+    // Largest burst whose thousandths fit in TOKEN_BITS
+    public static final int MAX_CAPACITY = (int) (TOKEN_MASK / MILLI);
+
+    private static final int CHUNK_BITS = 10;
+    private static final int CHUNK_SIZE = 1 << CHUNK_BITS;
+    public static final int DEFAULT_MAX_KEYS = 1 << 20;
+
+    private final long capacityMilli;
+    private final long refillPerSecond;
+    private final LongSupplier clock;
+    private final long origin;
+    private final int maxKeys;
+    // First slot of the overflow chunk, which follows the tracked slots
+    private final int overflowBase;
+    private final Map<K, Integer> slots = new ConcurrentHashMap<>();
+    private final AtomicInteger nextSlot = new AtomicInteger();
+    // Slots claimed by threads that lost the race to map their key
+    private final Queue<Integer> freeSlots = new ConcurrentLinkedQueue<>();
+    private final AtomicReferenceArray<AtomicLongArray> chunks;
+
+    /**
+     * Buckets on the monotonic system clock
+     * @param capacity Burst size in tokens, at most {@link #MAX_CAPACITY}
+     * @param refillPerSecond Tokens added per second
+     */
+    public TokenBucketLimiter(int capacity, int refillPerSecond) {
+        this(capacity, refillPerSecond, DEFAULT_MAX_KEYS, () -> System.nanoTime() / 1_000_000L);
+    }
+
+    /**
+     * @param capacity Burst size in tokens, at most {@link #MAX_CAPACITY}
+     * @param refillPerSecond Tokens added per second
+     * @param maxKeys Keys with a bucket of their own
+     * @param clock Current time in milliseconds; must not go backwards
+     */
+    public TokenBucketLimiter(int capacity, int refillPerSecond, int maxKeys, LongSupplier clock) {
+        if (capacity <= 0 || capacity > MAX_CAPACITY) {
+            throw new IllegalArgumentException("Capacity must be between 1 and " + MAX_CAPACITY);
+        }
+        if (refillPerSecond <= 0 || maxKeys <= 0) {
+            throw new IllegalArgumentException("Refill rate and key count must be positive");
+        }
+        this.capacityMilli = capacity * MILLI;
+        // Thousandths of a token per millisecond equal tokens per second
+        this.refillPerSecond = refillPerSecond;
+        this.maxKeys = maxKeys;
+        this.clock = clock;
+        this.origin = clock.getAsLong();
+        int trackedChunks = (maxKeys + CHUNK_SIZE - 1) >>> CHUNK_BITS;
+        this.overflowBase = trackedChunks << CHUNK_BITS;
+        this.chunks = new AtomicReferenceArray<>(trackedChunks + 1);
+        AtomicLongArray overflow = new AtomicLongArray(CHUNK_SIZE);
+        for (int i = 0; i < CHUNK_SIZE; i++) {
+            overflow.set(i, capacityMilli);
+        }
+        chunks.set(trackedChunks, overflow);
+    }
+
+    /**
+     * Take one token from a key's bucket
+     * @param key Key
+     * @return true if a token was available
+     */
+    public boolean tryAcquire(K key) {
+        int slot = slotFor(key);
+        AtomicLongArray chunk = chunk(slot);
+        int index = slot & (CHUNK_SIZE - 1);
+        long now = clock.getAsLong() - origin;
+        while (true) {
+            long bucket = chunk.get(index);
+            long tokens = refilled(bucket, now);
+            if (tokens < MILLI) {
+                return false;
+            }
+            long last = Math.max(now, bucket >>> TOKEN_BITS);
+            if (chunk.compareAndSet(index, bucket, (last << TOKEN_BITS) | (tokens - MILLI))) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Return a token taken by {@link #tryAcquire} for a request that did not
+     * go ahead after all; the bucket never grows past its capacity
+     * @param key Key
+     */
+    public void release(K key) {
+        Integer slot = slots.get(key);
+        if (slot == null) {
+            if (nextSlot.get() < maxKeys) {
+                // Never acquired, so the bucket is full
+                return;
+            }
+            slot = overflowBase + Math.floorMod(key.hashCode(), CHUNK_SIZE);
+        }
+        AtomicLongArray chunk = chunk(slot);
+        int index = slot & (CHUNK_SIZE - 1);
+        long now = clock.getAsLong() - origin;
+        while (true) {
+            long bucket = chunk.get(index);
+            long tokens = Math.min(capacityMilli, refilled(bucket, now) + MILLI);
+            long last = Math.max(now, bucket >>> TOKEN_BITS);
+            if (chunk.compareAndSet(index, bucket, (last << TOKEN_BITS) | tokens)) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * @param key Key
+     * @return Whole tokens currently available to the key
+     */
+    public int availableTokens(K key) {
+        Integer slot = slots.get(key);
+        if (slot == null) {
+            return (int) (capacityMilli / MILLI);
+        }
+        long bucket = chunk(slot).get(slot & (CHUNK_SIZE - 1));
+        return (int) (refilled(bucket, clock.getAsLong() - origin) / MILLI);
+    }
+
+    private long refilled(long bucket, long now) {
+        long last = bucket >>> TOKEN_BITS;
+        long tokens = bucket & TOKEN_MASK;
+        // Capping the gap first keeps the product from overflowing
+        long elapsed = Math.min(Math.max(0, now - last), capacityMilli);
+        return Math.min(capacityMilli, tokens + elapsed * refillPerSecond);
+    }
+
+    private int slotFor(K key) {
+        Integer slot = slots.get(key);
+        if (slot != null) {
+            return slot;
+        }
+        Integer free = freeSlots.poll();
+        int next = free != null ? free : nextSlot.getAndIncrement();
+        if (next >= maxKeys) {
+            nextSlot.set(maxKeys);
+            return overflowBase + Math.floorMod(key.hashCode(), CHUNK_SIZE);
+        }
+        // The bucket starts full; it is written before the slot is published to other threads
+        chunk(next).set(next & (CHUNK_SIZE - 1), ((clock.getAsLong() - origin) << TOKEN_BITS) | capacityMilli);
+        Integer raced = slots.putIfAbsent(key, next);
+        if (raced == null) {
+            return next;
+        }
+        // Another thread mapped the key first; the next new key reuses this slot
+        freeSlots.add(next);
+        return raced;
+    }
+
+    private AtomicLongArray chunk(int slot) {
+        int c = slot >>> CHUNK_BITS;
+        AtomicLongArray chunk = chunks.get(c);
+        if (chunk == null) {
+            chunks.compareAndSet(c, null, new AtomicLongArray(CHUNK_SIZE));
+            chunk = chunks.get(c);
+        }
+        return chunk;
+    }
+
+    /**
+     * @return Number of keys with a bucket of their own
+     */
+    public int getTrackedKeys() {
+        return slots.size();
+    }
+}
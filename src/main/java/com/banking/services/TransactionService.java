@@ -1,13 +1,54 @@
 package com.banking.services;
 
+import com.banking.dao.AccountDAO;
+import com.banking.dao.AccountRepository;
 import com.banking.entities.Account;
 import com.banking.entities.Account.AccountStatus;
+import com.banking.entities.Money;
+import com.banking.fraud.FraudAssessment;
+import com.banking.fraud.FraudDetector;
 
 /**
  * Service class for transaction processing
  */
 public class TransactionService {
     
+    private static final long MAX_TRANSACTION_CENTS = 10000 * Money.SCALE;
+    
+    private final AccountRepository repository;
+    // Null when outgoing money is only capped per transaction
+    private final RollingLimits rollingLimits;
+    // Null when transfers are not scored for fraud
+    private final FraudDetector fraudDetector;
+    
+    public TransactionService() {
+        this(AccountDAO.getDefault());
+    }
+    
+    public TransactionService(AccountRepository repository) {
+        this(repository, null);
+    }
+    
+    /**
+     * @param repository Repository used to resolve recipients and persist changes
+     * @param rollingLimits Daily and weekly caps on withdrawals and transfers, or null for none
+     */
+    public TransactionService(AccountRepository repository, RollingLimits rollingLimits) {
+        this(repository, rollingLimits, null);
+    }
+    
+    /**
+     * @param repository Repository used to resolve recipients and persist changes
+     * @param rollingLimits Daily and weekly caps on withdrawals and transfers, or null for none
+     * @param fraudDetector Velocity checks run on every transfer, or null for none
+     */
+    public TransactionService(AccountRepository repository, RollingLimits rollingLimits,
+                              FraudDetector fraudDetector) {
+        this.repository = repository;
+        this.rollingLimits = rollingLimits;
+        this.fraudDetector = fraudDetector;
+    }
+    
     /**
      * Process deposit transaction
      * @param account Target account
@@ -15,10 +56,23 @@ public class TransactionService {
      * @return true if successful
      */
     public boolean processDeposit(Account account, double amount) {
+        return processDepositCents(account, Money.fromPositiveAmount(amount));
+    }
+    
+    /**
+     * Process deposit transaction
+     * @param account Target account
+     * @param cents Amount to deposit in cents
+     * @return true if successful
+     */
+    public boolean processDepositCents(Account account, long cents) {
         if (account == null) {
             return false;
         }
-        return account.deposit(amount);
+        long before = account.getModificationCount();
+        boolean success = account.depositCents(cents);
+        saveIfChanged(account, before);
+        return success;
     }
     
     /**
@@ -28,14 +82,33 @@ public class TransactionService {
      * @return true if successful
      */
     public boolean processWithdrawal(Account account, double amount) {
+        return processWithdrawalCents(account, Money.fromPositiveAmount(amount));
+    }
+    
+    /**
+     * Process withdrawal transaction
+     * @param account Source account
+     * @param cents Amount to withdraw in cents
+     * @return true if successful
+     */
+    public boolean processWithdrawalCents(Account account, long cents) {
         if (account == null) {
             return false;
         }
-        return account.withdraw(amount);
+        long before = account.getModificationCount();
+        boolean success = rollingLimits == null
+                ? account.withdrawCents(cents)
+                : rollingLimits.runWithinLimits(account.getId(), cents, () -> account.withdrawCents(cents));
+        // A rejected withdrawal can still change state, e.g. an overdraft penalty
+        saveIfChanged(account, before);
+        return success;
     }
     
     /**
      * Process transfer transaction
+     * With a fraud detector, the transfer is scored first; a sender it
+     * suspends is saved and the transfer is refused. Only transfers that go
+     * through count towards the sender's fraud statistics.
      * @param sender Sender account
      * @param recipientCardNumber Recipient card number
      * @param amount Amount to transfer
@@ -44,26 +117,79 @@ public class TransactionService {
      */
     public boolean processTransfer(Account sender, String recipientCardNumber, 
                                    double amount, String description) {
+        return processTransferCents(sender, recipientCardNumber, Money.fromPositiveAmount(amount), description);
+    }
+    
+    /**
+     * Process transfer transaction
+     * @param sender Sender account
+     * @param recipientCardNumber Recipient card number
+     * @param cents Amount to transfer in cents
+     * @param description Transfer description
+     * @return true if successful
+     * @see #processTransfer(Account, String, double, String)
+     */
+    public boolean processTransferCents(Account sender, String recipientCardNumber,
+                                        long cents, String description) {
         if (sender == null || recipientCardNumber == null) {
             return false;
         }
-        return sender.transfer(recipientCardNumber, amount, description);
+        Account recipient = repository.findByCardNumber(recipientCardNumber);
+        if (fraudDetector != null && cents > 0) {
+            FraudAssessment assessment = fraudDetector.assess(sender, recipientCardNumber, cents);
+            if (assessment.isSuspended()) {
+                repository.save(sender);
+                return false;
+            }
+        }
+        boolean success = rollingLimits == null
+                ? sender.transferCents(recipient, cents, description)
+                : rollingLimits.runWithinLimits(sender.getId(), cents,
+                        () -> sender.transferCents(recipient, cents, description));
+        if (!success) {
+            return false;
+        }
+        if (fraudDetector != null) {
+            fraudDetector.record(sender, recipientCardNumber, cents);
+        }
+        repository.save(sender);
+        repository.save(recipient);
+        return true;
     }
     
     /**
      * Validate transaction based on account status and amount
+     * Withdrawals and transfers are also checked against the account's
+     * precomputed credit-based transaction limit and the rolling daily and
+     * weekly caps, if any. A fraction of a cent counts as a whole cent, so
+     * an amount just over a cap, such as 10000.004, is refused.
      * @param account Account to validate
      * @param amount Transaction amount
      * @param transactionType Type of transaction
      * @return true if transaction is valid
      */
     public boolean validateTransaction(Account account, double amount, String transactionType) {
-        if (account == null || amount <= 0) {
+        long cents = Money.fromPositiveAmount(amount);
+        if (cents > 0 && Money.toDouble(cents) < amount) {
+            cents++;
+        }
+        return validateTransactionCents(account, cents, transactionType);
+    }
+    
+    /**
+     * Validate transaction based on account status and amount
+     * @param account Account to validate
+     * @param cents Transaction amount in cents
+     * @param transactionType Type of transaction
+     * @return true if transaction is valid
+     * @see #validateTransaction(Account, double, String)
+     */
+    public boolean validateTransactionCents(Account account, long cents, String transactionType) {
+        if (account == null || cents <= 0) {
             return false;
         }
         
-        double maxLimit = 10000.0;
-        if (amount > maxLimit) {
+        if (cents > MAX_TRANSACTION_CENTS) {
             return false;
         }
         
@@ -73,13 +199,41 @@ public class TransactionService {
             case "deposit":
                 return status != AccountStatus.Closed;
             case "withdraw":
-                return status == AccountStatus.Verified && amount <= account.getBalance();
             case "transfer":
-                return status == AccountStatus.Verified && amount <= account.getBalance();
+                return status == AccountStatus.Verified && cents <= account.getBalanceCents()
+                        && cents <= account.getTransactionLimitCents()
+                        && (rollingLimits == null || rollingLimits.allows(account.getId(), cents));
             case "view":
                 return true;
             default:
                 return false;
         }
     }
-}
\ No newline at end of file
+    
+    /**
+     * @return Rolling caps on withdrawals and transfers, or null if none are enforced
+     */
+    public RollingLimits getRollingLimits() {
+        return rollingLimits;
+    }
+    
+    /**
+     * @return Velocity checks run on transfers, or null if transfers are not scored
+     */
+    public FraudDetector getFraudDetector() {
+        return fraudDetector;
+    }
+    
+    /**
+     * @return Repository used to resolve recipients and persist changes
+     */
+    public AccountRepository getRepository() {
+        return repository;
+    }
+    
+    private void saveIfChanged(Account account, long modificationsBefore) {
+        if (account.getModificationCount() != modificationsBefore) {
+            repository.save(account);
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package com.banking.services;
+
+import com.banking.entities.Account;
+import com.banking.entities.Money;
+
+/**
+ * One transfer of a batch, with the same arguments as
+ * {@link TransactionService#processTransfer(Account, String, double, String)}
+ */
+public final class TransferRequest {
+
+    private final Account sender;
+    private final String recipientCardNumber;
+    private final long cents;
+    private final String description;
+
+    /**
+     * @param sender Sender account
+     * @param recipientCardNumber Recipient card number
+     * @param amount Amount to transfer
+     * @param description Transfer description
+     */
+    public TransferRequest(Account sender, String recipientCardNumber, double amount, String description) {
+        this.sender = sender;
+        this.recipientCardNumber = recipientCardNumber;
+        this.cents = Money.fromPositiveAmount(amount);
+        this.description = description;
+    }
+
+    public Account getSender() {
+        return sender;
+    }
+
+    public String getRecipientCardNumber() {
+        return recipientCardNumber;
+    }
+
+    /**
+     * @return Amount in cents; 0 if the amount was not a valid positive amount
+     */
+    public long getCents() {
+        return cents;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    @Override
+    public String toString() {
+        return "TransferRequest[" + (sender == null ? "null" : sender.getId()) + " -> " + recipientCardNumber
+                + ", " + Money.format(cents) + "]";
+    }
+}
@@ -0,0 +1,225 @@
+package com.banking.accrual;
+
+import com.banking.dao.AccountSnapshot;
+import com.banking.dao.InMemoryAccountRepository;
+import com.banking.entities.Account;
+import com.banking.entities.Account.AccountStatus;
+import com.banking.entities.CreditScoreAccount;
+import com.banking.entities.Money;
+import com.banking.events.AccountEvent;
+import com.banking.events.AccountEventListener;
+import com.banking.events.AccountEvents;
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.TempDir;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for end-of-day interest and fee accrual
+ */
+@DisplayName("AccrualJob Tests")
+public class AccrualJobTest {
+
+    private static final LocalDate DAY = LocalDate.of(2026, 3, 31);
+
+    @TempDir
+    Path directory;
+
+    private InMemoryAccountRepository repository;
+
+    @BeforeEach
+    void setUp() {
+        repository = new InMemoryAccountRepository();
+    }
+
+    private AccrualJob job(int parallelism, int leafSpan) {
+        return new AccrualJob(repository, directory, AccrualPolicy.DEFAULT, parallelism, leafSpan);
+    }
+
+    @Test
+    @DisplayName("AC01 - Interest and fees follow balance, status and credit score")
+    void testPolicy() {
+        Account saver = new Account(1, "Saver", 36_500, AccountStatus.Verified);
+        CreditScoreAccount prime = new CreditScoreAccount(2, "Prime", 36_500, AccountStatus.Verified, 800, 0, 0);
+        CreditScoreAccount subprime = new CreditScoreAccount(3, "Subprime", 36_500, AccountStatus.Verified, 600, 0, 0);
+        Account low = new Account(4, "Low", 50, AccountStatus.Verified);
+        Account suspended = new Account(5, "Suspended", 36_500, AccountStatus.Suspended);
+        Account unverified = new Account(6, "Unverified", 36_500, AccountStatus.Unverified);
+        Account closed = new Account(7, "Closed", 36_500, AccountStatus.Closed);
+        for (Account account : List.of(saver, prime, subprime, low, suspended, unverified, closed)) {
+            repository.add(account);
+        }
+
+        AccrualReport report = job(2, 2).run(DAY);
+        // 2% a year on $36,500 is $2.00 a day; a score of 750 or more earns another 0.5%
+        assertEquals(Money.ofMajor(36_502), saver.getBalanceCents());
+        assertEquals(Money.ofMajor(36_502) + 50, prime.getBalanceCents());
+        assertEquals(Money.ofMajor(36_502), subprime.getBalanceCents());
+        assertEquals(Money.ofMajor(50) - 10, low.getBalanceCents());
+        assertEquals(Money.ofMajor(36_500) - 50, suspended.getBalanceCents());
+        assertEquals(Money.ofMajor(36_500), unverified.getBalanceCents());
+        assertEquals(Money.ofMajor(36_500), closed.getBalanceCents());
+        // Accrual is not a client deposit, so it earns no credit points
+        assertEquals(800, prime.getCreditScore());
+
+        assertEquals(7, report.getAccountsScanned());
+        assertEquals(5, report.getPostings());
+        assertEquals(3 * 200 + 50, report.getInterestCents());
+        assertEquals(60, report.getFeeCents());
+        assertEquals(0, report.getUncollectedFeeCents());
+    }
+
+    @Test
+    @DisplayName("AC02 - The batch journal holds every posting and blocks a second run")
+    void testJournal() throws IOException {
+        for (int id = 1; id <= 500; id++) {
+            repository.add(new Account(id * 7, "Client " + id, id, AccountStatus.Verified));
+        }
+        AccrualJob job = job(4, 64);
+        AccrualReport report = job.run(DAY);
+        assertTrue(AccrualJob.isApplied(report.getJournal()));
+
+        List<AccrualPosting> postings = AccrualJob.readJournal(report.getJournal());
+        assertEquals(report.getPostings(), postings.size());
+        long fees = 0;
+        for (int i = 0; i < postings.size(); i++) {
+            if (i > 0) {
+                assertTrue(postings.get(i).getAccountId() > postings.get(i - 1).getAccountId());
+            }
+            fees += postings.get(i).getFeeCents();
+        }
+        assertEquals(report.getFeeCents(), fees);
+        // Accounts under $100 pay the low-balance fee
+        assertEquals(99 * 10, fees);
+        Map<Integer, Long> applied = AccrualJob.readApplied(report.getJournal());
+        assertEquals(postings.size(), applied.size());
+        for (AccrualPosting posting : postings) {
+            assertEquals(posting.getNetCents(), applied.get(posting.getAccountId()));
+        }
+
+        long balance = repository.findById(7).getBalanceCents();
+        IllegalStateException rerun = assertThrows(IllegalStateException.class, () -> job.run(DAY));
+        assertTrue(rerun.getMessage().contains("already posted"));
+        assertEquals(balance, repository.findById(7).getBalanceCents());
+        assertNotNull(job.run(DAY.plusDays(1)));
+
+        // A journal without the applied marker is in doubt
+        Path unconfirmed = job.journalFile(DAY.plusDays(2));
+        byte[] bytes = Files.readAllBytes(report.getJournal());
+        Files.write(unconfirmed, Arrays.copyOf(bytes, bytes.length - 1));
+        assertFalse(AccrualJob.isApplied(unconfirmed));
+        assertEquals(postings.size(), AccrualJob.readJournal(unconfirmed).size());
+        assertEquals(postings.size(), AccrualJob.readApplied(unconfirmed).size());
+        // A run cut short mid-record confirms only the complete records
+        int posted = 5;
+        int cut = bytes.length - 1 - (postings.size() - posted) * 12 + 7;
+        Files.write(unconfirmed, Arrays.copyOf(bytes, cut));
+        assertFalse(AccrualJob.isApplied(unconfirmed));
+        assertEquals(posted, AccrualJob.readApplied(unconfirmed).size());
+        rerun = assertThrows(IllegalStateException.class, () -> job.run(DAY.plusDays(2)));
+        assertTrue(rerun.getMessage().contains("reconcile"));
+    }
+
+    @Test
+    @DisplayName("AC03 - Parallel runs post each account once, through one commit")
+    void testParallel() {
+        for (int id = 0; id < 20_000; id++) {
+            repository.add(new Account(id, "Client " + id, 36_500, AccountStatus.Verified));
+        }
+        AtomicInteger events = new AtomicInteger();
+        AccountEventListener listener = event -> {
+            if (event.getType() == AccountEvent.Type.Deposited) {
+                events.incrementAndGet();
+            }
+        };
+        AccountEvents.subscribe(listener);
+        try {
+            AccrualReport report = job(8, 256).run(DAY);
+            assertEquals(20_000, report.getPostings());
+            assertEquals(20_000L * 200, report.getInterestCents());
+            assertEquals(20_000, events.get());
+        } finally {
+            AccountEvents.unsubscribe(listener);
+        }
+        for (int id = 0; id < 20_000; id++) {
+            assertEquals(Money.ofMajor(36_502), repository.findById(id).getBalanceCents());
+        }
+    }
+
+    @Test
+    @DisplayName("AC04 - Fees never overdraw an account")
+    void testFeeCap() {
+        Account broke = new Account(1, "Broke", 0.3, AccountStatus.Suspended);
+        repository.add(broke);
+        assertEquals(-30, broke.postAccrualCents(-50));
+        assertEquals(0, broke.getBalanceCents());
+        assertEquals(0, broke.postAccrualCents(-50));
+
+        broke.deposit(0.2);
+        AccrualReport report = job(1, 16).run(DAY);
+        assertEquals(0, broke.getBalanceCents());
+        assertEquals(50, report.getFeeCents());
+        assertEquals(30, report.getUncollectedFeeCents());
+        // The journal records the part of the fee actually posted
+        assertEquals(-20L, AccrualJob.readApplied(report.getJournal()).get(1));
+        assertThrows(IllegalArgumentException.class, () -> new AccrualPolicy(9_000, 2_000, 700, 0, 0, 0));
+    }
+
+    @Test
+    @DisplayName("AC05 - The credit score bonus comes from the snapshot, not the live score")
+    void testSnapshotScore() {
+        CreditScoreAccount prime = new CreditScoreAccount(1, "Prime", 36_500, AccountStatus.Verified, 800, 0, 0);
+        AtomicInteger scans = new AtomicInteger();
+        // The score drops below the bonus threshold after the snapshot, while the accounts are scanned
+        repository = new InMemoryAccountRepository() {
+            @Override
+            public Iterable<Account> findRange(int fromId, int toId) {
+                if (scans.getAndIncrement() == 0) {
+                    prime.applyComputedScore(600);
+                }
+                return super.findRange(fromId, toId);
+            }
+        };
+        repository.add(prime);
+
+        AccrualReport report = job(1, 16).run(DAY);
+        assertEquals(600, prime.getCreditScore());
+        assertEquals(250, report.getInterestCents());
+    }
+
+    @Test
+    @DisplayName("AC06 - Accounts opened or removed after the snapshot are not accrued")
+    void testSnapshotMembership() {
+        Account saver = new Account(1, "Saver", 36_500, AccountStatus.Verified);
+        Account leaving = new Account(2, "Leaving", 36_500, AccountStatus.Verified);
+        Account late = new Account(3, "Late", 36_500, AccountStatus.Verified);
+        repository = new InMemoryAccountRepository() {
+            @Override
+            public AccountSnapshot openSnapshot() {
+                AccountSnapshot snapshot = super.openSnapshot();
+                add(late);
+                remove(2);
+                return snapshot;
+            }
+        };
+        repository.add(saver);
+        repository.add(leaving);
+
+        AccrualReport report = job(2, 2).run(DAY);
+        assertEquals(1, report.getAccountsScanned());
+        assertEquals(Money.ofMajor(36_502), saver.getBalanceCents());
+        assertEquals(Money.ofMajor(36_500), late.getBalanceCents());
+        assertEquals(Money.ofMajor(36_500), leaving.getBalanceCents());
+        assertNull(repository.findById(2));
+        assertEquals(List.of(1), AccrualJob.readJournal(report.getJournal()).stream()
+                .map(AccrualPosting::getAccountId).collect(Collectors.toList()));
+    }
+}
@@ -0,0 +1,83 @@
+package com.banking.benchmark;
+
+import com.banking.dao.AccountDAO;
+import com.banking.dao.lsm.LsmAccountStore;
+import com.banking.entities.Account;
+import org.openjdk.jmh.annotations.*;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Compares the LSM-tree store with the in-memory HashMap-based AccountDAO
+ * Run with: java -cp target/classes:target/test-classes:$(cat cp.txt) org.openjdk.jmh.Main AccountStoreBenchmark
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class AccountStoreBenchmark {
+    
+    @Param({"100000"})
+    int accounts;
+    
+    private Path directory;
+    private LsmAccountStore lsm;
+    private int nextId;
+    
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("lsm-bench");
+        lsm = new LsmAccountStore(directory);
+        AccountDAO.clear();
+        for (int i = 0; i < accounts; i++) {
+            Account account = new Account(i, "Client " + i, i);
+            AccountDAO.add(account);
+            lsm.add(account);
+        }
+        lsm.flush();
+        lsm.awaitCompaction();
+        nextId = accounts;
+    }
+    
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        lsm.close();
+        AccountDAO.clear();
+        try (Stream<Path> files = Files.walk(directory)) {
+            files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+    
+    @Benchmark
+    public void hashMapAdd() {
+        AccountDAO.add(new Account(nextId++, "New Client", 100));
+    }
+    
+    @Benchmark
+    public void lsmAdd() {
+        lsm.add(new Account(nextId++, "New Client", 100));
+    }
+    
+    @Benchmark
+    public Account hashMapFindById() {
+        return AccountDAO.findById(ThreadLocalRandom.current().nextInt(accounts));
+    }
+    
+    @Benchmark
+    public Account lsmFindById() {
+        return lsm.findById(ThreadLocalRandom.current().nextInt(accounts));
+    }
+    
+    @Benchmark
+    public Account lsmFindMissing() {
+        // Served by the bloom filters without touching segment data
+        return lsm.findById(-1 - ThreadLocalRandom.current().nextInt(accounts));
+    }
+}
@@ -0,0 +1,77 @@
+package com.banking.benchmark;
+
+import com.banking.entities.Account.AccountStatus;
+import com.banking.entities.AccountState;
+import com.banking.entities.CreditScoreAccount;
+import com.banking.scoring.ScoreColumns;
+import com.banking.scoring.ScoreKernel;
+import com.banking.scoring.ScoreKernels;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Scoring a batch of accounts object by object vs over columns with the
+ * scalar and vector kernels
+ * Run with: java --add-modules jdk.incubator.vector -cp target/classes:target/test-classes:$(cat cp.txt) org.openjdk.jmh.Main CreditScoreBenchmark
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "--add-modules=jdk.incubator.vector")
+@State(Scope.Benchmark)
+public class CreditScoreBenchmark {
+
+    @Param({"100000"})
+    int accounts;
+
+    private CreditScoreAccount[] objects;
+    private ScoreColumns columns;
+    private ScoreKernel vector;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(41);
+        objects = new CreditScoreAccount[accounts];
+        columns = new ScoreColumns(accounts);
+        for (int i = 0; i < accounts; i++) {
+            objects[i] = new CreditScoreAccount(i, "Client " + i, random.nextInt(800_000) / 100.0,
+                    AccountStatus.values()[random.nextInt(4)], 700, random.nextInt(20), random.nextInt(200));
+            columns.add(objects[i]);
+        }
+        vector = ScoreKernels.vector();
+        if (vector == null) {
+            throw new IllegalStateException("Run with --add-modules jdk.incubator.vector");
+        }
+    }
+
+    @Benchmark
+    public void perObjectRecalculate() {
+        for (CreditScoreAccount account : objects) {
+            account.recalculateCreditScore();
+        }
+    }
+
+    @Benchmark
+    public void perObjectCompute(Blackhole blackhole) {
+        for (CreditScoreAccount account : objects) {
+            AccountState state = account.getState();
+            blackhole.consume(CreditScoreAccount.computeScore(state.getBalanceCents(),
+                    account.getSuccessfulTransactions(), account.getOverdraftAttempts(), state.getStatus()));
+        }
+    }
+
+    @Benchmark
+    public int columnarScalar() {
+        columns.score(ScoreKernels.scalar());
+        return columns.getScore(accounts - 1);
+    }
+
+    @Benchmark
+    public int columnarVector() {
+        columns.score(vector);
+        return columns.getScore(accounts - 1);
+    }
+}
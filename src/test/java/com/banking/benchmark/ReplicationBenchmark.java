@@ -0,0 +1,67 @@
+package com.banking.benchmark;
+
+import com.banking.dao.InMemoryAccountRepository;
+import com.banking.entities.Account;
+import com.banking.replication.ReplicationFollower;
+import com.banking.replication.ReplicationLeader;
+import org.openjdk.jmh.annotations.*;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Leader deposit throughput with synchronous vs asynchronous replication to a
+ * follower running as a separate JVM on the same machine
+ * Run with: java -cp target/classes:target/test-classes:$(cat cp.txt) org.openjdk.jmh.Main ReplicationBenchmark
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(4)
+@State(Scope.Benchmark)
+public class ReplicationBenchmark {
+
+    @Param({"Synchronous", "Asynchronous"})
+    ReplicationLeader.Mode mode;
+
+    private ReplicationLeader leader;
+    private Process follower;
+    private Account account;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        leader = new ReplicationLeader(0, mode).start();
+        Path java = Paths.get(System.getProperty("java.home"), "bin", "java");
+        follower = new ProcessBuilder(java.toString(), "-cp", System.getProperty("java.class.path"),
+                ReplicationFollower.class.getName(), String.valueOf(leader.getPort()))
+                .redirectOutput(ProcessBuilder.Redirect.DISCARD)
+                .redirectErrorStream(true)
+                .start();
+        long deadline = System.currentTimeMillis() + 30_000;
+        while (!leader.isFollowerConnected()) {
+            if (System.currentTimeMillis() > deadline) {
+                throw new IllegalStateException("Follower process did not connect");
+            }
+            Thread.sleep(10);
+        }
+        account = new Account(1, "Benchmark Client", 0);
+        new InMemoryAccountRepository().add(account);
+        account.verify();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException, InterruptedException {
+        leader.close();
+        if (!follower.waitFor(10, TimeUnit.SECONDS)) {
+            follower.destroy();
+        }
+    }
+
+    @Benchmark
+    public boolean replicatedDeposit() {
+        return account.deposit(1);
+    }
+}
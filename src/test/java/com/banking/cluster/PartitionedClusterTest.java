@@ -0,0 +1,378 @@
+package com.banking.cluster;
+
+import com.banking.controllers.PartitionedClientController;
+import com.banking.dao.InMemoryAccountRepository;
+import com.banking.entities.Account;
+import com.banking.entities.Account.AccountStatus;
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.TempDir;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for consistent-hash partitioning over loopback partition nodes
+ */
+@DisplayName("Partitioned Cluster Tests")
+public class PartitionedClusterTest {
+
+    private PartitionNode[] nodes;
+    private PartitionedClientController controller;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        nodes = new PartitionNode[3];
+        int[] ports = new int[nodes.length];
+        for (int i = 0; i < nodes.length; i++) {
+            nodes[i] = new PartitionNode(0);
+            ports[i] = nodes[i].getPort();
+        }
+        controller = PartitionedClientController.connect(ports);
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        for (PartitionNode node : nodes) {
+            node.close();
+        }
+    }
+
+    private void openVerified(int count, double balance) {
+        for (int id = 1; id <= count; id++) {
+            assertNotNull(controller.createAccount(id, "Client " + id, balance));
+            assertTrue(controller.verifyAccount(id));
+        }
+    }
+
+    private double totalBalance() {
+        double total = 0;
+        for (PartitionNode node : nodes) {
+            for (Account account : node.getRepository().findAll()) {
+                total += account.getBalance();
+            }
+            total += node.getEscrowBalance();
+        }
+        return total;
+    }
+
+    /**
+     * Find two accounts owned by different nodes
+     */
+    private int[] crossNodePair(int count) {
+        for (int a = 1; a <= count; a++) {
+            for (int b = 1; b <= count; b++) {
+                if (controller.nodeFor(a) != controller.nodeFor(b)) {
+                    return new int[] {a, b};
+                }
+            }
+        }
+        throw new AssertionError("All accounts landed on one node");
+    }
+
+    @Test
+    @DisplayName("CL01 - Accounts are spread over every node and stored only by their owner")
+    void testAccountPlacement() {
+        openVerified(300, 10);
+        int total = 0;
+        for (PartitionNode node : nodes) {
+            int owned = node.getRepository().count();
+            assertTrue(owned > 50, "node holds " + owned + " of 300 accounts");
+            total += owned;
+            for (Account account : node.getRepository().findAll()) {
+                assertEquals(node.getPort(), controller.nodeFor(account.getId()).getPort());
+            }
+        }
+        assertEquals(300, total);
+        assertNull(controller.createAccount(7, "Duplicate", 0));
+        assertEquals("Client 7", controller.getAccount(7).getClientName());
+    }
+
+    @Test
+    @DisplayName("CL02 - Cross-node transfer commits on both nodes")
+    void testCrossNodeTransfer() {
+        openVerified(20, 100);
+        int[] pair = crossNodePair(20);
+        Account sender = controller.getAccount(pair[0]);
+
+        String result = controller.processTransfer(sender, Account.cardNumberFor(pair[1]), 40, "Rent");
+
+        assertEquals("Transfer successful", result);
+        assertEquals(60, controller.getAccount(pair[0]).getBalance());
+        assertEquals(140, controller.getAccount(pair[1]).getBalance());
+        for (PartitionNode node : nodes) {
+            assertEquals(0, node.getPreparedCount());
+            assertEquals(0, node.getEscrowBalance());
+        }
+        assertEquals("Deposit successful", controller.processDeposit(sender, 5));
+        assertTrue(controller.getAccountStatement(sender).contains("65.00"));
+    }
+
+    @Test
+    @DisplayName("CL03 - Rejected cross-node transfers refund the sender")
+    void testCrossNodeAbort() {
+        openVerified(20, 100);
+        int[] pair = crossNodePair(20);
+        Account sender = controller.getAccount(pair[0]);
+        assertTrue(controller.closeAccount(pair[1]));
+
+        assertEquals("Transfer failed",
+                controller.processTransfer(sender, Account.cardNumberFor(pair[1]), 40, "Rent"));
+        assertEquals("Transfer failed",
+                controller.processTransfer(sender, Account.cardNumberFor(9999), 40, "Nobody"));
+        assertEquals("Transfer failed",
+                controller.processTransfer(sender, Account.cardNumberFor(pair[1]), 400, "Too much"));
+
+        assertEquals(100, controller.getAccount(pair[0]).getBalance());
+        assertEquals(AccountStatus.Closed, controller.getAccount(pair[1]).getStatus());
+        for (PartitionNode node : nodes) {
+            assertEquals(0, node.getPreparedCount());
+            assertEquals(0, node.getEscrowBalance());
+        }
+    }
+
+    @Test
+    @DisplayName("CL04 - Concurrent random transfers conserve the total balance")
+    void testConcurrentTransfersConserveMoney() throws Exception {
+        openVerified(40, 1000);
+        double before = totalBalance();
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        for (int t = 0; t < 4; t++) {
+            int seed = t;
+            pool.submit(() -> {
+                java.util.Random random = new java.util.Random(seed);
+                for (int i = 0; i < 250; i++) {
+                    int from = 1 + random.nextInt(40);
+                    int to = 1 + random.nextInt(40);
+                    controller.processTransfer(new Account(from), Account.cardNumberFor(to),
+                            1 + random.nextInt(200), "Load");
+                }
+            });
+        }
+        pool.shutdown();
+        assertTrue(pool.awaitTermination(60, TimeUnit.SECONDS));
+
+        assertEquals(before, totalBalance(), 1e-6);
+        for (PartitionNode node : nodes) {
+            assertEquals(0, node.getPreparedCount());
+        }
+        assertEquals(0, controller.getInDoubtTransfers());
+    }
+
+    @Test
+    @DisplayName("CL05 - Removing a node only moves the accounts it owned")
+    void testRingStability() {
+        HashRing ring = new HashRing();
+        ring.addNode("a");
+        ring.addNode("b");
+        ring.addNode("c");
+        Map<Integer, String> before = new HashMap<>();
+        for (int id = 0; id < 10_000; id++) {
+            before.put(id, ring.nodeFor(id));
+        }
+        ring.removeNode("b");
+        int moved = 0;
+        for (int id = 0; id < 10_000; id++) {
+            String owner = ring.nodeFor(id);
+            if (before.get(id).equals("b")) {
+                assertNotEquals("b", owner);
+                moved++;
+            } else {
+                assertEquals(before.get(id), owner);
+            }
+        }
+        assertTrue(moved > 2000 && moved < 4700, "moved " + moved);
+        assertEquals(List.of("a", "c"), ring.getNodes());
+        assertThrows(IllegalStateException.class, () -> new HashRing().nodeFor(1));
+    }
+
+    @Test
+    @DisplayName("CL06 - Unvoted prepared transactions abort at the prepare timeout")
+    void testPrepareTimeout() throws Exception {
+        InMemoryAccountRepository repository = new InMemoryAccountRepository();
+        repository.add(new Account(1, "Sender", 100, AccountStatus.Verified));
+        repository.add(new Account(2, "Recipient", 0, AccountStatus.Verified));
+        try (PartitionNode node = new PartitionNode(0, repository, null, 50)) {
+            assertTrue(node.prepareDebit(10L, 1, 4_000, "Rent", 0));
+            assertTrue(node.prepareCredit(11L, 2, 4_000));
+            assertEquals(60, repository.findById(1).getBalance());
+            assertEquals(40, node.getEscrowBalance());
+
+            long deadline = System.currentTimeMillis() + 5000;
+            while (node.getPreparedCount() > 0 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10);
+            }
+            assertEquals(0, node.getPreparedCount());
+            assertEquals(2, node.getExpiredCount());
+            assertEquals(100, repository.findById(1).getBalance());
+            assertEquals(0, node.getEscrowBalance());
+            assertFalse(node.commit(10L));
+            assertFalse(node.commit(11L));
+            assertEquals(0, repository.findById(2).getBalance());
+            assertNull(node.getLastFailure());
+        }
+    }
+
+    @Test
+    @DisplayName("CL07 - Prepared transactions survive a node restart through the prepare journal")
+    void testPrepareJournal(@TempDir Path directory) throws Exception {
+        Path journal = directory.resolve("prepared.journal");
+        InMemoryAccountRepository repository = new InMemoryAccountRepository();
+        repository.add(new Account(1, "Sender", 100, AccountStatus.Verified));
+        repository.add(new Account(2, "Recipient", 0, AccountStatus.Verified));
+        try (PartitionNode node = new PartitionNode(0, repository, journal, 60_000)) {
+            assertTrue(node.prepareDebit(20L, 1, 3_000, "Rent", 0));
+            assertTrue(node.prepareCredit(21L, 2, 3_000));
+            assertTrue(node.prepareDebit(22L, 1, 1_000, "Fee", 0));
+            assertTrue(node.abort(22L));
+            assertFalse(node.prepareDebit(20L, 1, 1_000, "Duplicate", 0));
+        }
+        assertEquals(70, repository.findById(1).getBalance());
+
+        try (PartitionNode restarted = new PartitionNode(0, repository, journal, 60_000)) {
+            assertEquals(2, restarted.getPreparedCount());
+            assertEquals(30, restarted.getEscrowBalance());
+            assertTrue(restarted.commit(21L));
+            assertTrue(restarted.commit(20L));
+            assertEquals(0, restarted.getEscrowBalance());
+        }
+        assertEquals(70, repository.findById(1).getBalance());
+        assertEquals(30, repository.findById(2).getBalance());
+        try (PartitionNode again = new PartitionNode(0, repository, journal, 60_000)) {
+            assertEquals(0, again.getPreparedCount());
+            assertEquals(0, again.getEscrowBalance());
+        }
+    }
+
+    @Test
+    @DisplayName("CL08 - Voted debits without a recipient node wait for the coordinator past the timeout")
+    void testVotedPrepareWaits() throws Exception {
+        InMemoryAccountRepository repository = new InMemoryAccountRepository();
+        repository.add(new Account(1, "Sender", 100, AccountStatus.Verified));
+        try (PartitionNode node = new PartitionNode(0, repository, null, 50);
+             NodeClient client = new NodeClient(node.getPort())) {
+            assertTrue(client.prepareDebitCents(30L, 1, 4_000, "Rent", 0));
+
+            long deadline = System.currentTimeMillis() + 5000;
+            while (node.getOverdueCount() == 0 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10);
+            }
+            assertEquals(1, node.getOverdueCount());
+            assertEquals(1, node.getPreparedCount());
+            assertEquals(0, node.getExpiredCount());
+            assertEquals(40, node.getEscrowBalance());
+            assertTrue(client.commit(30L));
+            assertEquals(0, node.getEscrowBalance());
+            assertEquals(60, repository.findById(1).getBalance());
+        }
+    }
+
+    @Test
+    @DisplayName("CL09 - A refund to a removed sender stays in escrow until the sender can receive it")
+    void testOwedRefund(@TempDir Path directory) throws Exception {
+        Path journal = directory.resolve("prepared.journal");
+        InMemoryAccountRepository repository = new InMemoryAccountRepository();
+        repository.add(new Account(1, "Sender", 100, AccountStatus.Verified));
+        try (PartitionNode node = new PartitionNode(0, repository, journal, 60_000)) {
+            assertTrue(node.prepareDebit(40L, 1, 4_000, "Rent", 0));
+            repository.remove(1);
+            assertTrue(node.abort(40L));
+            assertEquals(1, node.getOwedRefundCount());
+            assertEquals(40, node.getEscrowBalance());
+            assertFalse(node.commit(40L));
+            assertFalse(node.prepareDebit(40L, 1, 1_000, "Duplicate", 0));
+        }
+
+        try (PartitionNode restarted = new PartitionNode(0, repository, journal, 60_000)) {
+            assertEquals(0, restarted.getPreparedCount());
+            assertEquals(1, restarted.getOwedRefundCount());
+            assertEquals(40, restarted.getEscrowBalance());
+            restarted.expirePrepared();
+            assertEquals(1, restarted.getOwedRefundCount());
+
+            repository.add(new Account(1, "Sender", 60, AccountStatus.Verified));
+            restarted.expirePrepared();
+            assertEquals(0, restarted.getOwedRefundCount());
+            assertEquals(0, restarted.getEscrowBalance());
+        }
+        assertEquals(100, repository.findById(1).getBalance());
+        try (PartitionNode again = new PartitionNode(0, repository, journal, 60_000)) {
+            assertEquals(0, again.getOwedRefundCount());
+            assertEquals(0, again.getEscrowBalance());
+        }
+    }
+
+    @Test
+    @DisplayName("CL10 - The recipient's node journals each credit's outcome until it is forgotten")
+    void testCreditOutcome(@TempDir Path directory) throws Exception {
+        Path journal = directory.resolve("prepared.journal");
+        InMemoryAccountRepository repository = new InMemoryAccountRepository();
+        repository.add(new Account(2, "Recipient", 0, AccountStatus.Verified));
+        repository.add(new Account(3, "Closing", 0, AccountStatus.Verified));
+        try (PartitionNode node = new PartitionNode(0, repository, journal, 60_000)) {
+            assertTrue(node.prepareCredit(50L, 2, 2_000));
+            assertTrue(node.commit(50L));
+            assertTrue(node.prepareCredit(51L, 3, 2_000));
+            repository.findById(3).setStatus(AccountStatus.Closed);
+            assertFalse(node.commit(51L));
+            assertTrue(node.prepareCredit(52L, 2, 2_000));
+        }
+
+        try (PartitionNode restarted = new PartitionNode(0, repository, journal, 60_000)) {
+            // A failed credit must not read as landed when the commit's answer was lost
+            assertEquals(PartitionNode.Outcome.COMMITTED, restarted.resolve(50L));
+            assertEquals(PartitionNode.Outcome.FAILED, restarted.resolve(51L));
+            assertEquals(PartitionNode.Outcome.ABORTED, restarted.resolve(52L));
+            assertEquals(PartitionNode.Outcome.ABORTED, restarted.resolve(53L));
+            assertFalse(restarted.prepareCredit(53L, 2, 2_000));
+            assertEquals(4, restarted.getKeptOutcomeCount());
+            assertTrue(restarted.forget(50L));
+            assertFalse(restarted.forget(50L));
+        }
+        assertEquals(20, repository.findById(2).getBalance());
+        assertEquals(0, repository.findById(3).getBalance());
+        try (PartitionNode again = new PartitionNode(0, repository, journal, 60_000)) {
+            assertEquals(3, again.getKeptOutcomeCount());
+            assertEquals(0, again.getPreparedCount());
+        }
+    }
+
+    @Test
+    @DisplayName("CL11 - The sender's node settles an abandoned debit from the recipient's node")
+    void testAbandonedDebit() throws Exception {
+        InMemoryAccountRepository senders = new InMemoryAccountRepository();
+        senders.add(new Account(1, "Sender", 100, AccountStatus.Verified));
+        InMemoryAccountRepository recipients = new InMemoryAccountRepository();
+        recipients.add(new Account(2, "Recipient", 0, AccountStatus.Verified));
+        try (PartitionNode recipientNode = new PartitionNode(0, recipients, null, 60_000);
+             PartitionNode senderNode = new PartitionNode(0, senders, null, 50);
+             NodeClient from = new NodeClient(senderNode.getPort());
+             NodeClient to = new NodeClient(recipientNode.getPort())) {
+            int peer = recipientNode.getPort();
+            // Paid, then the coordinator stopped before releasing the reservation
+            assertTrue(from.prepareDebitCents(60L, 1, 3_000, "Rent", peer));
+            assertTrue(to.prepareCreditCents(60L, 2, 3_000));
+            assertTrue(to.commit(60L));
+            // The coordinator stopped before preparing the credit
+            assertTrue(from.prepareDebitCents(61L, 1, 1_000, "Fee", peer));
+
+            long deadline = System.currentTimeMillis() + 5000;
+            while ((senderNode.getPreparedCount() > 0 || recipientNode.getKeptOutcomeCount() > 1)
+                    && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10);
+            }
+            assertEquals(0, senderNode.getPreparedCount());
+            assertEquals(0, senderNode.getEscrowBalance());
+            assertEquals(70, senders.findById(1).getBalance());
+            assertEquals(30, recipients.findById(2).getBalance());
+            // The presumed abort is kept so a delayed prepare of the credit fails
+            assertEquals(1, recipientNode.getKeptOutcomeCount());
+            assertFalse(to.prepareCreditCents(61L, 2, 1_000));
+            assertNull(senderNode.getLastFailure());
+        }
+    }
+}
@@ -2,6 +2,8 @@ package com.banking.dao;
 
 import com.banking.entities.Account;
 import com.banking.entities.Account.AccountStatus;
+import java.util.ArrayList;
+import java.util.List;
 import org.junit.jupiter.api.*;
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -227,4 +229,231 @@ public class AccountDAOTest {
             assertEquals(200, retrieved.getBalance());
         }
     }
+    
+    // ==================== Ordered Iteration Tests ====================
+    
+    @Nested
+    @DisplayName("Ordered Iteration Tests")
+    class OrderedIterationTests {
+        
+        @BeforeEach
+        void populate() {
+            int[] ids = {42, 7, 19, 3, 88, 51, 12};
+            for (int id : ids) {
+                AccountDAO.add(new Account(id, "User " + id, id * 10));
+            }
+        }
+        
+        private List<Integer> ids(Iterable<Account> accounts) {
+            List<Integer> result = new ArrayList<>();
+            for (Account account : accounts) {
+                result.add(account.getId());
+            }
+            return result;
+        }
+        
+        @Test
+        @DisplayName("DAO17 - Find all iterates in ascending id order")
+        void testFindAllOrdered() {
+            assertEquals(List.of(3, 7, 12, 19, 42, 51, 88), ids(AccountDAO.findAll()));
+        }
+        
+        @Test
+        @DisplayName("DAO18 - Range scan is inclusive of start and exclusive of end")
+        void testFindRange() {
+            assertEquals(List.of(7, 12, 19), ids(AccountDAO.findRange(7, 42)));
+            assertTrue(ids(AccountDAO.findRange(43, 50)).isEmpty());
+            assertTrue(ids(AccountDAO.findRange(50, 10)).isEmpty());
+        }
+        
+        @Test
+        @DisplayName("DAO19 - Descending range scan walks highest id first")
+        void testFindRangeDescending() {
+            assertEquals(List.of(51, 42, 19), ids(AccountDAO.findRangeDescending(19, 88)));
+        }
+        
+        @Test
+        @DisplayName("DAO20 - Cursor pagination visits every account exactly once")
+        void testPagination() {
+            List<Integer> seen = new ArrayList<>();
+            AccountPage page = AccountDAO.findPage(null, 3);
+            seen.addAll(ids(page.getAccounts()));
+            while (page.hasNext()) {
+                page = AccountDAO.findPage(page.getNextCursor(), 3);
+                seen.addAll(ids(page.getAccounts()));
+            }
+            assertEquals(List.of(3, 7, 12, 19, 42, 51, 88), seen);
+        }
+        
+        @Test
+        @DisplayName("DAO21 - Descending pagination starts from the highest id")
+        void testPaginationDescending() {
+            AccountPage first = AccountDAO.findPageDescending(null, 4);
+            assertEquals(List.of(88, 51, 42, 19), ids(first.getAccounts()));
+            AccountPage second = AccountDAO.findPageDescending(first.getNextCursor(), 4);
+            assertEquals(List.of(12, 7, 3), ids(second.getAccounts()));
+            assertFalse(second.hasNext());
+        }
+        
+        @Test
+        @DisplayName("DAO22 - Pagination is stable across inserts behind the cursor")
+        void testPaginationStableAcrossInserts() {
+            AccountPage first = AccountDAO.findPage(null, 2);
+            AccountDAO.add(new Account(1, "Late User", 10));
+            AccountPage second = AccountDAO.findPage(first.getNextCursor(), 2);
+            assertEquals(List.of(12, 19), ids(second.getAccounts()));
+        }
+        
+        @Test
+        @DisplayName("DAO23 - Non-positive page limit is rejected")
+        void testInvalidPageLimit() {
+            assertThrows(IllegalArgumentException.class, () -> AccountDAO.findPage(null, 0));
+        }
+    }
+    
+    // ==================== Snapshot Tests ====================
+    
+    @Nested
+    @DisplayName("Snapshot Tests")
+    class SnapshotTests {
+        
+        @Test
+        @DisplayName("DAO24 - Snapshot ignores balance and status changes made after it opened")
+        void testSnapshotIsolation() {
+            Account account = new Account(1, "Snapshot User", 1000);
+            account.setStatus(AccountStatus.Verified);
+            AccountDAO.add(account);
+            
+            try (AccountSnapshot snapshot = AccountDAO.openSnapshot()) {
+                account.withdraw(400);
+                account.suspend();
+                
+                assertEquals(1000, snapshot.findById(1).getBalance());
+                assertEquals(AccountStatus.Verified, snapshot.findById(1).getStatus());
+                assertEquals(600, account.getBalance());
+                assertEquals(AccountStatus.Suspended, account.getStatus());
+            }
+        }
+        
+        @Test
+        @DisplayName("DAO25 - Snapshot membership is fixed at open time")
+        void testSnapshotMembership() {
+            AccountDAO.add(new Account(1, "Stays", 100));
+            AccountDAO.add(new Account(2, "Removed", 200));
+            
+            try (AccountSnapshot snapshot = AccountDAO.openSnapshot()) {
+                AccountDAO.remove(2);
+                AccountDAO.add(new Account(3, "Late", 300));
+                
+                assertEquals(2, snapshot.count());
+                assertNotNull(snapshot.findById(2));
+                assertNull(snapshot.findById(3));
+                assertEquals(300, snapshot.totalBalance());
+            }
+            assertEquals(2, AccountDAO.count());
+        }
+        
+        @Test
+        @DisplayName("DAO26 - Closed snapshot rejects further reads")
+        void testClosedSnapshot() {
+            AccountSnapshot snapshot = AccountDAO.openSnapshot();
+            snapshot.close();
+            assertThrows(IllegalStateException.class, () -> snapshot.findById(1));
+        }
+        
+        @Test
+        @DisplayName("DAO27 - Snapshot totals stay constant under concurrent transfers")
+        void testSnapshotConsistentUnderTransfers() throws InterruptedException {
+            int accounts = 8;
+            for (int i = 1; i <= accounts; i++) {
+                Account account = new Account(i, "User " + i, 1000);
+                account.setStatus(AccountStatus.Verified);
+                AccountDAO.add(account);
+            }
+            
+            Thread[] writers = new Thread[4];
+            for (int t = 0; t < writers.length; t++) {
+                int offset = t;
+                writers[t] = new Thread(() -> {
+                    for (int i = 0; i < 5000; i++) {
+                        Account from = AccountDAO.findById(1 + (i + offset) % accounts);
+                        Account to = AccountDAO.findById(1 + (i + offset + 3) % accounts);
+                        from.transfer(to.getCardNumber(), 1, "Shuffle");
+                    }
+                });
+                writers[t].start();
+            }
+            
+            for (int i = 0; i < 200; i++) {
+                try (AccountSnapshot snapshot = AccountDAO.openSnapshot()) {
+                    assertEquals(accounts * 1000.0, snapshot.totalBalance(), 0.0001);
+                }
+            }
+            for (Thread writer : writers) {
+                writer.join();
+            }
+            
+            double total = 0;
+            for (Account account : AccountDAO.findAll()) {
+                total += account.getBalance();
+            }
+            assertEquals(accounts * 1000.0, total, 0.0001);
+        }
+        
+        @Test
+        @DisplayName("DAO28 - Snapshot keeps an account removed, re-added and removed again")
+        void testSnapshotSurvivesRepeatedRemoval() {
+            AccountDAO.add(new Account(1, "Original", 100));
+            
+            try (AccountSnapshot snapshot = AccountDAO.openSnapshot()) {
+                AccountDAO.remove(1);
+                AccountDAO.add(new Account(1, "Second", 200));
+                AccountDAO.remove(1);
+                
+                assertEquals(100, snapshot.findById(1).getBalance());
+                assertEquals(1, snapshot.count());
+                assertEquals(100, snapshot.totalBalance());
+            }
+        }
+        
+        @Test
+        @DisplayName("DAO30 - Snapshot keeps every account after the repository is cleared")
+        void testSnapshotSurvivesClear() {
+            AccountDAO.add(new Account(1, "First", 100));
+            AccountDAO.add(new Account(2, "Second", 200));
+            
+            try (AccountSnapshot snapshot = AccountDAO.openSnapshot()) {
+                AccountDAO.clear();
+                
+                assertEquals(0, AccountDAO.count());
+                assertEquals(2, snapshot.count());
+                assertNotNull(snapshot.findById(1));
+                assertEquals(300, snapshot.totalBalance());
+            }
+        }
+        
+        @Test
+        @DisplayName("DAO29 - Snapshot scans count every account while accounts are replaced")
+        void testSnapshotConsistentUnderReplacement() throws InterruptedException {
+            int accounts = 64;
+            for (int i = 1; i <= accounts; i++) {
+                AccountDAO.add(new Account(i, "User " + i, 1000));
+            }
+            
+            Thread writer = new Thread(() -> {
+                for (int i = 0; i < 20000; i++) {
+                    AccountDAO.add(new Account(1 + i % accounts, "Replacement", 1000));
+                }
+            });
+            writer.start();
+            
+            for (int i = 0; i < 200; i++) {
+                try (AccountSnapshot snapshot = AccountDAO.openSnapshot()) {
+                    assertEquals(accounts, snapshot.count());
+                    assertEquals(accounts * 1000.0, snapshot.totalBalance(), 0.0001);
+                }
+            }
+            writer.join();
+        }
+    }
 }
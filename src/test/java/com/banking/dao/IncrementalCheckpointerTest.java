@@ -0,0 +1,184 @@
+package com.banking.dao;
+
+import com.banking.entities.Account;
+import com.banking.entities.Account.AccountStatus;
+import com.banking.entities.CreditScoreAccount;
+import com.banking.events.AccountEvents;
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.TempDir;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicBoolean;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for dirty-bitmap incremental checkpoints
+ */
+@DisplayName("IncrementalCheckpointer Tests")
+public class IncrementalCheckpointerTest {
+
+    @TempDir
+    Path tempDir;
+
+    private InMemoryAccountRepository repository;
+    private IncrementalCheckpointer checkpointer;
+
+    @BeforeEach
+    void setUp() {
+        repository = new InMemoryAccountRepository();
+        for (int i = 1; i <= 1000; i++) {
+            Account account = new Account(i, "Client " + i, 100);
+            account.verify();
+            repository.add(account);
+        }
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        if (checkpointer != null) {
+            checkpointer.close();
+        }
+    }
+
+    private void assertRestoredMatchesLive() {
+        InMemoryAccountRepository restored = new InMemoryAccountRepository();
+        assertEquals(repository.count(), IncrementalCheckpointer.restore(tempDir, restored));
+        for (Account live : repository.findAll()) {
+            Account copy = restored.findById(live.getId());
+            assertNotNull(copy, "account " + live.getId());
+            assertEquals(live.getBalance(), copy.getBalance(), 1e-9);
+            assertEquals(live.getStatus(), copy.getStatus());
+        }
+    }
+
+    @Test
+    @DisplayName("CK01 - Only accounts changed since the last checkpoint are written")
+    void testOnlyDirtyAccountsWritten() {
+        checkpointer = new IncrementalCheckpointer(repository, tempDir, 60_000, 100).start();
+        assertEquals(1000, checkpointer.checkpoint());
+        assertEquals(0, checkpointer.checkpoint());
+
+        repository.findById(5).deposit(10);
+        repository.findById(6).transferTo(repository.findById(7), 30, "Rent");
+        repository.findById(8).suspend();
+
+        assertEquals(4, checkpointer.getDirtyCount());
+        assertEquals(4, checkpointer.checkpoint());
+        assertEquals(1004, checkpointer.getAccountsWritten());
+        assertEquals(2, checkpointer.getCheckpointCount());
+        assertRestoredMatchesLive();
+    }
+
+    @Test
+    @DisplayName("CK02 - Merging folds deltas and removals into the base snapshot")
+    void testMergeAndRestore() throws Exception {
+        checkpointer = new IncrementalCheckpointer(repository, tempDir, 60_000, 100).start();
+        checkpointer.checkpoint();
+        checkpointer.merge();
+        assertEquals(0, Files.size(tempDir.resolve(IncrementalCheckpointer.DELTA_FILE)));
+
+        repository.remove(10);
+        CreditScoreAccount credit = new CreditScoreAccount(2000, "Credit Client", 500, 700, 1, 4);
+        repository.add(credit);
+        repository.findById(11).close();
+        checkpointer.checkpoint();
+        checkpointer.merge();
+        repository.findById(12).deposit(1);
+        checkpointer.checkpoint();
+
+        assertEquals(2, checkpointer.getMergeCount());
+        assertRestoredMatchesLive();
+        List<Account> loaded = IncrementalCheckpointer.load(tempDir);
+        assertTrue(loaded.stream().noneMatch(a -> a.getId() == 10));
+        CreditScoreAccount restored = (CreditScoreAccount) loaded.get(loaded.size() - 1);
+        assertEquals(700, restored.getCreditScore());
+        assertEquals(AccountStatus.Closed, loaded.get(9).getStatus());
+    }
+
+    @Test
+    @DisplayName("CK03 - A torn delta frame is dropped on reopen")
+    void testTornFrame() throws Exception {
+        checkpointer = new IncrementalCheckpointer(repository, tempDir, 60_000, 100).start();
+        checkpointer.checkpoint();
+        checkpointer.close();
+        checkpointer = null;
+        Path delta = tempDir.resolve(IncrementalCheckpointer.DELTA_FILE);
+        long valid = Files.size(delta);
+        Files.write(delta, new byte[] {0, 0, 1, 0, 7, 7}, StandardOpenOption.APPEND);
+
+        assertEquals(1000, IncrementalCheckpointer.load(tempDir).size());
+        checkpointer = new IncrementalCheckpointer(repository, tempDir, 60_000, 100).start();
+        assertEquals(valid, Files.size(delta));
+        repository.findById(1).deposit(5);
+        assertEquals(1, checkpointer.checkpoint());
+        assertRestoredMatchesLive();
+    }
+
+    @Test
+    @DisplayName("CK04 - Background checkpoints keep up with concurrent writers")
+    void testBackgroundCheckpointing() throws Exception {
+        checkpointer = new IncrementalCheckpointer(repository, tempDir, 2, 3).start();
+        AtomicBoolean running = new AtomicBoolean(true);
+        Thread[] writers = new Thread[4];
+        for (int t = 0; t < writers.length; t++) {
+            int seed = t;
+            writers[t] = new Thread(() -> {
+                Random random = new Random(seed);
+                while (running.get()) {
+                    Account from = repository.findById(1 + random.nextInt(1000));
+                    from.transferTo(repository.findById(1 + random.nextInt(1000)), 1 + random.nextInt(20), "Load");
+                }
+            });
+            writers[t].start();
+        }
+        Thread.sleep(300);
+        running.set(false);
+        for (Thread writer : writers) {
+            writer.join();
+        }
+        checkpointer.close();
+        checkpointer = null;
+
+        assertRestoredMatchesLive();
+        assertEquals(100_000, IncrementalCheckpointer.load(tempDir).stream()
+                .mapToDouble(Account::getBalance).sum(), 1e-6);
+    }
+
+    @Test
+    @DisplayName("CK05 - Ids beyond the initial bitmap grow it without losing marks")
+    void testBitmapGrowth() {
+        checkpointer = new IncrementalCheckpointer(repository, tempDir, 60_000, 100).start();
+        checkpointer.checkpoint();
+        repository.findById(3).deposit(1);
+        repository.add(new Account(5_000_000, "Far Client", 1));
+
+        assertEquals(2, checkpointer.getDirtyCount());
+        assertEquals(2, checkpointer.checkpoint());
+        assertRestoredMatchesLive();
+    }
+
+    @Test
+    @DisplayName("CK06 - Muted changes are written and other repositories' accounts are not")
+    void testCheckpointsFollowRepository() {
+        checkpointer = new IncrementalCheckpointer(repository, tempDir, 60_000, 100).start();
+        checkpointer.checkpoint();
+        InMemoryAccountRepository other = new InMemoryAccountRepository();
+        Account outsider = new Account(5_000, "Other Client", 100);
+        other.add(outsider);
+        outsider.deposit(5);
+
+        AccountEvents.runMuted(() -> repository.findById(9).deposit(40));
+
+        // Marking is unconditional; the outsider is dropped by the checkpoint pass
+        assertEquals(2, checkpointer.getDirtyCount());
+        assertEquals(1, checkpointer.checkpoint());
+        other.remove(5_000);
+        assertEquals(0, checkpointer.checkpoint());
+        repository.remove(9);
+        assertEquals(1, checkpointer.checkpoint());
+        assertRestoredMatchesLive();
+    }
+}
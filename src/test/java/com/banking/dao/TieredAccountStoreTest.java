@@ -0,0 +1,133 @@
+package com.banking.dao;
+
+import com.banking.entities.Account;
+import com.banking.entities.Account.AccountStatus;
+import com.banking.entities.CreditScoreAccount;
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.TempDir;
+import java.nio.file.Path;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the tiered account store and its disk-backed tier
+ */
+@DisplayName("TieredAccountStore Tests")
+public class TieredAccountStoreTest {
+    
+    @TempDir
+    Path tempDir;
+    
+    private DiskAccountStore disk;
+    private TieredAccountStore store;
+    
+    @BeforeEach
+    void setUp() {
+        disk = new DiskAccountStore(tempDir.resolve("accounts.db"));
+        store = new TieredAccountStore(disk, 10, 60_000);
+    }
+    
+    @AfterEach
+    void tearDown() throws Exception {
+        store.close();
+        disk.close();
+    }
+    
+    @Test
+    @DisplayName("TS01 - Disk store round-trips both account kinds")
+    void testDiskRoundTrip() {
+        Account basic = new Account(3, "Basic User", 250.5);
+        basic.setStatus(AccountStatus.Suspended);
+        CreditScoreAccount credit = new CreditScoreAccount(4, "Credit User", 900, 640, 2, 9);
+        disk.write(basic);
+        disk.write(credit);
+        
+        Account readBasic = disk.read(3);
+        assertEquals("Basic User", readBasic.getClientName());
+        assertEquals(250.5, readBasic.getBalance());
+        assertEquals(AccountStatus.Suspended, readBasic.getStatus());
+        
+        CreditScoreAccount readCredit = (CreditScoreAccount) disk.read(4);
+        assertEquals(640, readCredit.getCreditScore());
+        assertEquals(2, readCredit.getOverdraftAttempts());
+        assertEquals(9, readCredit.getSuccessfulTransactions());
+        assertNull(disk.read(5));
+        assertEquals(2, disk.count());
+    }
+    
+    @Test
+    @DisplayName("TS02 - Lookups read through to disk after eviction")
+    void testReadThrough() {
+        for (int i = 1; i <= 50; i++) {
+            store.add(new Account(i, "User " + i, i));
+        }
+        assertEquals(50, store.count());
+        assertTrue(store.residentCount() <= 10);
+        
+        Account account = store.findById(1);
+        assertNotNull(account);
+        assertEquals("User 1", account.getClientName());
+        assertNotNull(store.findByCardNumber(Account.cardNumberFor(2)));
+        assertNull(store.findByCardNumber("9999 9999 9999 9999"));
+        assertTrue(store.getMissCount() > 0);
+    }
+    
+    @Test
+    @DisplayName("TS03 - Frequently used accounts stay resident through a scan")
+    void testHotSetSurvivesScan() {
+        for (int i = 1; i <= 200; i++) {
+            store.add(new Account(i, "User " + i, i));
+        }
+        for (int round = 0; round < 20; round++) {
+            for (int hot = 1; hot <= 5; hot++) {
+                store.findById(hot);
+            }
+        }
+        for (int i = 100; i <= 200; i++) {
+            store.findById(i);
+        }
+        long hitsBefore = store.getHitCount();
+        for (int hot = 1; hot <= 5; hot++) {
+            store.findById(hot);
+        }
+        assertEquals(hitsBefore + 5, store.getHitCount());
+        assertTrue(store.getEvictionCount() > 0);
+    }
+    
+    @Test
+    @DisplayName("TS04 - Changes to cached accounts are written back")
+    void testWriteBack() throws Exception {
+        Account account = new Account(1, "Dirty User", 100);
+        store.add(account);
+        account.setStatus(AccountStatus.Verified);
+        account.deposit(50);
+        store.flush();
+        assertTrue(store.getWriteBackCount() >= 1);
+        
+        Account persisted = disk.read(1);
+        assertEquals(150, persisted.getBalance());
+        assertEquals(AccountStatus.Verified, persisted.getStatus());
+    }
+    
+    @Test
+    @DisplayName("TS05 - Evicted dirty accounts are served from memory until written back")
+    void testEvictedDirtyAccount() {
+        Account account = new Account(1, "Evicted User", 100);
+        store.add(account);
+        account.deposit(25);
+        for (int i = 2; i <= 60; i++) {
+            store.add(new Account(i, "Filler " + i, i));
+        }
+        assertSame(account, store.findById(1));
+        store.flush();
+        assertEquals(125, disk.read(1).getBalance());
+    }
+    
+    @Test
+    @DisplayName("TS06 - Remove deletes from both tiers")
+    void testRemove() {
+        store.add(new Account(1, "Removed User", 100));
+        store.remove(1);
+        assertNull(store.findById(1));
+        assertEquals(0, store.count());
+    }
+}
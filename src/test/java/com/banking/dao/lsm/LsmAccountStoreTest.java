@@ -0,0 +1,160 @@
+package com.banking.dao.lsm;
+
+import com.banking.entities.Account;
+import com.banking.entities.Account.AccountStatus;
+import com.banking.entities.CreditScoreAccount;
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.TempDir;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the LSM-tree account store
+ */
+@DisplayName("LsmAccountStore Tests")
+public class LsmAccountStoreTest {
+    
+    @TempDir
+    Path tempDir;
+    
+    private LsmAccountStore store;
+    
+    @BeforeEach
+    void setUp() {
+        // Tiny memtables force flushes and compactions with few accounts
+        store = new LsmAccountStore(tempDir, 4 * 1024, false);
+    }
+    
+    @AfterEach
+    void tearDown() throws Exception {
+        store.close();
+    }
+    
+    private List<Integer> ids(Iterable<Account> accounts) {
+        List<Integer> result = new ArrayList<>();
+        for (Account account : accounts) {
+            result.add(account.getId());
+        }
+        return result;
+    }
+    
+    @Test
+    @DisplayName("LSM01 - Basic add, find and count")
+    void testAddAndFind() {
+        store.add(new Account(1, "First", 100));
+        store.add(new CreditScoreAccount(2, "Second", 200, 720, 1, 4));
+        
+        assertEquals("First", store.findById(1).getClientName());
+        assertEquals(720, ((CreditScoreAccount) store.findById(2)).getCreditScore());
+        assertEquals(2, store.findByCardNumber(Account.cardNumberFor(2)).getId());
+        assertNull(store.findById(3));
+        assertEquals(2, store.count());
+    }
+    
+    @Test
+    @DisplayName("LSM02 - Updates and removes shadow older segments")
+    void testShadowing() {
+        for (int i = 0; i < 500; i++) {
+            store.add(new Account(i, "User " + i, i));
+        }
+        store.flush();
+        Account updated = new Account(42, "Updated", 4242);
+        updated.setStatus(AccountStatus.Verified);
+        store.add(updated);
+        store.remove(7);
+        store.remove(7);
+        store.flush();
+        
+        assertEquals(4242, store.findById(42).getBalance());
+        assertEquals(AccountStatus.Verified, store.findById(42).getStatus());
+        assertNull(store.findById(7));
+        assertEquals(499, store.count());
+    }
+    
+    @Test
+    @DisplayName("LSM03 - Compaction merges level 0 and keeps every account readable")
+    void testCompaction() {
+        for (int round = 0; round < 6; round++) {
+            for (int i = 0; i < 300; i++) {
+                store.add(new Account(i, "Round " + round, round * 1000 + i));
+            }
+            store.flush();
+        }
+        store.awaitCompaction();
+        
+        assertTrue(store.segmentsPerLevel().get(0) < 4);
+        assertEquals(300, store.count());
+        for (int i = 0; i < 300; i++) {
+            assertEquals(5000 + i, store.findById(i).getBalance());
+        }
+    }
+    
+    @Test
+    @DisplayName("LSM04 - Range scans merge memtable and segments in id order")
+    void testRangeScan() {
+        for (int i = 99; i >= 0; i--) {
+            store.add(new Account(i * 2, "User " + i, i));
+        }
+        store.flush();
+        store.add(new Account(11, "Odd", 11));
+        store.remove(10);
+        
+        assertEquals(List.of(6, 8, 11, 12), ids(store.findRange(5, 14)));
+        assertEquals(100, ids(store.findAll()).size());
+    }
+    
+    @Test
+    @DisplayName("LSM05 - Reopening recovers segments and the write-ahead log")
+    void testRecovery() throws Exception {
+        for (int i = 0; i < 400; i++) {
+            store.add(new Account(i, "User " + i, i));
+        }
+        store.remove(3);
+        store.close();
+        
+        store = new LsmAccountStore(tempDir, 4 * 1024, false);
+        assertEquals(399, store.count());
+        assertNull(store.findById(3));
+        assertEquals(399, store.findById(399).getBalance());
+    }
+    
+    @Test
+    @DisplayName("LSM06 - Clear removes every account")
+    void testClear() {
+        for (int i = 0; i < 200; i++) {
+            store.add(new Account(i, "User " + i, i));
+        }
+        store.clear();
+        assertEquals(0, store.count());
+        assertNull(store.findById(5));
+        assertFalse(store.findAll().iterator().hasNext());
+    }
+    
+    @Test
+    @DisplayName("LSM07 - Range probes see tombstones and release compacted segments")
+    void testHasAny() throws Exception {
+        for (int round = 0; round < 8; round++) {
+            for (int i = 0; i < 50; i++) {
+                store.add(new Account(round * 50 + i, "User " + i, i));
+            }
+            store.flush();
+            assertTrue(store.hasAny(0, 1000));
+        }
+        store.remove(1000 - 1);
+        store.remove(399);
+        assertTrue(store.hasAny(398, 400));
+        assertFalse(store.hasAny(399, 400));
+        assertFalse(store.hasAny(400, 1000));
+        assertFalse(store.hasAny(5, 5));
+        store.awaitCompaction();
+        
+        int live = store.segmentsPerLevel().stream().mapToInt(Integer::intValue).sum();
+        try (Stream<Path> files = Files.list(tempDir)) {
+            assertEquals(live, files.filter(f -> f.toString().endsWith(".sst")).count());
+        }
+    }
+}
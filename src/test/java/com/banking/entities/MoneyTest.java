@@ -0,0 +1,97 @@
+package com.banking.entities;
+
+import com.banking.dao.InMemoryAccountRepository;
+import com.banking.services.AccountService;
+import com.banking.services.TransactionService;
+import org.junit.jupiter.api.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for fixed-point money and the cents-based account arithmetic
+ */
+@DisplayName("Money Tests")
+public class MoneyTest {
+
+    @Test
+    @DisplayName("MON01 - Parsing accepts plain decimal amounts")
+    void testParse() {
+        assertEquals(1200, Money.parse("12"));
+        assertEquals(1250, Money.parse(" 12.5 "));
+        assertEquals(1205, Money.parse("12.05"));
+        assertEquals(7, Money.parse("0.07"));
+        assertEquals(-7, Money.parse("-.07"));
+        assertEquals(100, Money.parse("+1."));
+        assertEquals(Long.MIN_VALUE, Money.parse("-92233720368547758.08"));
+        for (String bad : new String[] {"", " ", ".", "-", "1.234", "1e3", "1,000", "12a", "1..2",
+                "92233720368547758.08"}) {
+            assertThrows(NumberFormatException.class, () -> Money.parse(bad), bad);
+        }
+    }
+
+    @Test
+    @DisplayName("MON02 - Formatting always shows two fraction digits")
+    void testFormat() {
+        assertEquals("0.00", Money.format(0));
+        assertEquals("0.07", Money.format(7));
+        assertEquals("-0.07", Money.format(-7));
+        assertEquals("1234.50", Money.format(123450));
+        assertEquals("-1234.05", Money.format(-123405));
+        assertEquals("$10.00", Money.appendTo(new StringBuilder("$"), 1000).toString());
+        for (long cents = -2000; cents <= 2000; cents += 7) {
+            assertEquals(String.format("%.2f", cents / 100.0), Money.format(cents));
+            assertEquals(cents, Money.parse(Money.format(cents)));
+        }
+    }
+
+    @Test
+    @DisplayName("MON03 - Double adapters round to the nearest cent")
+    void testDoubleAdapters() {
+        assertEquals(29, Money.fromDouble(0.29));
+        assertEquals(-29, Money.fromDouble(-0.29));
+        assertEquals(1, Money.fromDouble(0.005));
+        assertEquals(0, Money.fromPositiveAmount(-5));
+        assertEquals(0, Money.fromPositiveAmount(Double.NaN));
+        assertEquals(0, Money.fromPositiveAmount(Double.POSITIVE_INFINITY));
+        assertThrows(IllegalArgumentException.class, () -> Money.fromDouble(Double.NaN));
+        assertThrows(ArithmeticException.class, () -> Money.add(Long.MAX_VALUE, 1));
+    }
+
+    @Test
+    @DisplayName("MON04 - Repeated cent deposits stay exact")
+    void testExactBalances() {
+        Account account = new Account(1, "Exact Client", 0);
+        for (int i = 0; i < 10; i++) {
+            assertTrue(account.deposit(0.1));
+        }
+        assertEquals(100, account.getBalanceCents());
+        assertEquals(1.0, account.getBalance());
+        account.verify();
+        assertTrue(account.withdraw(0.3));
+        assertEquals(70, account.getBalanceCents());
+        assertFalse(account.deposit(0.001));
+        assertFalse(account.deposit(Double.NaN));
+        assertFalse(account.withdrawCents(71));
+    }
+
+    @Test
+    @DisplayName("MON05 - Services and credit limits work in cents")
+    void testServicesInCents() {
+        InMemoryAccountRepository repository = new InMemoryAccountRepository();
+        AccountService accounts = new AccountService(repository);
+        TransactionService transactions = new TransactionService(repository);
+        Account sender = accounts.createAccount(1, "Sender", 100.10);
+        accounts.createAccount(2, "Recipient", 0);
+        sender.verify();
+
+        assertTrue(transactions.processTransfer(sender, Account.cardNumberFor(2), 0.10, "Coffee"));
+        assertEquals(10000, sender.getBalanceCents());
+        assertEquals(10, repository.findById(2).getBalanceCents());
+        assertTrue(accounts.generateStatement(sender).contains("Balance: $100.00\n"));
+        assertTrue(transactions.validateTransaction(sender, 100.00, "withdraw"));
+        assertFalse(transactions.validateTransaction(sender, 100.01, "withdraw"));
+
+        CreditScoreAccount credit = new CreditScoreAccount(3, "Credit", 10_000);
+        assertEquals(700_000, credit.getTransactionLimitCents());
+        assertEquals(7000.0, credit.getTransactionLimit());
+    }
+}
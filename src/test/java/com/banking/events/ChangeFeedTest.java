@@ -0,0 +1,228 @@
+package com.banking.events;
+
+import com.banking.dao.InMemoryAccountRepository;
+import com.banking.entities.Account;
+import com.banking.entities.Account.AccountStatus;
+import com.banking.entities.AccountState;
+import com.banking.entities.CreditScoreAccount;
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.TempDir;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Flow;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the change data capture feed and its file-backed topic
+ */
+@DisplayName("ChangeFeed Tests")
+public class ChangeFeedTest {
+
+    @TempDir
+    Path tempDir;
+
+    private ChangeTopic topic;
+    private ChangeFeed feed;
+    private InMemoryAccountRepository repository;
+
+    @BeforeEach
+    void setUp() {
+        topic = new ChangeTopic(tempDir.resolve("changes.topic"));
+        repository = new InMemoryAccountRepository();
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        if (feed != null) {
+            feed.close();
+        }
+        topic.close();
+    }
+
+    /**
+     * Subscriber that requests a fixed number of records up front
+     */
+    private static class Collector implements Flow.Subscriber<ChangeRecord> {
+        final BlockingQueue<ChangeRecord> received = new LinkedBlockingQueue<>();
+        private final long demand;
+
+        Collector(long demand) {
+            this.demand = demand;
+        }
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            subscription.request(demand);
+        }
+
+        @Override
+        public void onNext(ChangeRecord item) {
+            received.add(item);
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+        }
+
+        @Override
+        public void onComplete() {
+        }
+    }
+
+    @Test
+    @DisplayName("CDC01 - Subscribers receive inserts, balance and status changes and removals")
+    void testSubscriberReceivesChanges() throws Exception {
+        feed = new ChangeFeed(topic).start();
+        Collector collector = new Collector(Long.MAX_VALUE);
+        feed.subscribe(collector);
+
+        Account account = new Account(1, "Feed User", 100);
+        repository.add(account);
+        account.verify();
+        account.deposit(25);
+        repository.remove(1);
+
+        ChangeRecord created = collector.received.poll(5, TimeUnit.SECONDS);
+        ChangeRecord verified = collector.received.poll(5, TimeUnit.SECONDS);
+        ChangeRecord deposited = collector.received.poll(5, TimeUnit.SECONDS);
+        ChangeRecord removed = collector.received.poll(5, TimeUnit.SECONDS);
+        assertEquals(AccountEvent.Type.AccountCreated, created.getType());
+        assertEquals(0, created.getOffset());
+        assertEquals(AccountStatus.Verified, verified.getStatus());
+        assertEquals(125, deposited.getBalance());
+        assertEquals(2, deposited.getOffset());
+        assertEquals(AccountEvent.Type.AccountRemoved, removed.getType());
+        assertEquals(1, removed.getAccountId());
+    }
+
+    @Test
+    @DisplayName("CDC02 - Topic can be tailed by offset and survives reopening")
+    void testTopicTail() throws Exception {
+        feed = new ChangeFeed(topic).start();
+        Account account = new Account(7, "Tail User", 0);
+        repository.add(account);
+        for (int i = 1; i <= 10; i++) {
+            account.deposit(i);
+        }
+        assertTrue(feed.awaitCaptured(5000));
+        assertEquals(11, topic.getEndOffset());
+
+        List<ChangeRecord> tail = topic.read(8, 100);
+        assertEquals(3, tail.size());
+        assertEquals(8, tail.get(0).getOffset());
+        assertEquals(55, tail.get(2).getBalance());
+        assertTrue(topic.read(11, 10).isEmpty());
+
+        feed.close();
+        feed = null;
+        topic.close();
+        topic = new ChangeTopic(tempDir.resolve("changes.topic"));
+        assertEquals(11, topic.getEndOffset());
+        assertEquals(7, topic.read(0, 1).get(0).getAccountId());
+    }
+
+    @Test
+    @DisplayName("CDC03 - Slow subscribers lose records but never block writers")
+    void testSlowSubscriberDoesNotBlock() throws Exception {
+        feed = new ChangeFeed(topic, 4).start();
+        Collector slow = new Collector(1);
+        feed.subscribe(slow);
+        Account account = new Account(3, "Busy User", 0);
+        repository.add(account);
+        for (int i = 0; i < 200; i++) {
+            account.deposit(1);
+        }
+
+        assertTrue(feed.awaitCaptured(5000));
+        assertEquals(201, topic.getEndOffset());
+        assertTrue(feed.getDroppedCount() > 0);
+        ChangeRecord first = slow.received.poll(5, TimeUnit.SECONDS);
+        assertEquals(0, first.getOffset());
+        assertEquals(200, topic.read(200, 1).get(0).getBalance());
+    }
+
+    @Test
+    @DisplayName("CDC04 - Credit score events are not captured")
+    void testCreditEventsSkipped() {
+        feed = new ChangeFeed(topic).start();
+        feed.onEvent(AccountEvent.creditScoreAdjusted(1, new CreditScoreAccount(1, "Credit", 0).getState(), "test"));
+        assertTrue(feed.awaitCaptured(5000));
+        assertEquals(0, topic.getEndOffset());
+    }
+
+    @Test
+    @DisplayName("CDC05 - A change arriving after a newer one of the same account is not captured")
+    void testStaleChangesSkipped() {
+        feed = new ChangeFeed(topic);
+        Account account = new Account(1, "Racing User", 100);
+        account.verify();
+        AccountState verified = account.getState();
+        account.deposit(10);
+        feed.onEvent(AccountEvent.deposited(1, 10, account.getState()));
+        feed.onEvent(AccountEvent.statusChanged(AccountEvent.Type.Verified, 1, verified));
+        assertTrue(feed.awaitCaptured(5000));
+        List<ChangeRecord> records = topic.read(0, 10);
+        assertEquals(1, records.size());
+        assertEquals(110, records.get(0).getBalance());
+        feed.onEvent(AccountEvent.removed(account));
+        assertTrue(feed.awaitCaptured(5000));
+        assertEquals(2, topic.getEndOffset());
+    }
+
+    @Test
+    @DisplayName("CDC06 - Concurrent writers only queue changes and each account's records stay in order")
+    void testConcurrentWritersKeepAccountOrder() throws Exception {
+        feed = new ChangeFeed(topic).start();
+        int accounts = 4;
+        int deposits = 250;
+        Thread[] writers = new Thread[accounts];
+        for (int a = 0; a < accounts; a++) {
+            Account account = new Account(20 + a, "Writer " + a, 0);
+            repository.add(account);
+            writers[a] = new Thread(() -> {
+                for (int i = 0; i < deposits; i++) {
+                    account.deposit(1);
+                }
+            });
+        }
+        for (Thread writer : writers) {
+            writer.start();
+        }
+        for (Thread writer : writers) {
+            writer.join();
+        }
+        assertTrue(feed.awaitCaptured(10000));
+        assertEquals(0, feed.getQueuedCount());
+        assertNull(feed.getLastFailure());
+
+        List<ChangeRecord> records = topic.read(0, accounts * (deposits + 1));
+        assertEquals(accounts * (deposits + 1), records.size());
+        double[] last = new double[accounts];
+        for (ChangeRecord record : records) {
+            int a = record.getAccountId() - 20;
+            assertTrue(record.getBalance() >= last[a]);
+            last[a] = record.getBalance();
+        }
+        for (double balance : last) {
+            assertEquals(deposits, balance);
+        }
+    }
+
+    @Test
+    @DisplayName("CDC07 - Closing the feed appends the changes still queued")
+    void testCloseDrainsQueue() {
+        feed = new ChangeFeed(topic);
+        Account account = new Account(9, "Closing User", 0);
+        for (int i = 1; i <= 50; i++) {
+            account.deposit(1);
+            feed.onEvent(AccountEvent.deposited(9, 1, account.getState()));
+        }
+        feed.close();
+        feed = null;
+        assertEquals(50, topic.getEndOffset());
+        assertEquals(50, topic.read(49, 1).get(0).getBalance());
+    }
+}
@@ -0,0 +1,185 @@
+package com.banking.events;
+
+import com.banking.dao.InMemoryAccountRepository;
+import com.banking.entities.Account;
+import com.banking.entities.Account.AccountStatus;
+import com.banking.entities.CreditScoreAccount;
+import org.junit.jupiter.api.*;
+import java.util.List;
+import java.util.NavigableMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for account events and event-sourced rebuilds
+ */
+@DisplayName("EventLog Tests")
+public class EventLogTest {
+
+    private EventLog log;
+    private InMemoryAccountRepository repository;
+
+    @BeforeEach
+    void setUp() {
+        log = new EventLog(4, 50);
+        repository = new InMemoryAccountRepository();
+        AccountEvents.subscribe(log);
+    }
+
+    @AfterEach
+    void tearDown() {
+        AccountEvents.unsubscribe(log);
+    }
+
+    @Test
+    @DisplayName("EV01 - Account operations publish events in order")
+    void testEventsPublished() {
+        Account account = new Account(1, "Event User", 100);
+        repository.add(account);
+        account.verify();
+        account.deposit(50);
+        account.withdraw(30);
+        account.suspend();
+        account.appeal();
+        account.close();
+
+        List<AccountEvent> events = log.eventsFor(1);
+        assertEquals(7, events.size());
+        assertEquals(AccountEvent.Type.AccountCreated, events.get(0).getType());
+        assertEquals(AccountEvent.Type.Verified, events.get(1).getType());
+        assertEquals(AccountEvent.Type.Deposited, events.get(2).getType());
+        assertEquals(50, events.get(2).getAmount());
+        assertEquals(AccountEvent.Type.Withdrawn, events.get(3).getType());
+        assertEquals(AccountEvent.Type.Suspended, events.get(4).getType());
+        assertEquals(AccountEvent.Type.Appealed, events.get(5).getType());
+        assertEquals(AccountStatus.Verified, events.get(5).getStatus());
+        assertEquals(AccountEvent.Type.Closed, events.get(6).getType());
+    }
+
+    @Test
+    @DisplayName("EV02 - Failed operations publish nothing")
+    void testFailedOperations() {
+        Account account = new Account(1, "Unverified User", 100);
+        repository.add(account);
+        assertFalse(account.withdraw(10));
+        assertFalse(account.suspend());
+        assertEquals(1, log.eventsFor(1).size());
+    }
+
+    @Test
+    @DisplayName("EV03 - Rebuild reproduces accounts, transfers and credit scores")
+    void testRebuild() {
+        Account sender = new Account(1, "Sender", 500);
+        CreditScoreAccount credit = new CreditScoreAccount(2, "Credit", 100);
+        repository.add(sender);
+        repository.add(credit);
+        sender.verify();
+        credit.verify();
+        assertTrue(sender.transferTo(credit, 200, "Rent"));
+        for (int i = 0; i < 3; i++) {
+            credit.deposit(10);
+        }
+        credit.withdraw(5000);
+        credit.suspend();
+
+        NavigableMap<Integer, Account> rebuilt = log.rebuild();
+        assertEquals(2, rebuilt.size());
+        assertEquals(300, rebuilt.get(1).getBalance());
+        CreditScoreAccount restored = (CreditScoreAccount) rebuilt.get(2);
+        assertEquals(credit.getBalance(), restored.getBalance());
+        assertEquals(AccountStatus.Suspended, restored.getStatus());
+        assertEquals(credit.getCreditScore(), restored.getCreditScore());
+        assertEquals(credit.getOverdraftAttempts(), restored.getOverdraftAttempts());
+        assertEquals(credit.getSuccessfulTransactions(), restored.getSuccessfulTransactions());
+        assertEquals("Credit", log.rebuild(2).getClientName());
+        assertNull(log.rebuild(3));
+    }
+
+    @Test
+    @DisplayName("EV04 - Background snapshots bound the replayed tail and drop folded events")
+    void testSnapshotsBoundTail() throws Exception {
+        for (int i = 1; i <= 20; i++) {
+            Account account = new Account(i, "User " + i, 0);
+            repository.add(account);
+            account.verify();
+            for (int d = 0; d < 40; d++) {
+                account.deposit(1);
+            }
+        }
+        assertEquals(20 * 42, log.size());
+        for (int p = 0; p < log.getPartitionCount(); p++) {
+            long deadline = System.currentTimeMillis() + 5000;
+            while (log.tailLength(p) >= 50 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(5);
+            }
+            assertTrue(log.tailLength(p) < 50);
+        }
+        assertTrue(log.retainedSize() < log.size());
+        NavigableMap<Integer, Account> rebuilt = log.rebuild();
+        for (int i = 1; i <= 20; i++) {
+            assertEquals(40, rebuilt.get(i).getBalance());
+        }
+        log.snapshot();
+        assertEquals(0, log.tailLength(0));
+        assertEquals(0, log.retainedSize());
+        assertEquals(40, log.rebuild(1).getBalance());
+    }
+
+    @Test
+    @DisplayName("EV05 - Concurrent changes rebuild to the live balances")
+    void testConcurrentRebuild() throws Exception {
+        for (int i = 1; i <= 8; i++) {
+            Account account = new Account(i, "User " + i, 1000);
+            repository.add(account);
+            account.verify();
+        }
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        for (int t = 0; t < 4; t++) {
+            int seed = t;
+            pool.submit(() -> {
+                for (int n = 0; n < 500; n++) {
+                    Account from = repository.findById(1 + (n + seed) % 8);
+                    Account to = repository.findById(1 + (n * 3 + seed + 1) % 8);
+                    if (from != to) {
+                        from.transferTo(to, 1, "Spread");
+                    }
+                }
+            });
+        }
+        pool.shutdown();
+        assertTrue(pool.awaitTermination(30, TimeUnit.SECONDS));
+
+        NavigableMap<Integer, Account> rebuilt = log.rebuild();
+        for (int i = 1; i <= 8; i++) {
+            assertEquals(repository.findById(i).getBalance(), rebuilt.get(i).getBalance());
+        }
+    }
+
+    @Test
+    @DisplayName("EV06 - Events arriving out of commit order rebuild to the newest version")
+    void testOutOfOrderArrival() {
+        CreditScoreAccount credit = new CreditScoreAccount(1, "Late", 100);
+        repository.add(credit);
+        credit.verify();
+        credit.deposit(25);
+        credit.withdraw(10);
+        credit.suspend();
+
+        List<AccountEvent> events = log.eventsFor(1);
+        for (int i = 1; i < events.size(); i++) {
+            assertTrue(events.get(i).getSequence() >= events.get(i - 1).getSequence());
+        }
+        EventLog reordered = new EventLog(1, 50);
+        reordered.append(events.get(0));
+        for (int i = events.size() - 1; i > 0; i--) {
+            reordered.append(events.get(i));
+        }
+        CreditScoreAccount restored = (CreditScoreAccount) reordered.rebuild(1);
+        assertEquals(115, restored.getBalance());
+        assertEquals(AccountStatus.Suspended, restored.getStatus());
+        assertEquals(credit.getCreditScore(), restored.getCreditScore());
+        assertEquals(2, restored.getSuccessfulTransactions());
+    }
+}
@@ -0,0 +1,203 @@
+package com.banking.fraud;
+
+import com.banking.dao.InMemoryAccountRepository;
+import com.banking.entities.Account;
+import com.banking.entities.Account.AccountStatus;
+import com.banking.entities.Money;
+import com.banking.services.TransactionService;
+import org.junit.jupiter.api.*;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for streaming velocity checks on transfers
+ */
+@DisplayName("FraudDetector Tests")
+public class FraudDetectorTest {
+
+    private static final long HOUR = 60 * 60 * 1000L;
+
+    private final AtomicLong now = new AtomicLong(1_000 * HOUR);
+    private InMemoryAccountRepository repository;
+    private Account sender;
+
+    @BeforeEach
+    void setUp() {
+        repository = new InMemoryAccountRepository();
+        sender = new Account(1, "Sender", 10_000, AccountStatus.Verified);
+        repository.add(sender);
+        for (int id = 2; id <= 8; id++) {
+            repository.add(new Account(id, "Recipient " + id, 0, AccountStatus.Verified));
+        }
+    }
+
+    private FraudDetector detector(boolean autoSuspend) {
+        return new FraudDetector(HOUR, 20, Money.ofMajor(10_000), 10, 5, autoSuspend, now::get);
+    }
+
+    private String card(int id) {
+        return repository.findById(id).getCardNumber();
+    }
+
+    /**
+     * Score a transfer and count it as committed, as TransactionService does for one that goes through
+     */
+    private FraudAssessment send(FraudDetector detector, String recipientCard, long cents) {
+        FraudAssessment assessment = detector.assess(sender, recipientCard, cents);
+        detector.record(sender, recipientCard, cents);
+        return assessment;
+    }
+
+    @Test
+    @DisplayName("FD01 - HyperLogLog estimates within its error bound and merges")
+    void testHyperLogLog() {
+        HyperLogLog large = new HyperLogLog(12);
+        HyperLogLog half = new HyperLogLog(12);
+        for (int i = 0; i < 100_000; i++) {
+            large.add(HyperLogLog.hash("card-" + i));
+            if (i % 2 == 0) {
+                half.add(HyperLogLog.hash("card-" + i));
+            }
+        }
+        // Repeats do not count
+        for (int i = 0; i < 1000; i++) {
+            large.add(HyperLogLog.hash("card-" + i));
+        }
+        assertEquals(100_000, large.estimate(), 5_000);
+        assertEquals(50_000, half.estimate(), 2_500);
+        half.merge(large);
+        assertEquals(large.estimate(), half.estimate());
+
+        HyperLogLog small = new HyperLogLog(FraudDetector.SKETCH_PRECISION);
+        assertEquals(0, small.estimate());
+        for (int i = 0; i < 5; i++) {
+            small.add(HyperLogLog.hash("recipient-" + i));
+            small.add(HyperLogLog.hash("recipient-" + i));
+        }
+        assertEquals(5, small.estimate(), 1);
+        assertThrows(IllegalArgumentException.class, () -> small.merge(large));
+        assertThrows(IllegalArgumentException.class, () -> new HyperLogLog(3));
+    }
+
+    @Test
+    @DisplayName("FD02 - Transfers to many new recipients suspend the sender")
+    void testAutoSuspend() {
+        FraudDetector detector = detector(true);
+        TransactionService service = new TransactionService(repository, null, detector);
+        for (int id = 2; id <= 5; id++) {
+            assertTrue(service.processTransfer(sender, card(id), 1, ""));
+        }
+        assertFalse(detector.isFlagged(1));
+
+        assertFalse(service.processTransfer(sender, card(6), 1, ""));
+        assertEquals(AccountStatus.Suspended, sender.getStatus());
+        assertEquals(AccountStatus.Suspended, repository.findById(1).getStatus());
+        assertEquals(0, repository.findById(6).getBalanceCents());
+        assertEquals(Money.ofMajor(9_996), sender.getBalanceCents());
+        assertEquals(Set.of(1), detector.getFlaggedAccounts());
+    }
+
+    @Test
+    @DisplayName("FD03 - Paying a known recipient repeatedly scores on volume only")
+    void testKnownRecipient() {
+        FraudDetector detector = detector(true);
+        FraudAssessment assessment = null;
+        for (int i = 0; i < 10; i++) {
+            assessment = send(detector, card(2), 100);
+        }
+        assertEquals(10, assessment.getTransfers());
+        assertEquals(1000, assessment.getAmountCents());
+        assertEquals(1, assessment.getDistinctRecipients());
+        assertEquals(1, assessment.getNewRecipients());
+        assertEquals(50, assessment.getScore());
+        assertEquals("transfers", assessment.getDominantFactor());
+        assertFalse(assessment.isFlagged());
+
+        // The amount threshold alone also flags
+        assessment = send(detector, card(2), Money.ofMajor(10_000));
+        assertEquals("amount", assessment.getDominantFactor());
+        assertTrue(assessment.isFlagged());
+        assertTrue(assessment.isSuspended());
+        assertEquals(AccountStatus.Suspended, sender.getStatus());
+    }
+
+    @Test
+    @DisplayName("FD04 - Statistics leave the window but recipients stay known")
+    void testWindowExpiry() {
+        FraudDetector detector = detector(false);
+        for (int id = 2; id <= 5; id++) {
+            send(detector, card(id), 100);
+        }
+        FraudAssessment assessment = send(detector, card(2), 100);
+        assertEquals(80, assessment.getScore());
+        assertEquals("newRecipients", assessment.getDominantFactor());
+
+        now.addAndGet(HOUR);
+        assessment = send(detector, card(3), 100);
+        assertEquals(1, assessment.getTransfers());
+        assertEquals(1, assessment.getDistinctRecipients());
+        assertEquals(0, assessment.getNewRecipients());
+        assertEquals(10, assessment.getScore());
+
+        assessment = send(detector, card(7), 100);
+        assertEquals(1, assessment.getNewRecipients());
+        assertEquals(20, assessment.getScore());
+    }
+
+    @Test
+    @DisplayName("FD05 - Flag-only mode lets the transfer through")
+    void testFlagOnly() {
+        FraudDetector detector = detector(false);
+        TransactionService service = new TransactionService(repository, null, detector);
+        for (int id = 2; id <= 6; id++) {
+            assertTrue(service.processTransfer(sender, card(id), 1, ""));
+        }
+        assertEquals(AccountStatus.Verified, sender.getStatus());
+        assertTrue(detector.isFlagged(1));
+        assertEquals(Money.ofMajor(1), repository.findById(6).getBalanceCents());
+        assertTrue(detector.clearFlag(1));
+        assertTrue(detector.getFlaggedAccounts().isEmpty());
+    }
+
+    @Test
+    @DisplayName("FD06 - Rejected transfers do not count towards the window")
+    void testRejectedTransfersNotRecorded() {
+        FraudDetector detector = detector(true);
+        TransactionService service = new TransactionService(repository, null, detector);
+        // Unknown cards: every transfer is scored, refused and forgotten
+        for (int i = 0; i < 10; i++) {
+            assertFalse(service.processTransfer(sender, "unknown-card-" + i, 1, ""));
+        }
+        assertFalse(detector.isFlagged(1));
+        assertEquals(AccountStatus.Verified, sender.getStatus());
+
+        FraudAssessment assessment = detector.assess(sender, card(2), 100);
+        assertEquals(1, assessment.getTransfers());
+        assertEquals(1, assessment.getNewRecipients());
+        assertEquals(20, assessment.getScore());
+    }
+
+    @Test
+    @DisplayName("FD07 - Default thresholds suspend on the fifth new recipient or a single $10,000 transfer")
+    void testDefaultThresholds() {
+        FraudDetector detector = new FraudDetector(true);
+        for (int id = 2; id <= 5; id++) {
+            FraudAssessment assessment = send(detector, card(id), 100);
+            assertEquals((id - 1) * 20, assessment.getScore());
+            assertFalse(assessment.isFlagged());
+        }
+        FraudAssessment fifth = detector.assess(sender, card(6), 100);
+        assertEquals(FraudDetector.FLAG_SCORE, fifth.getScore());
+        assertEquals("newRecipients", fifth.getDominantFactor());
+        assertTrue(fifth.isSuspended());
+
+        Account whale = new Account(9, "Whale", 20_000, AccountStatus.Verified);
+        repository.add(whale);
+        FraudAssessment single = detector.assess(whale, card(2), Money.ofMajor(10_000));
+        assertEquals(1, single.getTransfers());
+        assertEquals("amount", single.getDominantFactor());
+        assertTrue(single.isSuspended());
+        assertEquals(AccountStatus.Suspended, whale.getStatus());
+    }
+}
@@ -0,0 +1,125 @@
+package com.banking.io;
+
+import com.banking.dao.InMemoryAccountRepository;
+import com.banking.entities.Account;
+import com.banking.entities.Account.AccountStatus;
+import com.banking.entities.CreditScoreAccount;
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.TempDir;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the columnar account export and its reader
+ */
+@DisplayName("AccountExporter Tests")
+public class AccountExporterTest {
+
+    @TempDir
+    Path tempDir;
+
+    private InMemoryAccountRepository repository;
+
+    @BeforeEach
+    void setUp() {
+        repository = new InMemoryAccountRepository();
+        for (int i = 1; i <= 1000; i++) {
+            Account account = i % 3 == 0
+                    ? new CreditScoreAccount(i, "Credit " + i, 500, 300 + i % 500, 0, 0)
+                    : new Account(i, "Basic " + i, i * 10.25);
+            if (i % 7 == 0) {
+                account.setStatus(AccountStatus.Suspended);
+            } else if (i > 500) {
+                account.setStatus(AccountStatus.Verified);
+            }
+            repository.add(account);
+        }
+    }
+
+    @Test
+    @DisplayName("EXP01 - Every column round-trips through the file")
+    void testRoundTrip() throws Exception {
+        Path file = tempDir.resolve("accounts.col");
+        assertEquals(1000, new AccountExporter(128).export(repository, file));
+
+        try (ColumnarAccountReader reader = new ColumnarAccountReader(file)) {
+            assertEquals(1000, reader.getRowCount());
+            assertEquals(8, reader.getBlockCount());
+            List<Integer> ids = new ArrayList<>();
+            reader.forEach((id, card, cents, status, score) -> {
+                Account expected = repository.findById(id);
+                assertEquals(expected.getCardNumber(), card);
+                assertEquals(Math.round(expected.getBalance() * 100), cents);
+                assertEquals(expected.getStatus(), status);
+                if (expected instanceof CreditScoreAccount) {
+                    assertEquals(((CreditScoreAccount) expected).getCreditScore(), score);
+                } else {
+                    assertEquals(ColumnarAccountReader.NO_CREDIT_SCORE, score);
+                }
+                ids.add(id);
+            });
+            assertEquals(1000, ids.size());
+            assertEquals(1, ids.get(0));
+            assertEquals(1000, ids.get(999));
+        }
+    }
+
+    @Test
+    @DisplayName("EXP02 - Block statistics allow range scans to skip blocks")
+    void testBlockStatistics() throws Exception {
+        Path file = tempDir.resolve("accounts.col");
+        new AccountExporter(100).export(repository, file);
+
+        try (ColumnarAccountReader reader = new ColumnarAccountReader(file)) {
+            ColumnarAccountReader.BlockStats first = reader.getBlockStats().get(0);
+            assertEquals(1, first.getMinId());
+            assertEquals(100, first.getMaxId());
+            assertEquals(300 + 3, first.getMinCreditScore());
+
+            int[] decodedBlocks = {0};
+            reader.forEach(block -> {
+                boolean hit = block.getMaxId() >= 250 && block.getMinId() < 260;
+                if (hit) {
+                    decodedBlocks[0]++;
+                }
+                return hit;
+            }, (id, card, cents, status, score) -> { });
+            assertEquals(1, decodedBlocks[0]);
+
+            List<Integer> range = new ArrayList<>();
+            reader.forEachInIdRange(250, 260, (id, card, cents, status, score) -> range.add(id));
+            assertEquals(10, range.size());
+            assertEquals(250, range.get(0));
+        }
+    }
+
+    @Test
+    @DisplayName("EXP03 - Balance column sums without decoding other columns")
+    void testTotalBalance() throws Exception {
+        Path file = tempDir.resolve("accounts.col");
+        new AccountExporter().export(repository, file);
+        long expected = 0;
+        for (Account account : repository.findAll()) {
+            expected += Math.round(account.getBalance() * 100);
+        }
+        try (ColumnarAccountReader reader = new ColumnarAccountReader(file)) {
+            assertEquals(expected, reader.totalBalanceCents());
+        }
+        // Roughly a handful of bytes per account rather than the statement text
+        assertTrue(Files.size(file) < 1000 * 8);
+    }
+
+    @Test
+    @DisplayName("EXP04 - Empty export is readable")
+    void testEmptyExport() throws Exception {
+        Path file = tempDir.resolve("empty.col");
+        assertEquals(0, new AccountExporter().export(new InMemoryAccountRepository(), file));
+        try (ColumnarAccountReader reader = new ColumnarAccountReader(file)) {
+            assertEquals(0, reader.getRowCount());
+            assertEquals(0, reader.totalBalanceCents());
+        }
+    }
+}
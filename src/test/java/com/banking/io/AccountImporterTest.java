@@ -0,0 +1,123 @@
+package com.banking.io;
+
+import com.banking.dao.InMemoryAccountRepository;
+import com.banking.entities.Account;
+import com.banking.io.AccountImporter.Format;
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.TempDir;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the bulk account import pipeline
+ */
+@DisplayName("AccountImporter Tests")
+public class AccountImporterTest {
+
+    @TempDir
+    Path tempDir;
+
+    private InMemoryAccountRepository repository;
+
+    @BeforeEach
+    void setUp() {
+        repository = new InMemoryAccountRepository();
+    }
+
+    @Test
+    @DisplayName("IMP01 - CSV rows are imported across many small chunks")
+    void testCsvImportAcrossChunks() throws Exception {
+        StringBuilder csv = new StringBuilder("id,clientName,balance\n");
+        for (int i = 1; i <= 2000; i++) {
+            csv.append(i).append(",Client ").append(i).append(',').append(i * 1.5).append('\n');
+        }
+        Path file = tempDir.resolve("accounts.csv");
+        Files.writeString(file, csv);
+
+        ImportResult result = new AccountImporter(repository, 4, 64, 1024).importFile(file, Format.CSV);
+
+        assertEquals(2000, result.getImported());
+        assertEquals(0, result.getRejected());
+        assertTrue(result.getChunks() > 1);
+        assertEquals(2000, repository.count());
+        Account account = repository.findById(1234);
+        assertEquals("Client 1234", account.getClientName());
+        assertEquals(1851.0, account.getBalance());
+        assertSame(account, repository.findByCardNumber("1234 1234 1234 1234"));
+    }
+
+    @Test
+    @DisplayName("IMP02 - Bad rows are reported with absolute line numbers")
+    void testRowErrors() throws Exception {
+        StringBuilder csv = new StringBuilder();
+        for (int i = 1; i <= 300; i++) {
+            if (i == 120) {
+                csv.append("abc,Broken,10\n");
+            } else if (i == 250) {
+                csv.append("7,Duplicate,10\r\n");
+            } else {
+                csv.append(i).append(",Client ").append(i).append(",10\r\n");
+            }
+        }
+        Path file = tempDir.resolve("errors.csv");
+        Files.writeString(file, csv);
+
+        ImportResult result = new AccountImporter(repository, 3, 16, 512).importFile(file, Format.CSV);
+
+        assertEquals(298, result.getImported());
+        assertEquals(2, result.getRejected());
+        assertEquals(120, result.getErrors().get(0).getLine());
+        assertEquals("invalid account id", result.getErrors().get(0).getMessage());
+        assertEquals(250, result.getErrors().get(1).getLine());
+        assertTrue(result.getErrors().get(1).getMessage().contains("duplicate"));
+        assertEquals("Client 7", repository.findById(7).getClientName());
+    }
+
+    @Test
+    @DisplayName("IMP03 - Quoted names and existing accounts are handled")
+    void testQuotedNamesAndExistingAccounts() throws Exception {
+        repository.add(new Account(2, "Existing", 5));
+        Path file = tempDir.resolve("quoted.csv");
+        Files.writeString(file, "1,\"Smith, \"\"Jo\"\"\",12.5\n2,Again,1\n3,Short\n");
+
+        ImportResult result = new AccountImporter(repository).importFile(file, Format.CSV);
+
+        assertEquals(1, result.getImported());
+        assertEquals(2, result.getRejected());
+        assertEquals("Smith, \"Jo\"", repository.findById(1).getClientName());
+        assertEquals("Existing", repository.findById(2).getClientName());
+        assertEquals("expected 3 fields but found 2", result.getErrors().get(1).getMessage());
+    }
+
+    @Test
+    @DisplayName("IMP04 - Binary records are imported and truncated tails rejected")
+    void testBinaryImport() throws Exception {
+        ByteBuffer buffer = ByteBuffer.allocate(AccountImporter.BINARY_RECORD_SIZE * 500 + 10);
+        for (int i = 0; i < 500; i++) {
+            AccountImporter.writeBinaryRecord(buffer, i + 1, "Binary " + (i + 1), i);
+        }
+        buffer.put(new byte[10]);
+        Path file = tempDir.resolve("accounts.bin");
+        Files.write(file, buffer.array());
+
+        ImportResult result = new AccountImporter(repository, 2, 100, 4096).importFile(file, Format.BINARY);
+
+        assertEquals(500, result.getImported());
+        assertEquals(1, result.getRejected());
+        assertEquals(501, result.getErrors().get(0).getLine());
+        assertEquals("Binary 500", repository.findById(500).getClientName());
+        assertEquals(499.0, repository.findById(500).getBalance());
+        assertTrue(result.getRowsPerSecond() > 0);
+    }
+
+    @Test
+    @DisplayName("IMP05 - Fast card number formatting matches the padded format")
+    void testCardNumberFormatting() {
+        int[] ids = {0, 7, 42, 999, 1000, 9999, 10000, 123456, Integer.MAX_VALUE, -5};
+        for (int id : ids) {
+            assertEquals(String.format("%04d %04d %04d %04d", id, id, id, id), Account.cardNumberFor(id));
+        }
+    }
+}
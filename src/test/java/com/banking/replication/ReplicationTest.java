@@ -0,0 +1,249 @@
+package com.banking.replication;
+
+import com.banking.dao.InMemoryAccountRepository;
+import com.banking.entities.Account;
+import com.banking.entities.Account.AccountStatus;
+import com.banking.entities.CreditScoreAccount;
+import com.banking.events.AccountEvent;
+import com.banking.events.AccountEventListener;
+import com.banking.events.AccountEvents;
+import com.banking.events.EventApplier;
+import com.banking.replication.ReplicationLeader.Mode;
+import org.junit.jupiter.api.*;
+import java.util.ArrayList;
+import java.util.List;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for leader to follower log shipping over a loopback socket
+ */
+@DisplayName("Replication Tests")
+public class ReplicationTest {
+
+    private ReplicationLeader leader;
+    private ReplicationFollower follower;
+    private InMemoryAccountRepository primary;
+    private InMemoryAccountRepository replica;
+
+    @BeforeEach
+    void setUp() {
+        primary = new InMemoryAccountRepository();
+        replica = new InMemoryAccountRepository();
+        follower = new ReplicationFollower(replica);
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        follower.close();
+        if (leader != null) {
+            leader.close();
+        }
+    }
+
+    private void awaitConnected() throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!leader.isFollowerConnected() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+        assertTrue(leader.isFollowerConnected());
+    }
+
+    @Test
+    @DisplayName("REP01 - Asynchronous follower converges to the leader")
+    void testAsynchronousReplication() throws Exception {
+        leader = new ReplicationLeader(0, Mode.Asynchronous).start();
+        follower.connect(leader.getPort());
+        awaitConnected();
+
+        for (int i = 1; i <= 50; i++) {
+            Account account = new Account(i, "User " + i, 100);
+            primary.add(account);
+            account.verify();
+            account.deposit(i);
+        }
+        primary.findById(1).transferTo(primary.findById(2), 40, "Rent");
+        primary.remove(50);
+
+        assertTrue(follower.awaitSequence(leader.getLastSequence(), 5000));
+        assertEquals(49, replica.count());
+        assertEquals(61, replica.findById(1).getBalance());
+        assertEquals(142, replica.findById(2).getBalance());
+        assertEquals(AccountStatus.Verified, replica.findById(3).getStatus());
+        assertNull(replica.findById(50));
+        assertTrue(leader.awaitAcknowledged(leader.getLastSequence(), 5000));
+        assertEquals(0, leader.getLagEntries());
+        assertTrue(leader.getAverageBatchSize() >= 1);
+    }
+
+    @Test
+    @DisplayName("REP02 - Synchronous writes are applied before they return")
+    void testSynchronousReplication() throws Exception {
+        leader = new ReplicationLeader(0, Mode.Synchronous).start();
+        follower.connect(leader.getPort());
+        awaitConnected();
+
+        CreditScoreAccount account = new CreditScoreAccount(7, "Sync User", 500);
+        primary.add(account);
+        account.verify();
+        account.withdraw(100);
+
+        Account copy = replica.findById(7);
+        assertEquals(400, copy.getBalance());
+        assertEquals(AccountStatus.Verified, copy.getStatus());
+        assertEquals(1, ((CreditScoreAccount) copy).getSuccessfulTransactions());
+        assertEquals(leader.getLastSequence(), leader.getAckedSequence());
+        assertEquals(0, leader.getSyncTimeouts());
+    }
+
+    @Test
+    @DisplayName("REP03 - Follower catches up after reconnecting")
+    void testReconnect() throws Exception {
+        leader = new ReplicationLeader(0, Mode.Asynchronous).start();
+        follower.connect(leader.getPort());
+        awaitConnected();
+        Account account = new Account(1, "Reconnect User", 0);
+        primary.add(account);
+        assertTrue(follower.awaitSequence(leader.getLastSequence(), 5000));
+
+        follower.close();
+        long deadline = System.currentTimeMillis() + 5000;
+        while (leader.isFollowerConnected() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+        for (int i = 0; i < 10; i++) {
+            account.deposit(10);
+        }
+        assertTrue(leader.getLagEntries() > 0);
+
+        follower.connect(leader.getPort());
+        assertTrue(follower.awaitSequence(leader.getLastSequence(), 5000));
+        assertEquals(100, replica.findById(1).getBalance());
+    }
+
+    @Test
+    @DisplayName("REP04 - Synchronous writers time out without a follower")
+    void testSynchronousTimeout() throws Exception {
+        leader = new ReplicationLeader(0, Mode.Synchronous, 16, 20, 1000).start();
+        primary.add(new Account(1, "Lonely User", 0));
+        assertEquals(1, leader.getSyncTimeouts());
+        assertEquals(1, leader.getLagEntries());
+        assertTrue(leader.getLagMillis() >= 0);
+    }
+
+    @Test
+    @DisplayName("REP05 - Applier skips events older than the installed version")
+    void testStaleEventsSkipped() {
+        List<AccountEvent> events = new ArrayList<>();
+        AccountEventListener recorder = events::add;
+        AccountEvents.subscribe(recorder);
+        try {
+            CreditScoreAccount account = new CreditScoreAccount(9, "Racing User", 100);
+            primary.add(account);
+            account.verify();
+            account.deposit(50);
+            account.withdraw(20);
+        } finally {
+            AccountEvents.unsubscribe(recorder);
+        }
+
+        EventApplier applier = new EventApplier(replica);
+        applier.apply(events.get(0));
+        // Newest first, as a losing publisher would deliver them
+        for (int i = events.size() - 1; i > 0; i--) {
+            applier.apply(events.get(i));
+        }
+        CreditScoreAccount copy = (CreditScoreAccount) replica.findById(9);
+        assertEquals(130, copy.getBalance());
+        assertEquals(AccountStatus.Verified, copy.getStatus());
+        assertEquals(2, copy.getSuccessfulTransactions());
+    }
+
+    @Test
+    @DisplayName("REP06 - Asynchronous writers never wait; a lagging follower gets a full resync")
+    void testAsynchronousOverflow() throws Exception {
+        leader = new ReplicationLeader(0, Mode.Asynchronous, 16, 5000, 8, primary).start();
+        Account kept = new Account(1, "Kept User", 0);
+        Account dropped = new Account(2, "Dropped User", 0);
+        primary.add(kept);
+        primary.add(dropped);
+        // A stale copy the leader no longer has must not survive the resync
+        replica.add(new Account(99, "Stale User", 5));
+
+        long started = System.nanoTime();
+        for (int i = 0; i < 40; i++) {
+            kept.deposit(1);
+        }
+        primary.remove(2);
+        assertTrue(System.nanoTime() - started < 2_000_000_000L);
+        assertEquals(0, leader.getSyncTimeouts());
+
+        follower.connect(leader.getPort());
+        assertTrue(follower.awaitSequence(leader.getLastSequence(), 5000));
+        assertEquals(1, leader.getResyncs());
+        assertEquals(40, replica.findById(1).getBalance());
+        assertNull(replica.findById(2));
+        assertNull(replica.findById(99));
+
+        kept.deposit(2);
+        assertTrue(follower.awaitSequence(leader.getLastSequence(), 5000));
+        assertEquals(42, replica.findById(1).getBalance());
+        assertTrue(leader.awaitAcknowledged(leader.getLastSequence(), 5000));
+        assertEquals(0, leader.getLagEntries());
+    }
+
+    @Test
+    @DisplayName("REP07 - A follower behind the retained entries is resynced on connect")
+    void testFollowerBehindRetained() throws Exception {
+        leader = new ReplicationLeader(0, Mode.Asynchronous, 16, 5000, 1000, primary).start();
+        follower.connect(leader.getPort());
+        awaitConnected();
+        Account account = new Account(1, "Moving User", 0);
+        primary.add(account);
+        account.deposit(25);
+        assertTrue(leader.awaitAcknowledged(leader.getLastSequence(), 5000));
+        follower.close();
+        long deadline = System.currentTimeMillis() + 5000;
+        while (leader.isFollowerConnected() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+
+        // A new follower starts from nothing, but the acknowledged entries are gone
+        InMemoryAccountRepository fresh = new InMemoryAccountRepository();
+        follower = new ReplicationFollower(fresh);
+        follower.connect(leader.getPort());
+        assertTrue(follower.awaitSequence(leader.getLastSequence(), 5000));
+        assertEquals(1, leader.getResyncs());
+        assertEquals(25, fresh.findById(1).getBalance());
+    }
+
+    @Test
+    @DisplayName("REP08 - A synchronous leader degrades after a timeout until the follower catches up")
+    void testSynchronousDegrades() throws Exception {
+        leader = new ReplicationLeader(0, Mode.Synchronous, 16, 200, 1000, primary).start();
+        Account account = new Account(1, "Degraded User", 0);
+        primary.add(account);
+        assertEquals(1, leader.getSyncTimeouts());
+        assertTrue(leader.isDegraded());
+
+        // Later writers do not wait out the timeout again
+        long started = System.nanoTime();
+        for (int i = 0; i < 20; i++) {
+            account.deposit(1);
+        }
+        assertTrue(System.nanoTime() - started < 2_000_000_000L);
+        assertEquals(1, leader.getSyncTimeouts());
+
+        follower.connect(leader.getPort());
+        assertTrue(follower.awaitSequence(leader.getLastSequence(), 5000));
+        long deadline = System.currentTimeMillis() + 5000;
+        while (leader.isDegraded() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+        assertFalse(leader.isDegraded());
+
+        account.deposit(5);
+        assertEquals(leader.getLastSequence(), leader.getAckedSequence());
+        assertEquals(25, replica.findById(1).getBalance());
+        assertEquals(1, leader.getSyncTimeouts());
+    }
+}
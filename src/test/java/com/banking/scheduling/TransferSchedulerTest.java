@@ -0,0 +1,291 @@
+package com.banking.scheduling;
+
+import com.banking.dao.InMemoryAccountRepository;
+import com.banking.entities.Account;
+import com.banking.entities.Account.AccountStatus;
+import com.banking.entities.Money;
+import com.banking.scheduling.TimingWheel.Timer;
+import com.banking.services.TransactionService;
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.TempDir;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicLong;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the timing wheel and the journaled transfer scheduler
+ */
+@DisplayName("TransferScheduler Tests")
+public class TransferSchedulerTest {
+
+    private static final long DAY = 24 * 60 * 60 * 1000L;
+
+    @TempDir
+    Path directory;
+
+    private final AtomicLong now = new AtomicLong(1_000 * DAY);
+    private InMemoryAccountRepository repository;
+    private TransactionService service;
+    private Account payer;
+    private Account payee;
+
+    @BeforeEach
+    void setUp() {
+        repository = new InMemoryAccountRepository();
+        service = new TransactionService(repository);
+        payer = new Account(1, "Payer", 1000, AccountStatus.Verified);
+        payee = new Account(2, "Payee", 0, AccountStatus.Verified);
+        repository.add(payer);
+        repository.add(payee);
+    }
+
+    private TransferScheduler open() {
+        return new TransferScheduler(service, directory.resolve("schedule.journal"), 1000, now::get);
+    }
+
+    private static int runAllDue(TransferScheduler scheduler) {
+        int runs = 0;
+        int ran;
+        while ((ran = scheduler.runDue()) > 0) {
+            runs += ran;
+        }
+        return runs;
+    }
+
+    @Test
+    @DisplayName("TW01 - Timers fire once, on time and in deadline order, across all levels")
+    void testTimingWheel() {
+        TimingWheel<long[]> wheel = new TimingWheel<>(1, 5);
+        Random random = new Random(42);
+        List<Timer<long[]>> timers = new ArrayList<>();
+        // Deadlines already passed fire on the next advance
+        wheel.schedule(0, new long[] {0, 0});
+        for (int i = 0; i < 50_000; i++) {
+            long deadline = 5 + (random.nextLong() >>> (random.nextInt(40) + 24));
+            timers.add(wheel.schedule(deadline, new long[] {deadline, 0}));
+        }
+        int cancelled = 0;
+        for (int i = 0; i < timers.size(); i += 3) {
+            assertTrue(wheel.cancel(timers.get(i)));
+            assertFalse(wheel.cancel(timers.get(i)));
+            cancelled++;
+        }
+        assertEquals(50_001 - cancelled, wheel.size());
+
+        long time = 5;
+        long[] last = {-1};
+        int[] fired = {0};
+        while (wheel.size() > 0) {
+            time += random.nextInt(1 << 20) + (time >>> 3);
+            long at = time;
+            wheel.advance(at, value -> {
+                assertTrue(value[0] <= at);
+                assertTrue(value[0] >= last[0]);
+                assertEquals(0, value[1]++);
+                last[0] = value[0];
+                fired[0]++;
+            });
+            for (Timer<long[]> timer : timers) {
+                if (timer.isPending()) {
+                    assertTrue(timer.getValue()[0] > at);
+                }
+            }
+        }
+        assertEquals(0, wheel.size());
+        assertEquals(50_001 - cancelled, fired[0]);
+    }
+
+    @Test
+    @DisplayName("TS01 - One-off and standing orders run through TransactionService")
+    void testRuns() throws IOException {
+        try (TransferScheduler scheduler = open()) {
+            long once = scheduler.scheduleOnce(1, payee.getCardNumber(), 100, "Rent", now.get() + 5_000);
+            long weekly = scheduler.scheduleRecurring(1, payee.getCardNumber(), 10, "Allowance",
+                    now.get() + DAY, 7 * DAY);
+            long tooLarge = scheduler.scheduleOnce(1, payee.getCardNumber(), 5_000, "Car", now.get() + 5_000);
+            assertEquals(3, scheduler.size());
+            assertEquals(0, scheduler.runDue());
+
+            now.addAndGet(4_000);
+            assertEquals(0, scheduler.runDue());
+            now.addAndGet(1_000);
+            assertEquals(2, scheduler.runDue());
+            assertEquals(1, scheduler.getExecutedRuns());
+            assertEquals(1, scheduler.getFailedRuns());
+            assertNull(scheduler.get(once));
+            assertNull(scheduler.get(tooLarge));
+            assertEquals(Money.ofMajor(100), payee.getBalanceCents());
+
+            now.addAndGet(DAY);
+            assertEquals(1, scheduler.runDue());
+            now.addAndGet(7 * DAY);
+            assertEquals(1, scheduler.runDue());
+            assertEquals(Money.ofMajor(120), payee.getBalanceCents());
+            assertEquals(now.get() - 5_000 + 7 * DAY, scheduler.get(weekly).getNextRunMillis());
+
+            assertTrue(scheduler.cancel(weekly));
+            assertFalse(scheduler.cancel(weekly));
+            now.addAndGet(30 * DAY);
+            assertEquals(0, scheduler.runDue());
+            assertEquals(0, scheduler.size());
+            assertThrows(IllegalArgumentException.class,
+                    () -> scheduler.scheduleRecurring(1, payee.getCardNumber(), 1, "", now.get(), 0));
+        }
+    }
+
+    @Test
+    @DisplayName("TS02 - A restart neither loses nor repeats runs")
+    void testRestart() throws IOException {
+        long daily;
+        long later;
+        try (TransferScheduler scheduler = open()) {
+            daily = scheduler.scheduleRecurring(1, payee.getCardNumber(), 1, "Daily", now.get() + DAY, DAY);
+            later = scheduler.scheduleOnce(1, payee.getCardNumber(), 50, "Later", now.get() + 10 * DAY);
+            long cancelled = scheduler.scheduleOnce(1, payee.getCardNumber(), 50, "Cancelled", now.get() + DAY);
+            scheduler.cancel(cancelled);
+            now.addAndGet(2 * DAY);
+            assertEquals(1, scheduler.runDue());
+            assertEquals(1, scheduler.runDue());
+            assertEquals(0, scheduler.runDue());
+        }
+        assertEquals(Money.ofMajor(2), payee.getBalanceCents());
+
+        // Down for three days: the standing order catches up one run per call, nothing runs twice
+        now.addAndGet(3 * DAY);
+        try (TransferScheduler scheduler = open()) {
+            assertEquals(2, scheduler.size());
+            assertTrue(scheduler.getInDoubt().isEmpty());
+            assertEquals(3, runAllDue(scheduler));
+            assertEquals(Money.ofMajor(5), payee.getBalanceCents());
+            assertEquals(now.get() + DAY, scheduler.get(daily).getNextRunMillis());
+            long fresh = scheduler.scheduleOnce(1, payee.getCardNumber(), 1, "", now.get() + DAY);
+            assertTrue(fresh > later);
+        }
+    }
+
+    @Test
+    @DisplayName("TS03 - A run interrupted mid-batch is reported in doubt, not repeated")
+    void testInDoubt() throws IOException {
+        TransactionService crashing = new TransactionService(repository) {
+            @Override
+            public boolean processTransferCents(Account sender, String card, long cents, String description) {
+                throw new IllegalStateException("Process died");
+            }
+        };
+        Path journal = directory.resolve("schedule.journal");
+        long id;
+        try (TransferScheduler scheduler = new TransferScheduler(crashing, journal, 1000, now::get)) {
+            id = scheduler.scheduleOnce(1, payee.getCardNumber(), 10, "", now.get() + 1_000);
+            now.addAndGet(1_000);
+            assertEquals(1, scheduler.runDue());
+            assertEquals(Map.of(id, List.of(now.get())), scheduler.getInDoubt());
+            assertInstanceOf(IllegalStateException.class, scheduler.getLastFailure());
+        }
+
+        try (TransferScheduler scheduler = open()) {
+            assertEquals(Map.of(id, List.of(now.get())), scheduler.getInDoubt());
+            assertEquals(0, scheduler.size());
+            assertEquals(0, scheduler.runDue());
+            scheduler.compact();
+        }
+        try (TransferScheduler scheduler = open()) {
+            assertTrue(scheduler.resolveInDoubt(id));
+            assertFalse(scheduler.resolveInDoubt(id));
+        }
+        try (TransferScheduler scheduler = open()) {
+            assertTrue(scheduler.getInDoubt().isEmpty());
+        }
+        assertEquals(0, payee.getBalanceCents());
+    }
+
+    @Test
+    @DisplayName("TS04 - Compaction keeps only pending orders")
+    void testCompaction() throws IOException {
+        Path journal = directory.resolve("schedule.journal");
+        long hourly;
+        try (TransferScheduler scheduler = open()) {
+            hourly = scheduler.scheduleRecurring(1, payee.getCardNumber(), 0.01, "Hourly",
+                    now.get() + 3_600_000, 3_600_000);
+            for (int i = 0; i < 200; i++) {
+                scheduler.cancel(scheduler.scheduleOnce(1, payee.getCardNumber(), 1, "", now.get() + DAY));
+            }
+            now.addAndGet(DAY);
+            assertEquals(24, runAllDue(scheduler));
+            long before = Files.size(journal);
+            scheduler.compact();
+            assertTrue(Files.size(journal) < before / 20);
+            // The journal stays appendable after compaction
+            scheduler.scheduleOnce(1, payee.getCardNumber(), 1, "After", now.get() + 1_000);
+        }
+        try (TransferScheduler scheduler = open()) {
+            assertEquals(2, scheduler.size());
+            assertEquals(now.get() + 3_600_000, scheduler.get(hourly).getNextRunMillis());
+        }
+        assertEquals(24, payee.getBalanceCents());
+    }
+
+    @Test
+    @DisplayName("TS05 - A throwing transfer leaves its standing order running and its run in doubt")
+    void testThrowingTransfer() throws IOException {
+        AtomicLong calls = new AtomicLong();
+        TransactionService flaky = new TransactionService(repository) {
+            @Override
+            public boolean processTransferCents(Account sender, String card, long cents, String description) {
+                if (calls.incrementAndGet() == 1) {
+                    throw new IllegalStateException("Connection reset");
+                }
+                return super.processTransferCents(sender, card, cents, description);
+            }
+        };
+        Path journal = directory.resolve("schedule.journal");
+        long daily;
+        long firstRun = now.get() + DAY;
+        try (TransferScheduler scheduler = new TransferScheduler(flaky, journal, 1000, now::get)) {
+            daily = scheduler.scheduleRecurring(1, payee.getCardNumber(), 1, "Daily", firstRun, DAY);
+            now.addAndGet(DAY);
+            assertEquals(1, scheduler.runDue());
+            assertEquals(Map.of(daily, List.of(firstRun)), scheduler.getInDoubt());
+            assertEquals(firstRun + DAY, scheduler.get(daily).getNextRunMillis());
+
+            now.addAndGet(DAY);
+            assertEquals(1, scheduler.runDue());
+            assertEquals(1, scheduler.getExecutedRuns());
+            assertEquals(Map.of(daily, List.of(firstRun)), scheduler.getInDoubt());
+        }
+        try (TransferScheduler scheduler = open()) {
+            // The later completed run does not clear the earlier run in doubt
+            assertEquals(Map.of(daily, List.of(firstRun)), scheduler.getInDoubt());
+            assertEquals(firstRun + 2 * DAY, scheduler.get(daily).getNextRunMillis());
+        }
+        assertEquals(Money.ofMajor(1), payee.getBalanceCents());
+    }
+
+    @Test
+    @DisplayName("TS06 - Order IDs are not reused after compaction and a restart")
+    void testIdsSurviveCompaction() throws IOException {
+        long last;
+        try (TransferScheduler scheduler = open()) {
+            scheduler.scheduleOnceCents(1, payee.getCardNumber(), 150, "", now.get() + 1_000);
+            last = scheduler.scheduleRecurringCents(1, payee.getCardNumber(), 25, "", now.get() + 1_000, DAY);
+            assertThrows(IllegalArgumentException.class,
+                    () -> scheduler.scheduleOnceCents(1, payee.getCardNumber(), 0, "", now.get()));
+            now.addAndGet(1_000);
+            assertEquals(2, scheduler.runDue());
+            assertTrue(scheduler.cancel(last));
+            // Nothing is pending any more, so only the high-water mark keeps the IDs
+            scheduler.compact();
+        }
+        assertEquals(175, payee.getBalanceCents());
+
+        try (TransferScheduler scheduler = open()) {
+            assertEquals(0, scheduler.size());
+            assertTrue(scheduler.scheduleOnceCents(1, payee.getCardNumber(), 1, "", now.get() + DAY) > last);
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package com.banking.scoring;
+
+import com.banking.dao.InMemoryAccountRepository;
+import com.banking.entities.Account;
+import com.banking.entities.Account.AccountStatus;
+import com.banking.entities.AccountState;
+import com.banking.entities.CreditScoreAccount;
+import org.junit.jupiter.api.*;
+import java.util.Random;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for parallel bulk credit score recalculation
+ */
+@DisplayName("CreditScoringEngine Tests")
+public class CreditScoringEngineTest {
+
+    private InMemoryAccountRepository repository;
+
+    @BeforeEach
+    void setUp() {
+        repository = new InMemoryAccountRepository();
+    }
+
+    private CreditScoreAccount randomAccount(int id, Random random) {
+        AccountStatus status = AccountStatus.values()[random.nextInt(4)];
+        return new CreditScoreAccount(id, "Client " + id, random.nextInt(800_000) / 100.0, status,
+                300 + random.nextInt(551), random.nextInt(20), random.nextInt(200));
+    }
+
+    @Test
+    @DisplayName("SC01 - Bulk scores match per-account recalculation")
+    void testMatchesPerAccountScoring() {
+        Random random = new Random(7);
+        InMemoryAccountRepository expected = new InMemoryAccountRepository();
+        int[] sparseIds = {Integer.MIN_VALUE, -40, 0, 1, 4095, 4096, 1 << 20, Integer.MAX_VALUE - 1, Integer.MAX_VALUE};
+        for (int i = 0; i < 20_000 + sparseIds.length; i++) {
+            int id = i < sparseIds.length ? sparseIds[i] : 10_000 + i * 3;
+            long seed = random.nextLong();
+            repository.add(randomAccount(id, new Random(seed)));
+            expected.add(randomAccount(id, new Random(seed)));
+        }
+        repository.add(new Account(50, "Plain Client", 10));
+
+        ScoreDistributionReport report = new CreditScoringEngine(4, 1024).recalculateAll(repository);
+
+        assertEquals(20_000 + sparseIds.length, report.getAccountsScored());
+        for (Account account : expected.findAll()) {
+            CreditScoreAccount reference = (CreditScoreAccount) account;
+            reference.recalculateCreditScore();
+            CreditScoreAccount scored = (CreditScoreAccount) repository.findById(reference.getId());
+            assertEquals(reference.getCreditScore(), scored.getCreditScore(), "account " + reference.getId());
+        }
+    }
+
+    @Test
+    @DisplayName("SC02 - Report counts the distribution before and after")
+    void testReport() {
+        // 700 -> 770: balance over $5000, 5 successes, verified
+        repository.add(new CreditScoreAccount(1, "Rich", 6000, AccountStatus.Verified, 700, 0, 5));
+        // 700 -> 305: closed with overdrafts and a small balance
+        repository.add(new CreditScoreAccount(2, "Struggling", 10, AccountStatus.Closed, 700, 32, 0));
+        // 700 -> 700: unverified, balance between $100 and $1000
+        repository.add(new CreditScoreAccount(3, "Steady", 500, AccountStatus.Unverified, 700, 0, 0));
+
+        ScoreDistributionReport report = new CreditScoringEngine(2, 16).recalculateAll(repository);
+
+        assertEquals(3, report.getAccountsScored());
+        assertEquals(1, report.getIncreased());
+        assertEquals(1, report.getDecreased());
+        assertEquals(1, report.getUnchanged());
+        assertEquals(3, report.getBefore(ScoreDistributionReport.bucketOf(700)));
+        assertEquals(1, report.getAfter(ScoreDistributionReport.bucketOf(770)));
+        assertEquals(1, report.getAfter(ScoreDistributionReport.bucketOf(305)));
+        assertEquals(700, report.getMeanBefore(), 1e-9);
+        assertEquals((770 + 305 + 700) / 3.0, report.getMeanAfter(), 1e-9);
+        assertEquals(ScoreDistributionReport.BUCKET_COUNT - 1, ScoreDistributionReport.bucketOf(850));
+        assertTrue(report.toString().contains("800-850"));
+    }
+
+    @Test
+    @DisplayName("SC03 - Empty repository produces an empty report")
+    void testEmptyRepository() {
+        ScoreDistributionReport report = new CreditScoringEngine().recalculateAll(repository);
+        assertEquals(0, report.getAccountsScored());
+        assertEquals(0, report.getMeanAfter());
+    }
+
+    @Test
+    @DisplayName("SC04 - A score computed from an outdated version is recomputed before install")
+    void testStaleScoreRecomputed() {
+        CreditScoreAccount account = new CreditScoreAccount(1, "Racing", 500, AccountStatus.Verified, 700, 0, 0);
+        AccountState read = account.getState();
+        int computed = CreditScoreAccount.computeScore(read.getBalanceCents(), read.getSuccessfulTransactions(),
+                read.getOverdraftAttempts(), read.getStatus());
+
+        // Lands between the read and the install, and lifts the balance over $5000
+        account.deposit(6000);
+        account.applyComputedScore(computed, read.getSequence());
+
+        AccountState installed = account.getState();
+        assertEquals(CreditScoreAccount.computeScore(installed.getBalanceCents(),
+                installed.getSuccessfulTransactions(), installed.getOverdraftAttempts(), installed.getStatus()),
+                installed.getCreditScore());
+        assertNotEquals(computed, installed.getCreditScore());
+
+        // Unchanged since the read: the computed score is installed as is
+        AccountState current = account.getState();
+        account.applyComputedScore(CreditScoreAccount.MIN_SCORE, current.getSequence());
+        assertEquals(CreditScoreAccount.MIN_SCORE, account.getCreditScore());
+    }
+}
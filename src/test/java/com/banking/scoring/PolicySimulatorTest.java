@@ -0,0 +1,160 @@
+package com.banking.scoring;
+
+import com.banking.dao.InMemoryAccountRepository;
+import com.banking.entities.Account;
+import com.banking.entities.Account.AccountStatus;
+import com.banking.entities.CreditScoreAccount;
+import com.banking.events.AccountEvents;
+import com.banking.events.EventLog;
+import org.junit.jupiter.api.*;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for what-if credit policy simulation
+ */
+@DisplayName("PolicySimulator Tests")
+public class PolicySimulatorTest {
+
+    private InMemoryAccountRepository repository;
+    private EventLog log;
+
+    @BeforeEach
+    void setUp() {
+        repository = new InMemoryAccountRepository();
+        log = new EventLog(4, 50, true);
+        AccountEvents.subscribe(log);
+    }
+
+    @AfterEach
+    void tearDown() {
+        AccountEvents.unsubscribe(log);
+    }
+
+    private CreditPolicy policy(String name, int overdraftPenalty, int suspensionPenalty) {
+        return new CreditPolicy(name, CreditScoreAccount.DEPOSIT_BONUS, CreditScoreAccount.DEPOSITS_PER_BONUS,
+                overdraftPenalty, suspensionPenalty, CreditScoreAccount.APPEAL_RECOVERY,
+                CreditScoreAccount.LIMIT_CENTS_PER_POINT);
+    }
+
+    /**
+     * Random history mixing every kind of score adjustment
+     */
+    private void randomHistory(int accounts, int operations) {
+        Random random = new Random(43);
+        for (int id = 1; id <= accounts; id++) {
+            CreditScoreAccount account = new CreditScoreAccount(id, "Client " + id, random.nextInt(2000));
+            repository.add(account);
+            account.verify();
+        }
+        for (int i = 0; i < operations; i++) {
+            CreditScoreAccount account = (CreditScoreAccount) repository.findById(1 + random.nextInt(accounts));
+            switch (random.nextInt(6)) {
+                case 0:
+                case 1:
+                    account.deposit(1 + random.nextInt(500));
+                    break;
+                case 2:
+                    account.withdraw(1 + random.nextInt(1500));
+                    break;
+                case 3:
+                    if (!account.suspend()) {
+                        account.appeal();
+                    }
+                    break;
+                case 4:
+                    account.recalculateCreditScore();
+                    break;
+                default:
+                    account.transferTo(repository.findById(1 + random.nextInt(accounts)), 1 + random.nextInt(300), "");
+                    break;
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("PS01 - The current policy reproduces the recorded scores")
+    void testCurrentPolicyReproducesHistory() {
+        randomHistory(200, 6000);
+        repository.add(new Account(1000, "Plain", 10));
+
+        PolicySimulationResult result = new PolicySimulator(log, 2).simulate(CreditPolicy.CURRENT);
+
+        assertEquals(200, result.getAccounts());
+        assertEquals(200, result.getDistribution().getUnchanged());
+        long[] actual = new long[CreditScoreAccount.MAX_SCORE + 1];
+        for (Account account : repository.findAll()) {
+            if (account instanceof CreditScoreAccount) {
+                actual[((CreditScoreAccount) account).getCreditScore()]++;
+            }
+        }
+        for (int score = CreditScoreAccount.MIN_SCORE; score <= CreditScoreAccount.MAX_SCORE; score++) {
+            assertEquals(actual[score], result.countAt(score), "score " + score);
+        }
+    }
+
+    @Test
+    @DisplayName("PS02 - Changed penalties replay with the new values")
+    void testChangedPenalties() {
+        CreditScoreAccount account = new CreditScoreAccount(1, "Client", 100);
+        repository.add(account);
+        account.verify();
+        account.withdraw(500);
+        account.withdraw(500);
+        account.suspend();
+        assertEquals(700 - 20 - 20 - 50, account.getCreditScore());
+
+        PolicySimulationResult result = new PolicySimulator(log, 1).simulate(policy("harsh", 40, 100));
+
+        assertEquals(1, result.countAt(700 - 40 - 40 - 100));
+        assertEquals(1, result.getDistribution().getDecreased());
+        assertEquals(520 * CreditScoreAccount.LIMIT_CENTS_PER_POINT, result.limitAtPercentileCents(50));
+    }
+
+    @Test
+    @DisplayName("PS03 - A sweep in one pass matches policies run one by one")
+    void testSweep() {
+        randomHistory(100, 3000);
+        List<CreditPolicy> sweep = Arrays.asList(policy("lenient", 5, 10), CreditPolicy.CURRENT,
+                policy("strict", 40, 80),
+                new CreditPolicy("generous", 20, 2, 20, 50, 25, 2 * CreditScoreAccount.LIMIT_CENTS_PER_POINT));
+        PolicySimulator simulator = new PolicySimulator(log, 3);
+
+        List<PolicySimulationResult> together = simulator.simulate(sweep);
+
+        assertEquals(sweep.size(), together.size());
+        for (int p = 0; p < sweep.size(); p++) {
+            PolicySimulationResult alone = simulator.simulate(sweep.get(p));
+            assertSame(sweep.get(p), together.get(p).getPolicy());
+            for (int score = CreditScoreAccount.MIN_SCORE; score <= CreditScoreAccount.MAX_SCORE; score++) {
+                assertEquals(alone.countAt(score), together.get(p).countAt(score));
+            }
+        }
+        assertTrue(together.get(0).getMeanScore() >= together.get(2).getMeanScore());
+        PolicySimulationResult generous = together.get(3);
+        assertEquals(generous.scoreAtPercentile(90) * 2 * CreditScoreAccount.LIMIT_CENTS_PER_POINT,
+                generous.limitAtPercentileCents(90));
+        assertTrue(generous.toString().contains("p50"));
+    }
+
+    @Test
+    @DisplayName("PS04 - Removed accounts and events before creation are left out")
+    void testRemovedAndEarlyEvents() {
+        CreditScoreAccount early = new CreditScoreAccount(1, "Early", 100, AccountStatus.Verified, 700, 0, 0);
+        early.withdraw(500);
+        repository.add(early);
+        CreditScoreAccount removed = new CreditScoreAccount(2, "Removed", 100);
+        repository.add(removed);
+        repository.remove(2);
+
+        PolicySimulationResult result = new PolicySimulator(log).simulate(policy("harsh", 100, 100));
+
+        assertEquals(1, result.getAccounts());
+        // The overdraft happened before the account was stored, so its score is taken as recorded
+        assertEquals(1, result.countAt(680));
+        assertThrows(IllegalArgumentException.class,
+                () -> new PolicySimulator(log).simulate(List.of()));
+    }
+}
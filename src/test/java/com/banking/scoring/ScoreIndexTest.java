@@ -0,0 +1,190 @@
+package com.banking.scoring;
+
+import com.banking.dao.InMemoryAccountRepository;
+import com.banking.entities.Account;
+import com.banking.entities.Account.AccountStatus;
+import com.banking.entities.AccountState;
+import com.banking.entities.CreditScoreAccount;
+import com.banking.events.AccountEvent;
+import org.junit.jupiter.api.*;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the incremental credit score index
+ */
+@DisplayName("ScoreIndex Tests")
+public class ScoreIndexTest {
+
+    private InMemoryAccountRepository repository;
+    private ScoreIndex index;
+
+    @BeforeEach
+    void setUp() {
+        repository = new InMemoryAccountRepository();
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (index != null) {
+            index.close();
+        }
+    }
+
+    @Test
+    @DisplayName("IX01 - Start indexes existing accounts and follows score events")
+    void testFollowsEvents() {
+        CreditScoreAccount account = new CreditScoreAccount(1, "Client", 500, AccountStatus.Verified, 700, 0, 0);
+        repository.add(account);
+        repository.add(new Account(2, "Plain", 100));
+        index = new ScoreIndex(repository).start();
+        assertEquals(1, index.size());
+        assertEquals(700, index.getScore(1));
+
+        // Third deposit earns the bonus, an overdraft costs 20, a recalculation resets it
+        account.deposit(1);
+        account.deposit(1);
+        account.deposit(1);
+        assertEquals(705, index.getScore(1));
+        account.withdraw(5000);
+        assertEquals(685, index.getScore(1));
+        account.recalculateCreditScore();
+        assertEquals(account.getCreditScore(), index.getScore(1));
+
+        repository.add(new CreditScoreAccount(3, "New", 50));
+        assertEquals(700, index.getScore(3));
+        repository.remove(3);
+        assertNull(index.getScore(3));
+        assertEquals(1, index.size());
+    }
+
+    @Test
+    @DisplayName("IX02 - Rank, percentile and counts agree with sorting")
+    void testAgainstSorting() {
+        index = new ScoreIndex(null);
+        Random random = new Random(42);
+        int[] scores = new int[5000];
+        for (int id = 0; id < scores.length; id++) {
+            scores[id] = 300 + random.nextInt(551);
+            index.update(id, scores[id]);
+        }
+        // Move some accounts so the tree sees removals as well as additions
+        for (int id = 0; id < scores.length; id += 7) {
+            scores[id] = 300 + random.nextInt(551);
+            index.update(id, scores[id]);
+        }
+
+        int[] sorted = scores.clone();
+        Arrays.sort(sorted);
+        for (int id = 0; id < scores.length; id += 97) {
+            int score = scores[id];
+            int atOrBelow = 0;
+            for (int s : sorted) {
+                if (s <= score) {
+                    atOrBelow++;
+                }
+            }
+            assertEquals(atOrBelow, index.countAtOrBelow(score));
+            assertEquals(scores.length - atOrBelow + 1, index.rankOf(id));
+            assertEquals(100.0 * atOrBelow / scores.length, index.percentileOf(id), 1e-9);
+        }
+        for (double p : new double[] {0, 1, 25, 50, 90, 99.9, 100}) {
+            int nth = (int) Math.max(1, Math.ceil(p / 100 * scores.length));
+            assertEquals(sorted[nth - 1], index.scoreAtPercentile(p), "p" + p);
+        }
+        assertEquals(0, index.countAtOrBelow(299));
+        assertEquals(scores.length, index.countAtOrBelow(850));
+    }
+
+    @Test
+    @DisplayName("IX03 - Top K is ordered by score, then id")
+    void testTopK() {
+        index = new ScoreIndex(null);
+        List<int[]> accounts = new ArrayList<>();
+        Random random = new Random(3);
+        for (int id = 0; id < 300; id++) {
+            int score = 300 + random.nextInt(20) * 25;
+            accounts.add(new int[] {id, score});
+            index.update(id, score);
+        }
+        accounts.sort(Comparator.<int[]>comparingInt(a -> -a[1]).thenComparingInt(a -> a[0]));
+
+        List<Integer> top = index.topK(25);
+        assertEquals(25, top.size());
+        for (int i = 0; i < top.size(); i++) {
+            assertEquals(accounts.get(i)[0], top.get(i));
+        }
+        assertEquals(300, index.topK(1000).size());
+        assertTrue(index.topK(0).isEmpty());
+    }
+
+    @Test
+    @DisplayName("IX04 - Unknown accounts and empty index")
+    void testEdges() {
+        index = new ScoreIndex(null);
+        assertNull(index.rankOf(1));
+        assertNull(index.percentileOf(1));
+        assertThrows(IllegalStateException.class, () -> index.scoreAtPercentile(50));
+        assertThrows(IllegalArgumentException.class, () -> index.scoreAtPercentile(101));
+        assertFalse(index.remove(1));
+
+        index.update(1, 900);
+        assertEquals(850, index.getScore(1));
+        assertEquals(1, index.countAt(850));
+        assertEquals(1, index.rankOf(1));
+        assertEquals(100.0, index.percentileOf(1));
+    }
+
+    @Test
+    @DisplayName("IX05 - A score arriving after a newer one of the same account is ignored")
+    void testStaleScoreIgnored() {
+        index = new ScoreIndex(null);
+        CreditScoreAccount account = new CreditScoreAccount(1, "Racing", 100, AccountStatus.Verified, 700, 0, 0);
+        index.onEvent(AccountEvent.created(account));
+        account.withdraw(5000);
+        AccountState penalized = account.getState();
+        account.suspend();
+        index.onEvent(AccountEvent.creditScoreAdjusted(1, account.getState(), "suspension"));
+        index.onEvent(AccountEvent.creditScoreAdjusted(1, penalized, "overdraft"));
+        assertEquals(630, index.getScore(1));
+        assertEquals(1, index.size());
+    }
+
+    @Test
+    @DisplayName("IX06 - Other repositories' accounts are not indexed")
+    void testScopedToRepository() {
+        index = new ScoreIndex(repository).start();
+        InMemoryAccountRepository other = new InMemoryAccountRepository();
+        CreditScoreAccount outsider = new CreditScoreAccount(5, "Outsider", 100, AccountStatus.Verified, 700, 0, 0);
+        other.add(outsider);
+        outsider.withdraw(5000);
+        index.onEvent(AccountEvent.created(new CreditScoreAccount(6, "Never stored", 0)));
+        assertEquals(0, index.size());
+
+        repository.add(new CreditScoreAccount(7, "Member", 100, AccountStatus.Verified, 650, 0, 0));
+        assertEquals(1, index.size());
+        assertEquals(650, index.getScore(7));
+    }
+
+    @Test
+    @DisplayName("IX07 - An adjustment delivered after the removal does not bring the account back")
+    void testLateAdjustmentAfterRemoval() {
+        index = new ScoreIndex(null);
+        CreditScoreAccount account = new CreditScoreAccount(1, "Leaving", 100, AccountStatus.Verified, 700, 0, 0);
+        index.onEvent(AccountEvent.created(account));
+        account.withdraw(5000);
+        AccountState penalized = account.getState();
+        index.onEvent(AccountEvent.removed(account));
+        index.onEvent(AccountEvent.creditScoreAdjusted(1, penalized, "overdraft"));
+        assertNull(index.getScore(1));
+        assertEquals(0, index.size());
+
+        // Creating the id again clears the marker
+        index.onEvent(AccountEvent.created(new CreditScoreAccount(1, "Returning", 0)));
+        assertEquals(700, index.getScore(1));
+    }
+}
@@ -0,0 +1,86 @@
+package com.banking.scoring;
+
+import com.banking.entities.Account.AccountStatus;
+import com.banking.entities.CreditScoreAccount;
+import org.junit.jupiter.api.*;
+import java.util.Random;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for columnar credit score kernels
+ */
+@DisplayName("ScoreKernel Tests")
+public class ScoreKernelTest {
+
+    private static final long[] BALANCE_EDGES = {
+            Long.MIN_VALUE, -1, 0,
+            CreditScoreAccount.LOW_BALANCE_CENTS - 1, CreditScoreAccount.LOW_BALANCE_CENTS,
+            CreditScoreAccount.MEDIUM_BALANCE_CENTS, CreditScoreAccount.MEDIUM_BALANCE_CENTS + 1,
+            CreditScoreAccount.HIGH_BALANCE_CENTS, CreditScoreAccount.HIGH_BALANCE_CENTS + 1,
+            Long.MAX_VALUE
+    };
+    private static final int[] COUNTER_EDGES = {0, 1, 24, 25, 100, Integer.MAX_VALUE / 2, Integer.MAX_VALUE};
+
+    /**
+     * Every combination of edge values, then random rows; the count is not a multiple of any lane width
+     */
+    private ScoreColumns edgeAndRandomRows() {
+        ScoreColumns columns = new ScoreColumns(4);
+        for (long balance : BALANCE_EDGES) {
+            for (int successes : COUNTER_EDGES) {
+                for (int overdrafts : COUNTER_EDGES) {
+                    for (AccountStatus status : AccountStatus.values()) {
+                        columns.add(balance, successes, overdrafts, status);
+                    }
+                }
+            }
+        }
+        Random random = new Random(41);
+        for (int i = 0; i < 10_007; i++) {
+            columns.add(random.nextInt(1_000_000) - 50_000L, random.nextInt(300), random.nextInt(40),
+                    AccountStatus.values()[random.nextInt(4)]);
+        }
+        return columns;
+    }
+
+    private void assertMatchesComputeScore(ScoreKernel kernel) {
+        ScoreColumns columns = edgeAndRandomRows();
+        columns.score(kernel);
+        for (int i = 0; i < columns.size(); i++) {
+            int expected = CreditScoreAccount.computeScore(columns.balanceCents[i], columns.successfulTransactions[i],
+                    columns.overdraftAttempts[i], AccountStatus.values()[columns.statusOrdinals[i]]);
+            assertEquals(expected, columns.getScore(i), kernel.getName() + " row " + i);
+        }
+    }
+
+    @Test
+    @DisplayName("KN01 - Scalar kernel matches computeScore")
+    void testScalarKernel() {
+        assertMatchesComputeScore(ScoreKernels.scalar());
+    }
+
+    @Test
+    @DisplayName("KN02 - Vector kernel matches computeScore, including edges and tail rows")
+    void testVectorKernel() {
+        Assumptions.assumeTrue(ScoreKernels.vector() != null, "jdk.incubator.vector not resolved");
+        assertMatchesComputeScore(ScoreKernels.vector());
+    }
+
+    @Test
+    @DisplayName("KN03 - Columns read one account version and rows map back to accounts")
+    void testColumnsFromAccounts() {
+        CreditScoreAccount rich = new CreditScoreAccount(1, "Rich", 6000, AccountStatus.Verified, 700, 0, 5);
+        CreditScoreAccount poor = new CreditScoreAccount(2, "Poor", 10, AccountStatus.Closed, 700, 32, 0);
+        ScoreColumns columns = new ScoreColumns(0);
+        assertEquals(0, columns.add(rich));
+        assertEquals(1, columns.add(poor));
+
+        columns.score(ScoreKernels.best());
+
+        assertEquals(770, columns.getScore(0));
+        assertEquals(305, columns.getScore(1));
+        assertThrows(IndexOutOfBoundsException.class, () -> columns.getScore(2));
+        columns.clear();
+        assertEquals(0, columns.size());
+    }
+}
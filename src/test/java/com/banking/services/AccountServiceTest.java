@@ -1,9 +1,14 @@
 package com.banking.services;
 
 import com.banking.dao.AccountDAO;
+import com.banking.dao.AccountRepository;
+import com.banking.dao.InMemoryAccountRepository;
+import com.banking.dao.lsm.LsmAccountStore;
 import com.banking.entities.Account;
 import com.banking.entities.Account.AccountStatus;
 import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.TempDir;
+import java.nio.file.Path;
 import static org.junit.jupiter.api.Assertions.*;
 
 /**
@@ -385,4 +390,62 @@ public class AccountServiceTest {
             assertEquals(AccountStatus.Closed, AccountDAO.findById(1).getStatus());
         }
     }
+    
+    // ==================== Repository Injection Tests ====================
+    
+    @Nested
+    @DisplayName("Repository Injection Tests")
+    class RepositoryInjectionTests {
+        
+        @TempDir
+        Path tempDir;
+        
+        @Test
+        @DisplayName("AS28 - Services on separate repositories are isolated")
+        void testIsolatedRepositories() {
+            AccountRepository first = new InMemoryAccountRepository();
+            AccountRepository second = new InMemoryAccountRepository();
+            new AccountService(first).createAccount(1, "First Store", 100);
+            
+            assertNotNull(first.findById(1));
+            assertNull(second.findById(1));
+            assertNull(AccountDAO.findById(1));
+        }
+        
+        @Test
+        @DisplayName("AS29 - Transfers resolve the recipient in the injected repository")
+        void testTransferUsesInjectedRepository() {
+            AccountRepository repository = new InMemoryAccountRepository();
+            AccountService service = new AccountService(repository);
+            TransactionService transactions = new TransactionService(repository);
+            Account sender = service.createAccount(1, "Sender", 500);
+            Account recipient = service.createAccount(2, "Recipient", 0);
+            service.verifyAccount(1);
+            AccountDAO.add(new Account(2, "Default Store Decoy", 0));
+            
+            assertTrue(transactions.processTransfer(sender, recipient.getCardNumber(), 200, "Rent"));
+            assertEquals(200, recipient.getBalance());
+            assertEquals(0, AccountDAO.findById(2).getBalance());
+        }
+        
+        @Test
+        @DisplayName("AS30 - Changes are persisted to a store that returns copies")
+        void testDurableRepository() throws Exception {
+            try (LsmAccountStore store = new LsmAccountStore(tempDir)) {
+                AccountService service = new AccountService(store);
+                TransactionService transactions = new TransactionService(store);
+                service.createAccount(1, "Sender", 500);
+                service.createAccount(2, "Recipient", 0);
+                assertTrue(service.verifyAccount(1));
+                
+                assertTrue(transactions.processDeposit(service.getAccount(1), 100));
+                assertTrue(transactions.processTransfer(service.getAccount(1),
+                        Account.cardNumberFor(2), 250, "Rent"));
+                
+                assertEquals(350, store.findById(1).getBalance());
+                assertEquals(AccountStatus.Verified, store.findById(1).getStatus());
+                assertEquals(250, store.findById(2).getBalance());
+            }
+        }
+    }
 }
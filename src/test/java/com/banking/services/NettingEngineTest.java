@@ -0,0 +1,160 @@
+package com.banking.services;
+
+import com.banking.dao.InMemoryAccountRepository;
+import com.banking.entities.Account;
+import com.banking.entities.Account.AccountStatus;
+import com.banking.entities.CreditScoreAccount;
+import com.banking.entities.Money;
+import com.banking.events.AccountEvent;
+import com.banking.events.AccountEventListener;
+import com.banking.events.AccountEvents;
+import org.junit.jupiter.api.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for multilateral netting of transfer batches
+ */
+@DisplayName("NettingEngine Tests")
+public class NettingEngineTest {
+
+    private InMemoryAccountRepository repository;
+    private NettingEngine engine;
+    private Account alice;
+    private Account bob;
+    private Account carol;
+
+    @BeforeEach
+    void setUp() {
+        repository = new InMemoryAccountRepository();
+        engine = new NettingEngine(repository);
+        alice = new Account(1, "Alice", 100, AccountStatus.Verified);
+        bob = new Account(2, "Bob", 100, AccountStatus.Verified);
+        carol = new Account(3, "Carol", 0, AccountStatus.Verified);
+        repository.add(alice);
+        repository.add(bob);
+        repository.add(carol);
+    }
+
+    private TransferRequest transfer(Account sender, Account recipient, double amount) {
+        return new TransferRequest(sender, recipient.getCardNumber(), amount, "Batch");
+    }
+
+    @Test
+    @DisplayName("NE01 - A large batch collapses to one posting per account")
+    void testNetPositions() {
+        List<TransferRequest> batch = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            batch.add(transfer(alice, bob, 50));
+            batch.add(transfer(bob, carol, 50));
+            batch.add(transfer(carol, alice, 50));
+        }
+        batch.add(transfer(alice, carol, 30));
+        long modifications = alice.getModificationCount();
+
+        NettingResult result = engine.settle(batch);
+        assertEquals(3001, result.getSettledTransfers());
+        assertTrue(result.getRejected().isEmpty());
+        assertEquals(Money.ofMajor(150_030), result.getGrossCents());
+        assertEquals(Money.ofMajor(30), result.getNetCents());
+        assertEquals(2, result.getPostings());
+        assertEquals(Map.of(1, -Money.ofMajor(30), 3, Money.ofMajor(30)), result.getNetPositions());
+        assertEquals(Money.ofMajor(70), alice.getBalanceCents());
+        assertEquals(Money.ofMajor(100), bob.getBalanceCents());
+        assertEquals(Money.ofMajor(30), carol.getBalanceCents());
+        assertEquals(modifications + 1, alice.getModificationCount());
+    }
+
+    @Test
+    @DisplayName("NE02 - Only the net debit has to be covered")
+    void testNetCoverage() {
+        // Alice pays out more than she holds but receives most of it back in the same batch
+        NettingResult result = engine.settle(List.of(transfer(alice, carol, 250), transfer(carol, alice, 200)));
+        assertEquals(2, result.getSettledTransfers());
+        assertEquals(Money.ofMajor(50), alice.getBalanceCents());
+        assertEquals(Money.ofMajor(50), carol.getBalanceCents());
+        assertFalse(alice.transferTo(carol, 250, "Gross"));
+    }
+
+    @Test
+    @DisplayName("NE03 - Uncovered senders drop out and positions are recomputed")
+    void testDefaults() {
+        Account dave = new Account(4, "Dave", 0, AccountStatus.Verified);
+        Account closed = new Account(5, "Closed", 0, AccountStatus.Closed);
+        repository.add(dave);
+        repository.add(closed);
+        TransferRequest uncovered = transfer(carol, dave, 500);
+        // Dave could only pay Bob out of Carol's transfer
+        TransferRequest dependent = transfer(dave, bob, 400);
+        TransferRequest covered = transfer(alice, bob, 60);
+        TransferRequest toClosed = transfer(alice, closed, 1);
+        TransferRequest badAmount = transfer(alice, bob, -5);
+        TransferRequest unknown = new TransferRequest(alice, "0000 0000 0000 0099", 1, "");
+        carol.suspend();
+        TransferRequest suspended = transfer(carol, alice, 1);
+        carol.appeal();
+
+        NettingResult result = engine.settle(List.of(uncovered, dependent, covered, toClosed, badAmount,
+                unknown, suspended));
+        assertEquals(1, result.getSettledTransfers());
+        assertEquals(NettingEngine.NOT_COVERED, result.getRejected().get(uncovered));
+        assertEquals(NettingEngine.NOT_COVERED, result.getRejected().get(dependent));
+        assertEquals(NettingEngine.UNKNOWN_RECIPIENT, result.getRejected().get(toClosed));
+        assertEquals(NettingEngine.UNKNOWN_RECIPIENT, result.getRejected().get(unknown));
+        assertEquals(NettingEngine.INVALID_AMOUNT, result.getRejected().get(badAmount));
+        assertEquals(AccountStatus.Verified, carol.getStatus());
+        assertEquals(6, result.getRejected().size());
+        assertEquals(Money.ofMajor(40), alice.getBalanceCents());
+        assertEquals(Money.ofMajor(160), bob.getBalanceCents());
+        assertEquals(0, dave.getBalanceCents());
+    }
+
+    @Test
+    @DisplayName("NE04 - A failed debit rolls the posting back; success publishes one event per account")
+    void testPostNet() {
+        List<AccountEvent> events = new ArrayList<>();
+        AccountEventListener listener = events::add;
+        AccountEvents.subscribe(listener);
+        try {
+            int failed = Account.postNet(new Account[] {alice, carol, bob},
+                    new long[] {-Money.ofMajor(50), Money.ofMajor(200), -Money.ofMajor(150)});
+            assertEquals(2, failed);
+            assertEquals(Money.ofMajor(100), alice.getBalanceCents());
+            assertEquals(0, carol.getBalanceCents());
+            assertTrue(events.isEmpty());
+
+            NettingResult result = engine.settle(List.of(transfer(alice, carol, 50), transfer(bob, carol, 25),
+                    transfer(alice, bob, 5)));
+            assertEquals(3, result.getPostings());
+            assertEquals(3, events.size());
+            assertEquals(AccountEvent.Type.TransferSent, events.get(0).getType());
+            assertEquals(55.0, events.get(0).getAmount());
+            assertEquals(45.0, events.get(0).getBalanceAfter());
+            assertEquals(AccountEvent.NET_SETTLEMENT, events.get(0).getCounterpartyId());
+            assertEquals(AccountEvent.Type.TransferReceived, events.get(1).getType());
+            assertEquals(75.0, events.get(1).getAmount());
+            assertEquals(AccountEvent.NET_SETTLEMENT, events.get(1).getCounterpartyId());
+        } finally {
+            AccountEvents.unsubscribe(listener);
+        }
+    }
+
+    @Test
+    @DisplayName("NE05 - Each transfer must fit the sender's credit-based limit")
+    void testTransactionLimit() {
+        // Score 300 allows $3000 per transaction
+        CreditScoreAccount risky = new CreditScoreAccount(6, "Risky", 10_000, AccountStatus.Verified, 300, 0, 0);
+        repository.add(risky);
+        TransferRequest over = transfer(risky, carol, 3000.01);
+        TransferRequest within = transfer(risky, bob, 3000);
+
+        NettingResult result = engine.settle(List.of(over, within));
+        assertEquals(1, result.getSettledTransfers());
+        assertEquals(NettingEngine.OVER_LIMIT, result.getRejected().get(over));
+        assertEquals(Money.ofMajor(7000), risky.getBalanceCents());
+        assertEquals(0, carol.getBalanceCents());
+        assertEquals(Money.ofMajor(3100), bob.getBalanceCents());
+    }
+}
@@ -0,0 +1,124 @@
+package com.banking.services;
+
+import com.banking.dao.InMemoryAccountRepository;
+import com.banking.entities.Account;
+import com.banking.entities.Account.AccountStatus;
+import com.banking.entities.Money;
+import org.junit.jupiter.api.*;
+import java.util.concurrent.atomic.AtomicLong;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for rolling daily and weekly withdrawal and transfer caps
+ */
+@DisplayName("RollingLimits Tests")
+public class RollingLimitsTest {
+
+    private static final long HOUR = 60 * 60 * 1000L;
+
+    private final AtomicLong now = new AtomicLong(1_000 * RollingLimits.WEEK_MILLIS);
+    private InMemoryAccountRepository repository;
+    private TransactionService service;
+    private RollingLimits limits;
+    private Account account;
+
+    @BeforeEach
+    void setUp() {
+        repository = new InMemoryAccountRepository();
+        // $1000 and 5 transactions a day, $2500 and 12 transactions a week
+        limits = new RollingLimits(Money.ofMajor(1000), 5, Money.ofMajor(2500), 12, now::get);
+        service = new TransactionService(repository, limits);
+        account = new Account(1, "Client", 100_000, AccountStatus.Verified);
+        repository.add(account);
+        repository.add(new Account(2, "Recipient", 0, AccountStatus.Verified));
+    }
+
+    @Test
+    @DisplayName("RL01 - Window totals expire bucket by bucket")
+    void testWindowExpiry() {
+        RollingWindow window = new RollingWindow(4 * HOUR, 4);
+        window.record(0, 10);
+        window.record(HOUR, 20);
+        window.record(HOUR + 1, 5);
+        assertEquals(35, window.getAmount(HOUR + 2));
+        assertEquals(3, window.getCount(HOUR + 2));
+        assertEquals(35, window.getAmount(4 * HOUR - 1));
+        // The first bucket leaves the window, then the second
+        assertEquals(25, window.getAmount(4 * HOUR));
+        assertEquals(2, window.getCount(4 * HOUR));
+        assertEquals(0, window.getAmount(5 * HOUR));
+        window.record(6 * HOUR, 7);
+        assertEquals(7, window.getAmount(6 * HOUR + 1));
+        // A long gap clears everything in one step
+        assertEquals(0, window.getAmount(1000 * HOUR));
+        window.record(1000 * HOUR, 3);
+        assertEquals(3, window.getAmount(1000 * HOUR));
+        assertEquals(1, window.getCount(1000 * HOUR));
+        assertThrows(IllegalArgumentException.class, () -> new RollingWindow(3, 4));
+    }
+
+    @Test
+    @DisplayName("RL02 - Daily amount cap applies to withdrawals and transfers together")
+    void testDailyAmount() {
+        assertTrue(service.processWithdrawal(account, 600));
+        assertTrue(service.validateTransaction(account, 400, "transfer"));
+        assertFalse(service.validateTransaction(account, 400.01, "transfer"));
+        assertFalse(service.processTransfer(account, repository.findById(2).getCardNumber(), 400.01, ""));
+        assertTrue(service.processTransfer(account, repository.findById(2).getCardNumber(), 400, ""));
+        assertFalse(service.processWithdrawal(account, 1));
+        assertEquals(Money.ofMajor(1000), limits.getDailyAmountCents(1));
+        assertEquals(2, limits.getDailyCount(1));
+        // Rejected attempts neither move money nor count
+        assertEquals(Money.ofMajor(99_000), account.getBalanceCents());
+
+        now.addAndGet(RollingLimits.DAY_MILLIS);
+        assertTrue(service.processWithdrawal(account, 1));
+        assertEquals(Money.ofMajor(1001), limits.getWeeklyAmountCents(1));
+    }
+
+    @Test
+    @DisplayName("RL03 - Count caps and the weekly window")
+    void testCounts() {
+        for (int i = 0; i < 5; i++) {
+            assertTrue(service.processWithdrawal(account, 1));
+        }
+        assertFalse(service.processWithdrawal(account, 1));
+        assertFalse(service.validateTransaction(account, 1, "withdraw"));
+        // Deposits are not capped
+        assertTrue(service.validateTransaction(account, 1, "deposit"));
+
+        for (int day = 1; day <= 2; day++) {
+            now.addAndGet(RollingLimits.DAY_MILLIS);
+            for (int i = 0; i < 5; i++) {
+                boolean allowed = service.processWithdrawal(account, 1);
+                assertEquals(day == 1 || i < 2, allowed, "day " + day + " withdrawal " + i);
+            }
+        }
+        assertEquals(12, limits.getWeeklyCount(1));
+        now.addAndGet(RollingLimits.WEEK_MILLIS);
+        assertEquals(0, limits.getWeeklyCount(1));
+        assertTrue(service.processWithdrawal(account, 1));
+    }
+
+    @Test
+    @DisplayName("RL04 - Concurrent withdrawals cannot overshoot the cap")
+    void testConcurrentWithdrawals() throws InterruptedException {
+        Thread[] threads = new Thread[8];
+        for (int t = 0; t < threads.length; t++) {
+            threads[t] = new Thread(() -> {
+                for (int i = 0; i < 50; i++) {
+                    service.processWithdrawal(account, 150);
+                    Thread.yield();
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        // Five withdrawals a day, $750 in total
+        assertEquals(5, limits.getDailyCount(1));
+        assertEquals(Money.ofMajor(750), limits.getDailyAmountCents(1));
+        assertEquals(Money.ofMajor(100_000 - 750), account.getBalanceCents());
+    }
+}
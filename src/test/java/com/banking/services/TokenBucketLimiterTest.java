@@ -0,0 +1,139 @@
+package com.banking.services;
+
+import com.banking.controllers.ClientController;
+import com.banking.dao.InMemoryAccountRepository;
+import com.banking.entities.Account;
+import com.banking.entities.Account.AccountStatus;
+import org.junit.jupiter.api.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for token-bucket rate limiting of the transaction path
+ */
+@DisplayName("TokenBucketLimiter Tests")
+public class TokenBucketLimiterTest {
+
+    private final AtomicLong now = new AtomicLong(5_000);
+
+    private <K> TokenBucketLimiter<K> limiter(int capacity, int perSecond) {
+        return new TokenBucketLimiter<>(capacity, perSecond, 1024, now::get);
+    }
+
+    @Test
+    @DisplayName("TB01 - Burst up to capacity, then refill at the configured rate")
+    void testBurstAndRefill() {
+        TokenBucketLimiter<Integer> limiter = limiter(5, 2);
+        for (int i = 0; i < 5; i++) {
+            assertTrue(limiter.tryAcquire(1));
+        }
+        assertFalse(limiter.tryAcquire(1));
+
+        // Two tokens a second: one token after 500 ms
+        now.addAndGet(499);
+        assertFalse(limiter.tryAcquire(1));
+        now.addAndGet(1);
+        assertTrue(limiter.tryAcquire(1));
+        assertFalse(limiter.tryAcquire(1));
+
+        // A long idle period refills to capacity, not beyond
+        now.addAndGet(3_600_000);
+        assertEquals(5, limiter.availableTokens(1));
+    }
+
+    @Test
+    @DisplayName("TB02 - Keys have independent buckets; overflow keys never drain tracked ones")
+    void testKeys() {
+        TokenBucketLimiter<String> limiter = new TokenBucketLimiter<>(1, 1, 2, now::get);
+        assertTrue(limiter.tryAcquire("alice"));
+        assertFalse(limiter.tryAcquire("alice"));
+        assertTrue(limiter.tryAcquire("bob"));
+        assertEquals(1, limiter.availableTokens("carol"));
+        assertEquals(2, limiter.getTrackedKeys());
+        // No slot left for carol, who gets a bucket in the overflow chunk
+        assertTrue(limiter.tryAcquire("carol"));
+        assertFalse(limiter.tryAcquire("carol"));
+        assertEquals(2, limiter.getTrackedKeys());
+        now.addAndGet(1_000);
+        assertTrue(limiter.tryAcquire("carol"));
+        assertTrue(limiter.tryAcquire("alice"));
+        assertTrue(limiter.tryAcquire("bob"));
+        assertThrows(IllegalArgumentException.class, () -> limiter(TokenBucketLimiter.MAX_CAPACITY + 1, 1));
+    }
+
+    @Test
+    @DisplayName("TB03 - Concurrent callers never take more tokens than the bucket holds")
+    void testConcurrent() throws InterruptedException {
+        TokenBucketLimiter<Integer> limiter = limiter(100, 1);
+        AtomicInteger granted = new AtomicInteger();
+        Thread[] threads = new Thread[8];
+        for (int t = 0; t < threads.length; t++) {
+            threads[t] = new Thread(() -> {
+                for (int i = 0; i < 1000; i++) {
+                    if (limiter.tryAcquire(7)) {
+                        granted.incrementAndGet();
+                    }
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(100, granted.get());
+    }
+
+    @Test
+    @DisplayName("TB04 - ClientController rejects flooding before any service work")
+    void testControllerEnforcement() {
+        InMemoryAccountRepository repository = new InMemoryAccountRepository();
+        ClientController controller = new ClientController(repository);
+        Account first = new Account(1, "Mallory", 1000, AccountStatus.Verified);
+        Account second = new Account(2, "Mallory", 1000, AccountStatus.Verified);
+        Account other = new Account(3, "Alice", 1000, AccountStatus.Verified);
+        repository.add(first);
+        repository.add(second);
+        repository.add(other);
+        TokenBucketLimiter<Integer> perAccount = limiter(2, 1);
+        controller.setRateLimits(perAccount, limiter(3, 1));
+
+        assertEquals("Withdrawal successful", controller.processWithdrawal(first, 1));
+        assertEquals("Transfer successful", controller.processTransfer(first, other.getCardNumber(), 1, ""));
+        assertEquals(ClientController.RATE_LIMITED, controller.processWithdrawal(first, 1));
+        // The client bucket still has one token for the second account, then it is empty too
+        assertEquals("Withdrawal successful", controller.processWithdrawal(second, 1));
+        assertEquals(ClientController.RATE_LIMITED, controller.processWithdrawal(second, 1));
+        // The client's bucket refused it, so the account's token was given back
+        assertEquals(1, perAccount.availableTokens(2));
+        assertEquals("Withdrawal successful", controller.processWithdrawal(other, 1));
+        assertEquals(998 * 100L, first.getBalanceCents());
+
+        // Deposits are not limited
+        assertEquals("Deposit successful", controller.processDeposit(first, 1));
+        now.addAndGet(1000);
+        assertEquals("Withdrawal successful", controller.processWithdrawal(first, 1));
+
+        controller.setRateLimits(null, null);
+        for (int i = 0; i < 10; i++) {
+            assertEquals("Withdrawal successful", controller.processWithdrawal(first, 1));
+        }
+    }
+
+    @Test
+    @DisplayName("TB05 - A released token goes back to the bucket, never past capacity")
+    void testRelease() {
+        TokenBucketLimiter<Integer> limiter = limiter(2, 1);
+        limiter.release(4);
+        assertEquals(2, limiter.availableTokens(4));
+        assertTrue(limiter.tryAcquire(4));
+        assertTrue(limiter.tryAcquire(4));
+        assertFalse(limiter.tryAcquire(4));
+        limiter.release(4);
+        assertTrue(limiter.tryAcquire(4));
+        limiter.release(4);
+        limiter.release(4);
+        limiter.release(4);
+        assertEquals(2, limiter.availableTokens(4));
+    }
+}
@@ -3,7 +3,16 @@ package com.banking.state;
 import com.banking.dao.AccountDAO;
 import com.banking.entities.Account;
 import com.banking.entities.Account.AccountStatus;
+import com.banking.entities.AccountState;
+import com.banking.entities.AccountStateMachine;
+import com.banking.entities.AccountStateMachine.Transition;
+import com.banking.entities.CreditScoreAccount;
 import org.junit.jupiter.api.*;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import static org.junit.jupiter.api.Assertions.*;
 
 /**
@@ -330,4 +339,93 @@ public class AccountStateTest {
             assertEquals(AccountStatus.Suspended, account.getStatus());
         }
     }
-}
\ No newline at end of file
+    
+    // ==================== Transition Engine Tests ====================
+    
+    @Nested
+    @DisplayName("Transition Engine")
+    class TransitionEngine {
+        
+        @Test
+        @DisplayName("ST23 - Matrix matches the lifecycle diagram")
+        void testTransitionMatrix() {
+            for (AccountStatus from : AccountStatus.values()) {
+                assertEquals(from == AccountStatus.Unverified ? AccountStatus.Verified : null,
+                        AccountStateMachine.target(Transition.Verify, from));
+                assertEquals(from == AccountStatus.Verified ? AccountStatus.Suspended : null,
+                        AccountStateMachine.target(Transition.Suspend, from));
+                assertEquals(from == AccountStatus.Suspended ? AccountStatus.Verified : null,
+                        AccountStateMachine.target(Transition.Appeal, from));
+                assertEquals(from == AccountStatus.Closed ? null : AccountStatus.Closed,
+                        AccountStateMachine.target(Transition.Close, from));
+            }
+            assertTrue(account.canTransition(Transition.Verify));
+            assertFalse(account.canTransition(Transition.Appeal));
+        }
+        
+        @Test
+        @DisplayName("ST24 - Concurrent suspensions commit exactly once and penalize once")
+        void testConcurrentSuspend() throws Exception {
+            for (int round = 0; round < 50; round++) {
+                CreditScoreAccount credit = new CreditScoreAccount(round, "Race", 100);
+                credit.verify();
+                int threads = 8;
+                CountDownLatch start = new CountDownLatch(1);
+                AtomicInteger committed = new AtomicInteger();
+                ExecutorService pool = Executors.newFixedThreadPool(threads);
+                for (int t = 0; t < threads; t++) {
+                    pool.submit(() -> {
+                        start.await();
+                        if (credit.transition(Transition.Suspend)) {
+                            committed.incrementAndGet();
+                        }
+                        return null;
+                    });
+                }
+                start.countDown();
+                pool.shutdown();
+                assertTrue(pool.awaitTermination(10, TimeUnit.SECONDS));
+                assertEquals(1, committed.get());
+                assertEquals(AccountStatus.Suspended, credit.getStatus());
+                assertEquals(650, credit.getCreditScore());
+            }
+        }
+        
+        @Test
+        @DisplayName("ST25 - setStatus overrides the matrix without running hooks")
+        void testAdministrativeOverride() {
+            CreditScoreAccount credit = new CreditScoreAccount(2, "Override", 100);
+            credit.setStatus(AccountStatus.Suspended);
+            assertEquals(AccountStatus.Suspended, credit.getStatus());
+            assertEquals(700, credit.getCreditScore());
+            assertTrue(credit.appeal());
+            assertEquals(725, credit.getCreditScore());
+        }
+        
+        @Test
+        @DisplayName("ST26 - Concurrent deposits count every success in the committed version")
+        void testConcurrentCreditCounters() throws Exception {
+            CreditScoreAccount credit = new CreditScoreAccount(3, "Counters", 0);
+            int threads = 8;
+            int perThread = 300;
+            CountDownLatch start = new CountDownLatch(1);
+            ExecutorService pool = Executors.newFixedThreadPool(threads);
+            for (int t = 0; t < threads; t++) {
+                pool.submit(() -> {
+                    start.await();
+                    for (int i = 0; i < perThread; i++) {
+                        credit.depositCents(1);
+                    }
+                    return null;
+                });
+            }
+            start.countDown();
+            pool.shutdown();
+            assertTrue(pool.awaitTermination(10, TimeUnit.SECONDS));
+            AccountState state = credit.getState();
+            assertEquals(threads * perThread, state.getSuccessfulTransactions());
+            assertEquals(threads * perThread, state.getBalanceCents());
+            assertEquals(CreditScoreAccount.MAX_SCORE, state.getCreditScore());
+        }
+    }
+}
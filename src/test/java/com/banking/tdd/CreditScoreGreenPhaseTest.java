@@ -1,7 +1,10 @@
 package com.banking.tdd;
 
+import com.banking.dao.InMemoryAccountRepository;
+import com.banking.entities.AccountState;
 import com.banking.entities.CreditScoreAccount;
 import com.banking.entities.Account.AccountStatus;
+import com.banking.services.TransactionService;
 import org.junit.jupiter.api.*;
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -160,4 +163,71 @@ public class CreditScoreGreenPhaseTest {
             assertTrue(account.getCreditScore() > 700);
         }
     }
-}
\ No newline at end of file
+    
+    // ==================== Cached Limit Tests ====================
+    
+    @Nested
+    @DisplayName("Cached Transaction Limit")
+    class CachedTransactionLimit {
+        
+        @Test
+        @DisplayName("TDD11-G - Limit follows every score-changing event")
+        void testLimitFollowsScore() {
+            assertEquals(700 * 1000L, account.getTransactionLimitCents());
+            
+            account.deposit(1);
+            account.deposit(1);
+            account.deposit(1); // deposit bonus
+            assertEquals(account.getCreditScore() * 1000L, account.getTransactionLimitCents());
+            account.withdraw(5000); // overdraft penalty
+            assertEquals(account.getCreditScore() * 1000L, account.getTransactionLimitCents());
+            account.suspend();
+            assertEquals(account.getCreditScore() * 1000L, account.getTransactionLimitCents());
+            account.appeal();
+            assertEquals(account.getCreditScore() * 1000L, account.getTransactionLimitCents());
+            account.deposit(6000);
+            account.recalculateCreditScore();
+            assertEquals(account.getCreditScore() * 1000L, account.getTransactionLimitCents());
+            assertEquals(account.getCreditScore() * 10.0, account.getTransactionLimit(), 1e-9);
+        }
+        
+        @Test
+        @DisplayName("TDD12-G - Restored accounts start with the limit of their score")
+        void testRestoredLimit() {
+            CreditScoreAccount restored = new CreditScoreAccount(2, "Restored", 100, AccountStatus.Verified,
+                    400, 0, 0);
+            assertEquals(400 * 1000L, restored.getTransactionLimitCents());
+        }
+        
+        @Test
+        @DisplayName("TDD13-G - Transaction validation uses the account's limit")
+        void testValidationUsesLimit() {
+            TransactionService service = new TransactionService(new InMemoryAccountRepository());
+            CreditScoreAccount rich = new CreditScoreAccount(3, "Rich", 9000, AccountStatus.Verified, 300, 0, 0);
+            
+            // $3000 limit at score 300, although the balance covers more
+            assertTrue(service.validateTransaction(rich, 3000, "withdraw"));
+            assertFalse(service.validateTransaction(rich, 3000.01, "withdraw"));
+            assertFalse(service.validateTransaction(rich, 5000, "transfer"));
+            assertTrue(service.validateTransaction(rich, 5000, "deposit"));
+            
+            rich.recalculateCreditScore();
+            assertTrue(service.validateTransaction(rich, 5000, "transfer"));
+        }
+        
+        @Test
+        @DisplayName("TDD14-G - Each version carries the limit of its own score")
+        void testLimitStoredWithScore() {
+            account.deposit(1);
+            account.deposit(1);
+            account.deposit(1);
+            AccountState state = account.getState();
+            assertEquals(state.getCreditScore() * 1000L, state.getTransactionLimitCents());
+            
+            account.suspend();
+            assertEquals(state.getCreditScore() * 1000L, state.getTransactionLimitCents());
+            assertEquals(account.getState().getCreditScore() * 1000L,
+                    account.getState().getTransactionLimitCents());
+        }
+    }
+}
@@ -3,6 +3,7 @@ package com.banking.whitebox;
 import com.banking.dao.AccountDAO;
 import com.banking.entities.Account;
 import com.banking.entities.Account.AccountStatus;
+import com.banking.entities.CreditScoreAccount;
 import com.banking.services.TransactionService;
 import org.junit.jupiter.api.*;
 import static org.junit.jupiter.api.Assertions.*;
@@ -220,6 +221,33 @@ public class TransactionServiceWhiteBoxTest {
         void testProcessTransferRecipientNotFound() {
             assertFalse(transactionService.processTransfer(sender, "9999 9999 9999 9999", 100, "Test"));
         }
+        
+        @Test
+        @DisplayName("WB29 - processTransfer: above the credit-based transaction limit")
+        void testProcessTransferAboveTransactionLimit() {
+            CreditScoreAccount credit = new CreditScoreAccount(30, "Limited", 9000, AccountStatus.Verified, 300, 0, 0);
+            AccountDAO.add(credit);
+            assertTrue(transactionService.validateTransaction(credit, 3000, "transfer"));
+            assertFalse(transactionService.validateTransaction(credit, 3000.01, "transfer"));
+            assertFalse(transactionService.processTransfer(credit, receiver.getCardNumber(), 3000.01, "Test"));
+            assertTrue(transactionService.processTransfer(credit, receiver.getCardNumber(), 3000, "Test"));
+            assertEquals(6000, credit.getBalance());
+        }
+        
+        @Test
+        @DisplayName("WB30 - validateTransaction: sub-cent amounts over the cap and cent overloads")
+        void testCentAmounts() {
+            assertTrue(transactionService.validateTransaction(account, 10000, "deposit"));
+            assertFalse(transactionService.validateTransaction(account, 10000.004, "deposit"));
+            assertTrue(transactionService.validateTransactionCents(account, 1_000_000, "deposit"));
+            assertFalse(transactionService.validateTransactionCents(account, 1_000_001, "deposit"));
+            
+            assertTrue(transactionService.processDepositCents(account, 1));
+            assertTrue(transactionService.processWithdrawalCents(account, 50_000));
+            assertTrue(transactionService.processTransferCents(account, receiver.getCardNumber(), 25_001, "Test"));
+            assertEquals(25_000, account.getBalanceCents());
+            assertFalse(transactionService.processDepositCents(account, 0));
+        }
     }
     
     // ==================== Loop Coverage Tests ====================